@@ -0,0 +1,110 @@
+package de.ibmix.magkit.test.cms.context;
+
+/*-
+ * #%L
+ * magkit-test-cms Magnolia Module
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.test.jcr.RepositoryMockContext;
+import info.magnolia.context.Context;
+import info.magnolia.context.MgnlContext;
+import info.magnolia.objectfactory.ComponentProvider;
+import info.magnolia.objectfactory.Components;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The mocked Magnolia context and component provider of a thread together with its mocked repository (see {@link RepositoryMockContext}),
+ * captured to use them in other threads.
+ * <p>
+ * The {@link MgnlContext} set by {@link ContextMockUtils#mockWebContext(WebContextStubbingOperation...)} and the component provider
+ * of {@link ComponentsMockUtils} are bound to the thread that mocked them. Code under test rendering or importing content in
+ * parallel sees no context in its worker threads. Run the workers with a captured context instead:
+ * </p>
+ * <pre>{@code
+ * ContextMockUtils.mockWebContext(stubLocale(Locale.GERMAN));
+ * ExecutorService executor = MagnoliaMockContext.propagating(Executors.newFixedThreadPool(4));
+ * Future<Locale> locale = executor.submit(() -> MgnlContext.getLocale());
+ * }</pre>
+ * <p>
+ * The workers use the mocks of the capturing thread; see {@link RepositoryMockContext} for structured and inherited binding and
+ * for concurrent changes of the mocks. Capturing doesn't create a context or component provider, restoring a thread without
+ * them removes them again. The component provider is only replaced if it differs from the current one, so binding doesn't
+ * touch the provider of other threads where {@link Components} holds a single provider for all threads.
+ * </p>
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public class MagnoliaMockContext extends RepositoryMockContext {
+
+    private final Context _context;
+    private final ComponentProvider _componentProvider;
+
+    /**
+     * Captures the mock state of the current thread.
+     */
+    protected MagnoliaMockContext() {
+        _context = MgnlContext.hasInstance() ? MgnlContext.getInstance() : null;
+        _componentProvider = Components.getComponentProvider();
+    }
+
+    /**
+     * Captures the mock state of the current thread.
+     *
+     * @return the context of the current thread
+     */
+    public static MagnoliaMockContext capture() {
+        return new MagnoliaMockContext();
+    }
+
+    /**
+     * Returns an executor service running each task with the context of the thread submitting it.
+     *
+     * @param executor the executor service running the tasks, must not be null
+     * @return the propagating executor service, shutting down the given one
+     */
+    public static ExecutorService propagating(ExecutorService executor) {
+        return propagating(executor, MagnoliaMockContext::capture);
+    }
+
+    /**
+     * Returns a thread factory binding the context of the thread creating a new thread to the new thread.
+     *
+     * @param factory the factory creating the threads, must not be null
+     * @return the inheriting thread factory
+     */
+    public static ThreadFactory inheriting(ThreadFactory factory) {
+        return inheriting(factory, MagnoliaMockContext::capture);
+    }
+
+    @Override
+    protected RepositoryMockContext newContext() {
+        return new MagnoliaMockContext();
+    }
+
+    @Override
+    protected void bind() {
+        super.bind();
+        MgnlContext.setInstance(_context);
+        if (Components.getComponentProvider() != _componentProvider) {
+            Components.setComponentProvider(_componentProvider);
+        }
+    }
+}
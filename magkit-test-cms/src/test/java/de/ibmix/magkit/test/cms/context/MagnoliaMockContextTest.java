@@ -0,0 +1,99 @@
+package de.ibmix.magkit.test.cms.context;
+
+/*-
+ * #%L
+ * magkit-test-cms Magnolia Module
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.test.jcr.NodeMockUtils;
+import de.ibmix.magkit.test.jcr.SessionMockUtils;
+import info.magnolia.context.MgnlContext;
+import info.magnolia.context.WebContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.cleanContext;
+import static de.ibmix.magkit.test.cms.context.ContextMockUtils.mockWebContext;
+import static de.ibmix.magkit.test.cms.context.ComponentsMockUtils.mockComponentInstance;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing MagnoliaMockContext.
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public class MagnoliaMockContextTest {
+
+    @BeforeEach
+    public void setUp() {
+        cleanContext();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cleanContext();
+    }
+
+    @Test
+    public void propagatingExecutorBindsSubmittingThread() throws Exception {
+        WebContext context = mockWebContext(Locale.GERMAN);
+        CharSequence component = mockComponentInstance(CharSequence.class);
+        NodeMockUtils.mockNode("website", "/home");
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        ExecutorService executor = MagnoliaMockContext.propagating(pool);
+        try {
+            assertSame(context, executor.submit(MgnlContext::getInstance).get(10, TimeUnit.SECONDS));
+            assertSame(Locale.GERMAN, executor.submit(MgnlContext::getLocale).get(10, TimeUnit.SECONDS));
+            assertSame(component, executor.submit(() -> mockComponentInstance(CharSequence.class)).get(10, TimeUnit.SECONDS));
+            assertTrue(executor.submit(() -> SessionMockUtils.mockSession("website").nodeExists("/home")).get(10, TimeUnit.SECONDS));
+            assertFalse(pool.submit(MgnlContext::hasInstance).get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void callRestoresPreviousContext() throws Exception {
+        WebContext context = mockWebContext(Locale.GERMAN);
+        MagnoliaMockContext captured = MagnoliaMockContext.capture();
+        cleanContext();
+
+        assertSame(context, captured.call(MgnlContext::getInstance));
+        assertFalse(MgnlContext.hasInstance());
+    }
+
+    @Test
+    public void inheritingThreadFactoryBindsCreatingThread() throws Exception {
+        WebContext context = mockWebContext(Locale.GERMAN);
+        ExecutorService executor = Executors.newSingleThreadExecutor(MagnoliaMockContext.inheriting(Executors.defaultThreadFactory()));
+        try {
+            assertSame(context, executor.submit(MgnlContext::getInstance).get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.assertions.Require;
+import org.apache.jackrabbit.commons.iterator.EventIteratorAdapter;
+
+import javax.jcr.Item;
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Delivers the changes of the node mocks of one workspace as JCR events to the registered {@link EventListener}s.
+ * <p>
+ * The dispatcher is part of each session created by {@link SessionMockUtils#mockPlainSession()} and used by the observation
+ * manager mocks of {@link de.ibmix.magkit.test.jcr.observation.ObservationMockUtils#mockDispatchingObservationManager(String, de.ibmix.magkit.test.jcr.observation.ObservationManagerStubbingOperation...)}.
+ * While listeners are registered or the journal is enabled, every item registered or removed from the session - by {@code addNode}, {@code setProperty},
+ * {@code remove}, {@link NodeStubbingOperation#stubProperty(javax.jcr.Property)}, {@link NodeMockUtils#mockNode(String, NodeStubbingOperation...)}
+ * and the like - is recorded as a pending event. {@link Session#save()} delivers the pending events as one {@link javax.jcr.observation.EventIterator}
+ * per listener that matches its filter, synchronously or on the configured {@link Executor}.
+ * </p>
+ * <p>
+ * Events are coalesced like in a real repository: items added and removed before the save produce no events and changes of
+ * properties added or changed before are not reported again. Moves are reported as removal and addition of the moved items.
+ * Children of lazily mocked fixtures don't produce events when they are mocked on first access.
+ * The filters follow {@link javax.jcr.observation.ObservationManager#addEventListener(EventListener, int, String, boolean, String[], String[], boolean)}:
+ * the path, identifier and node type filters apply to the parent node of the event item. The {@code noLocal} flag is ignored
+ * because all changes of a workspace are made through its single session mock.
+ * </p>
+ * <p>
+ * The saved events are recorded in an {@link EventJournalBuffer} as well if enabled by {@link #enableJournal(int)}.
+ * Restoring a {@link RepositorySnapshot} resets the listeners, the pending events and the journal to their state at the snapshot.
+ * The sessions of a {@link SharedRepository} don't support observation.
+ * </p>
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public final class EventDispatcher {
+
+    private final Session _session;
+    private final Map<EventListener, Filter> _listeners = new LinkedHashMap<>();
+    private final List<MockEvent> _pending = new ArrayList<>();
+    private final Map<String, MockEvent> _pendingNodes = new HashMap<>();
+    private final Map<String, MockEvent> _pendingProperties = new HashMap<>();
+    private final Set<MockEvent> _cancelled = new HashSet<>();
+    private Executor _executor;
+    private EventJournalBuffer _journal;
+    private String _userData;
+    private long _lastDate;
+    private boolean _muted;
+    private boolean _shared;
+
+    EventDispatcher(Session session) {
+        _session = session;
+    }
+
+    /**
+     * Registers a listener or replaces the filter of a registered listener.
+     *
+     * @param listener the listener, must not be null
+     * @param eventTypes the combination of the {@link Event} types to deliver
+     * @param absPath the path of the parent nodes of the delivered events, all paths if null
+     * @param isDeep true to deliver the events below the path as well
+     * @param uuid the identifiers of the parent nodes of the delivered events, all nodes if null
+     * @param nodeTypeName the node types of the parent nodes of the delivered events (including subtypes), all types if null
+     */
+    public void addEventListener(EventListener listener, int eventTypes, String absPath, boolean isDeep, String[] uuid, String[] nodeTypeName) {
+        Require.Argument.notNull(listener, "listener must not be null");
+        beforeChange();
+        _listeners.put(listener, new Filter(eventTypes, absPath, isDeep, uuid, nodeTypeName));
+    }
+
+    /**
+     * Removes a registered listener. Pending events are not delivered to the listener anymore.
+     *
+     * @param listener the listener
+     */
+    public void removeEventListener(EventListener listener) {
+        beforeChange();
+        _listeners.remove(listener);
+        if (!isRecording()) {
+            clearPendingEvents();
+        }
+    }
+
+    /**
+     * Returns the registered listeners.
+     *
+     * @return the listeners in registration order
+     */
+    public List<EventListener> getEventListeners() {
+        return new ArrayList<>(_listeners.keySet());
+    }
+
+    /**
+     * Sets the user data answered by {@link Event#getUserData()} of the events delivered by the following saves.
+     *
+     * @param userData the user data, may be null
+     */
+    public void setUserData(String userData) {
+        beforeChange();
+        _userData = userData;
+    }
+
+    /**
+     * Sets the executor delivering the events to the listeners.
+     *
+     * @param executor the executor or null to deliver the events synchronously within {@link Session#save()}
+     */
+    public void setExecutor(Executor executor) {
+        beforeChange();
+        _executor = executor;
+    }
+
+    /**
+     * Returns the executor delivering the events to the listeners.
+     *
+     * @return the executor or null if the events are delivered synchronously
+     */
+    public Executor getExecutor() {
+        return _executor;
+    }
+
+    /**
+     * Starts recording the saved events in an event journal that keeps the given number of latest events. Events saved before
+     * are not recorded. Enabling the journal again with another capacity replaces the journal and its events.
+     *
+     * @param capacity the maximum number of events kept, must be positive
+     * @return the journal
+     */
+    public EventJournalBuffer enableJournal(int capacity) {
+        Require.Argument.reject(c -> (int) c <= 0, capacity, "capacity must be positive");
+        beforeChange();
+        if (_journal == null || _journal.getCapacity() != capacity) {
+            _journal = new EventJournalBuffer(capacity);
+        }
+        return _journal;
+    }
+
+    /**
+     * Returns the event journal of the workspace.
+     *
+     * @return the journal or null if it is not enabled
+     */
+    public EventJournalBuffer getJournal() {
+        return _journal;
+    }
+
+    /**
+     * Returns the number of events recorded since the last save.
+     *
+     * @return the number of pending events
+     */
+    public int getPendingEventCount() {
+        return _pending.size() - _cancelled.size();
+    }
+
+    /**
+     * Delivers the pending events to the registered listeners whose filter matches at least one event and clears them.
+     * The events are added to the journal if enabled. Exceptions of listeners called synchronously are passed on.
+     *
+     * @throws RepositoryException if the parent node of an event can't be read
+     */
+    public void dispatch() throws RepositoryException {
+        if (!_pending.isEmpty()) {
+            beforeChange();
+            List<MockEvent> events = new ArrayList<>(_pending.size());
+            _lastDate = Math.max(_lastDate, System.currentTimeMillis());
+            String userId = _session.getUserID();
+            for (MockEvent event : _pending) {
+                if (!_cancelled.contains(event)) {
+                    events.add(event.publish(_lastDate, userId, _userData));
+                }
+            }
+            clearPendingEvents();
+            if (_journal != null) {
+                _journal.addAll(events);
+            }
+            for (Map.Entry<EventListener, Filter> entry : new ArrayList<>(_listeners.entrySet())) {
+                List<Event> accepted = entry.getValue().filter(events);
+                if (!accepted.isEmpty()) {
+                    EventListener listener = entry.getKey();
+                    if (_executor == null) {
+                        listener.onEvent(new EventIteratorAdapter(accepted));
+                    } else {
+                        _executor.execute(() -> listener.onEvent(new EventIteratorAdapter(accepted)));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Switches the recording of events off while existing data is mocked, e.g. the children of lazy fixtures.
+     *
+     * @param muted true to stop recording
+     * @return the previous state
+     */
+    boolean setMuted(boolean muted) {
+        boolean result = _muted;
+        _muted = muted;
+        return result;
+    }
+
+    /**
+     * Stops recording for good when the session becomes part of a {@link SharedRepository}: the dispatcher is not changed
+     * anymore and rejects listeners and journals.
+     */
+    void share() {
+        _muted = true;
+        _shared = true;
+    }
+
+    /**
+     * Records the event for an item registered in the session.
+     *
+     * @param item the registered item
+     * @param previous the item registered with the same path before or null
+     */
+    void itemAdded(Item item, Item previous) throws RepositoryException {
+        if (isRecording() && previous != item) {
+            beforeChange();
+            String path = item.getPath();
+            if (item.isNode()) {
+                if (previous == null) {
+                    record(_pendingNodes, path, newEvent(Event.NODE_ADDED, path, item));
+                }
+            } else if (previous == null) {
+                record(_pendingProperties, path, newEvent(Event.PROPERTY_ADDED, path, item));
+            } else if (!_pendingProperties.containsKey(path)) {
+                record(_pendingProperties, path, newEvent(Event.PROPERTY_CHANGED, path, item));
+            }
+        }
+    }
+
+    /**
+     * Records the event for an item removed from the session. The pending events of an item added since the last save are
+     * cancelled instead.
+     *
+     * @param item the removed item
+     */
+    void itemRemoved(Item item) throws RepositoryException {
+        if (isRecording()) {
+            beforeChange();
+            String path = item.getPath();
+            boolean isNode = item.isNode();
+            MockEvent pending = (isNode ? _pendingNodes : _pendingProperties).remove(path);
+            if (pending != null) {
+                _cancelled.add(pending);
+            }
+            if (pending == null || pending._type == Event.PROPERTY_CHANGED) {
+                int type = isNode ? Event.NODE_REMOVED : Event.PROPERTY_REMOVED;
+                _pending.add(newEvent(type, path, item));
+            }
+        }
+    }
+
+    private boolean isRecording() {
+        return !_muted && (!_listeners.isEmpty() || _journal != null);
+    }
+
+    /**
+     * Journals the listeners, pending events and journal of the dispatcher before the first change while a {@link RepositorySnapshot} is active.
+     */
+    private void beforeChange() {
+        Require.State.reject(shared -> (boolean) shared, _shared, "observation is not supported by shared repositories");
+        RepositorySnapshot.touch(this, () -> {
+            Map<EventListener, Filter> listeners = new LinkedHashMap<>(_listeners);
+            List<MockEvent> pending = new ArrayList<>();
+            for (MockEvent event : _pending) {
+                if (!_cancelled.contains(event)) {
+                    pending.add(event);
+                }
+            }
+            Map<String, MockEvent> pendingNodes = new HashMap<>(_pendingNodes);
+            Map<String, MockEvent> pendingProperties = new HashMap<>(_pendingProperties);
+            Executor executor = _executor;
+            EventJournalBuffer journal = _journal;
+            long journalSequence = journal == null ? 0 : journal.getSequence();
+            String userData = _userData;
+            return () -> {
+                _listeners.clear();
+                _listeners.putAll(listeners);
+                clearPendingEvents();
+                _pending.addAll(pending);
+                _pendingNodes.putAll(pendingNodes);
+                _pendingProperties.putAll(pendingProperties);
+                _executor = executor;
+                _journal = journal;
+                if (journal != null) {
+                    journal.truncate(journalSequence);
+                }
+                _userData = userData;
+            };
+        });
+    }
+
+    private static MockEvent newEvent(int type, String path, Item item) throws RepositoryException {
+        Node parent = item.getParent();
+        String identifier = item.isNode() ? ((Node) item).getIdentifier() : parent == null ? null : parent.getIdentifier();
+        return new MockEvent(type, path, identifier, parent);
+    }
+
+    private void record(Map<String, MockEvent> pendingByPath, String path, MockEvent event) {
+        pendingByPath.put(path, event);
+        _pending.add(event);
+    }
+
+    private void clearPendingEvents() {
+        _pending.clear();
+        _pendingNodes.clear();
+        _pendingProperties.clear();
+        _cancelled.clear();
+    }
+
+    private static String getParentPath(String path) {
+        int index = path.lastIndexOf('/');
+        return index <= 0 ? "/" : path.substring(0, index);
+    }
+
+    /**
+     * The filter of a registered listener or an event journal.
+     */
+    static final class Filter {
+        private final int _eventTypes;
+        private final String _absPath;
+        private final String _pathPrefix;
+        private final boolean _deep;
+        private final Set<String> _identifiers;
+        private final String[] _nodeTypes;
+
+        Filter(int eventTypes, String absPath, boolean isDeep, String[] uuid, String[] nodeTypeName) {
+            _eventTypes = eventTypes;
+            _absPath = absPath;
+            _pathPrefix = absPath == null || absPath.endsWith("/") ? absPath : absPath + '/';
+            _deep = isDeep;
+            _identifiers = uuid == null ? null : new HashSet<>(Arrays.asList(uuid));
+            _nodeTypes = nodeTypeName == null ? null : nodeTypeName.clone();
+        }
+
+        List<Event> filter(List<MockEvent> events) throws RepositoryException {
+            List<Event> result = new ArrayList<>();
+            Map<Node, Boolean> typeMatches = newTypeMatches();
+            for (MockEvent event : events) {
+                if (accepts(event, typeMatches)) {
+                    result.add(event);
+                }
+            }
+            return result.isEmpty() ? Collections.emptyList() : result;
+        }
+
+        /**
+         * Returns the cache for the node type matches of the parent nodes to be passed to {@link #accepts(MockEvent, Map)}.
+         *
+         * @return the cache or null if the filter has no node types
+         */
+        Map<Node, Boolean> newTypeMatches() {
+            return _nodeTypes == null ? null : new IdentityHashMap<>();
+        }
+
+        boolean accepts(MockEvent event, Map<Node, Boolean> typeMatches) throws RepositoryException {
+            return (_eventTypes & event._type) != 0 && matchesPath(getParentPath(event._path)) && matchesParent(event._parent, typeMatches);
+        }
+
+        private boolean matchesPath(String parentPath) {
+            return _absPath == null || parentPath.equals(_absPath) || _deep && parentPath.startsWith(_pathPrefix);
+        }
+
+        private boolean matchesParent(Node parent, Map<Node, Boolean> typeMatches) throws RepositoryException {
+            boolean result = _identifiers == null || parent != null && _identifiers.contains(parent.getIdentifier());
+            if (result && typeMatches != null) {
+                Boolean matches = parent == null ? Boolean.FALSE : typeMatches.get(parent);
+                if (matches == null) {
+                    matches = Boolean.FALSE;
+                    for (int i = 0; !matches && i < _nodeTypes.length; i++) {
+                        matches = parent.isNodeType(_nodeTypes[i]);
+                    }
+                    typeMatches.put(parent, matches);
+                }
+                result = matches;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A recorded event. The identifier is the one of the node or the parent node of a property. The delivered event is a copy
+     * with the date, user id and user data of the save, so the pending events kept by a {@link RepositorySnapshot} never change.
+     */
+    static final class MockEvent implements Event {
+        private final int _type;
+        private final String _path;
+        private final String _identifier;
+        private final Node _parent;
+        private final long _date;
+        private final String _userId;
+        private final String _userData;
+
+        MockEvent(int type, String path, String identifier, Node parent) {
+            this(type, path, identifier, parent, 0, null, null);
+        }
+
+        private MockEvent(int type, String path, String identifier, Node parent, long date, String userId, String userData) {
+            _type = type;
+            _path = path;
+            _identifier = identifier;
+            _parent = parent;
+            _date = date;
+            _userId = userId;
+            _userData = userData;
+        }
+
+        MockEvent publish(long date, String userId, String userData) {
+            return new MockEvent(_type, _path, _identifier, _parent, date, userId, userData);
+        }
+
+        @Override
+        public int getType() {
+            return _type;
+        }
+
+        @Override
+        public String getPath() {
+            return _path;
+        }
+
+        @Override
+        public String getUserID() {
+            return _userId;
+        }
+
+        @Override
+        public String getIdentifier() {
+            return _identifier;
+        }
+
+        @Override
+        public Map<String, Object> getInfo() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public String getUserData() {
+            return _userData;
+        }
+
+        @Override
+        public long getDate() {
+            return _date;
+        }
+
+        @Override
+        public String toString() {
+            return "Event(" + _type + ", " + _path + ")";
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventJournal;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Bounded in-memory store of the events saved in a mocked workspace, answering {@link EventJournal}s.
+ * <p>
+ * The buffer is enabled by {@link EventDispatcher#enableJournal(int)} and keeps the latest events up to its capacity in a
+ * ring buffer, overwriting the oldest events when full. The memory is allocated once, so replaying long event histories
+ * doesn't grow the heap. The dates of the events never decrease in recording order, so the buffer is its own time index:
+ * {@link EventJournal#skipTo(long)} finds the first event of a date by binary search.
+ * </p>
+ * <p>
+ * The journals read the buffer directly without copying and see the events saved after their creation as well. A journal that
+ * falls behind by more than the capacity continues with the oldest event still kept. Journals with a filter don't know their
+ * size in advance and answer -1 for {@link EventJournal#getSize()}.
+ * </p>
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public final class EventJournalBuffer {
+
+    private final EventDispatcher.MockEvent[] _events;
+    private final long[] _dates;
+    private long _first;
+    private long _next;
+
+    EventJournalBuffer(int capacity) {
+        _events = new EventDispatcher.MockEvent[capacity];
+        _dates = new long[capacity];
+    }
+
+    /**
+     * Returns the maximum number of events kept.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return _events.length;
+    }
+
+    /**
+     * Returns the number of events kept.
+     *
+     * @return the number of events, at most the capacity
+     */
+    public int getEventCount() {
+        return (int) (_next - getFirstSequence());
+    }
+
+    /**
+     * Returns the number of events overwritten because the buffer was full.
+     *
+     * @return the number of dropped events
+     */
+    public long getDroppedCount() {
+        return getFirstSequence();
+    }
+
+    /**
+     * Removes all events.
+     */
+    public void clear() {
+        for (int i = 0; i < _events.length; i++) {
+            _events[i] = null;
+        }
+        _first = 0;
+        _next = 0;
+    }
+
+    /**
+     * Returns a journal of all kept events.
+     *
+     * @return a new journal positioned before the oldest event
+     */
+    public EventJournal getEventJournal() {
+        return new Journal(null);
+    }
+
+    /**
+     * Returns a journal of the kept events matching a filter like the ones of
+     * {@link javax.jcr.observation.ObservationManager#getEventJournal(int, String, boolean, String[], String[])}.
+     *
+     * @param eventTypes the combination of the {@link Event} types to return
+     * @param absPath the path of the parent nodes of the returned events, all paths if null
+     * @param isDeep true to return the events below the path as well
+     * @param uuid the identifiers of the parent nodes of the returned events, all nodes if null
+     * @param nodeTypeName the node types of the parent nodes of the returned events (including subtypes), all types if null
+     * @return a new journal positioned before the oldest matching event
+     */
+    public EventJournal getEventJournal(int eventTypes, String absPath, boolean isDeep, String[] uuid, String[] nodeTypeName) {
+        return new Journal(new EventDispatcher.Filter(eventTypes, absPath, isDeep, uuid, nodeTypeName));
+    }
+
+    void addAll(List<EventDispatcher.MockEvent> events) {
+        for (EventDispatcher.MockEvent event : events) {
+            int index = index(_next);
+            _events[index] = event;
+            _dates[index] = event.getDate();
+            _next++;
+        }
+    }
+
+    /**
+     * Returns the sequence number of the next event.
+     */
+    long getSequence() {
+        return _next;
+    }
+
+    /**
+     * Removes the events recorded after the given sequence number. Older events overwritten by them are lost.
+     *
+     * @param sequence the sequence number of the first event to remove
+     */
+    void truncate(long sequence) {
+        if (sequence < _next) {
+            for (long i = Math.max(sequence, getFirstSequence()); i < _next; i++) {
+                _events[index(i)] = null;
+            }
+            _first = Math.min(Math.max(_first, _next - _events.length), sequence);
+            _next = sequence;
+        }
+    }
+
+    private long getFirstSequence() {
+        return Math.max(_first, _next - _events.length);
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % _events.length);
+    }
+
+    /**
+     * Returns the sequence number of the first event at or after the given sequence with a date not before the given date.
+     */
+    private long findSequence(long from, long date) {
+        long low = Math.max(from, getFirstSequence());
+        long high = _next;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if (_dates[index(middle)] < date) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * A journal reading the events of the buffer by their sequence number.
+     */
+    private final class Journal implements EventJournal {
+        private final EventDispatcher.Filter _filter;
+        private final Map<Node, Boolean> _typeMatches;
+        private long _sequence;
+        private long _position;
+
+        Journal(EventDispatcher.Filter filter) {
+            _filter = filter;
+            _typeMatches = filter == null ? null : filter.newTypeMatches();
+        }
+
+        @Override
+        public void skipTo(long date) {
+            long sequence = findSequence(_sequence, date);
+            if (_filter == null) {
+                _position += sequence - Math.max(_sequence, getFirstSequence());
+            }
+            _sequence = sequence;
+        }
+
+        @Override
+        public Event nextEvent() {
+            Event result = peek();
+            if (result == null) {
+                throw new NoSuchElementException("No more events at position " + _position);
+            }
+            _sequence++;
+            _position++;
+            return result;
+        }
+
+        @Override
+        public void skip(long skipNum) {
+            if (skipNum < 0) {
+                throw new IllegalArgumentException("skipNum must not be negative");
+            }
+            if (_filter == null) {
+                long available = _next - Math.max(_sequence, getFirstSequence());
+                if (skipNum > available) {
+                    throw new NoSuchElementException("Can't skip " + skipNum + " events at position " + _position);
+                }
+                _sequence = Math.max(_sequence, getFirstSequence()) + skipNum;
+                _position += skipNum;
+            } else {
+                for (long i = 0; i < skipNum; i++) {
+                    nextEvent();
+                }
+            }
+        }
+
+        @Override
+        public long getSize() {
+            return _filter == null ? _position + _next - Math.max(_sequence, getFirstSequence()) : -1;
+        }
+
+        @Override
+        public long getPosition() {
+            return _position;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return peek() != null;
+        }
+
+        @Override
+        public Object next() {
+            return nextEvent();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Event journals can't be modified");
+        }
+
+        /**
+         * Moves to the next kept event matching the filter without consuming it.
+         */
+        private Event peek() {
+            _sequence = Math.max(_sequence, getFirstSequence());
+            Event result = null;
+            while (result == null && _sequence < _next) {
+                EventDispatcher.MockEvent event = _events[index(_sequence)];
+                if (_filter == null || accepts(event)) {
+                    result = event;
+                } else {
+                    _sequence++;
+                }
+            }
+            return result;
+        }
+
+        private boolean accepts(EventDispatcher.MockEvent event) {
+            try {
+                return _filter.accepts(event, _typeMatches);
+            } catch (RepositoryException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.jackrabbit.JcrConstants;
+
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.PropertyType;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index of the terms in the string properties of the node mocks of one workspace.
+ * <p>
+ * The index is part of the {@link WorkspaceIndex} and enabled with {@link SessionMockUtils#enableFullTextIndex(String)}.
+ * It maps each term to the nodes with a string property containing the term and is updated like the other indexes of the
+ * workspace whenever a property is stubbed or removed. Texts are split into terms by {@link #tokenize(String)}.
+ * The query evaluation uses the index to find the candidates of {@code CONTAINS()} and {@code jcr:contains()} constraints.
+ * </p>
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public final class FullTextIndex {
+
+    private final WorkspaceIndex.OverlayMap<String, Map<Node, Integer>> _nodesByTerm;
+    private final WorkspaceIndex.OverlayMap<Node, Map<String, Set<String>>> _termsByNode;
+
+    FullTextIndex() {
+        this(null);
+    }
+
+    /**
+     * Creates an index layered over the given index, see {@link WorkspaceIndex.OverlayMap}.
+     *
+     * @param base the index that does not change anymore or null for an empty index
+     */
+    FullTextIndex(FullTextIndex base) {
+        _nodesByTerm = new WorkspaceIndex.OverlayMap<>(base == null ? null : base._nodesByTerm);
+        _termsByNode = new WorkspaceIndex.OverlayMap<>(base == null ? null : base._termsByNode);
+    }
+
+    /**
+     * Splits a text into lower case terms at all characters that are neither letters nor digits.
+     *
+     * @param text the text, may be null
+     * @return the terms in text order
+     */
+    public static List<String> tokenize(String text) {
+        List<String> result = new ArrayList<>();
+        int start = -1;
+        int length = text == null ? 0 : text.length();
+        for (int i = 0; i <= length; i++) {
+            boolean termChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (termChar && start < 0) {
+                start = i;
+            } else if (!termChar && start >= 0) {
+                result.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if the terms of the property are indexed and searched. These are the string properties except the node
+     * type properties {@code jcr:primaryType} and {@code jcr:mixinTypes}, which are string properties in mocks.
+     *
+     * @param property the property
+     * @return true for full-text searchable properties
+     * @throws RepositoryException if the name or type can't be read
+     */
+    public static boolean isFullTextProperty(Property property) throws RepositoryException {
+        String name = property.getName();
+        return property.getType() == PropertyType.STRING && !JcrConstants.JCR_PRIMARYTYPE.equals(name) && !JcrConstants.JCR_MIXINTYPES.equals(name);
+    }
+
+    /**
+     * Returns the nodes with a string property containing the given term.
+     *
+     * @param term the term, matched after conversion to lower case
+     * @return the nodes in the order they have been indexed
+     */
+    public List<Node> getNodes(String term) {
+        Map<Node, Integer> nodes = term == null ? null : _nodesByTerm.get(term.toLowerCase(Locale.ROOT));
+        return nodes == null ? Collections.emptyList() : new ArrayList<>(nodes.keySet());
+    }
+
+    /**
+     * Returns the number of nodes with a string property containing the given term.
+     *
+     * @param term the term, matched after conversion to lower case
+     * @return the number of nodes
+     */
+    public int getNodeCount(String term) {
+        Map<Node, Integer> nodes = term == null ? null : _nodesByTerm.get(term.toLowerCase(Locale.ROOT));
+        return nodes == null ? 0 : nodes.size();
+    }
+
+    /**
+     * Returns the number of distinct terms in the index.
+     *
+     * @return the number of terms
+     */
+    public int getTermCount() {
+        return _nodesByTerm.size();
+    }
+
+    /**
+     * Indexes the terms of a property, replacing the terms indexed for the property before.
+     *
+     * @param node the node of the property
+     * @param name the property name
+     * @param values the values of a string property or null to remove the property from the index
+     */
+    void putProperty(Node node, String name, Value[] values) throws RepositoryException {
+        Set<String> terms = new HashSet<>();
+        for (int i = 0; values != null && i < values.length; i++) {
+            if (values[i] != null) {
+                terms.addAll(tokenize(values[i].getString()));
+            }
+        }
+        Map<String, Set<String>> termsByProperty = _termsByNode.get(node);
+        Set<String> previous = termsByProperty == null ? null : termsByProperty.get(name);
+        for (String term : previous == null ? Collections.<String>emptySet() : previous) {
+            if (!terms.contains(term)) {
+                removePosting(term, node);
+            }
+        }
+        for (String term : terms) {
+            if (previous == null || !previous.contains(term)) {
+                _nodesByTerm.getWritable(term, LinkedHashMap::new, LinkedHashMap::new).merge(node, 1, Integer::sum);
+            }
+        }
+        if (!terms.isEmpty()) {
+            _termsByNode.getWritable(node, HashMap::new, HashMap::new).put(name, terms);
+        } else if (termsByProperty != null) {
+            termsByProperty = _termsByNode.getWritable(node, HashMap::new, null);
+            termsByProperty.remove(name);
+            if (termsByProperty.isEmpty()) {
+                _termsByNode.remove(node);
+            }
+        }
+    }
+
+    /**
+     * Removes a node and the terms of all its properties from the index.
+     *
+     * @param node the removed node
+     */
+    void removeNode(Node node) {
+        Map<String, Set<String>> termsByProperty = _termsByNode.remove(node);
+        if (termsByProperty != null) {
+            for (Set<String> terms : termsByProperty.values()) {
+                for (String term : terms) {
+                    removePosting(term, node);
+                }
+            }
+        }
+    }
+
+    void clear() {
+        _nodesByTerm.clear();
+        _termsByNode.clear();
+    }
+
+    private void removePosting(String term, Node node) {
+        Map<Node, Integer> nodes = _nodesByTerm.getWritable(term, LinkedHashMap::new, null);
+        if (nodes != null && nodes.merge(node, -1, Integer::sum) <= 0) {
+            nodes.remove(node);
+            if (nodes.isEmpty()) {
+                _nodesByTerm.remove(term);
+            }
+        }
+    }
+}
@@ -28,15 +28,13 @@ import org.xml.sax.helpers.DefaultHandler;
 import javax.jcr.Node;
 import javax.jcr.PropertyType;
 import javax.jcr.RepositoryException;
-import javax.jcr.Value;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
 import java.util.List;
-import java.util.Stack;
-
-import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
-import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubIdentifier;
-import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
-import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubType;
 
 /**
  * SAX {@link org.xml.sax.ContentHandler} implementation that parses JCR system view XML ("sv:" namespace)
@@ -50,6 +48,13 @@ import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubType;
  * </ul>
  * Properties <code>jcr:primaryType</code> and <code>jcr:uuid</code> are treated specially to stub node type and identifier.
  * <p>
+ * The document is parsed into an intermediate {@code XmlFixture} tree of names and raw values first. Character data is
+ * collected in one reusable buffer, and base64 encoded values of <code>Binary</code> properties are decoded chunk by chunk
+ * while they are read, so the handler processes large exports in a single streaming pass. {@link NodeMockUtils#mockNodeFromXml(String, java.io.InputStream)}
+ * reads content small enough for the {@link XmlFixtureCache} into memory first to look it up. When the root <code>sv:node</code>
+ * is closed, the node mocks are created from the fixture, attaching each child node to its parent directly.
+ * </p>
+ * <p>
  * After the parse has finished (e.g., the root <code>sv:node</code> element is closed) {@link #getResult()} returns
  * the root node of the parsed subtree.
  * <p>
@@ -69,12 +74,17 @@ import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubType;
 public class JcrXmlHandler extends DefaultHandler {
 
     private final String _repository;
+    private final boolean _mockNodes;
     private Node _result;
-    private final Stack<Node> _currentPath = new Stack<>();
+    private XmlFixture _fixture;
+    private final Deque<XmlFixture> _currentPath = new ArrayDeque<>();
     private String _currentPropertyName = null;
-    private String _currentPropertyType = null;
-    private List<Value> _currentValues = null;
-    private String _currentValue = null;
+    private int _currentPropertyType = PropertyType.STRING;
+    private List<Object> _currentValues = null;
+    private final StringBuilder _currentValue = new StringBuilder();
+    private final Base64Decoder _currentBinary = new Base64Decoder();
+    private boolean _inValue = false;
+    private boolean _hasValue = false;
 
     /**
      * Creates a new handler for parsing JCR system view XML.
@@ -83,7 +93,21 @@ public class JcrXmlHandler extends DefaultHandler {
      * @param repository the logical repository/workspace name used to build mock node paths; may be {@code null} or blank
      */
     public JcrXmlHandler(String repository) {
+        this(repository, true);
+    }
+
+    /**
+     * Creates a new handler that only parses the XML into an {@code XmlFixture} without creating node mocks.
+     *
+     * @return the new handler
+     */
+    static JcrXmlHandler forFixture() {
+        return new JcrXmlHandler(null, false);
+    }
+
+    private JcrXmlHandler(String repository, boolean mockNodes) {
         _repository = StringUtils.isEmpty(repository) ? "website" : repository;
+        _mockNodes = mockNodes;
     }
 
     /**
@@ -100,31 +124,28 @@ public class JcrXmlHandler extends DefaultHandler {
     @SuppressWarnings("RedundantThrows")
     public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
         if ("sv:node".equalsIgnoreCase(qName)) {
-            String nodeName = attributes.getValue("sv:name");
-            Node node = null;
-            try {
-                if (!_currentPath.isEmpty()) {
-                    Node current = _currentPath.peek();
-                    node = mockNode(_repository, current.getPath() + "/" + nodeName);
-                } else {
-                    node = mockNode(_repository, nodeName);
-                }
-            } catch (RepositoryException e) {
-                // ignore, no repository involved
+            XmlFixture node = new XmlFixture(attributes.getValue("sv:name"));
+            if (!_currentPath.isEmpty()) {
+                _currentPath.peek().addChild(node);
             }
             _currentPath.push(node);
         } else if ("sv:property".equalsIgnoreCase(qName)) {
             _currentValues = new ArrayList<>();
             _currentPropertyName = attributes.getValue("sv:name");
-            _currentPropertyType = attributes.getValue("sv:type");
+            String type = attributes.getValue("sv:type");
+            _currentPropertyType = type == null ? PropertyType.STRING : PropertyType.valueFromName(type);
         } else if ("sv:value".equalsIgnoreCase(qName)) {
-            _currentValue = null;
+            _currentValue.setLength(0);
+            _currentBinary.reset();
+            _inValue = true;
+            _hasValue = false;
         }
     }
 
     /**
-     * Accumulates character data for the current <code>sv:value</code>. Multiple invocations will concatenate text
-     * to form the complete property value content.
+     * Accumulates character data for the current <code>sv:value</code>. Multiple invocations will append text
+     * to form the complete property value content; binary values are decoded on the fly. Character data outside of
+     * <code>sv:value</code> elements is ignored.
      *
      * @param ac     the array of characters
      * @param offset the start position in the array
@@ -134,18 +155,20 @@ public class JcrXmlHandler extends DefaultHandler {
     @Override
     @SuppressWarnings("RedundantThrows")
     public void characters(char[] ac, int offset, int count) throws SAXException {
-        String str = String.valueOf(ac, offset, count);
-        if (_currentValue == null) {
-            _currentValue = str;
-        } else {
-            _currentValue = _currentValue + str;
+        if (_inValue) {
+            _hasValue = true;
+            if (_currentPropertyType == PropertyType.BINARY) {
+                _currentBinary.append(ac, offset, count);
+            } else {
+                _currentValue.append(ac, offset, count);
+            }
         }
     }
 
     /**
-     * Handles the end of an XML element. On closing <code>sv:value</code> a mocked {@link Value} is constructed.
-     * On closing <code>sv:property</code> the collected values are stubbed onto the current node. On closing
-     * <code>sv:node</code> the node is popped from the stack and may become the result root.
+     * Handles the end of an XML element. On closing <code>sv:value</code> the raw value is collected.
+     * On closing <code>sv:property</code> the collected values are added to the current node. On closing
+     * <code>sv:node</code> the node is popped from the stack; for the root node the node mocks are created.
      *
      * @param uri       the Namespace URI, or the empty string if none
      * @param localName the local name (without prefix), or the empty string if none
@@ -155,21 +178,24 @@ public class JcrXmlHandler extends DefaultHandler {
     @Override
     @SuppressWarnings("RedundantThrows")
     public void endElement(String uri, String localName, String qName) throws SAXException {
-        try {
-            if ("sv:value".equalsIgnoreCase(qName)) {
-                _currentValues.add(ValueMockUtils.mockValue(_currentValue, PropertyType.valueFromName(_currentPropertyType)));
-                if ("jcr:primaryType".equalsIgnoreCase(_currentPropertyName)) {
-                    stubType(_currentValue).of(_currentPath.peek());
-                } else if ("jcr:uuid".equalsIgnoreCase(_currentPropertyName)) {
-                    stubIdentifier(_currentValue).of(_currentPath.peek());
+        if ("sv:value".equalsIgnoreCase(qName)) {
+            _inValue = false;
+            if (_currentPropertyType == PropertyType.BINARY) {
+                _currentValues.add(_currentBinary.finish());
+            } else {
+                _currentValues.add(_hasValue ? _currentValue.toString() : null);
+            }
+        } else if ("sv:property".equalsIgnoreCase(qName)) {
+            _currentPath.peek().addProperty(_currentPropertyName, _currentPropertyType, _currentValues.toArray());
+        } else if ("sv:node".equalsIgnoreCase(qName)) {
+            _fixture = _currentPath.pop();
+            if (_mockNodes && _currentPath.isEmpty()) {
+                try {
+                    _result = _fixture.mockNodes(_repository);
+                } catch (RepositoryException e) {
+                    // ignore, no repository involved
                 }
-            } else if ("sv:property".equalsIgnoreCase(qName)) {
-                stubProperty(_currentPropertyName, _currentValues.toArray(new Value[0])).of(_currentPath.peek());
-            } else if ("sv:node".equalsIgnoreCase(qName)) {
-                _result = _currentPath.pop();
             }
-        } catch (RepositoryException e) {
-            // ignore, no repository involved
         }
     }
 
@@ -182,4 +208,54 @@ public class JcrXmlHandler extends DefaultHandler {
     public Node getResult() {
         return _result;
     }
+
+    /**
+     * Returns the parsed form of the root <code>sv:node</code> element.
+     *
+     * @return the parsed root node or {@code null} if parsing has not completed
+     */
+    XmlFixture getFixture() {
+        return _fixture;
+    }
+
+    /**
+     * Incremental decoder for base64 encoded character data. Characters are collected in a fixed size chunk that is decoded
+     * whenever it is full, so the encoded value is never held in memory as a whole. Whitespace is skipped.
+     */
+    private static final class Base64Decoder {
+        private static final int CHUNK_SIZE = 8192;
+        private final byte[] _chunk = new byte[CHUNK_SIZE];
+        private int _length;
+        private final ByteArrayOutputStream _bytes = new ByteArrayOutputStream();
+
+        void append(char[] ac, int offset, int count) {
+            for (int i = offset; i < offset + count; i++) {
+                char c = ac[i];
+                if (!Character.isWhitespace(c)) {
+                    _chunk[_length++] = (byte) c;
+                    if (_length == CHUNK_SIZE) {
+                        decodeChunk();
+                    }
+                }
+            }
+        }
+
+        byte[] finish() {
+            decodeChunk();
+            return _bytes.toByteArray();
+        }
+
+        void reset() {
+            _length = 0;
+            _bytes.reset();
+        }
+
+        private void decodeChunk() {
+            if (_length > 0) {
+                ByteBuffer decoded = Base64.getDecoder().decode(ByteBuffer.wrap(_chunk, 0, _length));
+                _bytes.write(decoded.array(), decoded.arrayOffset() + decoded.position(), decoded.remaining());
+                _length = 0;
+            }
+        }
+    }
 }
@@ -0,0 +1,138 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled JCR name pattern as used by {@link javax.jcr.Node#getNodes(String)} and {@link javax.jcr.Node#getProperties(String[])}.
+ * <p>
+ * A pattern is a list of globs separated by {@code |}, the whitespace around each glob is ignored. A glob matches a name
+ * literally, except for {@code *} that matches any (also empty) sequence of characters. The array variants take the globs
+ * without splitting them at {@code |}. Compiled patterns are cached per thread, so repeated filtering of wide nodes doesn't
+ * parse the same pattern again.
+ * </p>
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+final class NamePattern {
+
+    private static final int MAX_CACHE_SIZE = 256;
+    private static final ThreadLocal<Map<Object, NamePattern>> CACHE = ThreadLocal.withInitial(() -> new LinkedHashMap<Object, NamePattern>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, NamePattern> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    });
+
+    private final String[][] _globs;
+    private final String _literal;
+
+    private NamePattern(List<String> globs) {
+        _globs = new String[globs.size()][];
+        for (int i = 0; i < _globs.length; i++) {
+            _globs[i] = splitGlob(globs.get(i));
+        }
+        _literal = _globs.length == 1 && _globs[0].length == 1 ? _globs[0][0] : null;
+    }
+
+    /**
+     * Returns the compiled form of a pattern like {@code "jcr:* | title"}.
+     *
+     * @param namePattern the pattern, must not be null
+     * @return the cached compiled pattern
+     */
+    static NamePattern compile(String namePattern) {
+        return CACHE.get().computeIfAbsent(namePattern, key -> {
+            List<String> globs = new ArrayList<>();
+            for (String glob : namePattern.split("\\|", -1)) {
+                globs.add(glob.trim());
+            }
+            return new NamePattern(globs);
+        });
+    }
+
+    /**
+     * Returns the compiled form of an array of globs.
+     *
+     * @param nameGlobs the globs, must not be null
+     * @return the cached compiled pattern
+     */
+    static NamePattern compile(String[] nameGlobs) {
+        List<String> globs = Arrays.asList(nameGlobs.clone());
+        return CACHE.get().computeIfAbsent(globs, key -> new NamePattern(globs));
+    }
+
+    /**
+     * Returns the name matched by this pattern if it doesn't contain wildcards, e.g. to look it up directly.
+     *
+     * @return the single literal name or null if the pattern has wildcards or alternatives
+     */
+    String getLiteral() {
+        return _literal;
+    }
+
+    /**
+     * Checks if the given name matches one of the globs.
+     *
+     * @param name the item name
+     * @return true if the name matches
+     */
+    boolean matches(String name) {
+        boolean result = false;
+        for (int i = 0; name != null && !result && i < _globs.length; i++) {
+            result = matches(name, _globs[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Splits a glob at its wildcards. The first and the last segment are anchored at the start and the end of the name,
+     * so a glob without wildcards has one segment and "*" has two empty segments.
+     */
+    private static String[] splitGlob(String glob) {
+        return glob.split("\\*", -1);
+    }
+
+    private static boolean matches(String name, String[] segments) {
+        boolean result;
+        if (segments.length == 1) {
+            result = name.equals(segments[0]);
+        } else {
+            String first = segments[0];
+            String last = segments[segments.length - 1];
+            result = name.length() >= first.length() + last.length() && name.startsWith(first) && name.endsWith(last);
+            int position = first.length();
+            int end = name.length() - last.length();
+            for (int i = 1; result && i < segments.length - 1; i++) {
+                int index = name.indexOf(segments[i], position);
+                result = index >= 0 && index + segments[i].length() <= end;
+                position = index + segments[i].length();
+            }
+        }
+        return result;
+    }
+}
@@ -20,12 +20,16 @@ package de.ibmix.magkit.test.jcr;
  * #L%
  */
 
-import org.apache.commons.lang3.ArrayUtils;
+import de.ibmix.magkit.assertions.Require;
+import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.jackrabbit.JcrConstants;
 import org.apache.jackrabbit.commons.iterator.NodeIteratorAdapter;
 import org.apache.jackrabbit.commons.iterator.PropertyIteratorAdapter;
+import org.mockito.AdditionalAnswers;
 import org.mockito.Answers;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.xml.sax.SAXException;
 
@@ -35,37 +39,31 @@ import javax.jcr.ItemNotFoundException;
 import javax.jcr.ItemVisitor;
 import javax.jcr.Node;
 import javax.jcr.Property;
+import javax.jcr.PropertyIterator;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.Value;
 import javax.jcr.nodetype.NodeType;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
-import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubIdentifier;
-import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubMixinNodeTypes;
-import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubName;
 import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
 import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubType;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyBoolean;
-import static org.mockito.ArgumentMatchers.anyDouble;
-import static org.mockito.ArgumentMatchers.anyInt;
-import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 /**
  * Utility class providing factory methods to create Mockito based {@link Node} mocks and simple mock hierarchies for JCR related unit tests.
@@ -93,6 +91,9 @@ import static org.mockito.Mockito.when;
  */
 public final class NodeMockUtils {
 
+    private static final ThreadLocal<NodeBlueprint> BLUEPRINT = new ThreadLocal<>();
+    private static final NodeType[] NO_MIXINS = new NodeType[0];
+
     /**
      * Creates a {@link Node} mock named {@code "untitled"} of primary type {@link NodeType#NT_BASE} in the {@code "website"} workspace.
      * Additional stubbing operations can refine name, type, mixins or properties.
@@ -147,8 +148,10 @@ public final class NodeMockUtils {
      * The XML must be encoded in UTF-8 and conform to the JCR XML import format used by Magnolia / Jackrabbit.
      * Implementation details:
      * <ul>
-     *   <li>Uses a SAX parser with the default factory settings (no validation, no namespace adjustments).</li>
-     *   <li>Delegates element handling to {@code JcrXmlHandler} which creates node mocks and stubs properties accordingly.</li>
+     *   <li>Uses a SAX parser with the default factory settings (no validation, no namespace adjustments). The factory is created once per thread.</li>
+     *   <li>Delegates element handling to {@code JcrXmlHandler} which parses the XML into a compact intermediate form.</li>
+     *   <li>The parsed form is kept in the {@link XmlFixtureCache} by a hash of the content computed while reading it; loading the same XML again only creates the node mocks.</li>
+     *   <li>Content larger than the maximum weight of the cache, or any content while the cache is disabled, is parsed straight from the stream without buffering it.</li>
      *   <li>The provided input stream is not closed; caller remains responsible for resource cleanup.</li>
      * </ul>
      * <p><strong>Error handling:</strong> Any {@link ParserConfigurationException}, {@link SAXException} or {@link IOException}
@@ -160,17 +163,40 @@ public final class NodeMockUtils {
      * @throws RuntimeException if the XML is invalid or an I/O parsing error occurs
      */
     public static Node mockNodeFromXml(final String repository, InputStream xmlUtf8) {
+        return mockNodeFromXml(repository, null, xmlUtf8);
+    }
+
+    /**
+     * Creates a hierarchy of {@link Node} mocks from a JCR system view XML resource, e.g. a fixture on the test class path.
+     * Like {@link #mockNodeFromXml(String, InputStream)} but the parsed form is cached by the URL and a hash of the content.
+     *
+     * @param repository name of the workspace
+     * @param xmlUtf8 URL of the XML content (UTF-8 encoded)
+     * @return the root {@link Node} mock representing the parsed XML tree
+     * @throws RuntimeException if the XML is invalid or an I/O parsing error occurs
+     */
+    public static Node mockNodeFromXml(final String repository, URL xmlUtf8) {
+        Require.Argument.notNull(xmlUtf8, "xmlUtf8 must not be null");
+        try (InputStream in = xmlUtf8.openStream()) {
+            return mockNodeFromXml(repository, xmlUtf8.toExternalForm(), in);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Node mockNodeFromXml(final String repository, String identity, InputStream xmlUtf8) {
         try {
-            JcrXmlHandler jcrXmlHandler = new JcrXmlHandler(repository);
-            SAXParserFactory factory = SAXParserFactory.newInstance();
-            SAXParser parser = factory.newSAXParser();
-            parser.parse(xmlUtf8, jcrXmlHandler);
-            return jcrXmlHandler.getResult();
-        } catch (ParserConfigurationException | SAXException | IOException e) {
+            XmlFixture fixture = XmlFixtureCache.getFixture(identity, xmlUtf8);
+            return fixture == null ? null : fixture.mockNodes(repository);
+        } catch (ParserConfigurationException | SAXException | IOException | RepositoryException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private static boolean isNodeType(NodeType nodeType, String type) {
+        return nodeType != null && (StringUtils.equals(nodeType.getName(), type) || nodeType.isNodeType(type));
+    }
+
     /**
      * Creates a new {@link Node} mock for the given path by adding missing segments below the given parent node.
      * The parent node must exist and be a valid JCR node.
@@ -186,8 +212,9 @@ public final class NodeMockUtils {
     }
 
     /**
-     * Recursively creates a mock node tree below the given root node, mirroring the structure defined by the given path segments.
-     * Intermediate nodes are created as needed using {@link #mockPlainNode(String)}.
+     * Creates a mock node tree below the given root node, mirroring the structure defined by the given path segments.
+     * Intermediate nodes are created as needed from the {@link NodeBlueprint} and registered in the session of the root node.
+     * To mock many nodes at once use {@link NodeTreeBuilder}.
      *
      * @param root the root node under which to create the mock tree
      * @param pathSegments the path segments defining the mock structure. Must not be empty.
@@ -195,20 +222,62 @@ public final class NodeMockUtils {
      * @throws RepositoryException if a mock node cannot be created
      */
     public static Node mockNodeTree(final Node root, final String... pathSegments) throws RepositoryException {
-        String name = pathSegments[0];
-        String path = getPathForParent(root, name);
-        Node result = (Node) root.getSession().getItem(path);
-        if (result == null) {
-            result = mockPlainNode(name);
-            NodeStubbingOperation.stubNode(result).of(root);
+        Node result = root;
+        for (String name : pathSegments) {
+            Node parent = result;
+            Session session = parent.getSession();
+            result = session == null ? null : (Node) session.getItem(getPathForParent(parent, name));
+            if (result == null) {
+                result = mockChildNode(parent, name);
+                if (session != null) {
+                    registerItems(session, Collections.singletonList(result));
+                }
+            }
         }
-        if (pathSegments.length > 1) {
-            String[] successors = ArrayUtils.remove(pathSegments, 0);
-            result = mockNodeTree(result, successors);
+        return result;
+    }
+
+    /**
+     * Creates a node mock below the given parent without registering it in the session. For {@code TestNode} parents the
+     * child is added to the child collection of the parent directly and answers the parent from its own state; other
+     * parents are updated with {@link NodeStubbingOperation#stubNode(Node)}.
+     * Use {@link #registerItems(Session, Collection)} to make the new nodes available for session lookups.
+     *
+     * @param parent the parent node, not null
+     * @param name the name of the new node
+     * @return the new child node
+     * @throws RepositoryException never thrown unless the parent mock is stubbed to throw
+     */
+    static Node mockChildNode(final Node parent, final String name) throws RepositoryException {
+        Node result;
+        if (parent instanceof TestNode) {
+            result = getBlueprint().newNode(name, parent);
+            ((TestNode) parent).getNodeCollection().add(result);
+        } else {
+            result = mockPlainNode(name);
+            NodeStubbingOperation.stubNode(result).of(parent);
         }
         return result;
     }
 
+    /**
+     * Registers the given nodes and their properties in the item and identifier registry of the session in a single pass.
+     * Child nodes are not visited; all nodes to register must be contained in the collection.
+     *
+     * @param session the session of the nodes, not null
+     * @param nodes the nodes to register
+     * @throws RepositoryException never thrown unless the mocks are stubbed to throw
+     */
+    static void registerItems(final Session session, final Collection<Node> nodes) throws RepositoryException {
+        for (Node node : nodes) {
+            SessionStubbingOperation.stubItem(node).of(session);
+            PropertyIterator properties = node.getProperties();
+            while (properties.hasNext()) {
+                SessionStubbingOperation.stubItem(properties.nextProperty()).of(session);
+            }
+        }
+    }
+
     /**
      * Sanitizes a JCR handle by trimming whitespace and converting backslashes to forward slashes.
      * If the handle is blank, a default untitled handle is returned.
@@ -228,59 +297,37 @@ public final class NodeMockUtils {
     /**
      * Creates a plain {@link Node} mock with no parent or type information.
      * The node will have only a name and a unique identifier.
+     * <p>
+     * Instead of registering one stubbing per method, the mock is created with a {@link NodeDefaultAnswer} that keeps the
+     * state of the node (children, properties, cached path) and dispatches the invoked method to the matching
+     * {@code *_ANSWER} of this class. Explicit stubbings, e.g. by {@link NodeStubbingOperation}s or {@code when(...)}
+     * in test code, still take precedence over the default answer.
+     * </p>
+     * <p>
+     * New nodes are cloned from the {@link NodeBlueprint} of the current thread: name, identifier, primary type and mixins are
+     * answered from the node state and the {@link NodeType#NT_BASE} type and {@code jcr:primaryType} values are shared with all
+     * other default nodes of the thread. Use {@link NodeStubbingOperation#stubType(String)} to give a node its own type mock.
+     * </p>
      *
      * @param name the name of the node
      * @return the created {@link Node} mock instance
      * @throws RepositoryException never thrown
      */
     public static Node mockPlainNode(final String name) throws RepositoryException {
-        TestNode result = mock(TestNode.class);
-        stubName(name).of(result);
-        stubIdentifier(UUID.randomUUID().toString()).of(result);
-        stubMixinNodeTypes().of(result);
-        doAnswer(ACCEPT_ANSWER).when(result).accept(any(ItemVisitor.class));
-        when(result.isNode()).thenReturn(true);
-        when(result.getPath()).then(PATH_ANSWER);
-        when(result.getDepth()).then(DEPTH_ANSWER);
-        when(result.getSession()).then(SESSION_ANSWER);
-        when(result.getNode(anyString())).then(NODE_ANSWER);
-        when(result.getProperty(anyString())).then(PROPERTY_ANSWER);
-        when(result.hasNode(anyString())).then(ITEM_EXISTS_ANSWER);
-        when(result.hasProperty(anyString())).then(ITEM_EXISTS_ANSWER);
-        when(result.getNodeCollection()).thenReturn(new ArrayList<>());
-        when(result.getPropertyCollection()).thenReturn(new ArrayList<>());
-        when(result.getNodes()).then(NODES_ANSWER);
-        when(result.getNodes(anyString())).then(NODES_ANSWER);
-        when(result.getNodes(any(String[].class))).then(NODES_ANSWER);
-        when(result.hasNodes()).then(HAS_NODES_ANSWER);
-        when(result.getProperties()).then(PROPERTIES_ANSWER);
-        when(result.getProperties(anyString())).then(PROPERTIES_ANSWER);
-        when(result.getProperties(any(String[].class))).then(PROPERTIES_ANSWER);
-        when(result.hasProperties()).then(HAS_PROPERTIES_ANSWER);
-        when(result.getAncestor(anyInt())).thenAnswer(ANCESTOR_ANSWER);
-        when(result.addNode(anyString())).thenAnswer(ADD_NODE_ANSWER);
-        when(result.addNode(anyString(), anyString())).thenAnswer(ADD_NODE_WITH_TYPE_ANSWER);
-        when(result.setProperty(anyString(), any(Binary.class))).thenAnswer(SET_BINARY_PROPERTY_ANSWER);
-        when(result.setProperty(anyString(), anyBoolean())).thenAnswer(SET_BOOLEAN_PROPERTY_ANSWER);
-        when(result.setProperty(anyString(), any(Calendar.class))).thenAnswer(SET_CALENDAR_PROPERTY_ANSWER);
-        when(result.setProperty(anyString(), anyDouble())).thenAnswer(SET_DOUBLE_PROPERTY_ANSWER);
-        when(result.setProperty(anyString(), anyLong())).thenAnswer(SET_LONG_PROPERTY_ANSWER);
-        when(result.setProperty(anyString(), any(Node.class))).thenAnswer(SET_NODE_PROPERTY_ANSWER);
-        when(result.setProperty(anyString(), anyString())).thenAnswer(SET_STRING_PROPERTY_ANSWER);
-        when(result.setProperty(anyString(), anyString(), anyInt())).thenAnswer(SET_STRING_PROPERTY_ANSWER);
-        when(result.setProperty(anyString(), any(String[].class))).thenAnswer(SET_STRINGS_PROPERTY_ANSWER);
-        when(result.setProperty(anyString(), any(String[].class), anyInt())).thenAnswer(SET_STRINGS_PROPERTY_ANSWER);
-        when(result.setProperty(anyString(), any(Value.class))).thenAnswer(SET_VALUE_PROPERTY_ANSWER);
-        when(result.setProperty(anyString(), any(Value.class), anyInt())).thenAnswer(SET_VALUE_PROPERTY_ANSWER);
-        when(result.setProperty(anyString(), any(Value[].class))).thenAnswer(SET_VALUES_PROPERTY_ANSWER);
-        when(result.setProperty(anyString(), any(Value[].class), anyInt())).thenAnswer(SET_VALUES_PROPERTY_ANSWER);
-        doAnswer(Answers.CALLS_REAL_METHODS).when(result).remove();
-        stubType(NodeType.NT_BASE).of(result);
-        when(result.isNodeType(anyString())).then(IS_NODE_TYPE_ANSWER);
-        doAnswer(TO_STRING_ANSWER).when(result).toString();
-        // Clear all invocations to avoid confusion when verifying invocations later:
-        Mockito.clearInvocations(result);
-        return result;
+        return getBlueprint().newNode(name, null);
+    }
+
+    /**
+     * Wraps the given node into a regular Mockito mock that delegates all calls to it. Use this to verify interactions with
+     * single nodes when node mocks are created in stub-only mode (see {@link RepositoryMockUtils#setStubOnly(boolean)}).
+     * Note that the wrapper is not registered in the session: code navigating the tree will reach the wrapped node.
+     *
+     * @param node the node to wrap, must not be {@code null}
+     * @return a verifiable mock delegating to the given node
+     */
+    public static Node spyNode(final Node node) {
+        Require.Argument.notNull(node, "node must not be null");
+        return mock(Node.class, withSettings().defaultAnswer(AdditionalAnswers.delegatesTo(node)));
     }
 
     /**
@@ -307,22 +354,123 @@ public final class NodeMockUtils {
         return result;
     }
 
+    /**
+     * Clears the cached path and depth of the given item and of all its descendants (nodes and properties).
+     * Must be called whenever the name or parent of an item changes. Items that are no {@code TestNode} or
+     * {@code TestProperty} mocks are ignored.
+     *
+     * @param item the root item of the subtree to invalidate
+     */
+    static void invalidatePathCache(final Item item) {
+        PathCache cache = getPathCache(item);
+        if (cache != null) {
+            cache.clear();
+        }
+        if (item instanceof TestNode) {
+            TestNode node = (TestNode) item;
+            Collection<Node> nodes = node.getNodeCollection();
+            if (nodes != null) {
+                for (Node child : nodes) {
+                    invalidatePathCache(child);
+                }
+            }
+            Collection<Property> properties = node.getPropertyCollection();
+            if (properties != null) {
+                for (Property property : properties) {
+                    invalidatePathCache(property);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the {@link NodeBlueprint} of the current thread, preparing it on first use.
+     *
+     * @return the blueprint for new node mocks, never {@code null}
+     * @throws RepositoryException never thrown
+     */
+    static NodeBlueprint getBlueprint() throws RepositoryException {
+        NodeBlueprint result = BLUEPRINT.get();
+        if (result == null) {
+            result = new NodeBlueprint();
+            BLUEPRINT.set(result);
+        }
+        return result;
+    }
+
+    /**
+     * Discards the {@link NodeBlueprint} of the current thread, e.g. when the mock repository is cleaned.
+     */
+    static void cleanBlueprint() {
+        BLUEPRINT.remove();
+    }
+
+    private static NamePattern getNamePattern(InvocationOnMock invocation) {
+        Object[] args = invocation.getArguments();
+        NamePattern result = null;
+        if (args.length == 1) {
+            result = args[0] instanceof String[] ? NamePattern.compile((String[]) args[0]) : NamePattern.compile((String) args[0]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the path cache of the item, cleared if the item or one of the ancestors it was calculated from got stubbed since,
+     * e.g. by {@code when(node.getName()).thenReturn("other")}. Stubbing operations clear the cache themselves
+     * (see {@link #invalidatePathCache(Item)}), direct stubbing is detected by the number of stubbings of the mocks.
+     */
+    private static PathCache getValidPathCache(final Item item) {
+        PathCache result = getPathCache(item);
+        boolean valid = result != null && !result.isEmpty();
+        PathCache cache = result;
+        Item current = item;
+        while (valid && current != null) {
+            PathCache parentCache = cache.getParentCache();
+            valid = cache.getStubbings() == countStubbings(current)
+                && (cache.getParent() == null || parentCache != null && !parentCache.isEmpty() && cache.getParentVersion() == parentCache.getVersion());
+            current = cache.getParent();
+            cache = parentCache;
+        }
+        if (result != null && !valid) {
+            result.clear();
+        }
+        return result;
+    }
+
+    private static void record(final PathCache cache, final Item item, final Node parent) {
+        cache.record(parent, getPathCache(parent), countStubbings(item));
+    }
+
+    private static int countStubbings(final Item item) {
+        return Mockito.mockingDetails(item).getStubbings().size();
+    }
+
+    private static PathCache getPathCache(final Item item) {
+        PathCache result = null;
+        if (item instanceof TestNode) {
+            result = ((TestNode) item).getPathCache();
+        } else if (item instanceof PropertyMockUtils.TestProperty) {
+            result = ((PropertyMockUtils.TestProperty) item).getPathCache();
+        }
+        return result;
+    }
+
     /**
      * Group of reusable Mockito {@link Answer} instances used to implement lightweight JCR semantics on the created node mocks.
      * <p>
-     * They are applied in {@link #mockPlainNode(String)} and focus on path calculation, ancestor traversal, session lookup,
+     * They are applied by the {@link NodeDefaultAnswer} of {@link #mockPlainNode(String)} and focus on path calculation, ancestor traversal, session lookup,
      * child/property iteration and dynamic property setting. Each Answer keeps logic minimal while enabling typical test navigation.
      * </p>
      * <p><strong>Behavior summary:</strong></p>
      * <ul>
-     *   <li><code>IS_NODE_TYPE_ANSWER</code>: checks primary type name equality.</li>
+     *   <li><code>IS_NODE_TYPE_ANSWER</code>: matches the primary type, its supertypes and the mixin types, resolved through the interned {@link NodeTypeMockUtils} registry.</li>
      *   <li><code>ACCEPT_ANSWER</code>: invokes {@link ItemVisitor#visit(Node)} on the current mock.</li>
      *   <li><code>ANCESTOR_ANSWER</code>: climbs parents until requested depth; throws {@link ItemNotFoundException} on invalid depth.</li>
-     *   <li><code>PATH_ANSWER</code>: builds absolute path from parent path + own name.</li>
-     *   <li><code>DEPTH_ANSWER</code>: calculates depth relative to root (root = 0).</li>
+     *   <li><code>PATH_ANSWER</code>: builds absolute path from parent path + own name; cached for {@code TestNode} and {@code TestProperty} mocks.</li>
+     *   <li><code>DEPTH_ANSWER</code>: calculates depth relative to root (root = 0); cached for {@code TestNode} and {@code TestProperty} mocks.</li>
      *   <li><code>SESSION_ANSWER</code>: inherits session from parent if available.</li>
      *   <li><code>NODE_ANSWER</code>/<code>PROPERTY_ANSWER</code>: resolves relative path by concatenation and retrieving from session.</li>
-     *   <li><code>NODES_ANSWER</code>/<code>PROPERTIES_ANSWER</code>: wrap internal collections in Jackrabbit iterator adapters.</li>
+     *   <li><code>NODES_ANSWER</code>/<code>PROPERTIES_ANSWER</code>: wrap internal collections in Jackrabbit iterator adapters, filtered by the JCR name pattern or globs if given.</li>
      *   <li><code>HAS_NODES_ANSWER</code>/<code>HAS_PROPERTIES_ANSWER</code>: existence checks for internal collections.</li>
      *   <li><code>ITEM_EXISTS_ANSWER</code>: delegates existence check to session via absolute path.</li>
      *   <li><code>ADD_NODE_ANSWER</code>/<code>ADD_NODE_WITH_TYPE_ANSWER</code>: create child node mocks (optionally stub type) beneath current path.</li>
@@ -333,7 +481,12 @@ public final class NodeMockUtils {
     public static final Answer<Boolean> IS_NODE_TYPE_ANSWER = invocation -> {
         Node node = (Node) invocation.getMock();
         String type = (String) invocation.getArguments()[0];
-        return StringUtils.equals(node.getPrimaryNodeType().getName(), type);
+        boolean result = isNodeType(node.getPrimaryNodeType(), type);
+        NodeType[] mixins = result ? null : node.getMixinNodeTypes();
+        for (int i = 0; mixins != null && !result && i < mixins.length; i++) {
+            result = isNodeType(mixins[i], type);
+        }
+        return result;
     };
     public static final Answer<Object> ACCEPT_ANSWER = invocation -> {
         Object[] args = invocation.getArguments();
@@ -356,13 +509,31 @@ public final class NodeMockUtils {
     };
     public static final Answer<String> PATH_ANSWER = invocation -> {
         Item node = (Item) invocation.getMock();
-        Node parent = node.getParent();
-        return getPathForParent(parent, node.getName());
+        PathCache cache = getValidPathCache(node);
+        String result = cache != null ? cache.getPath() : null;
+        if (result == null) {
+            Node parent = node.getParent();
+            result = getPathForParent(parent, node.getName());
+            if (cache != null) {
+                cache.setPath(result);
+                record(cache, node, parent);
+            }
+        }
+        return result;
     };
     public static final Answer<Integer> DEPTH_ANSWER = invocation -> {
         Item node = (Item) invocation.getMock();
-        Node parent = node.getParent();
-        return parent == null ? 0 : parent.getDepth() + 1;
+        PathCache cache = getValidPathCache(node);
+        int result = cache != null ? cache.getDepth() : -1;
+        if (result < 0) {
+            Node parent = node.getParent();
+            result = parent == null ? 0 : parent.getDepth() + 1;
+            if (cache != null) {
+                cache.setDepth(result);
+                record(cache, node, parent);
+            }
+        }
+        return result;
     };
     public static final Answer<Session> SESSION_ANSWER = invocation -> {
         Item node = (Item) invocation.getMock();
@@ -385,15 +556,47 @@ public final class NodeMockUtils {
     };
     public static final Answer<NodeIteratorAdapter> NODES_ANSWER = invocation -> {
         TestNode node = (TestNode) invocation.getMock();
-        return new NodeIteratorAdapter(node.getNodeCollection());
+        SessionMockUtils.mockLazyChildren(node);
+        NamePattern pattern = getNamePattern(invocation);
+        Collection<Node> nodes = node.getNodeCollection();
+        if (pattern != null && nodes != null) {
+            List<Node> matches = new ArrayList<>();
+            for (Node child : nodes) {
+                if (pattern.matches(child.getName())) {
+                    matches.add(child);
+                }
+            }
+            nodes = matches;
+        }
+        return new NodeIteratorAdapter(nodes);
     };
     public static final Answer<Boolean> HAS_NODES_ANSWER = invocation -> {
         TestNode node = (TestNode) invocation.getMock();
+        SessionMockUtils.mockLazyChildren(node);
         return node.getNodeCollection() != null && !node.getNodeCollection().isEmpty();
     };
     public static final Answer<PropertyIteratorAdapter> PROPERTIES_ANSWER = invocation -> {
         TestNode node = (TestNode) invocation.getMock();
-        return new PropertyIteratorAdapter(node.getPropertyCollection());
+        NamePattern pattern = getNamePattern(invocation);
+        Collection<Property> properties = node.getPropertyCollection();
+        if (pattern != null && properties != null) {
+            List<Property> matches = new ArrayList<>();
+            String literal = pattern.getLiteral();
+            if (literal != null) {
+                Property property = node.getPropertyMap().get(literal);
+                if (property != null) {
+                    matches.add(property);
+                }
+            } else {
+                for (Property property : properties) {
+                    if (pattern.matches(property.getName())) {
+                        matches.add(property);
+                    }
+                }
+            }
+            properties = matches;
+        }
+        return new PropertyIteratorAdapter(properties);
     };
     public static final Answer<Boolean> HAS_PROPERTIES_ANSWER = invocation -> {
         TestNode node = (TestNode) invocation.getMock();
@@ -411,8 +614,9 @@ public final class NodeMockUtils {
         String relPath = (String) invocation.getArguments()[0];
         Node result = null;
         if (isNotBlank(relPath)) {
-            String separator = node.getPath().endsWith("/") ? EMPTY : "/";
-            String absPath = node.getPath() + separator + relPath;
+            String path = node.getPath();
+            String separator = path.endsWith("/") ? EMPTY : "/";
+            String absPath = path + separator + relPath;
             result = mockNode(node.getSession().getWorkspace().getName(), absPath);
         }
         return result;
@@ -511,12 +715,16 @@ public final class NodeMockUtils {
 
     /**
      * Internal abstract base for mock nodes used by the utility methods. Maintains collections of child nodes and properties
-     * allowing iterator answers to operate on predictable in-memory structures. Removal keeps session/item registrations consistent
+     * allowing iterator answers to operate on predictable in-memory structures. Both keep insertion order; child nodes are held
+     * in a linked hash set and properties in a linked hash map by name, so adding, replacing and removing is done in constant time.
+     * Both are copied on their first change while a {@link RepositorySnapshot} is active. Removal keeps session/item registrations consistent
      * by delegating to {@link SessionStubbingOperation#stubRemoveItem(javax.jcr.Item)}.
      */
     abstract static class TestNode implements Node {
         abstract Collection<Node> getNodeCollection();
         abstract Collection<Property> getPropertyCollection();
+        abstract Map<String, Property> getPropertyMap();
+        abstract PathCache getPathCache();
         @Override
         public void remove() throws RepositoryException {
             NodeMockUtils.TestNode parent = (NodeMockUtils.TestNode) getParent();
@@ -528,4 +736,244 @@ public final class NodeMockUtils {
             }
         }
     }
+
+    /**
+     * Default {@link Answer} of the node mocks created by {@link #mockPlainNode(String)}. Holds the state of a single node
+     * (name, identifier, primary type, initial parent, child nodes, properties and cached path) and dispatches each invocation by method name to the matching answer of this
+     * class. Invocations with {@code null} arguments and all methods without a dedicated answer fall back to
+     * {@link Answers#RETURNS_DEFAULTS}, matching the behaviour of the former argument matchers.
+     */
+    static final class NodeDefaultAnswer implements Answer<Object> {
+        private final Collection<Node> _nodes = new RepositorySnapshot.NodeSet();
+        private final Map<String, Property> _properties = new RepositorySnapshot.PropertyMap();
+        private final PathCache _pathCache = new PathCache();
+        private final String _name;
+        private final String _identifier;
+        private final NodeType _primaryType;
+        private final Node _parent;
+
+        NodeDefaultAnswer(String name, String identifier, NodeType primaryType, Node parent) {
+            _name = name;
+            _identifier = identifier;
+            _primaryType = primaryType;
+            _parent = parent;
+        }
+
+        @Override
+        public Object answer(InvocationOnMock invocation) throws Throwable {
+            Answer<?> answer = null;
+            switch (invocation.getMethod().getName()) {
+                case "getName":
+                    return _name;
+                case "getIdentifier":
+                case "getUUID":
+                    return _identifier;
+                case "getPrimaryNodeType":
+                    return _primaryType;
+                case "getParent":
+                    return _parent;
+                case "getMixinNodeTypes":
+                    return NO_MIXINS;
+                case "getNodeCollection":
+                    return _nodes;
+                case "getPropertyCollection":
+                    return _properties.values();
+                case "getPropertyMap":
+                    return _properties;
+                case "getPathCache":
+                    return _pathCache;
+                case "isNode":
+                    return true;
+                case "remove":
+                    return invocation.callRealMethod();
+                case "toString":
+                    answer = TO_STRING_ANSWER;
+                    break;
+                case "accept":
+                    answer = ACCEPT_ANSWER;
+                    break;
+                case "getPath":
+                    answer = PATH_ANSWER;
+                    break;
+                case "getDepth":
+                    answer = DEPTH_ANSWER;
+                    break;
+                case "getSession":
+                    answer = SESSION_ANSWER;
+                    break;
+                case "getAncestor":
+                    answer = ANCESTOR_ANSWER;
+                    break;
+                case "getNode":
+                    answer = NODE_ANSWER;
+                    break;
+                case "getProperty":
+                    answer = PROPERTY_ANSWER;
+                    break;
+                case "hasNode":
+                case "hasProperty":
+                    answer = ITEM_EXISTS_ANSWER;
+                    break;
+                case "getNodes":
+                    answer = NODES_ANSWER;
+                    break;
+                case "hasNodes":
+                    answer = HAS_NODES_ANSWER;
+                    break;
+                case "getProperties":
+                    answer = PROPERTIES_ANSWER;
+                    break;
+                case "hasProperties":
+                    answer = HAS_PROPERTIES_ANSWER;
+                    break;
+                case "isNodeType":
+                    answer = IS_NODE_TYPE_ANSWER;
+                    break;
+                case "addNode":
+                    answer = invocation.getArguments().length == 1 ? ADD_NODE_ANSWER : ADD_NODE_WITH_TYPE_ANSWER;
+                    break;
+                case "setProperty":
+                    answer = getSetPropertyAnswer(invocation.getMethod().getParameterTypes()[1]);
+                    break;
+                default:
+                    break;
+            }
+            return answer != null && ObjectUtils.allNotNull(invocation.getArguments()) ? answer.answer(invocation) : Answers.RETURNS_DEFAULTS.answer(invocation);
+        }
+
+        private static Answer<?> getSetPropertyAnswer(Class<?> valueType) {
+            Answer<?> result = null;
+            if (valueType == String.class) {
+                result = SET_STRING_PROPERTY_ANSWER;
+            } else if (valueType == String[].class) {
+                result = SET_STRINGS_PROPERTY_ANSWER;
+            } else if (valueType == Value.class) {
+                result = SET_VALUE_PROPERTY_ANSWER;
+            } else if (valueType == Value[].class) {
+                result = SET_VALUES_PROPERTY_ANSWER;
+            } else if (valueType == boolean.class) {
+                result = SET_BOOLEAN_PROPERTY_ANSWER;
+            } else if (valueType == long.class) {
+                result = SET_LONG_PROPERTY_ANSWER;
+            } else if (valueType == double.class) {
+                result = SET_DOUBLE_PROPERTY_ANSWER;
+            } else if (valueType == Calendar.class) {
+                result = SET_CALENDAR_PROPERTY_ANSWER;
+            } else if (valueType == Binary.class) {
+                result = SET_BINARY_PROPERTY_ANSWER;
+            } else if (valueType == Node.class) {
+                result = SET_NODE_PROPERTY_ANSWER;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Prototype of the node mocks created by {@link #mockPlainNode(String)} in one thread. The parts that are equal for all
+     * new nodes - the {@link NodeType#NT_BASE} node type mock and the values of the {@code jcr:primaryType} property - are
+     * prepared once and shared, so a new node costs one node mock, one property mock and no stubbing at all.
+     * <p>
+     * The shared mocks must not be re-stubbed by tests; {@link NodeStubbingOperation#stubType(String)} replaces them with
+     * mocks of the node's own.
+     * </p>
+     */
+    static final class NodeBlueprint {
+        private final NodeType _primaryType;
+        private final Value[] _primaryTypeValues;
+
+        NodeBlueprint() throws RepositoryException {
+            _primaryType = NodeStubbingOperation.mockNodeType(NodeType.NT_BASE);
+            _primaryTypeValues = new Value[]{ValueMockUtils.mockValue(NodeType.NT_BASE)};
+        }
+
+        /**
+         * Creates a new node mock with the given name, a random identifier and the shared primary type. The node is not
+         * added to the child collection of the parent.
+         *
+         * @param name the node name, blank names default to {@link NodeStubbingOperation#UNTITLED}
+         * @param parent the parent node answered by {@link Node#getParent()} or {@code null}
+         * @return the new node mock
+         */
+        Node newNode(String name, Node parent) {
+            String nodeName = isBlank(name) ? NodeStubbingOperation.UNTITLED : name;
+            NodeDefaultAnswer answer = new NodeDefaultAnswer(nodeName, UUID.randomUUID().toString(), _primaryType, parent);
+            TestNode result = mock(TestNode.class, RepositoryMockUtils.itemMockSettings().defaultAnswer(answer));
+            answer._properties.put(JcrConstants.JCR_PRIMARYTYPE, PropertyMockUtils.mockPlainProperty(JcrConstants.JCR_PRIMARYTYPE, result, _primaryTypeValues));
+            return result;
+        }
+    }
+
+    /**
+     * Mutable holder for the absolute path and depth of a {@code TestNode} or {@code TestProperty} mock. Both values are
+     * calculated once by {@link #PATH_ANSWER} and {@link #DEPTH_ANSWER} and cleared by {@link #invalidatePathCache(Item)}.
+     * The parent, the version of its cache and the number of stubbings of the mock they were calculated from are kept to detect
+     * direct stubbing of {@code getName()} or {@code getParent()} of the item or its ancestors. The version changes whenever the
+     * cache is cleared.
+     */
+    static final class PathCache {
+        private String _path;
+        private int _depth = -1;
+        private Item _parent;
+        private PathCache _parentCache;
+        private int _parentVersion = -1;
+        private int _stubbings = -1;
+        private int _version;
+
+        String getPath() {
+            return _path;
+        }
+
+        void setPath(String path) {
+            _path = path;
+        }
+
+        int getDepth() {
+            return _depth;
+        }
+
+        void setDepth(int depth) {
+            _depth = depth;
+        }
+
+        void record(Item parent, PathCache parentCache, int stubbings) {
+            _parent = parent;
+            _parentCache = parentCache;
+            _parentVersion = parentCache == null ? -1 : parentCache.getVersion();
+            _stubbings = stubbings;
+        }
+
+        Item getParent() {
+            return _parent;
+        }
+
+        PathCache getParentCache() {
+            return _parentCache;
+        }
+
+        int getParentVersion() {
+            return _parentVersion;
+        }
+
+        int getStubbings() {
+            return _stubbings;
+        }
+
+        int getVersion() {
+            return _version;
+        }
+
+        boolean isEmpty() {
+            return _path == null && _depth < 0;
+        }
+
+        void clear() {
+            _path = null;
+            _depth = -1;
+            _parent = null;
+            _parentCache = null;
+            _parentVersion = -1;
+            _stubbings = -1;
+            _version++;
+        }
+    }
 }
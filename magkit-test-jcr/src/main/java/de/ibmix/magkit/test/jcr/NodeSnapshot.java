@@ -0,0 +1,354 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.assertions.Require;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.xml.sax.SAXException;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.Property;
+import javax.jcr.PropertyIterator;
+import javax.jcr.PropertyType;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Saves mocked node trees as compact binary snapshots and loads them back as node mocks.
+ * <p>
+ * A snapshot contains the interned table of all names and string values followed by the node tree. Each property is
+ * tagged with its {@link PropertyType}, each value with its kind (null, string or binary). Loading a snapshot skips XML
+ * parsing and base64 decoding, snapshot files are read through a memory-mapped buffer.
+ * </p>
+ * <pre>
+ *     // once, e.g. during the build:
+ *     NodeSnapshot.convertXml(xmlInputStream, snapshotOutputStream);
+ *     // or from a mocked tree:
+ *     NodeSnapshot.save(NodeMockUtils.mockNode("/site"), Paths.get("site.snapshot"));
+ *
+ *     // in tests:
+ *     Node site = NodeSnapshot.load("website", Paths.get("src/test/resources/site.snapshot"));
+ * </pre>
+ * Like an XML export the saved node becomes a child of the root node on load; a saved root node is loaded as root node.
+ * The snapshot can also be written from the command line: {@code java de.ibmix.magkit.test.jcr.NodeSnapshot <xml> <snapshot>}.
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public final class NodeSnapshot {
+
+    private static final int MAGIC = 0x4D4A4E53;
+    private static final int VERSION = 1;
+    private static final int NULL_VALUE = 0;
+    private static final int STRING_VALUE = 1;
+    private static final int BINARY_VALUE = 2;
+
+    private NodeSnapshot() {
+    }
+
+    /**
+     * Writes the given node and all its descendants as snapshot into a file.
+     *
+     * @param node the root node of the tree to save, must not be null
+     * @param snapshot the path of the snapshot file, existing files are replaced
+     * @throws RepositoryException if the node tree could not be read
+     * @throws IOException if the file could not be written
+     */
+    public static void save(Node node, Path snapshot) throws RepositoryException, IOException {
+        Require.Argument.notNull(snapshot, "snapshot must not be null");
+        try (OutputStream out = Files.newOutputStream(snapshot)) {
+            save(node, out);
+        }
+    }
+
+    /**
+     * Writes the given node and all its descendants as snapshot into an output stream. The stream is not closed.
+     *
+     * @param node the root node of the tree to save, must not be null
+     * @param out the stream to write to, must not be null
+     * @throws RepositoryException if the node tree could not be read
+     * @throws IOException if the snapshot could not be written
+     */
+    public static void save(Node node, OutputStream out) throws RepositoryException, IOException {
+        Require.Argument.notNull(node, "node must not be null");
+        write(toFixture(node), out);
+    }
+
+    /**
+     * Converts a JCR system view XML document into a snapshot without creating node mocks. The streams are not closed.
+     *
+     * @param xmlUtf8 the UTF-8 encoded XML, must not be null
+     * @param out the stream to write the snapshot to, must not be null
+     * @throws IOException if the XML could not be read or the snapshot could not be written
+     */
+    public static void convertXml(InputStream xmlUtf8, OutputStream out) throws IOException {
+        Require.Argument.notNull(xmlUtf8, "xmlUtf8 must not be null");
+        try {
+            write(XmlFixtureCache.parse(xmlUtf8), out);
+        } catch (SAXException | ParserConfigurationException e) {
+            throw new IOException("Invalid system view XML", e);
+        }
+    }
+
+    /**
+     * Creates (or retrieves if already mocked) the node mocks of a snapshot file in the given workspace.
+     *
+     * @param repository name of the workspace, defaults to "website" if blank
+     * @param snapshot the path of the snapshot file, must not be null
+     * @return the root node mock of the snapshot
+     * @throws IOException if the file could not be read or is no valid snapshot
+     * @throws RepositoryException never thrown unless a mock is stubbed to throw
+     */
+    public static Node load(String repository, Path snapshot) throws IOException, RepositoryException {
+        Require.Argument.notNull(snapshot, "snapshot must not be null");
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())).mockNodes(repository);
+        }
+    }
+
+    /**
+     * Creates (or retrieves if already mocked) the node mocks of a snapshot read from a stream, e.g. a class path resource.
+     * The stream is not closed.
+     *
+     * @param repository name of the workspace, defaults to "website" if blank
+     * @param snapshot the stream providing the snapshot, must not be null
+     * @return the root node mock of the snapshot
+     * @throws IOException if the stream could not be read or is no valid snapshot
+     * @throws RepositoryException never thrown unless a mock is stubbed to throw
+     */
+    public static Node load(String repository, InputStream snapshot) throws IOException, RepositoryException {
+        Require.Argument.notNull(snapshot, "snapshot must not be null");
+        return read(ByteBuffer.wrap(IOUtils.toByteArray(snapshot))).mockNodes(repository);
+    }
+
+    /**
+     * Converts a system view XML file into a snapshot file.
+     *
+     * @param args the path of the XML file and the path of the snapshot file
+     * @throws IOException if a file could not be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: NodeSnapshot <xml file> <snapshot file>");
+        }
+        try (InputStream in = Files.newInputStream(Paths.get(args[0])); OutputStream out = Files.newOutputStream(Paths.get(args[1]))) {
+            convertXml(in, out);
+        }
+    }
+
+    static XmlFixture toFixture(Node node) throws RepositoryException, IOException {
+        XmlFixture result = new XmlFixture(node.getName());
+        PropertyIterator properties = node.getProperties();
+        while (properties.hasNext()) {
+            Property property = properties.nextProperty();
+            Value[] values = property.getValues();
+            Object[] rawValues = new Object[values.length];
+            for (int i = 0; i < values.length; i++) {
+                Value value = values[i];
+                if (value != null && value.getType() == PropertyType.BINARY) {
+                    try (InputStream stream = value.getBinary().getStream()) {
+                        rawValues[i] = IOUtils.toByteArray(stream);
+                    }
+                } else {
+                    rawValues[i] = value == null ? null : value.getString();
+                }
+            }
+            result.addProperty(property.getName(), property.getType(), rawValues);
+        }
+        NodeIterator children = node.getNodes();
+        while (children.hasNext()) {
+            result.addChild(toFixture(children.nextNode()));
+        }
+        return result;
+    }
+
+    static void write(XmlFixture fixture, OutputStream out) throws IOException {
+        Require.Argument.notNull(out, "out must not be null");
+        SnapshotWriter tree = new SnapshotWriter();
+        tree.writeNode(fixture);
+        SnapshotWriter header = new SnapshotWriter();
+        header.writeInt(MAGIC);
+        header.writeVarInt(VERSION);
+        header.writeVarInt(tree._strings.size());
+        for (String string : tree._strings.keySet()) {
+            header.writeBytes(string.getBytes(StandardCharsets.UTF_8));
+        }
+        header.writeTo(out);
+        tree.writeTo(out);
+        out.flush();
+    }
+
+    static XmlFixture read(ByteBuffer buffer) throws IOException {
+        SnapshotReader reader = new SnapshotReader(buffer);
+        if (buffer.remaining() < 4 || buffer.getInt() != MAGIC || reader.readVarInt() != VERSION) {
+            throw new IOException("Unsupported snapshot format");
+        }
+        try {
+            String[] strings = new String[reader.readVarInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = new String(reader.readBytes(), StandardCharsets.UTF_8);
+            }
+            return reader.readNode(strings);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt snapshot", e);
+        }
+    }
+
+    /**
+     * Writes variable length encoded integers, interned strings and byte arrays into a growing buffer.
+     */
+    private static final class SnapshotWriter {
+        private final ByteArrayOutputStream _out = new ByteArrayOutputStream(8192);
+        private final Map<String, Integer> _strings = new LinkedHashMap<>();
+
+        void writeNode(XmlFixture node) {
+            writeString(StringUtils.defaultString(node.getName()));
+            List<XmlFixture.PropertyEntry> properties = node.getProperties();
+            writeVarInt(properties.size());
+            for (XmlFixture.PropertyEntry property : properties) {
+                writeString(property.getName());
+                writeVarInt(property.getType());
+                Object[] values = property.getValues();
+                writeVarInt(values.length);
+                for (Object value : values) {
+                    if (value instanceof byte[]) {
+                        writeVarInt(BINARY_VALUE);
+                        writeBytes((byte[]) value);
+                    } else if (value != null) {
+                        writeVarInt(STRING_VALUE);
+                        writeString((String) value);
+                    } else {
+                        writeVarInt(NULL_VALUE);
+                    }
+                }
+            }
+            List<XmlFixture> children = node.getChildren();
+            writeVarInt(children.size());
+            for (XmlFixture child : children) {
+                writeNode(child);
+            }
+        }
+
+        void writeString(String value) {
+            Integer index = _strings.get(value);
+            if (index == null) {
+                index = _strings.size();
+                _strings.put(value, index);
+            }
+            writeVarInt(index);
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeVarInt(bytes.length);
+            _out.write(bytes, 0, bytes.length);
+        }
+
+        void writeInt(int value) {
+            _out.write(value >>> 24);
+            _out.write(value >>> 16);
+            _out.write(value >>> 8);
+            _out.write(value);
+        }
+
+        void writeVarInt(int value) {
+            int rest = value;
+            while ((rest & ~0x7F) != 0) {
+                _out.write((rest & 0x7F) | 0x80);
+                rest >>>= 7;
+            }
+            _out.write(rest);
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            _out.writeTo(out);
+        }
+    }
+
+    /**
+     * Reads the snapshot tree from a (memory-mapped) buffer.
+     */
+    private static final class SnapshotReader {
+        private final ByteBuffer _buffer;
+
+        SnapshotReader(ByteBuffer buffer) {
+            _buffer = buffer;
+        }
+
+        XmlFixture readNode(String[] strings) {
+            XmlFixture result = new XmlFixture(strings[readVarInt()]);
+            int propertyCount = readVarInt();
+            for (int i = 0; i < propertyCount; i++) {
+                String name = strings[readVarInt()];
+                int type = readVarInt();
+                Object[] values = new Object[readVarInt()];
+                for (int j = 0; j < values.length; j++) {
+                    int kind = readVarInt();
+                    if (kind == BINARY_VALUE) {
+                        values[j] = readBytes();
+                    } else if (kind == STRING_VALUE) {
+                        values[j] = strings[readVarInt()];
+                    }
+                }
+                result.addProperty(name, type, values);
+            }
+            int childCount = readVarInt();
+            for (int i = 0; i < childCount; i++) {
+                result.addChild(readNode(strings));
+            }
+            return result;
+        }
+
+        byte[] readBytes() {
+            byte[] result = new byte[readVarInt()];
+            _buffer.get(result);
+            return result;
+        }
+
+        int readVarInt() {
+            int result = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = _buffer.get();
+                result |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return result;
+        }
+    }
+}
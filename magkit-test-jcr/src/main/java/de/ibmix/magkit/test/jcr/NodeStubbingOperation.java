@@ -36,6 +36,7 @@ import javax.jcr.Value;
 import javax.jcr.nodetype.NodeType;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Map;
 
 import static de.ibmix.magkit.test.jcr.SessionStubbingOperation.stubItem;
 import static org.apache.commons.lang3.StringUtils.isBlank;
@@ -101,7 +102,8 @@ public abstract class NodeStubbingOperation implements ExceptionStubbingOperatio
 
     /**
      * Stub {@link Node#getPrimaryNodeType()} and related {@code jcr:primaryType} property by name.
-     * <p>When {@code typeName} is null no NodeType mock is created and the primary type returns null.</p>
+     * <p>The node type is the shared node type of the repository (see {@link NodeTypeMockUtils#mockNodeType(String)}).
+     * When {@code typeName} is null the primary type returns null.</p>
      *
      * @param typeName node type name or {@code null}
      * @return stubbing operation
@@ -110,13 +112,9 @@ public abstract class NodeStubbingOperation implements ExceptionStubbingOperatio
         return new NodeStubbingOperation() {
             public void of(Node node) throws RepositoryException {
                 Require.Argument.notNull(node, "node must not be null");
-                NodeType nodeType = null;
-                if (typeName != null) {
-                    nodeType = mock(NodeType.class);
-                    when(nodeType.getName()).thenReturn(typeName);
-                    when(nodeType.isNodeType(typeName)).thenReturn(true);
-                }
+                NodeType nodeType = typeName != null ? mockNodeType(typeName) : null;
                 stubProperty(JcrConstants.JCR_PRIMARYTYPE, typeName).of(node);
+                RepositorySnapshot.touch(node);
                 when(node.getPrimaryNodeType()).thenReturn(nodeType);
             }
         };
@@ -290,20 +288,18 @@ public abstract class NodeStubbingOperation implements ExceptionStubbingOperatio
             public void of(final Node node) throws RepositoryException {
                 Require.Argument.notNull(node, "node must not be null");
                 when(property.getParent()).thenReturn(node);
+                NodeMockUtils.invalidatePathCache(property);
                 if (node instanceof NodeMockUtils.TestNode) {
                     NodeMockUtils.TestNode testNode = (NodeMockUtils.TestNode) node;
+                    // re-insert a replaced property at the end of the property order
+                    Map<String, Property> properties = testNode.getPropertyMap();
+                    String propertyName = property.getName();
+                    properties.remove(propertyName);
+                    properties.put(propertyName, property);
                     Session s = testNode.getSession();
                     if (s != null) {
                         stubItem(property).of(s);
                     }
-                    PropertyIterator properties = testNode.getProperties();
-                    while (properties.hasNext()) {
-                        Property p = properties.nextProperty();
-                        if (p.getName().equals(property.getName())) {
-                            properties.remove();
-                        }
-                    }
-                    testNode.getPropertyCollection().add(property);
                 } else {
                     String propertyName = property.getName();
                     doReturn(property).when(node).getProperty(propertyName);
@@ -343,16 +339,18 @@ public abstract class NodeStubbingOperation implements ExceptionStubbingOperatio
                     stubParent(parent).of(child);
                 } else if (isNotEmpty(child.getName())) {
                     String childName = child.getName();
+                    RepositorySnapshot.touch(child);
                     doReturn(child).when(parent).getNode(childName);
                     doReturn(parent).when(child).getParent();
+                    NodeMockUtils.invalidatePathCache(child);
                 }
             }
         };
     }
 
     /**
-     * Stub the node name. Blank input defaults to {@link #UNTITLED}. Existing children/paths are not recalculated here; higher-level
-     * operations (like {@link #stubParent(Node)}) handle tree consistency.
+     * Stub the node name. Blank input defaults to {@link #UNTITLED}. Cached paths of the node and its descendants are invalidated,
+     * but session registrations are not updated here; higher-level operations (like {@link #stubParent(Node)}) handle tree consistency.
      *
      * @param value desired node name (may be blank)
      * @return stubbing operation
@@ -362,14 +360,17 @@ public abstract class NodeStubbingOperation implements ExceptionStubbingOperatio
             public void of(Node node) throws RepositoryException {
                 Require.Argument.notNull(node, "node must not be null");
                 String name = isBlank(value) ? UNTITLED : value;
+                RepositorySnapshot.touch(node);
                 doReturn(name).when(node).getName();
+                NodeMockUtils.invalidatePathCache(node);
             }
         };
     }
 
     /**
      * Stub UUID/identifier of a node; also updates associated session lookup methods (old UUID mappings cleared, new ones added).
-     * Requires a non-blank identifier.
+     * For sessions created by {@link SessionMockUtils#mockPlainSession()} the identifier index of the session is updated instead
+     * of adding new stubbings. Requires a non-blank identifier.
      *
      * @param identifier new identifier (not blank)
      * @return stubbing operation
@@ -379,13 +380,22 @@ public abstract class NodeStubbingOperation implements ExceptionStubbingOperatio
             public void of(Node node) throws RepositoryException {
                 Require.Argument.notNull(node, "node must not be null");
                 Require.Argument.notEmpty(identifier, "identifier must not be blank");
-                if (node.getSession() != null) {
+                RepositorySnapshot.touch(node);
+                Session s = node.getSession();
+                if (s instanceof SessionMockUtils.TestSession) {
+                    Map<String, Node> identifiers = ((SessionMockUtils.TestSession) s).getIdentifierRegistry();
+                    String oldIdentifier = node.getIdentifier();
+                    if (isNotBlank(oldIdentifier)) {
+                        identifiers.remove(oldIdentifier);
+                    }
+                    identifiers.put(identifier, node);
+                } else if (s != null) {
                     if (isNotBlank(node.getUUID())) {
-                        when(node.getSession().getNodeByUUID(node.getUUID())).thenReturn(null);
-                        when(node.getSession().getNodeByIdentifier(node.getIdentifier())).thenReturn(null);
+                        when(s.getNodeByUUID(node.getUUID())).thenReturn(null);
+                        when(s.getNodeByIdentifier(node.getIdentifier())).thenReturn(null);
                     }
-                    when(node.getSession().getNodeByUUID(identifier)).thenReturn(node);
-                    when(node.getSession().getNodeByIdentifier(identifier)).thenReturn(node);
+                    when(s.getNodeByUUID(identifier)).thenReturn(node);
+                    when(s.getNodeByIdentifier(identifier)).thenReturn(node);
                 }
                 when(node.getIdentifier()).thenReturn(identifier);
                 when(node.getUUID()).thenReturn(identifier);
@@ -395,7 +405,7 @@ public abstract class NodeStubbingOperation implements ExceptionStubbingOperatio
 
     /**
      * Stub parent relation for a node; re-registers the node (and recursively its descendants and properties) in the new session context if present.
-     * <p>Also protects against setting a node as its own parent and clears old session lookups.</p>
+     * <p>Also protects against setting a node as its own parent, clears old session lookups and invalidates the cached paths of the subtree.</p>
      *
      * @param parent new parent node
      * @return stubbing operation
@@ -405,11 +415,13 @@ public abstract class NodeStubbingOperation implements ExceptionStubbingOperatio
             public void of(Node child) throws RepositoryException {
                 Require.Argument.notNull(child, "child must not be null");
                 Require.Argument.reject(parent::equals, child, "Illegal attempt to set a node as its parent: " + child.getPath());
+                RepositorySnapshot.touch(child);
                 Session s = child.getSession();
                 if (s != null) {
                     SessionStubbingOperation.stubRemoveItem(child).of(s);
                 }
                 when(child.getParent()).thenReturn(parent);
+                NodeMockUtils.invalidatePathCache(child);
                 register(child);
             }
         };
@@ -426,11 +438,44 @@ public abstract class NodeStubbingOperation implements ExceptionStubbingOperatio
             @Override
             public void of(Node node) throws RepositoryException {
                 Require.Argument.notNull(node, "node must not be null");
+                RepositorySnapshot.touch(node);
                 doReturn(mixins).when(node).getMixinNodeTypes();
             }
         };
     }
 
+    /**
+     * Stub node mixin types returned by {@link Node#getMixinNodeTypes()} and the {@code jcr:mixinTypes} property by name.
+     * The node types are the shared node types of the repository (see {@link NodeTypeMockUtils#mockNodeType(String)}).
+     *
+     * @param mixinNames the names of the mixin types
+     * @return stubbing operation
+     */
+    public static NodeStubbingOperation stubMixins(final String... mixinNames) {
+        return new NodeStubbingOperation() {
+            @Override
+            public void of(Node node) throws RepositoryException {
+                Require.Argument.notNull(node, "node must not be null");
+                NodeType[] mixins = new NodeType[mixinNames.length];
+                for (int i = 0; i < mixinNames.length; i++) {
+                    mixins[i] = mockNodeType(mixinNames[i]);
+                }
+                stubProperty(JcrConstants.JCR_MIXINTYPES, mixinNames).of(node);
+                stubMixinNodeTypes(mixins).of(node);
+            }
+        };
+    }
+
+    /**
+     * Returns the shared {@link NodeType} mock with the given name of the current repository.
+     *
+     * @param typeName the node type name, not null
+     * @return the node type mock
+     */
+    static NodeType mockNodeType(final String typeName) {
+        return NodeTypeMockUtils.mockNodeType(typeName);
+    }
+
     private static void register(final Node child) throws RepositoryException {
         Session s = child.getSession();
         if (s != null) {
@@ -0,0 +1,147 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.assertions.Require;
+import org.apache.commons.lang3.StringUtils;
+import org.mockito.Mockito;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builder for mocking a whole tree of {@link Node}s in one go.
+ * <p>
+ * Calling {@link NodeMockUtils#mockNode(String, String, NodeStubbingOperation...)} for every node of a large fixture
+ * resolves and registers each node on its own. This builder collects the paths of all nodes first and then
+ * </p>
+ * <ol>
+ *     <li>creates all missing nodes top down, attaching each child to its parent directly,</li>
+ *     <li>applies the {@link NodeStubbingOperation}s of each path in the order the paths have been added and</li>
+ *     <li>registers all new nodes and their properties in the session in one linear pass.</li>
+ * </ol>
+ * <p>
+ * Existing nodes of the workspace are reused (get-or-create semantics as with {@code mockNode}), missing intermediate nodes
+ * are created with the default type {@link javax.jcr.nodetype.NodeType#NT_BASE}. Adding the same path twice combines the stubbings.
+ * </p>
+ * <pre>{@code
+ * Node root = NodeTreeBuilder.forWorkspace("website")
+ *     .node("/site", stubType("mgnl:page"), stubTitle("Home"))
+ *     .node("/site/news", stubType("mgnl:page"))
+ *     .node("/site/news/2024/article", stubType("mgnl:page"), stubProperty("author", "me"))
+ *     .build();
+ * }</pre>
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public final class NodeTreeBuilder {
+    private final String _workspace;
+    private final Map<String, List<NodeStubbingOperation>> _paths = new LinkedHashMap<>();
+
+    private NodeTreeBuilder(final String workspace) {
+        _workspace = workspace;
+    }
+
+    /**
+     * Creates a builder for the nodes of the given workspace.
+     *
+     * @param workspace the workspace name, not blank
+     * @return a new builder
+     */
+    public static NodeTreeBuilder forWorkspace(final String workspace) {
+        Require.Argument.notEmpty(workspace, "workspace must not be blank");
+        return new NodeTreeBuilder(workspace);
+    }
+
+    /**
+     * Adds a node to the tree. Missing ancestors are created on {@link #build()}.
+     *
+     * @param path absolute JCR-like path, normalized with {@link NodeMockUtils#sanitizeHandle(String)}; {@code "/"} denotes the root node
+     * @param stubbings optional {@link NodeStubbingOperation}s applied to the node after all nodes have been created
+     * @return this builder
+     */
+    public NodeTreeBuilder node(final String path, final NodeStubbingOperation... stubbings) {
+        String key = StringUtils.strip(NodeMockUtils.sanitizeHandle(path), "/");
+        List<NodeStubbingOperation> operations = _paths.computeIfAbsent(key, p -> new ArrayList<>());
+        if (stubbings != null) {
+            operations.addAll(Arrays.asList(stubbings));
+        }
+        return this;
+    }
+
+    /**
+     * Creates, stubs and registers all nodes of the tree.
+     *
+     * @return the root node of the workspace session
+     * @throws RepositoryException if a stubbing operation throws
+     */
+    public Node build() throws RepositoryException {
+        Session session = SessionMockUtils.mockSession(_workspace);
+        Node root = session.getRootNode();
+        Map<String, Node> nodes = new HashMap<>();
+        nodes.put(StringUtils.EMPTY, root);
+        List<Node> created = new ArrayList<>();
+        for (String path : _paths.keySet()) {
+            getOrCreate(session, root, path, nodes, created);
+        }
+        for (Map.Entry<String, List<NodeStubbingOperation>> entry : _paths.entrySet()) {
+            Node node = nodes.get(entry.getKey());
+            for (NodeStubbingOperation stubbing : entry.getValue()) {
+                stubbing.of(node);
+            }
+        }
+        NodeMockUtils.registerItems(session, created);
+        for (Node node : nodes.values()) {
+            // Clear all invocations to avoid confusion when verifying invocations later:
+            Mockito.clearInvocations(node);
+        }
+        return root;
+    }
+
+    private static Node getOrCreate(final Session session, final Node root, final String path, final Map<String, Node> nodes, final List<Node> created) throws RepositoryException {
+        Node result = nodes.get(path);
+        if (result == null) {
+            int separator = path.lastIndexOf('/');
+            String name = path.substring(separator + 1);
+            Node parent = separator > 0 ? getOrCreate(session, root, path.substring(0, separator), nodes, created) : root;
+            if (name.isEmpty()) {
+                result = parent;
+            } else {
+                String absPath = NodeMockUtils.getPathForParent(parent, name);
+                result = session.itemExists(absPath) ? (Node) session.getItem(absPath) : null;
+                if (result == null) {
+                    result = NodeMockUtils.mockChildNode(parent, name);
+                    created.add(result);
+                }
+            }
+            nodes.put(path, result);
+        }
+        return result;
+    }
+}
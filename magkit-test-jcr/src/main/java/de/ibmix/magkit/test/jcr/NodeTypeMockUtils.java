@@ -0,0 +1,434 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.assertions.Require;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.jackrabbit.commons.iterator.NodeTypeIteratorAdapter;
+import org.mockito.Answers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import javax.jcr.nodetype.NodeType;
+import javax.jcr.nodetype.NodeTypeManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Utility class for the {@link NodeType} mocks of the current (thread-local) repository mock.
+ * <p>
+ * Node types are interned: there is exactly one {@link NodeType} mock per name and repository, shared by all nodes of that
+ * type. The registry knows the supertypes of the common JCR and Magnolia node types (e.g. {@code mgnl:page} is a
+ * {@code mgnl:content}, which is a {@code nt:hierarchyNode} and {@code mix:referenceable}); further types can be declared with
+ * {@link #mockNodeType(String, String...)} and {@link #mockMixinNodeType(String, String...)}. The inheritance closure of each
+ * type is computed once and cached, so {@link NodeType#isNodeType(String)} and {@link javax.jcr.Node#isNodeType(String)} are
+ * constant time lookups. Prefixed names ({@code nt:base}) and expanded names ({@link NodeType#NT_BASE}) of the JCR and
+ * Magnolia namespaces are treated as equal.
+ * </p>
+ * <pre>
+ *     NodeTypeMockUtils.mockNodeType("app:article", "mgnl:page");
+ *     Node article = NodeMockUtils.mockNode("/news/article", NodeStubbingOperation.stubType("app:article"));
+ *     assertTrue(article.isNodeType("mgnl:content"));
+ * </pre>
+ * The node type mocks are shared and created as {@link org.mockito.MockSettings#stubOnly() stub-only} mocks; don't re-stub
+ * or verify them in tests. The registry is discarded by {@link RepositoryMockUtils#cleanRepository()}.
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public final class NodeTypeMockUtils {
+
+    private static final Map<String, String> NAMESPACES = new LinkedHashMap<>();
+    private static final Map<String, String[]> PRIMARY_TYPES = new HashMap<>();
+    private static final Map<String, String[]> MIXIN_TYPES = new HashMap<>();
+    private static final String[] NONE = new String[0];
+    private static final ThreadLocal<NodeTypeRegistry> REGISTRY = new ThreadLocal<>();
+
+    static {
+        NAMESPACES.put("{http://www.jcp.org/jcr/1.0}", "jcr:");
+        NAMESPACES.put("{http://www.jcp.org/jcr/nt/1.0}", "nt:");
+        NAMESPACES.put("{http://www.jcp.org/jcr/mix/1.0}", "mix:");
+        NAMESPACES.put("{internal}", "rep:");
+        NAMESPACES.put("{http://www.magnolia.info/jcr/mgnl}", "mgnl:");
+
+        PRIMARY_TYPES.put("nt:base", NONE);
+        PRIMARY_TYPES.put("nt:unstructured", NONE);
+        PRIMARY_TYPES.put("nt:hierarchyNode", new String[]{"mix:created"});
+        PRIMARY_TYPES.put("nt:folder", new String[]{"nt:hierarchyNode"});
+        PRIMARY_TYPES.put("nt:file", new String[]{"nt:hierarchyNode"});
+        PRIMARY_TYPES.put("nt:linkedFile", new String[]{"nt:hierarchyNode"});
+        PRIMARY_TYPES.put("nt:resource", new String[]{"mix:mimeType", "mix:lastModified"});
+        PRIMARY_TYPES.put("nt:address", NONE);
+        PRIMARY_TYPES.put("nt:query", NONE);
+        PRIMARY_TYPES.put("rep:root", new String[]{"nt:unstructured"});
+        PRIMARY_TYPES.put("mgnl:content", new String[]{"nt:hierarchyNode", "mix:referenceable", "mgnl:created", "mgnl:activatable", "mgnl:lastModified", "mgnl:renderable", "mgnl:versionable"});
+        PRIMARY_TYPES.put("mgnl:contentNode", new String[]{"nt:base", "mix:referenceable", "mgnl:created", "mgnl:activatable", "mgnl:lastModified", "mgnl:renderable"});
+        PRIMARY_TYPES.put("mgnl:folder", new String[]{"nt:folder", "mix:referenceable", "mgnl:created", "mgnl:activatable", "mgnl:lastModified", "mgnl:versionable"});
+        PRIMARY_TYPES.put("mgnl:page", new String[]{"mgnl:content"});
+        PRIMARY_TYPES.put("mgnl:area", new String[]{"mgnl:contentNode"});
+        PRIMARY_TYPES.put("mgnl:component", new String[]{"mgnl:contentNode"});
+        PRIMARY_TYPES.put("mgnl:resource", new String[]{"mgnl:contentNode"});
+        PRIMARY_TYPES.put("mgnl:metaData", NONE);
+        PRIMARY_TYPES.put("mgnl:asset", new String[]{"mgnl:content"});
+        PRIMARY_TYPES.put("mgnl:user", new String[]{"mgnl:content"});
+        PRIMARY_TYPES.put("mgnl:group", new String[]{"mgnl:content"});
+        PRIMARY_TYPES.put("mgnl:role", new String[]{"mgnl:content"});
+        PRIMARY_TYPES.put("mgnl:reserve", new String[]{"nt:hierarchyNode"});
+
+        MIXIN_TYPES.put("mix:referenceable", NONE);
+        MIXIN_TYPES.put("mix:simpleVersionable", NONE);
+        MIXIN_TYPES.put("mix:versionable", new String[]{"mix:simpleVersionable", "mix:referenceable"});
+        MIXIN_TYPES.put("mix:lockable", NONE);
+        MIXIN_TYPES.put("mix:shareable", new String[]{"mix:referenceable"});
+        MIXIN_TYPES.put("mix:created", NONE);
+        MIXIN_TYPES.put("mix:lastModified", NONE);
+        MIXIN_TYPES.put("mix:title", NONE);
+        MIXIN_TYPES.put("mix:language", NONE);
+        MIXIN_TYPES.put("mix:mimeType", NONE);
+        MIXIN_TYPES.put("mix:etag", NONE);
+        MIXIN_TYPES.put("mgnl:created", new String[]{"mix:created"});
+        MIXIN_TYPES.put("mgnl:lastModified", new String[]{"mix:lastModified"});
+        MIXIN_TYPES.put("mgnl:activatable", NONE);
+        MIXIN_TYPES.put("mgnl:renderable", NONE);
+        MIXIN_TYPES.put("mgnl:versionable", NONE);
+        MIXIN_TYPES.put("mgnl:deleted", NONE);
+        MIXIN_TYPES.put("mgnl:hasVersion", NONE);
+    }
+
+    private NodeTypeMockUtils() {
+    }
+
+    /**
+     * Returns the {@link NodeType} mock with the given name of the current repository, creating it if necessary.
+     * Types not known by the registry are primary types with {@code nt:base} as only supertype or, if their name starts
+     * with {@code mix:}, mixin types without supertypes.
+     *
+     * @param name the node type name, must not be blank
+     * @return the interned node type mock
+     */
+    public static NodeType mockNodeType(String name) {
+        Require.Argument.notBlank(name, "name must not be blank");
+        return getRegistry().getNodeType(name);
+    }
+
+    /**
+     * Declares a primary node type with the given direct supertypes and returns its interned {@link NodeType} mock.
+     * Replaces the supertypes of a type known before; the inheritance closures of all types are recomputed on next use.
+     *
+     * @param name the node type name, must not be blank
+     * @param supertypes the names of the direct supertypes; {@code nt:base} is always added implicitly
+     * @return the interned node type mock
+     */
+    public static NodeType mockNodeType(String name, String... supertypes) {
+        Require.Argument.notBlank(name, "name must not be blank");
+        return getRegistry().declare(name, false, supertypes);
+    }
+
+    /**
+     * Declares a mixin node type with the given direct supertypes and returns its interned {@link NodeType} mock.
+     *
+     * @param name the mixin type name, must not be blank
+     * @param supertypes the names of the direct (mixin) supertypes
+     * @return the interned node type mock
+     */
+    public static NodeType mockMixinNodeType(String name, String... supertypes) {
+        Require.Argument.notBlank(name, "name must not be blank");
+        return getRegistry().declare(name, true, supertypes);
+    }
+
+    /**
+     * Returns the {@link NodeTypeManager} mock of the current repository. It answers {@code getNodeType(name)} with the
+     * interned node types, {@code hasNodeType(name)} for known and declared types and iterates all node types created so far.
+     *
+     * @return the node type manager mock of the current repository
+     */
+    public static NodeTypeManager mockNodeTypeManager() {
+        return getRegistry().getNodeTypeManager();
+    }
+
+    /**
+     * Discards the node type registry of the current thread.
+     */
+    static void cleanNodeTypes() {
+        REGISTRY.remove();
+    }
+
+    /**
+     * Returns the prefixed form of expanded names of the well known namespaces, e.g. {@code nt:base} for {@link NodeType#NT_BASE}.
+     */
+    static String normalize(String name) {
+        String result = name;
+        if (name != null && name.startsWith("{")) {
+            for (Map.Entry<String, String> namespace : NAMESPACES.entrySet()) {
+                if (name.startsWith(namespace.getKey())) {
+                    result = namespace.getValue() + name.substring(namespace.getKey().length());
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the node type registry of the current thread, creating it if necessary.
+     */
+    static NodeTypeRegistry getRegistry() {
+        NodeTypeRegistry result = REGISTRY.get();
+        if (result == null) {
+            result = new NodeTypeRegistry();
+            REGISTRY.set(result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the node type registry of the current thread without creating it.
+     */
+    static NodeTypeRegistry getCurrentRegistry() {
+        return REGISTRY.get();
+    }
+
+    /**
+     * Replaces the node type registry of the current thread, e.g. by the registry of a {@link SharedRepository}. Passing null
+     * discards the registry of the thread.
+     */
+    static void setRegistry(NodeTypeRegistry registry) {
+        if (registry == null) {
+            REGISTRY.remove();
+        } else {
+            REGISTRY.set(registry);
+        }
+    }
+
+    /**
+     * The interned node types of one repository with their declarations and the cached inheritance closures.
+     * The registry is synchronized, as the registry of a {@link SharedRepository} is used by many threads.
+     */
+    static final class NodeTypeRegistry {
+        private final Map<String, NodeType> _types = new LinkedHashMap<>();
+        private final Map<String, Declaration> _declarations = new HashMap<>();
+        private final Map<String, Set<String>> _closures = new HashMap<>();
+        private NodeTypeManager _nodeTypeManager;
+
+        synchronized NodeType getNodeType(String name) {
+            NodeType result = _types.get(name);
+            if (result == null) {
+                result = mock(NodeType.class, withSettings().stubOnly().defaultAnswer(new NodeTypeAnswer(this, name)));
+                _types.put(name, result);
+            }
+            return result;
+        }
+
+        synchronized NodeType declare(String name, boolean mixin, String... supertypes) {
+            String[] names = supertypes == null ? NONE : supertypes;
+            _declarations.put(normalize(name), new Declaration(mixin, names));
+            _closures.clear();
+            return getNodeType(name);
+        }
+
+        synchronized boolean isKnown(String name) {
+            String normalized = normalize(name);
+            return _declarations.containsKey(normalized) || PRIMARY_TYPES.containsKey(normalized) || MIXIN_TYPES.containsKey(normalized)
+                || _types.containsKey(name);
+        }
+
+        synchronized Declaration getDeclaration(String normalized) {
+            Declaration result = _declarations.get(normalized);
+            if (result == null) {
+                String[] supertypes = PRIMARY_TYPES.get(normalized);
+                if (supertypes != null) {
+                    result = new Declaration(false, supertypes);
+                } else {
+                    supertypes = MIXIN_TYPES.get(normalized);
+                    result = supertypes != null ? new Declaration(true, supertypes) : new Declaration(normalized.startsWith("mix:"), NONE);
+                }
+            }
+            return result;
+        }
+
+        synchronized Set<String> getClosure(String normalized) {
+            Set<String> result = _closures.get(normalized);
+            if (result == null) {
+                result = new HashSet<>();
+                collectClosure(normalized, result);
+                if (!getDeclaration(normalized).isMixin()) {
+                    result.add("nt:base");
+                }
+                result = Collections.unmodifiableSet(result);
+                _closures.put(normalized, result);
+            }
+            return result;
+        }
+
+        private void collectClosure(String normalized, Set<String> closure) {
+            if (closure.add(normalized)) {
+                for (String supertype : getDeclaration(normalized).getSupertypes()) {
+                    collectClosure(normalize(supertype), closure);
+                }
+            }
+        }
+
+        synchronized NodeTypeManager getNodeTypeManager() {
+            if (_nodeTypeManager == null) {
+                _nodeTypeManager = mock(NodeTypeManager.class, withSettings().stubOnly().defaultAnswer(this::answerNodeTypeManager));
+            }
+            return _nodeTypeManager;
+        }
+
+        private Object answerNodeTypeManager(InvocationOnMock invocation) throws Throwable {
+            Object result;
+            switch (invocation.getMethod().getName()) {
+                case "getNodeType":
+                    result = invocation.getArgument(0) == null ? null : getNodeType(invocation.getArgument(0));
+                    break;
+                case "hasNodeType":
+                    result = invocation.getArgument(0) != null && isKnown(invocation.getArgument(0));
+                    break;
+                case "getAllNodeTypes":
+                    result = new NodeTypeIteratorAdapter(getNodeTypes());
+                    break;
+                case "getPrimaryNodeTypes":
+                    result = new NodeTypeIteratorAdapter(filterTypes(false));
+                    break;
+                case "getMixinNodeTypes":
+                    result = new NodeTypeIteratorAdapter(filterTypes(true));
+                    break;
+                default:
+                    result = Answers.RETURNS_DEFAULTS.answer(invocation);
+                    break;
+            }
+            return result;
+        }
+
+        private synchronized Collection<NodeType> getNodeTypes() {
+            return new ArrayList<>(_types.values());
+        }
+
+        private synchronized Collection<NodeType> filterTypes(boolean mixin) {
+            List<NodeType> result = new ArrayList<>();
+            for (Map.Entry<String, NodeType> type : _types.entrySet()) {
+                if (getDeclaration(normalize(type.getKey())).isMixin() == mixin) {
+                    result.add(type.getValue());
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The mixin flag and the names of the direct supertypes of a node type.
+     */
+    private static final class Declaration {
+        private final boolean _mixin;
+        private final String[] _supertypes;
+
+        Declaration(boolean mixin, String[] supertypes) {
+            _mixin = mixin;
+            _supertypes = supertypes;
+        }
+
+        boolean isMixin() {
+            return _mixin;
+        }
+
+        String[] getSupertypes() {
+            return _supertypes;
+        }
+    }
+
+    /**
+     * Default answer of the interned node type mocks, answering from the declaration and the cached closure in the registry.
+     */
+    private static final class NodeTypeAnswer implements Answer<Object> {
+        private final NodeTypeRegistry _registry;
+        private final String _name;
+        private final String _normalizedName;
+
+        NodeTypeAnswer(NodeTypeRegistry registry, String name) {
+            _registry = registry;
+            _name = name;
+            _normalizedName = normalize(name);
+        }
+
+        @Override
+        public Object answer(InvocationOnMock invocation) throws Throwable {
+            Object result;
+            switch (invocation.getMethod().getName()) {
+                case "getName":
+                case "toString":
+                    result = _name;
+                    break;
+                case "isNodeType":
+                    String name = invocation.getArgument(0);
+                    result = name != null && _registry.getClosure(_normalizedName).contains(normalize(name));
+                    break;
+                case "isMixin":
+                    result = _registry.getDeclaration(_normalizedName).isMixin();
+                    break;
+                case "getDeclaredSupertypeNames":
+                    result = getDeclaredSupertypeNames();
+                    break;
+                case "getDeclaredSupertypes":
+                    result = toNodeTypes(Arrays.asList(getDeclaredSupertypeNames()));
+                    break;
+                case "getSupertypes":
+                    List<String> supertypes = new ArrayList<>(_registry.getClosure(_normalizedName));
+                    supertypes.remove(_normalizedName);
+                    Collections.sort(supertypes);
+                    result = toNodeTypes(supertypes);
+                    break;
+                default:
+                    result = Answers.RETURNS_DEFAULTS.answer(invocation);
+                    break;
+            }
+            return result;
+        }
+
+        private String[] getDeclaredSupertypeNames() {
+            Declaration declaration = _registry.getDeclaration(_normalizedName);
+            String[] result = declaration.getSupertypes();
+            if (!declaration.isMixin() && result.length == 0 && !StringUtils.equals(_normalizedName, "nt:base")) {
+                result = new String[]{"nt:base"};
+            }
+            return result;
+        }
+
+        private NodeType[] toNodeTypes(Collection<String> names) {
+            NodeType[] result = new NodeType[names.size()];
+            int i = 0;
+            for (String name : names) {
+                result[i++] = _registry.getNodeType(name);
+            }
+            return result;
+        }
+    }
+}
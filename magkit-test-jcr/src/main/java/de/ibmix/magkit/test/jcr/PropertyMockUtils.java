@@ -23,9 +23,11 @@ package de.ibmix.magkit.test.jcr;
 import de.ibmix.magkit.assertions.Require;
 import org.mockito.Answers;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import javax.jcr.Binary;
+import javax.jcr.ItemVisitor;
 import javax.jcr.Node;
 import javax.jcr.Property;
 import javax.jcr.PropertyType;
@@ -34,13 +36,10 @@ import javax.jcr.Value;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Calendar;
-import java.util.Collection;
 import java.util.stream.Collectors;
 
 import static de.ibmix.magkit.test.jcr.PropertyStubbingOperation.stubNode;
 import static de.ibmix.magkit.test.jcr.PropertyStubbingOperation.stubValues;
-import static org.mockito.Mockito.doAnswer;
-import static org.mockito.Mockito.when;
 
 /**
  * Utility for creating Mockito based {@link Property} test doubles with rich, type-aware default answers.
@@ -210,6 +209,8 @@ public final class PropertyMockUtils {
      * <p>The returned mock has dynamic answers for the standard accessor methods that delegate to the current
      * (first) {@link Value} when set later via the provided stubbing operations.</p>
      * <p>Initially the property is single-valued and returns an empty {@code Value[]} for {@link Property#getValues()}.</p>
+     * <p>The dynamic behaviour is provided by one {@link PropertyDefaultAnswer} per mock instead of separate stubbings per
+     * method; explicit stubbings still take precedence.</p>
      *
      * @param name the JCR property name, must not be {@code null}
      * @return base {@link Property} mock ready for further stubbing
@@ -217,25 +218,22 @@ public final class PropertyMockUtils {
      */
     public static Property mockProperty(final String name) throws RepositoryException {
         Require.Argument.notNull(name, "property name must not be null");
-        TestProperty property = Mockito.mock(TestProperty.class);
-        when(property.getName()).thenReturn(name);
-        when(property.getString()).thenAnswer(STRING_ANSWER);
-        when(property.getBinary()).thenAnswer(BINARY_ANSWER);
-        when(property.getStream()).thenAnswer(STREAM_ANSWER);
-        when(property.getBoolean()).thenAnswer(BOOLEAN_ANSWER);
-        when(property.getDate()).thenAnswer(CALENDAR_ANSWER);
-        when(property.getDouble()).thenAnswer(DOUBLE_ANSWER);
-        when(property.getLong()).thenAnswer(LONG_ANSWER);
-        when(property.getType()).thenAnswer(TYPE_ANSWER);
-        when(property.getPath()).then(NodeMockUtils.PATH_ANSWER);
-        when(property.getDepth()).then(NodeMockUtils.DEPTH_ANSWER);
-        when(property.getSession()).then(NodeMockUtils.SESSION_ANSWER);
-        when(property.getValues()).thenReturn(new Value[0]);
-        when(property.isMultiple()).then(IS_MULTIPLE_ANSWER);
-        doAnswer(Answers.CALLS_REAL_METHODS).when(property).remove();
-        doAnswer(TO_STRING_ANSWER).when(property).toString();
-        PropertyStubbingOperation.stubAccept().of(property);
-        return property;
+        return mockPlainProperty(name, null, null);
+    }
+
+    /**
+     * Create a {@link Property} mock that answers its name, parent and values from the state of its {@link PropertyDefaultAnswer}
+     * instead of separate stubbings. The parent is not updated; use {@link NodeStubbingOperation#stubProperty(Property)} to attach
+     * the property to a node or add it to the property collection of the parent directly.
+     *
+     * @param name the JCR property name, must not be {@code null}
+     * @param parent the parent node or {@code null}
+     * @param values the property values or {@code null} for a property without values
+     * @return the property mock
+     */
+    static Property mockPlainProperty(final String name, final Node parent, final Value[] values) {
+        Require.Argument.notNull(name, "property name must not be null");
+        return Mockito.mock(TestProperty.class, RepositoryMockUtils.itemMockSettings().defaultAnswer(new PropertyDefaultAnswer(name, parent, values)));
     }
 
     public static final Answer<String> STRING_ANSWER = invocation -> {
@@ -284,16 +282,102 @@ public final class PropertyMockUtils {
         return property != null ? property.getName() + ':' + (property.isMultiple() ? Arrays.stream(property.getValues()).map(Value::toString).collect(Collectors.joining(";")) : property.getString()) : "NULL";
     };
 
+    /**
+     * Default {@link Answer} of the property mocks created by {@link #mockProperty(String)}. Holds the name, initial parent
+     * and values and the cached path of the property and dispatches each invocation by method name to the matching answer. All other methods fall back to
+     * {@link Answers#RETURNS_DEFAULTS}.
+     */
+    static final class PropertyDefaultAnswer implements Answer<Object> {
+        private final NodeMockUtils.PathCache _pathCache = new NodeMockUtils.PathCache();
+        private final String _name;
+        private final Node _parent;
+        private final Value[] _values;
+
+        PropertyDefaultAnswer(String name, Node parent, Value[] values) {
+            _name = name;
+            _parent = parent;
+            _values = values;
+        }
+
+        @Override
+        public Object answer(InvocationOnMock invocation) throws Throwable {
+            Answer<?> answer;
+            switch (invocation.getMethod().getName()) {
+                case "getPathCache":
+                    return _pathCache;
+                case "getName":
+                    return _name;
+                case "getParent":
+                    return _parent;
+                case "getValue":
+                    return _values != null && _values.length > 0 ? _values[0] : null;
+                case "getValues":
+                    return _values != null ? _values : new Value[0];
+                case "remove":
+                    return invocation.callRealMethod();
+                case "accept":
+                    ItemVisitor visitor = (ItemVisitor) invocation.getArguments()[0];
+                    if (visitor != null) {
+                        visitor.visit((Property) invocation.getMock());
+                    }
+                    return null;
+                case "getString":
+                    answer = STRING_ANSWER;
+                    break;
+                case "getBinary":
+                    answer = BINARY_ANSWER;
+                    break;
+                case "getStream":
+                    answer = STREAM_ANSWER;
+                    break;
+                case "getBoolean":
+                    answer = BOOLEAN_ANSWER;
+                    break;
+                case "getDate":
+                    answer = CALENDAR_ANSWER;
+                    break;
+                case "getDouble":
+                    answer = DOUBLE_ANSWER;
+                    break;
+                case "getLong":
+                    answer = LONG_ANSWER;
+                    break;
+                case "getType":
+                    answer = TYPE_ANSWER;
+                    break;
+                case "isMultiple":
+                    answer = IS_MULTIPLE_ANSWER;
+                    break;
+                case "getPath":
+                    answer = NodeMockUtils.PATH_ANSWER;
+                    break;
+                case "getDepth":
+                    answer = NodeMockUtils.DEPTH_ANSWER;
+                    break;
+                case "getSession":
+                    answer = NodeMockUtils.SESSION_ANSWER;
+                    break;
+                case "toString":
+                    answer = TO_STRING_ANSWER;
+                    break;
+                default:
+                    answer = Answers.RETURNS_DEFAULTS;
+                    break;
+            }
+            return answer.answer(invocation);
+        }
+    }
+
     /**
      * Extended Interface to simplify mocking.
      */
     abstract static class TestProperty implements Property {
+        abstract NodeMockUtils.PathCache getPathCache();
 
         @Override
         public void remove() throws RepositoryException {
             NodeMockUtils.TestNode parent = (NodeMockUtils.TestNode) getParent();
-            Collection<Property> siblings = parent.getPropertyCollection();
-            siblings.remove(this);
+            parent.getPropertyMap().remove(getName(), this);
             SessionStubbingOperation.stubRemoveItem(this).of(getSession());
         }
     }
@@ -0,0 +1,315 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.assertions.Require;
+
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * The mock state bound to a thread by {@link RepositoryMockUtils}, captured to use it in other threads.
+ * <p>
+ * The repository mock, its snapshot or shared repository overlay, the node types and the stub-only, mock value and lazy fixture
+ * modes belong to the thread that created them. Code under test that fans out work on an {@link ExecutorService}, a parallel
+ * stream or new threads sees empty mocks in the worker threads. A context captured by {@link #capture()} carries the state of
+ * the capturing thread to other threads:
+ * </p>
+ * <ul>
+ *     <li>{@link #run(Runnable)} and {@link #call(Callable)} bind the state for the duration of a task and restore the previous
+ *     state of the thread afterwards (structured binding),</li>
+ *     <li>{@link #wrap(Runnable)}, {@link #wrap(Callable)} and {@link #wrap(Function)} return tasks doing so, e.g. for the
+ *     functions of a parallel stream,</li>
+ *     <li>{@link #propagating(ExecutorService)} returns an executor service capturing the state of the submitting thread for
+ *     each task and</li>
+ *     <li>{@link #inheriting(ThreadFactory)} returns a thread factory binding the state of the creating thread to the new threads
+ *     for their lifetime (inherited binding), e.g. for {@code Executors.newThreadPerTaskExecutor(inheriting(Thread.ofVirtual().factory()))}.</li>
+ * </ul>
+ * <pre>
+ * ExecutorService executor = RepositoryMockContext.propagating(Executors.newFixedThreadPool(4));
+ * mockNode("website", "/home/page");
+ * Future&lt;Boolean&gt; exists = executor.submit(() -&gt; SessionMockUtils.mockSession("website").nodeExists("/home/page"));
+ * </pre>
+ * <p>
+ * The worker threads use the mocks of the capturing thread. Capturing mocks the remaining children of lazy fixtures (see
+ * {@link RepositoryMockUtils#setLazyFixtures(boolean)}), so navigating and reading the captured nodes doesn't change the mocks.
+ * Nothing else is synchronized: changes, queries cached by a {@link de.ibmix.magkit.test.jcr.query.QueryResultCache}, observation and mocks created by the workers
+ * must be kept away from each other, e.g. by giving each worker a repository of its own with {@link SharedRepository#attach()}.
+ * Restoring the previous state of a thread discards the state the thread didn't have before.
+ * </p>
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public class RepositoryMockContext {
+
+    private final Repository _repository;
+    private final RepositorySnapshot _snapshot;
+    private final Map<Object, Object> _overlay;
+    private final NodeTypeMockUtils.NodeTypeRegistry _nodeTypes;
+    private final boolean _stubOnly;
+    private final boolean _mockValues;
+    private final boolean _lazyFixtures;
+
+    /**
+     * Captures the mock state of the current thread.
+     */
+    protected RepositoryMockContext() {
+        _repository = RepositoryMockUtils.getRepository();
+        _snapshot = RepositoryMockUtils.getSnapshot();
+        _overlay = RepositoryMockUtils.getOverlay();
+        _nodeTypes = NodeTypeMockUtils.getCurrentRegistry();
+        _stubOnly = RepositoryMockUtils.isStubOnly();
+        _mockValues = RepositoryMockUtils.isMockValues();
+        _lazyFixtures = RepositoryMockUtils.isLazyFixtures();
+        if (_repository != null && _overlay == null) {
+            mockLazyNodes(_repository);
+        }
+    }
+
+    /**
+     * Captures the mock state of the current thread.
+     *
+     * @return the context of the current thread
+     */
+    public static RepositoryMockContext capture() {
+        return new RepositoryMockContext();
+    }
+
+    /**
+     * Returns an executor service running each task with the context of the thread submitting it.
+     *
+     * @param executor the executor service running the tasks, must not be null
+     * @return the propagating executor service, shutting down the given one
+     */
+    public static ExecutorService propagating(ExecutorService executor) {
+        return propagating(executor, RepositoryMockContext::capture);
+    }
+
+    /**
+     * Returns a thread factory binding the context of the thread creating a new thread to the new thread.
+     *
+     * @param factory the factory creating the threads, must not be null
+     * @return the inheriting thread factory
+     */
+    public static ThreadFactory inheriting(ThreadFactory factory) {
+        return inheriting(factory, RepositoryMockContext::capture);
+    }
+
+    /**
+     * Runs a task with the context bound to the current thread and restores the previous context of the thread afterwards.
+     *
+     * @param task the task, must not be null
+     */
+    public void run(Runnable task) {
+        Require.Argument.notNull(task, "task must not be null");
+        RepositoryMockContext previous = newContext();
+        bind();
+        try {
+            task.run();
+        } finally {
+            previous.bind();
+        }
+    }
+
+    /**
+     * Calls a task with the context bound to the current thread and restores the previous context of the thread afterwards.
+     *
+     * @param task the task, must not be null
+     * @param <T> the result type
+     * @return the result of the task
+     * @throws Exception the exception of the task
+     */
+    public <T> T call(Callable<T> task) throws Exception {
+        Require.Argument.notNull(task, "task must not be null");
+        RepositoryMockContext previous = newContext();
+        bind();
+        T result;
+        try {
+            result = task.call();
+        } finally {
+            previous.bind();
+        }
+        return result;
+    }
+
+    /**
+     * Returns a task running the given task with this context.
+     *
+     * @param task the task, must not be null
+     * @return the wrapped task
+     */
+    public Runnable wrap(Runnable task) {
+        Require.Argument.notNull(task, "task must not be null");
+        return () -> run(task);
+    }
+
+    /**
+     * Returns a task calling the given task with this context.
+     *
+     * @param task the task, must not be null
+     * @param <T> the result type
+     * @return the wrapped task
+     */
+    public <T> Callable<T> wrap(Callable<T> task) {
+        Require.Argument.notNull(task, "task must not be null");
+        return () -> call(task);
+    }
+
+    /**
+     * Returns a function applying the given function with this context, e.g. to map the elements of a parallel stream.
+     *
+     * @param function the function, must not be null
+     * @param <T> the argument type
+     * @param <R> the result type
+     * @return the wrapped function
+     */
+    public <T, R> Function<T, R> wrap(Function<T, R> function) {
+        Require.Argument.notNull(function, "function must not be null");
+        return argument -> {
+            RepositoryMockContext previous = newContext();
+            bind();
+            R result;
+            try {
+                result = function.apply(argument);
+            } finally {
+                previous.bind();
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Captures the context of the current thread to restore it after a task. Subclasses capturing more state return an
+     * instance of their own.
+     *
+     * @return the context of the current thread
+     */
+    protected RepositoryMockContext newContext() {
+        return new RepositoryMockContext();
+    }
+
+    /**
+     * Binds the captured state to the current thread. Subclasses capturing more state bind it as well.
+     */
+    protected void bind() {
+        RepositoryMockUtils.setRepository(_repository, _overlay);
+        RepositoryMockUtils.setSnapshot(_snapshot);
+        NodeTypeMockUtils.setRegistry(_nodeTypes);
+        NodeMockUtils.cleanBlueprint();
+        RepositoryMockUtils.setStubOnly(_stubOnly);
+        RepositoryMockUtils.setMockValues(_mockValues);
+        RepositoryMockUtils.setLazyFixtures(_lazyFixtures);
+    }
+
+    /**
+     * Mocks the remaining children of the lazy fixtures of all sessions, as mocking them when they are first read changes the
+     * sessions. The nodes of a shared repository are mocked by freezing it already.
+     */
+    private static void mockLazyNodes(Repository repository) {
+        try {
+            for (Session session : SharedRepository.getSessions(repository).values()) {
+                if (session instanceof SessionMockUtils.TestSession) {
+                    SharedRepository.mockLazyNodes((SessionMockUtils.TestSession) session);
+                }
+            }
+        } catch (RepositoryException e) {
+            throw new IllegalStateException("lazy fixture nodes can not be mocked", e);
+        }
+    }
+
+    /**
+     * Returns an executor service running each task with the context captured from the thread submitting it.
+     *
+     * @param executor the executor service running the tasks, must not be null
+     * @param capture captures the context of the current thread
+     * @return the propagating executor service
+     */
+    protected static ExecutorService propagating(ExecutorService executor, Supplier<? extends RepositoryMockContext> capture) {
+        Require.Argument.notNull(executor, "executor must not be null");
+        return new PropagatingExecutorService(executor, capture);
+    }
+
+    /**
+     * Returns a thread factory binding the context captured from the thread creating a new thread to the new thread.
+     *
+     * @param factory the factory creating the threads, must not be null
+     * @param capture captures the context of the current thread
+     * @return the inheriting thread factory
+     */
+    protected static ThreadFactory inheriting(ThreadFactory factory, Supplier<? extends RepositoryMockContext> capture) {
+        Require.Argument.notNull(factory, "factory must not be null");
+        return task -> factory.newThread(capture.get().wrap(task));
+    }
+
+    /**
+     * An executor service wrapping the tasks of another one with the context of the submitting thread.
+     */
+    private static final class PropagatingExecutorService extends AbstractExecutorService {
+        private final ExecutorService _executor;
+        private final Supplier<? extends RepositoryMockContext> _capture;
+
+        PropagatingExecutorService(ExecutorService executor, Supplier<? extends RepositoryMockContext> capture) {
+            _executor = executor;
+            _capture = capture;
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            _executor.execute(_capture.get().wrap(command));
+        }
+
+        @Override
+        public void shutdown() {
+            _executor.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return _executor.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return _executor.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return _executor.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return _executor.awaitTermination(timeout, unit);
+        }
+    }
+}
@@ -19,12 +19,17 @@ package de.ibmix.magkit.test.jcr;
  * limitations under the License.
  * #L% */
 
+import de.ibmix.magkit.assertions.Require;
+import org.mockito.MockSettings;
 import org.mockito.Mockito;
 
 import javax.jcr.Repository;
 import javax.jcr.RepositoryException;
+import java.util.Map;
+import java.util.Objects;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
 
 /**
  * Utility class for creating and reusing a Mockito mock of a {@link javax.jcr.Repository} within the scope of the current thread.
@@ -62,9 +67,28 @@ import static org.mockito.Mockito.mock;
  * </pre>
  * <p><strong>Thread safety:</strong><br>
  * Access to the repository mock is confined to the current thread only. No additional synchronization is required.
+ * Code under test running work on other threads sees the mocks of the current thread through a captured {@link RepositoryMockContext}.
+ * </p>
+ * <p><strong>Stub-only mode:</strong><br>
+ * Large fixtures spend much of their time and memory in Mockito recording every invocation on session, workspace, node,
+ * property and value mocks. With {@link #setStubOnly(boolean)} (or the system property {@value #STUB_ONLY_PROPERTY}) these mocks are created
+ * as {@link MockSettings#stubOnly() stub-only} mocks that do not record invocations. They can not be verified directly;
+ * wrap single nodes with {@link NodeMockUtils#spyNode(javax.jcr.Node)} where verification is needed.
+ * </p>
+ * <p><strong>Plain values:</strong><br>
+ * {@link ValueMockUtils} creates plain {@link javax.jcr.Value} objects that convert their content on first access. Tests that
+ * need to verify or re-stub values can switch to mock-backed values with {@link #setMockValues(boolean)} (or the system
+ * property {@value #MOCK_VALUES_PROPERTY}).
+ * </p>
+ * <p><strong>Lazy fixtures:</strong><br>
+ * With {@link #setLazyFixtures(boolean)} (or the system property {@value #LAZY_FIXTURES_PROPERTY}) XML fixtures and snapshots
+ * only mock their root node up front. The session keeps the parsed fixture and mocks the children of a node when they are
+ * first reached through {@code Session.getItem(...)}, {@code Node.getNode(...)}, {@code Node.getNodes()} or an identifier lookup.
  * </p>
  * <p><strong>Resetting:</strong><br>
  * Use {@link #cleanRepository()} to discard the current thread's mock so the next call to {@link #mockRepository(RepositoryStubbingOperation...)} creates a new one.
+ * Tests sharing a large fixture can take a {@link #snapshot()} of the repository once and {@link RepositorySnapshot#restore() restore}
+ * it after each test instead; restoring reverts only the changes made since.
  * </p>
  *
  * @author wolf.bubenik@ibmix.de
@@ -77,7 +101,27 @@ public final class RepositoryMockUtils {
      */
     private RepositoryMockUtils() { /* utility class */ }
 
+    /**
+     * Name of the system property that enables the stub-only mode for all threads by default.
+     */
+    public static final String STUB_ONLY_PROPERTY = "magkit.test.jcr.stubOnly";
+
+    /**
+     * Name of the system property that enables the lazy fixture mode for all threads by default.
+     */
+    public static final String LAZY_FIXTURES_PROPERTY = "magkit.test.jcr.lazyFixtures";
+
+    /**
+     * Name of the system property that enables mock-backed values for all threads by default.
+     */
+    public static final String MOCK_VALUES_PROPERTY = "magkit.test.jcr.mockValues";
+
     private static final ThreadLocal<Repository> REPOSITORY = new ThreadLocal<>();
+    private static final ThreadLocal<RepositorySnapshot> SNAPSHOT = new ThreadLocal<>();
+    private static final ThreadLocal<Map<Object, Object>> OVERLAY = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> STUB_ONLY = ThreadLocal.withInitial(() -> Boolean.getBoolean(STUB_ONLY_PROPERTY));
+    private static final ThreadLocal<Boolean> MOCK_VALUES = ThreadLocal.withInitial(() -> Boolean.getBoolean(MOCK_VALUES_PROPERTY));
+    private static final ThreadLocal<Boolean> LAZY_FIXTURES = ThreadLocal.withInitial(() -> Boolean.getBoolean(LAZY_FIXTURES_PROPERTY));
 
     /**
      * Obtain the {@link Repository} mock for the current thread, creating it if necessary, and apply the provided stubbing operations.
@@ -108,10 +152,201 @@ public final class RepositoryMockUtils {
      * Discard (unset) the current thread's repository mock so that the next call to {@link #mockRepository(RepositoryStubbingOperation...)} creates a new one.
      * <p>
      * Recommended to call in a test framework teardown hook (e.g. {@code @AfterEach}) to guarantee test isolation.
-     * This method affects only the calling thread; other threads keep their own mock instances.
+     * This method affects only the calling thread; other threads keep their own mock instances. An active
+     * {@link RepositorySnapshot} is discarded as well and a thread attached to a {@link SharedRepository} is detached.
      * </p>
      */
     public static void cleanRepository() {
         REPOSITORY.set(null);
+        SNAPSHOT.remove();
+        OVERLAY.remove();
+        NodeMockUtils.cleanBlueprint();
+        NodeTypeMockUtils.cleanNodeTypes();
+    }
+
+    /**
+     * Take a snapshot of the repository mock of the current thread, creating the mock if necessary.
+     * <p>
+     * From now on the mocked items of the thread journal their state before each first change, so that
+     * {@link RepositorySnapshot#restore()} reverts the repository to the state of the snapshot in time proportional to the
+     * number of changes. A new snapshot replaces the active one; {@link #cleanRepository()} discards it.
+     * Threads attached to a {@link SharedRepository} are reset by {@link SharedRepository#attach()} instead.
+     * </p>
+     *
+     * @return the active snapshot of the current thread
+     * @throws RepositoryException never thrown unless the repository mock is stubbed to throw
+     * @throws IllegalStateException if the current thread is attached to a shared repository
+     */
+    public static RepositorySnapshot snapshot() throws RepositoryException {
+        Require.State.reject(Objects::nonNull, OVERLAY.get(), "thread attached to a shared repository must be reset by attaching again");
+        RepositorySnapshot result = new RepositorySnapshot(mockRepository());
+        SNAPSHOT.set(result);
+        return result;
+    }
+
+    /**
+     * Freeze the repository mock of the current thread into a {@link SharedRepository} that many threads read at the same time.
+     * <p>
+     * The repository, its sessions, nodes and node types must not be used as before anymore: the current thread is attached to
+     * the shared repository like any other thread and an active snapshot is discarded. The sessions, workspaces and items must
+     * have been mocked in {@link #setStubOnly(boolean) stub-only mode}, as mocks recording the reads of all threads would
+     * grow without bounds.
+     * </p>
+     *
+     * @return the shared repository
+     * @throws RepositoryException never thrown unless the repository mock is stubbed to throw
+     * @throws IllegalStateException if the current thread is attached to a shared repository already or a mock of the repository records invocations
+     */
+    public static SharedRepository freeze() throws RepositoryException {
+        Require.State.reject(Objects::nonNull, OVERLAY.get(), "repository of the current thread must not be shared already");
+        SNAPSHOT.remove();
+        SharedRepository result = new SharedRepository(mockRepository());
+        result.attach();
+        return result;
+    }
+
+    /**
+     * Enable or disable the stub-only mode for session, workspace, node, property and value mocks created by the current thread.
+     * <p>
+     * Stub-only mocks do not record invocations, which considerably reduces the memory footprint and creation time of large
+     * mock trees. Calls of {@code Mockito.verify(...)} on such mocks fail; use {@link NodeMockUtils#spyNode(javax.jcr.Node)}
+     * to obtain a verifiable view on a single node. The setting is not reset by {@link #cleanRepository()}.
+     * </p>
+     *
+     * @param stubOnly {@code true} to create stub-only mocks, {@code false} to create regular mocks (default)
+     */
+    public static void setStubOnly(boolean stubOnly) {
+        STUB_ONLY.set(stubOnly);
+    }
+
+    /**
+     * Whether session, workspace, node, property and value mocks created by the current thread are stub-only mocks.
+     *
+     * @return {@code true} if stub-only mode is enabled for the current thread
+     * @see #setStubOnly(boolean)
+     */
+    public static boolean isStubOnly() {
+        return STUB_ONLY.get();
+    }
+
+    /**
+     * Enable or disable mock-backed values for values created by {@link ValueMockUtils} in the current thread.
+     * <p>
+     * By default values are plain objects that can not be verified or re-stubbed. Mock-backed values are Mockito mocks that
+     * delegate to such a plain value; they behave the same but cost considerably more time and memory.
+     * The setting is not reset by {@link #cleanRepository()}.
+     * </p>
+     *
+     * @param mockValues {@code true} to create Mockito mocks for values, {@code false} to create plain values (default)
+     */
+    public static void setMockValues(boolean mockValues) {
+        MOCK_VALUES.set(mockValues);
+    }
+
+    /**
+     * Whether values created by {@link ValueMockUtils} in the current thread are Mockito mocks.
+     *
+     * @return {@code true} if mock-backed values are enabled for the current thread
+     * @see #setMockValues(boolean)
+     */
+    public static boolean isMockValues() {
+        return MOCK_VALUES.get();
+    }
+
+    /**
+     * Enable or disable the lazy fixture mode for XML fixtures and snapshots loaded by the current thread.
+     * <p>
+     * In lazy mode {@link NodeMockUtils#mockNodeFromXml(String, java.io.InputStream)} and {@link NodeSnapshot} create the
+     * mocks of the fixture root only. Child nodes and their properties are mocked level by level when they are first reached
+     * through the session or their parent node, so tests that touch only a few paths of a huge fixture create only a few mocks.
+     * The setting is not reset by {@link #cleanRepository()}.
+     * </p>
+     *
+     * @param lazyFixtures {@code true} to mock fixture nodes on first access, {@code false} to mock all nodes up front (default)
+     */
+    public static void setLazyFixtures(boolean lazyFixtures) {
+        LAZY_FIXTURES.set(lazyFixtures);
+    }
+
+    /**
+     * Whether XML fixtures and snapshots loaded by the current thread are mocked on first access.
+     *
+     * @return {@code true} if lazy fixture mode is enabled for the current thread
+     * @see #setLazyFixtures(boolean)
+     */
+    public static boolean isLazyFixtures() {
+        return LAZY_FIXTURES.get();
+    }
+
+    /**
+     * Returns the active snapshot of the current thread.
+     *
+     * @return the snapshot journaling the changes or null
+     */
+    static RepositorySnapshot getSnapshot() {
+        return SNAPSHOT.get();
+    }
+
+    /**
+     * Activates a snapshot for the current thread or suspends journaling.
+     *
+     * @param snapshot the snapshot or null
+     */
+    static void setSnapshot(RepositorySnapshot snapshot) {
+        if (snapshot == null) {
+            SNAPSHOT.remove();
+        } else {
+            SNAPSHOT.set(snapshot);
+        }
+    }
+
+    /**
+     * Returns the changes of the current thread to a shared repository.
+     *
+     * @return the copies of the changed shared objects by their originals or null if the thread is not attached
+     */
+    static Map<Object, Object> getOverlay() {
+        return OVERLAY.get();
+    }
+
+    /**
+     * Returns the repository mock of the current thread without creating it.
+     *
+     * @return the repository mock or null
+     */
+    static Repository getRepository() {
+        return REPOSITORY.get();
+    }
+
+    /**
+     * Replaces the repository mock of the current thread, e.g. when attaching the thread to a shared repository.
+     *
+     * @param repository the repository mock or null
+     * @param overlay the map for the changes of the thread to a shared repository or null
+     */
+    static void setRepository(Repository repository, Map<Object, Object> overlay) {
+        if (repository == null) {
+            REPOSITORY.remove();
+        } else {
+            REPOSITORY.set(repository);
+        }
+        if (overlay == null) {
+            OVERLAY.remove();
+        } else {
+            OVERLAY.set(overlay);
+        }
+    }
+
+    /**
+     * Create the {@link MockSettings} for session, workspace, node, property and value mocks according to the current stub-only mode.
+     *
+     * @return fresh mock settings, configured as stub-only if enabled for the current thread
+     */
+    static MockSettings itemMockSettings() {
+        MockSettings settings = withSettings();
+        if (isStubOnly()) {
+            settings.stubOnly();
+        }
+        return settings;
     }
 }
@@ -0,0 +1,559 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.assertions.Require;
+
+import javax.jcr.Item;
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.nodetype.NodeType;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * Snapshot of the mocked repository of the current thread that reverts all later changes of the mocked items in time
+ * proportional to the number of changes.
+ * <p>
+ * A snapshot is taken by {@link RepositoryMockUtils#snapshot()}, typically after building a large fixture in a {@code @BeforeAll}
+ * method, and restored by {@link #restore()} after each test. While the snapshot is active, the node mocks and sessions of the
+ * thread journal their state before the first change: the child node and property collections of a node are copied, the
+ * session registries keep the previous item of each changed path and identifier, and the stubbing operations record the
+ * name, parent, identifier and node types of a node before re-stubbing them. Restoring puts back the journaled state,
+ * updates the {@link WorkspaceIndex} for the changed paths only, resets the {@link EventDispatcher}s and logs out the sessions
+ * of workspaces mocked after the snapshot. The snapshot stays active and journals the changes of the next test.
+ * </p>
+ * <pre>
+ * private static RepositorySnapshot snapshot;
+ *
+ * &#64;BeforeAll
+ * static void setUpFixture() throws RepositoryException {
+ *     RepositoryMockUtils.cleanRepository();
+ *     mockNode("website", "/home/section/page", stubProperty("title", "Page"));
+ *     snapshot = RepositoryMockUtils.snapshot();
+ * }
+ *
+ * &#64;AfterEach
+ * void reset() throws RepositoryException {
+ *     snapshot.restore();
+ * }
+ * </pre>
+ * <p>
+ * Only changes made through the mocks of this library, their stubbing operations and the JCR methods they answer are
+ * journaled. Direct Mockito stubbings with {@code when(...)} as well as {@link PropertyStubbingOperation}s applied to existing
+ * property mocks are not reverted; set changed properties through their node instead. Changes made by other threads are not
+ * journaled. {@link RepositoryMockUtils#cleanRepository()} discards the snapshot.
+ * </p>
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public final class RepositorySnapshot {
+
+    private final Repository _repository;
+    private final Session _login;
+    private final Map<Object, Change> _changes = new IdentityHashMap<>();
+    private final Map<Object, Change> _registryChanges = new IdentityHashMap<>();
+
+    RepositorySnapshot(Repository repository) throws RepositoryException {
+        _repository = repository;
+        _login = repository.login();
+    }
+
+    /**
+     * Returns the number of nodes, collections, registries and sessions changed since the snapshot has been taken or restored.
+     *
+     * @return the number of journaled changes
+     */
+    public int getChangeCount() {
+        return _changes.size() + _registryChanges.size();
+    }
+
+    /**
+     * Reverts all journaled changes of the mocked repository.
+     *
+     * @throws RepositoryException if the state of a mock can't be read
+     * @throws IllegalStateException if this snapshot is not the active snapshot of the current thread
+     */
+    public void restore() throws RepositoryException {
+        Require.State.reject(s -> s != this, RepositoryMockUtils.getSnapshot(), "snapshot must be the active snapshot of the current thread");
+        RepositoryMockUtils.setSnapshot(null);
+        try {
+            for (Change change : _changes.values()) {
+                change.revert();
+            }
+            // registries are reverted last because the index is updated from the reverted state of the items
+            for (Change change : _registryChanges.values()) {
+                change.revert();
+            }
+            if (_repository.login() != _login) {
+                doReturn(_login).when(_repository).login();
+            }
+        } finally {
+            _changes.clear();
+            _registryChanges.clear();
+            RepositoryMockUtils.setSnapshot(this);
+        }
+    }
+
+    /**
+     * Journals the name, parent, identifier and node types of an item before they are re-stubbed, if a snapshot is active.
+     *
+     * @param item the node to change, other items are ignored
+     * @throws RepositoryException if the state of the node can't be read
+     * @throws IllegalStateException if the node belongs to a {@link SharedRepository}
+     */
+    static void touch(Item item) throws RepositoryException {
+        Require.State.reject(SharedRepository::isShared, item, "nodes of a shared repository must not be re-stubbed");
+        RepositorySnapshot snapshot = RepositoryMockUtils.getSnapshot();
+        if (snapshot != null && item instanceof Node && !snapshot._changes.containsKey(item)) {
+            snapshot._changes.put(item, new NodeState((Node) item));
+        }
+    }
+
+    /**
+     * Journals the state of an object before its first change since the snapshot, if a snapshot is active.
+     *
+     * @param target the object to change
+     * @param state saves the current state of the object and returns the change that restores it
+     */
+    static void touch(Object target, Supplier<Change> state) {
+        RepositorySnapshot snapshot = RepositoryMockUtils.getSnapshot();
+        if (snapshot != null && !snapshot._changes.containsKey(target)) {
+            snapshot._changes.put(target, state.get());
+        }
+    }
+
+    /**
+     * Journals a new session of the given workspace to be logged out on restore, if a snapshot is active.
+     *
+     * @param repository the repository mock
+     * @param workspace the workspace name of the new session
+     * @param session the new session
+     */
+    static void touchLogin(Repository repository, String workspace, Session session) {
+        touch(session, () -> () -> doReturn(null).when(repository).login(workspace));
+    }
+
+    private static boolean touchRegistry(Registry<?> registry) {
+        RepositorySnapshot snapshot = RepositoryMockUtils.getSnapshot();
+        boolean result = snapshot != null;
+        if (result && !snapshot._registryChanges.containsKey(registry)) {
+            registry._previous = new HashMap<>();
+            snapshot._registryChanges.put(registry, registry::revert);
+        }
+        return result;
+    }
+
+    /**
+     * A journaled change that can be reverted.
+     */
+    @FunctionalInterface
+    interface Change {
+        void revert() throws RepositoryException;
+    }
+
+    /**
+     * The state of a node re-stubbed by the stubbing operations.
+     */
+    private static final class NodeState implements Change {
+        private final Node _node;
+        private final Node _parent;
+        private final String _name;
+        private final String _identifier;
+        private final NodeType _primaryType;
+        private final NodeType[] _mixins;
+
+        NodeState(Node node) throws RepositoryException {
+            _node = node;
+            _parent = node.getParent();
+            _name = node.getName();
+            _identifier = node.getIdentifier();
+            _primaryType = node.getPrimaryNodeType();
+            _mixins = node.getMixinNodeTypes();
+        }
+
+        @Override
+        public void revert() throws RepositoryException {
+            if (_node.getParent() != _parent || !Objects.equals(_node.getName(), _name)) {
+                doReturn(_parent).when(_node).getParent();
+                doReturn(_name).when(_node).getName();
+                NodeMockUtils.invalidatePathCache(_node);
+            }
+            if (!Objects.equals(_node.getIdentifier(), _identifier)) {
+                doReturn(_identifier).when(_node).getIdentifier();
+                doReturn(_identifier).when(_node).getUUID();
+            }
+            if (_node.getPrimaryNodeType() != _primaryType) {
+                doReturn(_primaryType).when(_node).getPrimaryNodeType();
+            }
+            if (!Arrays.equals(_node.getMixinNodeTypes(), _mixins)) {
+                doReturn(_mixins).when(_node).getMixinNodeTypes();
+            }
+        }
+    }
+
+    /**
+     * The child nodes of a node mock. The nodes are copied on the first change while a snapshot is active. Once shared by a
+     * {@link SharedRepository}, the nodes are not changed anymore and each thread changes a copy of its own.
+     */
+    static final class NodeSet extends AbstractSet<Node> {
+        private final Set<Node> _nodes = new LinkedHashSet<>();
+        private boolean _shared;
+
+        @Override
+        public int size() {
+            return nodes().size();
+        }
+
+        @Override
+        public boolean contains(Object node) {
+            return nodes().contains(node);
+        }
+
+        @Override
+        public boolean add(Node node) {
+            return writableNodes().add(node);
+        }
+
+        @Override
+        public boolean remove(Object node) {
+            return writableNodes().remove(node);
+        }
+
+        @Override
+        public void clear() {
+            writableNodes().clear();
+        }
+
+        @Override
+        public Iterator<Node> iterator() {
+            Set<Node> nodes = nodes();
+            Iterator<Node> iterator = nodes.iterator();
+            return new Iterator<Node>() {
+                private Node _last;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Node next() {
+                    _last = iterator.next();
+                    return _last;
+                }
+
+                @Override
+                public void remove() {
+                    Set<Node> writable = writableNodes();
+                    if (writable == nodes) {
+                        iterator.remove();
+                    } else {
+                        writable.remove(_last);
+                    }
+                }
+            };
+        }
+
+        void share() {
+            _shared = true;
+        }
+
+        boolean isShared() {
+            return _shared;
+        }
+
+        private Set<Node> nodes() {
+            return _shared ? SharedRepository.read(this, _nodes) : _nodes;
+        }
+
+        private Set<Node> writableNodes() {
+            Set<Node> result = _nodes;
+            if (_shared) {
+                result = SharedRepository.write(this, () -> new LinkedHashSet<>(_nodes));
+            } else {
+                touch(this, () -> {
+                    List<Node> nodes = new ArrayList<>(_nodes);
+                    return () -> {
+                        _nodes.clear();
+                        _nodes.addAll(nodes);
+                    };
+                });
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The properties of a node mock by name. The properties are copied on the first change while a snapshot is active. Once
+     * shared by a {@link SharedRepository}, the properties are not changed anymore and each thread changes a copy of its own.
+     */
+    static final class PropertyMap extends AbstractMap<String, Property> {
+        private final Map<String, Property> _properties = new LinkedHashMap<>();
+        private boolean _shared;
+
+        @Override
+        public int size() {
+            return properties().size();
+        }
+
+        @Override
+        public boolean containsKey(Object name) {
+            return properties().containsKey(name);
+        }
+
+        @Override
+        public Property get(Object name) {
+            return properties().get(name);
+        }
+
+        @Override
+        public Property put(String name, Property property) {
+            return writableProperties().put(name, property);
+        }
+
+        @Override
+        public Property remove(Object name) {
+            return writableProperties().remove(name);
+        }
+
+        @Override
+        public boolean remove(Object name, Object property) {
+            return writableProperties().remove(name, property);
+        }
+
+        @Override
+        public void clear() {
+            writableProperties().clear();
+        }
+
+        /**
+         * Returns the entries of the current thread; changes through the entry set are not journaled.
+         */
+        @Override
+        public Set<Map.Entry<String, Property>> entrySet() {
+            return Collections.unmodifiableMap(properties()).entrySet();
+        }
+
+        void share() {
+            _shared = true;
+        }
+
+        private Map<String, Property> properties() {
+            return _shared ? SharedRepository.read(this, _properties) : _properties;
+        }
+
+        private Map<String, Property> writableProperties() {
+            Map<String, Property> result = _properties;
+            if (_shared) {
+                result = SharedRepository.write(this, () -> new LinkedHashMap<>(_properties));
+            } else {
+                touch(this, () -> {
+                    Map<String, Property> properties = new LinkedHashMap<>(_properties);
+                    return () -> {
+                        _properties.clear();
+                        _properties.putAll(properties);
+                    };
+                });
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A registry of a session mock that keeps the previous value of each key changed while a snapshot is active. Once shared
+     * by a {@link SharedRepository}, the registry is not changed anymore and each thread keeps the keys it changed in an
+     * overlay of its own, mapping removed keys to null.
+     *
+     * @param <V> the type of the registered values
+     */
+    static class Registry<V> extends AbstractMap<String, V> {
+        private final Map<String, V> _values = new HashMap<>();
+        private Map<String, V> _previous;
+        private boolean _shared;
+
+        @Override
+        public int size() {
+            Map<String, V> overlay = getOverlay();
+            int result = _values.size();
+            for (Map.Entry<String, V> entry : overlay == null ? Collections.<String, V>emptyMap().entrySet() : overlay.entrySet()) {
+                result += (entry.getValue() != null ? 1 : 0) - (_values.containsKey(entry.getKey()) ? 1 : 0);
+            }
+            return result;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public V get(Object key) {
+            Map<String, V> overlay = getOverlay();
+            return overlay != null && overlay.containsKey(key) ? overlay.get(key) : _values.get(key);
+        }
+
+        @Override
+        public V put(String key, V value) {
+            V result;
+            if (_shared) {
+                result = get(key);
+                SharedRepository.write(this, HashMap::new).put(key, value);
+            } else {
+                beforeChange(key);
+                result = _values.put(key, value);
+            }
+            return result;
+        }
+
+        @Override
+        public V remove(Object key) {
+            V result = null;
+            if (key instanceof String && _shared) {
+                result = put((String) key, null);
+            } else if (key instanceof String) {
+                beforeChange((String) key);
+                result = _values.remove(key);
+            }
+            return result;
+        }
+
+        @Override
+        public void clear() {
+            for (String key : new ArrayList<>(keySet())) {
+                remove(key);
+            }
+        }
+
+        /**
+         * Returns the entries of the current thread; changes through the entry set are not journaled.
+         */
+        @Override
+        public Set<Map.Entry<String, V>> entrySet() {
+            Map<String, V> overlay = getOverlay();
+            Map<String, V> result = _values;
+            if (overlay != null) {
+                result = new HashMap<>(_values);
+                for (Map.Entry<String, V> entry : overlay.entrySet()) {
+                    if (entry.getValue() == null) {
+                        result.remove(entry.getKey());
+                    } else {
+                        result.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            return Collections.unmodifiableMap(result).entrySet();
+        }
+
+        void share() {
+            _shared = true;
+        }
+
+        /**
+         * Called after reverting the changed keys.
+         *
+         * @param removed the values registered since the snapshot that have been replaced or removed
+         * @param added the values of the snapshot that have been registered again
+         * @throws RepositoryException if the values can't be read
+         */
+        void reverted(List<V> removed, List<V> added) throws RepositoryException {
+        }
+
+        private Map<String, V> getOverlay() {
+            return _shared ? SharedRepository.read(this, null) : null;
+        }
+
+        private void beforeChange(String key) {
+            if (touchRegistry(this) && !_previous.containsKey(key)) {
+                _previous.put(key, _values.get(key));
+            }
+        }
+
+        private void revert() throws RepositoryException {
+            List<V> removed = new ArrayList<>();
+            List<V> added = new ArrayList<>();
+            for (Map.Entry<String, V> entry : _previous.entrySet()) {
+                V previous = entry.getValue();
+                V current = previous == null ? _values.remove(entry.getKey()) : _values.put(entry.getKey(), previous);
+                if (current != previous) {
+                    if (current != null) {
+                        removed.add(current);
+                    }
+                    if (previous != null) {
+                        added.add(previous);
+                    }
+                }
+            }
+            _previous = null;
+            reverted(removed, added);
+        }
+    }
+
+    /**
+     * The path to item registry of a session mock that updates the {@link WorkspaceIndex} of the session when reverted.
+     */
+    static final class ItemRegistry extends Registry<Item> {
+        private final WorkspaceIndex _index;
+
+        ItemRegistry(WorkspaceIndex index) {
+            _index = index;
+        }
+
+        @Override
+        void reverted(List<Item> removed, List<Item> added) throws RepositoryException {
+            for (Item item : removed) {
+                // an item may still be registered with its path, e.g. after a rename that didn't re-register it
+                if (get(item.getPath()) == item) {
+                    _index.addItem(item, null);
+                } else {
+                    _index.removeItem(item);
+                }
+            }
+            for (Item item : added) {
+                _index.addItem(item, null);
+            }
+        }
+    }
+}
@@ -24,11 +24,17 @@ import de.ibmix.magkit.assertions.Require;
 import org.mockito.Mockito;
 import org.mockito.stubbing.Answer;
 
+import javax.jcr.Item;
 import javax.jcr.Node;
+import javax.jcr.NodeIterator;
 import javax.jcr.Property;
 import javax.jcr.Repository;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
+import javax.jcr.Value;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubIdentifier;
 import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubType;
@@ -49,6 +55,12 @@ import static org.mockito.Mockito.when;
  *     <li>Convenience stubbing so that {@link Session#getProperty(String)} delegates to {@link Session#getItem(String)}.</li>
  *     <li>Application of arbitrary {@link SessionStubbingOperation} customizations supplied by the caller.</li>
  * </ul>
+ * Items registered with a plain session are kept in a per-session hash map keyed by absolute path. The lookup methods
+ * {@link Session#getItem(String)}, {@link Session#itemExists(String)}, {@link Session#getNode(String)} and
+ * {@link Session#nodeExists(String)} are answered from this map by one single answer each, so lookups do not depend on
+ * the number of registered items. In the same way {@link Session#getNodeByIdentifier(String)} and
+ * {@link Session#getNodeByUUID(String)} are answered from an identifier to node map.
+ * <p>
  * The root node is configured with an empty name (""), a fixed UUID like identifier and type to mimic a typical
  * repository root. Additional behaviour can be layered on top through the provided stubbing operations to keep tests
  * concise (DRY principle).
@@ -85,6 +97,70 @@ public final class SessionMockUtils {
         return s == null ? null : (Property) s.getItem(path);
     };
 
+    /**
+     * {@link Answer} implementing {@link Session#getItem(String)} by a lookup in the item registry of a {@link TestSession}.
+     * Returns {@code null} for unknown paths.
+     */
+    public static final Answer<Item> ITEM_ANSWER = invocation -> {
+        TestSession s = (TestSession) invocation.getMock();
+        String path = (String) invocation.getArguments()[0];
+        return getRegisteredItem(s, path);
+    };
+
+    /**
+     * {@link Answer} implementing {@link Session#itemExists(String)} by a lookup in the item registry of a {@link TestSession}.
+     */
+    public static final Answer<Boolean> ITEM_EXISTS_ANSWER = invocation -> {
+        TestSession s = (TestSession) invocation.getMock();
+        String path = (String) invocation.getArguments()[0];
+        return getRegisteredItem(s, path) != null;
+    };
+
+    /**
+     * {@link Answer} implementing {@link Session#getNode(String)} by a lookup in the item registry of a {@link TestSession}.
+     * Returns {@code null} for unknown paths and for paths of properties.
+     */
+    public static final Answer<Node> NODE_ANSWER = invocation -> {
+        TestSession s = (TestSession) invocation.getMock();
+        String path = (String) invocation.getArguments()[0];
+        Item item = getRegisteredItem(s, path);
+        return item != null && item.isNode() ? (Node) item : null;
+    };
+
+    /**
+     * {@link Answer} implementing {@link Session#nodeExists(String)} by a lookup in the item registry of a {@link TestSession}.
+     */
+    public static final Answer<Boolean> NODE_EXISTS_ANSWER = invocation -> {
+        TestSession s = (TestSession) invocation.getMock();
+        String path = (String) invocation.getArguments()[0];
+        Item item = getRegisteredItem(s, path);
+        return item != null && item.isNode();
+    };
+
+    /**
+     * {@link Answer} implementing {@link Session#getNodeByIdentifier(String)} and {@link Session#getNodeByUUID(String)}
+     * by a lookup in the identifier registry of a {@link TestSession}. Returns {@code null} for unknown identifiers.
+     */
+    public static final Answer<Node> NODE_BY_IDENTIFIER_ANSWER = invocation -> {
+        TestSession s = (TestSession) invocation.getMock();
+        String identifier = (String) invocation.getArguments()[0];
+        Node result = s.getIdentifierRegistry().get(identifier);
+        if (result == null && !s.getLazyIdentifierRegistry().isEmpty()) {
+            String path = s.getLazyIdentifierRegistry().remove(identifier);
+            result = path == null ? null : (Node) getRegisteredItem(s, path);
+        }
+        return result;
+    };
+
+    /**
+     * {@link Answer} implementing {@link Session#save()} of a {@link TestSession} by delivering the pending events to the
+     * registered event listeners (see {@link EventDispatcher#dispatch()}).
+     */
+    public static final Answer<Void> SAVE_ANSWER = invocation -> {
+        ((TestSession) invocation.getMock()).getEventDispatcher().dispatch();
+        return null;
+    };
+
     /**
      * Create (or reuse) a mocked {@link Session} for the given workspace name and apply the provided stubbing
      * operations in order.
@@ -115,6 +191,7 @@ public final class SessionMockUtils {
             result = mockPlainSession();
             WorkspaceMockUtils.mockWorkspace(workspace, WorkspaceStubbingOperation.stubSession(result));
             stubLogin(result).of(repository);
+            RepositorySnapshot.touchLogin(repository, workspace, result);
         }
         for (SessionStubbingOperation stubbing : stubbings) {
             stubbing.of(result);
@@ -132,6 +209,9 @@ public final class SessionMockUtils {
      *     <li>A mocked root node path "/" with empty name, fixed identifier and type "rep:root".</li>
      *     <li>{@link Session#getRootNode()} stubbed to return the root node.</li>
      *     <li>{@link Session#getProperty(String)} delegated to {@link Session#getItem(String)} via {@link #PROPERTY_ANSWER}.</li>
+     *     <li>Path lookups answered from an internal path to item map (see {@link SessionStubbingOperation#stubItem(Item)}).</li>
+     *     <li>Identifier lookups answered from an internal identifier to node map (see {@link NodeStubbingOperation#stubIdentifier(String)}).</li>
+     *     <li>{@link Session#save()} delivering the events of the changes since the last save to registered listeners (see {@link EventDispatcher}).</li>
      * </ul>
      * This is useful for focused unit tests that do not need repository / workspace semantics.
      *
@@ -140,13 +220,189 @@ public final class SessionMockUtils {
      *                             additional stubbings introduce it).
      */
     public static Session mockPlainSession() throws RepositoryException {
-        Session result = mock(Session.class);
+        TestSession result = mock(TestSession.class, RepositoryMockUtils.itemMockSettings());
+        WorkspaceIndex index = new WorkspaceIndex();
+        when(result.getItemRegistry()).thenReturn(new RepositorySnapshot.ItemRegistry(index));
+        doAnswer(ITEM_ANSWER).when(result).getItem(anyString());
+        doAnswer(ITEM_EXISTS_ANSWER).when(result).itemExists(anyString());
+        doAnswer(NODE_ANSWER).when(result).getNode(anyString());
+        doAnswer(NODE_EXISTS_ANSWER).when(result).nodeExists(anyString());
+        when(result.getIdentifierRegistry()).thenReturn(new RepositorySnapshot.Registry<>());
+        when(result.getLazyNodeRegistry()).thenReturn(new RepositorySnapshot.Registry<>());
+        when(result.getLazyIdentifierRegistry()).thenReturn(new RepositorySnapshot.Registry<>());
+        when(result.getWorkspaceIndex()).thenReturn(index);
+        when(result.getEventDispatcher()).thenReturn(new EventDispatcher(result));
+        doAnswer(SAVE_ANSWER).when(result).save();
+        doAnswer(NODE_BY_IDENTIFIER_ANSWER).when(result).getNodeByIdentifier(anyString());
+        doAnswer(NODE_BY_IDENTIFIER_ANSWER).when(result).getNodeByUUID(anyString());
         Node root = NodeMockUtils.mockPlainNode("/");
         stubIdentifier("cafebabe-cafe-babe-cafe-babecafebabe").of(root);
         when(root.getName()).thenReturn("");
         stubRootNode(root).of(result);
         stubType("rep:root").of(root);
         doAnswer(PROPERTY_ANSWER).when(result).getProperty(anyString());
+        // Clear all invocations to avoid confusion when verifying invocations later:
+        Mockito.clearInvocations(result);
+        return result;
+    }
+
+    /**
+     * Enables the secondary indexes of the given workspace by node type and by the values of the given properties
+     * (see {@link WorkspaceIndex}). The indexes are built from the items mocked so far and kept up to date afterwards.
+     * Calling this method again adds further indexed properties.
+     * <pre>
+     * SessionMockUtils.enableIndex("website", "hideInNav");
+     * mockNode("/home", stubType("mgnl:page"), stubProperty("hideInNav", false));
+     * List&lt;Node&gt; pages = SessionMockUtils.findNodes("website", "mgnl:page", "hideInNav", false);
+     * </pre>
+     *
+     * @param workspace the workspace name, must not be blank
+     * @param propertyNames the names of the properties to index by value
+     * @return the index of the workspace
+     * @throws RepositoryException never thrown unless a mock is stubbed to throw
+     */
+    public static WorkspaceIndex enableIndex(String workspace, String... propertyNames) throws RepositoryException {
+        Require.Argument.notNull(propertyNames, "propertyNames must not be null");
+        TestSession session = getTestSession(workspace);
+        WorkspaceIndex result = getWritableIndex(session);
+        result.enable(session.getRootNode(), new ArrayList<>(session.getItemRegistry().values()), false, propertyNames);
+        return result;
+    }
+
+    /**
+     * Enables the full-text index of the workspace (see {@link FullTextIndex}) together with the node type index of
+     * {@link #enableIndex(String, String...)}. The index is built from the items mocked so far and kept up to date afterwards.
+     * Evaluated queries (see {@link de.ibmix.magkit.test.jcr.query.QueryMockUtils#mockEvaluatingQueryManager(String, de.ibmix.magkit.test.jcr.query.QueryManagerStubbingOperation...)})
+     * look up the candidates of their full-text constraints in the index instead of testing all nodes.
+     *
+     * @param workspace the workspace name, must not be blank
+     * @return the index of the workspace
+     * @throws RepositoryException never thrown unless a mock is stubbed to throw
+     */
+    public static WorkspaceIndex enableFullTextIndex(String workspace) throws RepositoryException {
+        TestSession session = getTestSession(workspace);
+        WorkspaceIndex result = getWritableIndex(session);
+        result.enable(session.getRootNode(), new ArrayList<>(session.getItemRegistry().values()), true);
+        return result;
+    }
+
+    /**
+     * Returns the enabled secondary index of the session.
+     *
+     * @param session the session, may be null
+     * @return the index or null if the session has no enabled index
+     */
+    public static WorkspaceIndex getWorkspaceIndex(Session session) {
+        WorkspaceIndex result = session instanceof TestSession ? ((TestSession) session).getWorkspaceIndex() : null;
+        return result != null && result.isEnabled() ? result : null;
+    }
+
+    /**
+     * Returns the index of the session to change, layered for the current thread if it belongs to a {@link SharedRepository}.
+     */
+    static WorkspaceIndex getWritableIndex(TestSession session) {
+        WorkspaceIndex result = session.getWorkspaceIndex();
+        return result.isShared() ? SharedRepository.write(result, result::layer) : result;
+    }
+
+    /**
+     * Returns the event dispatcher of the session that records the changes of its items and delivers them to the registered
+     * listeners on {@link Session#save()}.
+     *
+     * @param session the session, may be null
+     * @return the dispatcher or null if the session is not a session mock of this class
+     */
+    public static EventDispatcher getEventDispatcher(Session session) {
+        return session instanceof TestSession ? ((TestSession) session).getEventDispatcher() : null;
+    }
+
+    /**
+     * Returns the number of item registrations and removals in the workspace of the session (see
+     * {@link WorkspaceIndex#getModificationCount()}). A changed count tells caches of derived data to invalidate.
+     *
+     * @param session the session, may be null
+     * @return the modification count or -1 if the session is not a session mock of this class
+     */
+    public static long getModificationCount(Session session) {
+        return session instanceof TestSession ? ((TestSession) session).getWorkspaceIndex().getModificationCount() : -1;
+    }
+
+    /**
+     * Returns all nodes of the workspace with the given node type or one of its subtypes. Uses the index of the workspace
+     * if enabled and traverses all nodes otherwise.
+     *
+     * @param workspace the workspace name, must not be blank
+     * @param nodeType the node type name, must not be null
+     * @return the matching nodes
+     * @throws RepositoryException never thrown unless a mock is stubbed to throw
+     */
+    public static List<Node> findNodes(String workspace, String nodeType) throws RepositoryException {
+        Require.Argument.notNull(nodeType, "nodeType must not be null");
+        TestSession session = getTestSession(workspace);
+        WorkspaceIndex index = getWorkspaceIndex(session);
+        List<Node> result;
+        if (index != null) {
+            result = index.getNodesByType(nodeType);
+        } else {
+            result = new ArrayList<>();
+            collectNodes(session.getRootNode(), nodeType, null, null, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns all nodes of the workspace with the given node type (or a subtype) and a value of the given property that
+     * equals the given value: numbers and numeric values by their decimal value, other values by their string form. Uses the index of the workspace for indexed properties and traverses all
+     * nodes otherwise.
+     *
+     * @param workspace the workspace name, must not be blank
+     * @param nodeType the node type name or null for nodes of any type
+     * @param propertyName the property name, must not be null
+     * @param value the property value
+     * @return the matching nodes
+     * @throws RepositoryException never thrown unless a mock is stubbed to throw
+     */
+    public static List<Node> findNodes(String workspace, String nodeType, String propertyName, Object value) throws RepositoryException {
+        Require.Argument.notNull(propertyName, "propertyName must not be null");
+        TestSession session = getTestSession(workspace);
+        WorkspaceIndex index = getWorkspaceIndex(session);
+        List<Node> result = new ArrayList<>();
+        if (index != null && index.isIndexed(propertyName)) {
+            for (Node node : index.getNodesByProperty(propertyName, value)) {
+                if (nodeType == null || node.isNodeType(nodeType)) {
+                    result.add(node);
+                }
+            }
+        } else {
+            collectNodes(session.getRootNode(), nodeType, propertyName, WorkspaceIndex.toKey(value), result);
+        }
+        return result;
+    }
+
+    private static TestSession getTestSession(String workspace) throws RepositoryException {
+        Session session = mockSession(workspace);
+        Require.State.isInstanceof(session, TestSession.class, "session of workspace " + workspace + " must be created by mockPlainSession()");
+        return (TestSession) session;
+    }
+
+    private static void collectNodes(Node node, String nodeType, String propertyName, String key, List<Node> result) throws RepositoryException {
+        if ((nodeType == null || node.isNodeType(nodeType)) && (propertyName == null || hasValue(node, propertyName, key))) {
+            result.add(node);
+        }
+        NodeIterator children = node.getNodes();
+        while (children.hasNext()) {
+            collectNodes(children.nextNode(), nodeType, propertyName, key, result);
+        }
+    }
+
+    private static boolean hasValue(Node node, String propertyName, String key) throws RepositoryException {
+        boolean result = false;
+        if (node.hasProperty(propertyName)) {
+            Value[] values = node.getProperty(propertyName).getValues();
+            for (int i = 0; values != null && !result && i < values.length; i++) {
+                result = values[i] != null && key.equals(WorkspaceIndex.toKey(values[i]));
+            }
+        }
         return result;
     }
 
@@ -157,4 +413,61 @@ public final class SessionMockUtils {
     public static void cleanSession() {
         RepositoryMockUtils.cleanRepository();
     }
+
+    /**
+     * Look up an item in the item registry of a {@link TestSession}. If the item is not registered yet, the children of its
+     * lazily mocked ancestors are mocked first (see {@link RepositoryMockUtils#setLazyFixtures(boolean)}).
+     *
+     * @param session the session to look up the item in
+     * @param path the absolute path of the item
+     * @return the item or {@code null} if there is no item with this path
+     * @throws RepositoryException never thrown unless a mock is stubbed to throw
+     */
+    static Item getRegisteredItem(TestSession session, String path) throws RepositoryException {
+        Item result = session.getItemRegistry().get(path);
+        if (result == null && !session.getLazyNodeRegistry().isEmpty()) {
+            int index = path.lastIndexOf('/');
+            if (index >= 0 && path.length() > 1) {
+                String parentPath = index == 0 ? "/" : path.substring(0, index);
+                Item parent = getRegisteredItem(session, parentPath);
+                XmlFixture lazyChildren = parent != null && parent.isNode() ? session.getLazyNodeRegistry().remove(parentPath) : null;
+                if (lazyChildren != null) {
+                    lazyChildren.mockChildren(session, (Node) parent);
+                    result = session.getItemRegistry().get(path);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Mock the children of a lazily mocked node that have not been reached through a path or identifier lookup yet.
+     *
+     * @param node the node whose children are accessed
+     * @throws RepositoryException never thrown unless a mock is stubbed to throw
+     */
+    static void mockLazyChildren(Node node) throws RepositoryException {
+        Session session = node.getSession();
+        if (session instanceof TestSession && !((TestSession) session).getLazyNodeRegistry().isEmpty()) {
+            XmlFixture lazyChildren = ((TestSession) session).getLazyNodeRegistry().remove(node.getPath());
+            if (lazyChildren != null) {
+                lazyChildren.mockChildren((TestSession) session, node);
+            }
+        }
+    }
+
+    /**
+     * Internal abstract base for session mocks created by {@link #mockPlainSession()}. Provides the mutable registry of
+     * items (nodes and properties) keyed by their absolute path that backs all path based lookup answers and the
+     * registry of nodes keyed by their identifier, as well as the optional secondary indexes and the event dispatcher of the workspace. The lazy registries hold the parsed fixtures of nodes whose children
+     * have not been mocked yet (by node path) and the paths of not yet mocked nodes (by identifier).
+     */
+    abstract static class TestSession implements Session {
+        abstract Map<String, Item> getItemRegistry();
+        abstract Map<String, Node> getIdentifierRegistry();
+        abstract Map<String, XmlFixture> getLazyNodeRegistry();
+        abstract Map<String, String> getLazyIdentifierRegistry();
+        abstract WorkspaceIndex getWorkspaceIndex();
+        abstract EventDispatcher getEventDispatcher();
+    }
 }
@@ -114,6 +114,11 @@ public abstract class SessionStubbingOperation implements ExceptionStubbingOpera
      *   <li>If the node has a non-empty identifier, stubs {@link Session#getNodeByUUID(String)} and {@link Session#getNodeByIdentifier(String)}.</li>
      * </ul>
      * Existing stubbings for the same path are silently overridden.
+     * <p>
+     * Sessions created by {@link SessionMockUtils#mockPlainSession()} keep path and identifier lookups in hash maps: the item
+     * is put into these registries instead of adding new Mockito stubbings, keeping registration and lookup in constant time.
+     * An enabled {@link WorkspaceIndex} of the session is updated and the change is recorded by its {@link EventDispatcher} as well.
+     * </p>
      *
      * @param item the item to register; its {@link Item#getPath()} and for nodes {@link Node#getIdentifier()} are consulted.
      * @return operation adding the item to the session lookup space.
@@ -123,16 +128,30 @@ public abstract class SessionStubbingOperation implements ExceptionStubbingOpera
             @Override
             public void of(Session session) throws RepositoryException {
                 Require.Argument.notNull(session, "session must not be null");
-                when(session.getItem(item.getPath())).thenReturn(item);
-                when(session.itemExists(item.getPath())).thenReturn(true);
+                String path = item.getPath();
+                if (session instanceof SessionMockUtils.TestSession) {
+                    SessionMockUtils.TestSession testSession = (SessionMockUtils.TestSession) session;
+                    Item previous = testSession.getItemRegistry().put(path, item);
+                    SessionMockUtils.getWritableIndex(testSession).addItem(item, previous);
+                    testSession.getEventDispatcher().itemAdded(item, previous);
+                } else {
+                    when(session.getItem(path)).thenReturn(item);
+                    when(session.itemExists(path)).thenReturn(true);
+                    if (item.isNode()) {
+                        when(session.getNode(path)).thenReturn((Node) item);
+                        when(session.nodeExists(path)).thenReturn(true);
+                    }
+                }
                 if (item.isNode()) {
                     Node node = (Node) item;
-                    when(session.getNode(node.getPath())).thenReturn(node);
-                    when(session.nodeExists(node.getPath())).thenReturn(true);
                     String uuid = node.getIdentifier();
                     if (isNotEmpty(uuid)) {
-                        when(session.getNodeByUUID(uuid)).thenReturn(node);
-                        when(session.getNodeByIdentifier(uuid)).thenReturn(node);
+                        if (session instanceof SessionMockUtils.TestSession) {
+                            ((SessionMockUtils.TestSession) session).getIdentifierRegistry().put(uuid, node);
+                        } else {
+                            when(session.getNodeByUUID(uuid)).thenReturn(node);
+                            when(session.getNodeByIdentifier(uuid)).thenReturn(node);
+                        }
                     }
                 }
             }
@@ -144,7 +163,9 @@ public abstract class SessionStubbingOperation implements ExceptionStubbingOpera
      * <p>
      * Behaviour:
      * <ul>
-     *   <li>Stubs relevant getters to return {@code null} / non-existence flags.</li>
+     *   <li>Stubs relevant getters to return {@code null} / non-existence flags (or removes the path from the item
+     *   registry and the {@link WorkspaceIndex} of sessions created by {@link SessionMockUtils#mockPlainSession()} and
+     *   recording the removal with their {@link EventDispatcher}).</li>
      *   <li>If the item is a node, recursively removes all descendant nodes and properties by iterating
      *   {@link Node#getNodes()} and {@link Node#getProperties()}.</li>
      *   <li>For removed properties, {@link Session#getProperty(String)} is explicitly stubbed to return {@code null}.</li>
@@ -163,16 +184,31 @@ public abstract class SessionStubbingOperation implements ExceptionStubbingOpera
             @Override
             public void of(Session session) throws RepositoryException {
                 Require.Argument.notNull(session, "session must not be null");
-                when(session.getItem(item.getPath())).thenReturn(null);
-                when(session.itemExists(item.getPath())).thenReturn(false);
+                String path = item.getPath();
+                boolean isRegistry = session instanceof SessionMockUtils.TestSession;
+                if (isRegistry) {
+                    SessionMockUtils.TestSession testSession = (SessionMockUtils.TestSession) session;
+                    Item removed = testSession.getItemRegistry().remove(path);
+                    SessionMockUtils.getWritableIndex(testSession).removeItem(removed != null ? removed : item);
+                    testSession.getEventDispatcher().itemRemoved(removed != null ? removed : item);
+                } else {
+                    when(session.getItem(path)).thenReturn(null);
+                    when(session.itemExists(path)).thenReturn(false);
+                    if (item.isNode()) {
+                        when(session.getNode(path)).thenReturn(null);
+                        when(session.nodeExists(path)).thenReturn(false);
+                    }
+                }
                 if (item.isNode()) {
-                    when(session.getNode(item.getPath())).thenReturn(null);
-                    when(session.nodeExists(item.getPath())).thenReturn(false);
                     Node node = (Node) item;
                     String uuid = node.getIdentifier();
                     if (isNotEmpty(uuid)) {
-                        when(session.getNodeByUUID(uuid)).thenReturn(null);
-                        when(session.getNodeByIdentifier(uuid)).thenReturn(null);
+                        if (isRegistry) {
+                            ((SessionMockUtils.TestSession) session).getIdentifierRegistry().remove(uuid);
+                        } else {
+                            when(session.getNodeByUUID(uuid)).thenReturn(null);
+                            when(session.getNodeByIdentifier(uuid)).thenReturn(null);
+                        }
                     }
                     NodeIterator nodes = node.getNodes();
                     while (nodes.hasNext()) {
@@ -182,7 +218,9 @@ public abstract class SessionStubbingOperation implements ExceptionStubbingOpera
                     while (properties.hasNext()) {
                         Property p = properties.nextProperty();
                         stubRemoveItem(p).of(session);
-                        when(session.getProperty(p.getPath())).thenReturn(null);
+                        if (!isRegistry) {
+                            when(session.getProperty(p.getPath())).thenReturn(null);
+                        }
                     }
                 }
             }
@@ -0,0 +1,289 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.assertions.Require;
+import org.mockito.MockingDetails;
+import org.mockito.Mockito;
+import org.mockito.invocation.Invocation;
+import org.mockito.stubbing.Stubbing;
+
+import javax.jcr.Item;
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * A mocked repository frozen by {@link RepositoryMockUtils#freeze()} that many threads read at the same time, e.g. the
+ * workers of a parallel JUnit execution sharing one large read-only fixture.
+ * <p>
+ * Freezing mocks the remaining children of lazy fixtures and marks the child node and property collections of all nodes,
+ * the session registries and the {@link WorkspaceIndex}es as shared: they are not changed anymore and are safe to read from
+ * many threads. Each thread {@link #attach() attached} to the shared repository gets a repository mock of its own answering
+ * the shared sessions and an overlay for its own changes: the first change of a shared collection copies it for the thread,
+ * registries keep the changed keys of the thread only and an index gets a layer of the thread copying the entries it changes.
+ * Other threads don't see these changes. Attaching again drops the overlay, which resets the thread to the frozen state in
+ * constant time. Workspaces mocked by an attached thread belong to the thread.
+ * </p>
+ * <p>
+ * Shared mocks must not record the invocations of all threads: build the repository in
+ * {@link RepositoryMockUtils#setStubOnly(boolean) stub-only mode}, freezing rejects sessions, workspaces, items and values
+ * recording invocations.
+ * </p>
+ * <pre>
+ * private static final SharedRepository SITE = buildSite();
+ *
+ * private static SharedRepository buildSite() {
+ *     RepositoryMockUtils.setStubOnly(true);
+ *     NodeMockUtils.mockNodeFromXml("website", in);
+ *     return RepositoryMockUtils.freeze();
+ * }
+ *
+ * &#64;BeforeEach
+ * void attach() throws RepositoryException {
+ *     SITE.attach();
+ * }
+ * </pre>
+ * <p>
+ * The node mocks are shared by all threads: nodes of the frozen repository can not be re-stubbed with {@link NodeStubbingOperation}s
+ * changing their name, parent, identifier or node types, and direct Mockito stubbings of shared mocks are seen by all threads.
+ * Sessions of a frozen repository don't record events, observation is not supported. Node types are shared as well,
+ * node types declared by one thread are known to all threads. Hand the shared repository to other threads through a final
+ * or volatile field.
+ * </p>
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public final class SharedRepository {
+
+    private final Map<String, Session> _sessions = new LinkedHashMap<>();
+    private final Session _login;
+    private final NodeTypeMockUtils.NodeTypeRegistry _nodeTypes;
+
+    SharedRepository(Repository repository) throws RepositoryException {
+        _sessions.putAll(getSessions(repository));
+        _login = repository.login();
+        List<SessionMockUtils.TestSession> sessions = new ArrayList<>();
+        for (Session session : _sessions.values()) {
+            if (session instanceof SessionMockUtils.TestSession) {
+                sessions.add((SessionMockUtils.TestSession) session);
+                mockLazyNodes((SessionMockUtils.TestSession) session);
+                requireStubOnly((SessionMockUtils.TestSession) session);
+            }
+        }
+        for (SessionMockUtils.TestSession session : sessions) {
+            freeze(session);
+        }
+        _nodeTypes = NodeTypeMockUtils.getRegistry();
+    }
+
+    /**
+     * Returns the names of the shared workspaces.
+     *
+     * @return the workspace names
+     */
+    public Set<String> getWorkspaceNames() {
+        return Collections.unmodifiableSet(_sessions.keySet());
+    }
+
+    /**
+     * Attaches the current thread to the shared repository, discarding the current repository mock of the thread and the changes
+     * made since the last attach. {@link RepositoryMockUtils#cleanRepository()} detaches the thread.
+     *
+     * @throws RepositoryException never thrown unless the shared sessions are stubbed to throw
+     */
+    public void attach() throws RepositoryException {
+        Repository repository = mock(Repository.class, withSettings().stubOnly());
+        for (Map.Entry<String, Session> session : _sessions.entrySet()) {
+            doReturn(session.getValue()).when(repository).login(session.getKey());
+        }
+        doReturn(_login).when(repository).login();
+        RepositoryMockUtils.setRepository(repository, new IdentityHashMap<>());
+        RepositoryMockUtils.setSnapshot(null);
+        NodeTypeMockUtils.setRegistry(_nodeTypes);
+    }
+
+    /**
+     * Returns the copy of a shared object made by the current thread or the shared object itself.
+     *
+     * @param owner the shared object
+     * @param shared the state of the shared object
+     * @param <T> the type of the state
+     * @return the copy of the current thread or the shared state
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T read(Object owner, T shared) {
+        Map<Object, Object> overlay = RepositoryMockUtils.getOverlay();
+        Object copy = overlay == null ? null : overlay.get(owner);
+        return copy == null ? shared : (T) copy;
+    }
+
+    /**
+     * Returns the copy of a shared object made by the current thread, copying it on first access.
+     *
+     * @param owner the shared object
+     * @param copy creates the copy of the shared state
+     * @param <T> the type of the state
+     * @return the copy of the current thread
+     * @throws IllegalStateException if the current thread is not attached to a shared repository
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T write(Object owner, Supplier<T> copy) {
+        Map<Object, Object> overlay = RepositoryMockUtils.getOverlay();
+        Require.State.notNull(overlay, "current thread must be attached to change a shared repository");
+        return (T) overlay.computeIfAbsent(owner, o -> copy.get());
+    }
+
+    /**
+     * Returns true if the item is a node of a frozen repository.
+     *
+     * @param item the item
+     * @return true for shared nodes
+     */
+    static boolean isShared(Object item) {
+        Object nodes = item instanceof NodeMockUtils.TestNode ? ((NodeMockUtils.TestNode) item).getNodeCollection() : null;
+        return nodes instanceof RepositorySnapshot.NodeSet && ((RepositorySnapshot.NodeSet) nodes).isShared();
+    }
+
+    /**
+     * Returns the sessions a repository mock is stubbed to return for a workspace name.
+     *
+     * @param repository the repository mock
+     * @return the sessions by workspace name
+     * @throws RepositoryException never thrown unless the repository is stubbed to throw
+     */
+    static Map<String, Session> getSessions(Repository repository) throws RepositoryException {
+        Set<String> workspaces = new LinkedHashSet<>();
+        for (Stubbing stubbing : Mockito.mockingDetails(repository).getStubbings()) {
+            Invocation invocation = stubbing.getInvocation();
+            if ("login".equals(invocation.getMethod().getName()) && invocation.getArguments().length == 1 && invocation.getArgument(0) instanceof String) {
+                workspaces.add(invocation.getArgument(0));
+            }
+        }
+        Map<String, Session> result = new LinkedHashMap<>();
+        for (String workspace : workspaces) {
+            Session session = repository.login(workspace);
+            if (session != null) {
+                result.put(workspace, session);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Mocks the remaining children of the lazy fixtures of the session. The identifiers of lazy fixture nodes are registered
+     * with the mocked nodes, so looking them up doesn't change the session anymore.
+     *
+     * @param session the session
+     * @throws RepositoryException never thrown unless a mock is stubbed to throw
+     */
+    static void mockLazyNodes(SessionMockUtils.TestSession session) throws RepositoryException {
+        Map<String, XmlFixture> lazyNodes = session.getLazyNodeRegistry();
+        while (!lazyNodes.isEmpty()) {
+            for (String path : new ArrayList<>(lazyNodes.keySet())) {
+                Item item = SessionMockUtils.getRegisteredItem(session, path);
+                if (item != null && item.isNode()) {
+                    SessionMockUtils.mockLazyChildren((Node) item);
+                } else {
+                    lazyNodes.remove(path);
+                }
+            }
+        }
+        session.getLazyIdentifierRegistry().clear();
+    }
+
+    private static void requireStubOnly(SessionMockUtils.TestSession session) throws RepositoryException {
+        requireStubOnly((Object) session);
+        requireStubOnly(session.getWorkspace());
+        for (Item item : session.getItemRegistry().values()) {
+            requireStubOnly(item);
+            if (item instanceof Property) {
+                Property property = (Property) item;
+                Value[] values = property.isMultiple() ? property.getValues() : new Value[] {property.getValue()};
+                for (Value value : values == null ? new Value[0] : values) {
+                    requireStubOnly(value);
+                }
+            }
+        }
+    }
+
+    private static void requireStubOnly(Object mock) {
+        Require.State.reject(SharedRepository::isRecording, mock, "shared repository must be mocked in stub-only mode, see RepositoryMockUtils.setStubOnly(boolean)");
+    }
+
+    private static boolean isRecording(Object mock) {
+        MockingDetails details = mock == null ? null : Mockito.mockingDetails(mock);
+        return details != null && details.isMock() && !details.getMockCreationSettings().isStubOnly();
+    }
+
+    private static void freeze(SessionMockUtils.TestSession session) throws RepositoryException {
+        for (Item item : session.getItemRegistry().values()) {
+            if (item instanceof NodeMockUtils.TestNode) {
+                share(((NodeMockUtils.TestNode) item).getNodeCollection());
+                share(((NodeMockUtils.TestNode) item).getPropertyMap());
+            }
+        }
+        for (Map<?, ?> registry : registries(session)) {
+            share(registry);
+        }
+        WorkspaceIndex index = session.getWorkspaceIndex();
+        index.share();
+        doAnswer(invocation -> read(index, index)).when(session).getWorkspaceIndex();
+        session.getEventDispatcher().share();
+    }
+
+    private static List<Map<?, ?>> registries(SessionMockUtils.TestSession session) {
+        List<Map<?, ?>> result = new ArrayList<>();
+        result.add(session.getItemRegistry());
+        result.add(session.getIdentifierRegistry());
+        result.add(session.getLazyNodeRegistry());
+        result.add(session.getLazyIdentifierRegistry());
+        return result;
+    }
+
+    private static void share(Object collection) {
+        if (collection instanceof RepositorySnapshot.NodeSet) {
+            ((RepositorySnapshot.NodeSet) collection).share();
+        } else if (collection instanceof RepositorySnapshot.PropertyMap) {
+            ((RepositorySnapshot.PropertyMap) collection).share();
+        } else if (collection instanceof RepositorySnapshot.Registry) {
+            ((RepositorySnapshot.Registry<?>) collection).share();
+        }
+    }
+}
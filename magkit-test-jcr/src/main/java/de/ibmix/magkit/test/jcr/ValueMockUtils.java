@@ -20,8 +20,10 @@ package de.ibmix.magkit.test.jcr;
  * #L%
  */
 
+import de.ibmix.magkit.assertions.Require;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.jackrabbit.util.ISO8601;
+import org.mockito.AdditionalAnswers;
 import org.mockito.stubbing.Answer;
 
 import javax.jcr.Binary;
@@ -41,12 +43,13 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 /**
- * Utility factory for creating Mockito based {@link Value} and {@link Binary} test doubles for JCR related unit tests.
+ * Utility factory for creating {@link Value} and {@link Binary} test doubles for JCR related unit tests.
  * <p>
- * The helpers aim to simulate the conversion behaviour defined by the JCR specification for the provided source value.
- * Depending on the input different {@code getXxx()} accessors are stubbed to either return a converted representation
- * or to throw a {@link ValueFormatException} if the conversion would be illegal. This allows concise set up of
- * repository related tests without verbose Mockito boilerplate.
+ * By default the factory methods return plain {@code TextValue}, {@code DateValue} and {@code BinaryValue} objects
+ * that simulate the conversion behaviour defined by the JCR specification for the provided source value. Their
+ * {@code getXxx()} accessors convert lazily on first access and either return the converted representation or throw
+ * a {@link ValueFormatException} if the conversion would be illegal. Mockito mocks with stubbed accessors are only
+ * created when {@link RepositoryMockUtils#setMockValues(boolean)} is enabled.
  * <p>
  * Behaviour rules (summary):
  * <ul>
@@ -55,14 +58,16 @@ import static org.mockito.Mockito.when;
  *   <li>Date: Provides long (millis), double, decimal and string (ISO8601) representations; incompatible conversions throw {@link ValueFormatException}.</li>
  *   <li>Binary: Only {@code getBinary()}, {@code getStream()} (via {@link #STREAM_ANSWER}) and {@code getString()} (its {@code toString()}) are defined, all other conversions throw {@link ValueFormatException}.</li>
  *   <li>Reference (Node): Uses the node identifier string.</li>
- *   <li>{@code toString()} of mocked values delegates to {@code getString()} and returns "NULL" if that is {@code null}.</li>
+ *   <li>{@code toString()} of created values delegates to {@code getString()} and returns "NULL" if that is {@code null}.</li>
  * </ul>
- * The factory methods never return {@code null}. Passing {@code null} as source value usually yields a mock whose
+ * The factory methods never return {@code null}. Passing {@code null} as source value usually yields a value whose
  * optional conversions are either absent (returning {@code null}) or will throw a {@link ValueFormatException} in line
  * with JCR behaviour.
  * <p>
- * Thread safety: Returned mocks are stateless after creation (all behaviour is preconfigured) and can be reused
- * across threads in tests if required.
+ * Thread safety: Returned values cache their conversions without synchronization; share them between threads only
+ * after they have been safely published.
+ * <p>
+ * Plain values can not be verified or re-stubbed with Mockito; enable mocked values if a test needs to.
  * <p>
  * Note: All methods declare {@link RepositoryException} to mirror JCR API signatures; the current implementation
  * does not throw it.
@@ -105,35 +110,7 @@ public final class ValueMockUtils {
      * @throws RepositoryException declared for API symmetry; not thrown
      */
     public static Value mockValue(String value, int type) throws RepositoryException {
-        Value result = mock(Value.class);
-        when(result.getType()).thenReturn(type);
-        if (value != null) {
-            when(result.getString()).thenReturn(value);
-            Calendar date = ISO8601.parse(value);
-            if (date != null) {
-                when(result.getDate()).thenReturn(date);
-            }
-            if (NumberUtils.isCreatable(value)) {
-                double doubleNumber = Double.parseDouble(value);
-                long longValue = Math.round(doubleNumber);
-                when(result.getLong()).thenReturn(longValue);
-                when(result.getDouble()).thenReturn(doubleNumber);
-                when(result.getDecimal()).thenReturn(new BigDecimal(value));
-                Calendar cal = Calendar.getInstance();
-                cal.setTimeInMillis(longValue);
-                when(result.getDate()).thenReturn(cal);
-            } else {
-                when(result.getLong()).thenThrow(new ValueFormatException());
-                when(result.getDouble()).thenThrow(new ValueFormatException());
-                when(result.getDecimal()).thenThrow(new ValueFormatException());
-                if (date == null) {
-                    when(result.getDate()).thenThrow(new ValueFormatException());
-                }
-            }
-            when(result.getBoolean()).thenReturn(Boolean.valueOf(value));
-        }
-        doAnswer(TO_STRING_ANSWER).when(result).toString();
-        return result;
+        return toValue(new TextValue(value, type));
     }
 
     /**
@@ -159,20 +136,7 @@ public final class ValueMockUtils {
      * @throws RepositoryException declared for API symmetry; not thrown
      */
     public static Value mockValue(Calendar value) throws RepositoryException {
-        Value result = mock(Value.class);
-        when(result.getType()).thenReturn(PropertyType.DATE);
-        if (value != null) {
-            String stringValue = ISO8601.format(value);
-            when(result.getDate()).thenReturn(value);
-            when(result.getLong()).thenReturn(value.getTimeInMillis());
-            when(result.getString()).thenReturn(stringValue);
-            when(result.getDouble()).thenReturn((double) value.getTimeInMillis());
-            when(result.getDecimal()).thenReturn(new BigDecimal(value.getTimeInMillis()));
-            when(result.getBoolean()).thenThrow(new ValueFormatException());
-            when(result.getBinary()).thenThrow(new ValueFormatException());
-        }
-        doAnswer(TO_STRING_ANSWER).when(result).toString();
-        return result;
+        return toValue(new DateValue(value));
     }
 
     /**
@@ -208,19 +172,7 @@ public final class ValueMockUtils {
      * @throws RepositoryException declared for API symmetry; not thrown
      */
     public static Value mockValue(Binary value) throws RepositoryException {
-        Value result = mock(Value.class);
-        String stringValue = value != null ? value.toString() : null;
-        when(result.getBinary()).thenReturn(value);
-        when(result.getString()).thenReturn(stringValue);
-        doAnswer(STREAM_ANSWER).when(result).getStream();
-        when(result.getType()).thenReturn(PropertyType.BINARY);
-        when(result.getLong()).thenThrow(new ValueFormatException());
-        when(result.getDouble()).thenThrow(new ValueFormatException());
-        when(result.getDecimal()).thenThrow(new ValueFormatException());
-        when(result.getBoolean()).thenThrow(new ValueFormatException());
-        when(result.getDate()).thenThrow(new ValueFormatException());
-        doAnswer(TO_STRING_ANSWER).when(result).toString();
-        return result;
+        return toValue(new BinaryValue(value));
     }
 
     /**
@@ -255,6 +207,24 @@ public final class ValueMockUtils {
         return result;
     }
 
+    /**
+     * Create a Mockito {@link Binary} test double backed by the given bytes, e.g. decoded binary content of an XML export.
+     * The mock returns the byte array length as size, a fresh {@link java.io.ByteArrayInputStream} for every
+     * {@link Binary#getStream()} invocation and the bytes decoded as UTF-8 string for {@code toString()}.
+     *
+     * @param bytes the binary content, must not be {@code null}
+     * @return configured binary mock (never {@code null})
+     * @throws RepositoryException declared for API symmetry; not thrown
+     */
+    public static Binary mockBinaryContent(final byte[] bytes) throws RepositoryException {
+        Require.Argument.notNull(bytes, "bytes must not be null");
+        Binary result = mock(Binary.class, RepositoryMockUtils.itemMockSettings());
+        doAnswer(invocation -> new ByteArrayInputStream(bytes)).when(result).getStream();
+        doAnswer(invocation -> new String(bytes, StandardCharsets.UTF_8)).when(result).toString();
+        when(result.getSize()).thenReturn((long) bytes.length);
+        return result;
+    }
+
     /**
      * Answer that implements {@link Value#getStream()} by delegating to the currently configured {@link Binary} of the mock.
      * Returns {@code null} if no binary is set.
@@ -276,4 +246,265 @@ public final class ValueMockUtils {
 
     private ValueMockUtils() {
     }
+
+    /**
+     * Returns the plain value or, if {@link RepositoryMockUtils#isMockValues() mock-backed values} are enabled, a Mockito
+     * mock delegating to it.
+     */
+    private static Value toValue(Value plainValue) {
+        Value result = plainValue;
+        if (RepositoryMockUtils.isMockValues()) {
+            Answer<Object> delegate = AdditionalAnswers.delegatesTo(plainValue);
+            result = mock(Value.class, RepositoryMockUtils.itemMockSettings().defaultAnswer(invocation -> {
+                switch (invocation.getMethod().getName()) {
+                    case "toString":
+                        return TO_STRING_ANSWER.answer(invocation);
+                    case "getStream":
+                        return STREAM_ANSWER.answer(invocation);
+                    default:
+                        return delegate.answer(invocation);
+                }
+            }));
+        }
+        return result;
+    }
+
+    /**
+     * Plain {@link Value} for a textual source value. Numeric and date conversions are computed on first access and cached.
+     */
+    private static final class TextValue implements Value {
+        private final String _value;
+        private final int _type;
+        private boolean _converted;
+        private boolean _numeric;
+        private double _double;
+        private BigDecimal _decimal;
+        private Calendar _date;
+
+        TextValue(String value, int type) {
+            _value = value;
+            _type = type;
+        }
+
+        @Override
+        public String getString() {
+            return _value;
+        }
+
+        @Override
+        public InputStream getStream() {
+            return null;
+        }
+
+        @Override
+        public Binary getBinary() {
+            return null;
+        }
+
+        @Override
+        public long getLong() throws ValueFormatException {
+            return _value == null ? 0 : Math.round(getNumber());
+        }
+
+        @Override
+        public double getDouble() throws ValueFormatException {
+            return _value == null ? 0 : getNumber();
+        }
+
+        @Override
+        public BigDecimal getDecimal() throws ValueFormatException {
+            if (_value != null && _decimal == null) {
+                getNumber();
+                _decimal = new BigDecimal(_value);
+            }
+            return _decimal;
+        }
+
+        @Override
+        public Calendar getDate() throws ValueFormatException {
+            if (_value != null && _date == null) {
+                convert();
+                if (_numeric) {
+                    _date = Calendar.getInstance();
+                    _date.setTimeInMillis(Math.round(_double));
+                } else {
+                    _date = ISO8601.parse(_value);
+                    if (_date == null) {
+                        throw new ValueFormatException();
+                    }
+                }
+            }
+            return _date;
+        }
+
+        @Override
+        public boolean getBoolean() {
+            return Boolean.parseBoolean(_value);
+        }
+
+        @Override
+        public int getType() {
+            return _type;
+        }
+
+        @Override
+        public String toString() {
+            return _value != null ? _value : "NULL";
+        }
+
+        private double getNumber() throws ValueFormatException {
+            convert();
+            if (!_numeric) {
+                throw new ValueFormatException();
+            }
+            return _double;
+        }
+
+        private void convert() {
+            if (!_converted) {
+                _numeric = NumberUtils.isCreatable(_value);
+                _double = _numeric ? Double.parseDouble(_value) : 0;
+                _converted = true;
+            }
+        }
+    }
+
+    /**
+     * Plain {@link Value} of type {@link PropertyType#DATE}. The string and decimal representations are computed on first access.
+     */
+    private static final class DateValue implements Value {
+        private final Calendar _value;
+        private String _string;
+        private BigDecimal _decimal;
+
+        DateValue(Calendar value) {
+            _value = value;
+        }
+
+        @Override
+        public String getString() {
+            if (_value != null && _string == null) {
+                _string = ISO8601.format(_value);
+            }
+            return _string;
+        }
+
+        @Override
+        public InputStream getStream() {
+            return null;
+        }
+
+        @Override
+        public Binary getBinary() throws ValueFormatException {
+            if (_value != null) {
+                throw new ValueFormatException();
+            }
+            return null;
+        }
+
+        @Override
+        public long getLong() {
+            return _value == null ? 0 : _value.getTimeInMillis();
+        }
+
+        @Override
+        public double getDouble() {
+            return getLong();
+        }
+
+        @Override
+        public BigDecimal getDecimal() {
+            if (_value != null && _decimal == null) {
+                _decimal = new BigDecimal(_value.getTimeInMillis());
+            }
+            return _decimal;
+        }
+
+        @Override
+        public Calendar getDate() {
+            return _value;
+        }
+
+        @Override
+        public boolean getBoolean() throws ValueFormatException {
+            if (_value != null) {
+                throw new ValueFormatException();
+            }
+            return false;
+        }
+
+        @Override
+        public int getType() {
+            return PropertyType.DATE;
+        }
+
+        @Override
+        public String toString() {
+            String result = getString();
+            return result != null ? result : "NULL";
+        }
+    }
+
+    /**
+     * Plain {@link Value} of type {@link PropertyType#BINARY}. All numeric, date and boolean conversions throw a {@link ValueFormatException}.
+     */
+    private static final class BinaryValue implements Value {
+        private final Binary _value;
+        private final String _string;
+
+        BinaryValue(Binary value) {
+            _value = value;
+            _string = value != null ? value.toString() : null;
+        }
+
+        @Override
+        public String getString() {
+            return _string;
+        }
+
+        @Override
+        public InputStream getStream() throws RepositoryException {
+            return _value == null ? null : _value.getStream();
+        }
+
+        @Override
+        public Binary getBinary() {
+            return _value;
+        }
+
+        @Override
+        public long getLong() throws ValueFormatException {
+            throw new ValueFormatException();
+        }
+
+        @Override
+        public double getDouble() throws ValueFormatException {
+            throw new ValueFormatException();
+        }
+
+        @Override
+        public BigDecimal getDecimal() throws ValueFormatException {
+            throw new ValueFormatException();
+        }
+
+        @Override
+        public Calendar getDate() throws ValueFormatException {
+            throw new ValueFormatException();
+        }
+
+        @Override
+        public boolean getBoolean() throws ValueFormatException {
+            throw new ValueFormatException();
+        }
+
+        @Override
+        public int getType() {
+            return PropertyType.BINARY;
+        }
+
+        @Override
+        public String toString() {
+            return _string != null ? _string : "NULL";
+        }
+    }
 }
@@ -0,0 +1,586 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.jackrabbit.JcrConstants;
+import org.apache.jackrabbit.util.ISO8601;
+
+import javax.jcr.Item;
+import javax.jcr.Node;
+import javax.jcr.Property;
+import javax.jcr.PropertyType;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import javax.jcr.nodetype.NodeType;
+import java.math.BigDecimal;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Secondary indexes of the node mocks of one workspace by node type and by the values of selected properties.
+ * <p>
+ * The indexes are disabled by default and enabled with {@link SessionMockUtils#enableIndex(String, String...)}. They are
+ * built once from the registered items and then kept up to date whenever an item is registered or removed from the session,
+ * i.e. by {@link NodeStubbingOperation#stubProperty(Property)}, {@link NodeStubbingOperation#stubType(String)},
+ * {@link NodeStubbingOperation#stubNode(Node)}, {@link NodeStubbingOperation#stubParent(Node)} and
+ * {@link SessionStubbingOperation#stubRemoveItem(Item)}. A lookup costs time proportional to the number of results, not to the
+ * number of nodes in the workspace.
+ * </p>
+ * <p>
+ * Nodes are indexed by the names of their primary type and mixins; a lookup by type also returns the nodes of its subtypes
+ * (see {@link NodeTypeMockUtils}). Property values are indexed by their string form, numbers by their decimal value. Results are in the order the nodes have
+ * been indexed, which is the document order for trees mocked top down. Children of lazily mocked fixtures are indexed when
+ * they are mocked (see {@link RepositoryMockUtils#setLazyFixtures(boolean)}). The terms of string properties are indexed
+ * in the {@link FullTextIndex} if enabled by {@link SessionMockUtils#enableFullTextIndex(String)}.
+ * </p>
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public final class WorkspaceIndex {
+
+    private final OverlayMap<String, Set<Node>> _nodesByType;
+    private final OverlayMap<Node, String[]> _typesByNode;
+    private final OverlayMap<String, PropertyIndex> _propertyIndexes;
+    private FullTextIndex _fullTextIndex;
+    private boolean _enabled;
+    private boolean _shared;
+    private long _modificationCount;
+
+    WorkspaceIndex() {
+        _nodesByType = new OverlayMap<>(null);
+        _typesByNode = new OverlayMap<>(null);
+        _propertyIndexes = new OverlayMap<>(null);
+    }
+
+    private WorkspaceIndex(WorkspaceIndex base) {
+        _nodesByType = new OverlayMap<>(base._nodesByType);
+        _typesByNode = new OverlayMap<>(base._typesByNode);
+        _propertyIndexes = new OverlayMap<>(base._propertyIndexes);
+        _fullTextIndex = base._fullTextIndex == null ? null : new FullTextIndex(base._fullTextIndex);
+        _enabled = base._enabled;
+        _modificationCount = base._modificationCount;
+    }
+
+    /**
+     * Returns the number of item registrations and removals in the workspace, counted whether the indexes are enabled or not.
+     * Caches of data derived from the workspace compare it to detect changes.
+     *
+     * @return the modification count
+     */
+    public long getModificationCount() {
+        return _modificationCount;
+    }
+
+    /**
+     * Returns true if the indexes are maintained.
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return _enabled;
+    }
+
+    /**
+     * Returns true if the values of the given property are indexed.
+     *
+     * @param propertyName the property name
+     * @return true if the property values are indexed
+     */
+    public boolean isIndexed(String propertyName) {
+        return _enabled && _propertyIndexes.containsKey(propertyName);
+    }
+
+    /**
+     * Returns the names of the indexed properties.
+     *
+     * @return the property names
+     */
+    public Set<String> getIndexedPropertyNames() {
+        return Collections.unmodifiableSet(_propertyIndexes.keySet());
+    }
+
+    /**
+     * Returns the full-text index of the workspace.
+     *
+     * @return the full-text index or null if it is not enabled
+     */
+    public FullTextIndex getFullTextIndex() {
+        return _enabled ? _fullTextIndex : null;
+    }
+
+    /**
+     * Returns all indexed nodes of the given node type or one of its subtypes.
+     *
+     * @param nodeType the node type name, must not be null
+     * @return the nodes, empty if the index is not enabled
+     */
+    public List<Node> getNodesByType(String nodeType) {
+        String type = NodeTypeMockUtils.normalize(nodeType);
+        Set<Node> result = new LinkedHashSet<>();
+        for (Map.Entry<String, Set<Node>> entry : _nodesByType.entrySet()) {
+            if (entry.getKey().equals(type) || NodeTypeMockUtils.mockNodeType(entry.getKey()).isNodeType(type)) {
+                result.addAll(entry.getValue());
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Returns true if values of the given indexed property are long, double or decimal values.
+     *
+     * @param propertyName the name of an indexed property
+     * @return true if at least one node has a numeric value of the property
+     */
+    public boolean hasNumericValues(String propertyName) {
+        PropertyIndex index = _enabled ? _propertyIndexes.get(propertyName) : null;
+        return index != null && !index._numericNodes.isEmpty();
+    }
+
+    /**
+     * Returns true if all values of the given indexed property are long, double or decimal values. Queries comparing the
+     * property with a number use the index only in this case, as they compare strings by value otherwise.
+     *
+     * @param propertyName the name of an indexed property
+     * @return true if no node has a value of the property of another type
+     */
+    public boolean hasOnlyNumericValues(String propertyName) {
+        PropertyIndex index = _enabled ? _propertyIndexes.get(propertyName) : null;
+        return index != null && index._numericNodes.size() == index._keysByNode.size();
+    }
+
+    /**
+     * Returns all nodes with a value of the given indexed property that equals the given value.
+     *
+     * @param propertyName the name of an indexed property
+     * @param value the value, numbers compared by their decimal value and other values by their string form (dates in ISO8601 format)
+     * @return the nodes, empty if the property is not indexed
+     */
+    public List<Node> getNodesByProperty(String propertyName, Object value) {
+        PropertyIndex index = _enabled ? _propertyIndexes.get(propertyName) : null;
+        Set<Node> nodes = index == null ? null : index._nodesByValue.get(toKey(value));
+        return nodes == null ? Collections.emptyList() : new ArrayList<>(nodes);
+    }
+
+    /**
+     * Returns all nodes that have a value for the given indexed property.
+     *
+     * @param propertyName the name of an indexed property
+     * @return the nodes, empty if the property is not indexed
+     */
+    public List<Node> getNodesWithProperty(String propertyName) {
+        PropertyIndex index = _enabled ? _propertyIndexes.get(propertyName) : null;
+        return index == null ? Collections.emptyList() : new ArrayList<>(index._keysByNode.keySet());
+    }
+
+    /**
+     * Returns true if the index belongs to a {@link SharedRepository} and must be layered before changing it.
+     */
+    boolean isShared() {
+        return _shared;
+    }
+
+    /**
+     * Marks the index as part of a {@link SharedRepository}.
+     */
+    void share() {
+        _shared = true;
+    }
+
+    /**
+     * Returns an index layered over this one that can be changed independently. The layer copies only the entries it changes,
+     * this index must not change anymore.
+     */
+    WorkspaceIndex layer() {
+        return new WorkspaceIndex(this);
+    }
+
+    /**
+     * Enables the indexes for the given properties (and the full-text index if requested) and rebuilds them from the node tree
+     * in document order and the registered items.
+     */
+    void enable(Node root, Collection<Item> items, boolean fullText, String... propertyNames) throws RepositoryException {
+        _enabled = true;
+        if (fullText && _fullTextIndex == null) {
+            _fullTextIndex = new FullTextIndex();
+        }
+        if (_fullTextIndex != null) {
+            _fullTextIndex.clear();
+        }
+        for (String propertyName : propertyNames) {
+            _propertyIndexes.putIfAbsent(propertyName, new PropertyIndex(null));
+        }
+        _nodesByType.clear();
+        _typesByNode.clear();
+        for (String propertyName : new ArrayList<>(_propertyIndexes.keySet())) {
+            _propertyIndexes.put(propertyName, new PropertyIndex(null));
+        }
+        addTree(root);
+        for (Item item : items) {
+            addItem(item, null);
+        }
+    }
+
+    private void addTree(Node node) throws RepositoryException {
+        addItem(node, null);
+        if (node instanceof NodeMockUtils.TestNode) {
+            for (Property property : ((NodeMockUtils.TestNode) node).getPropertyCollection()) {
+                addItem(property, null);
+            }
+            for (Node child : ((NodeMockUtils.TestNode) node).getNodeCollection()) {
+                addTree(child);
+            }
+        }
+    }
+
+    /**
+     * Updates the indexes for an item registered in the session.
+     *
+     * @param item the registered item
+     * @param previous the item registered with the same path before or null
+     */
+    void addItem(Item item, Item previous) throws RepositoryException {
+        _modificationCount++;
+        if (_enabled) {
+            if (previous != null && previous != item) {
+                removeItem(previous);
+            }
+            if (item.isNode()) {
+                updateTypes((Node) item);
+            } else {
+                Property property = (Property) item;
+                String name = property.getName();
+                Node parent = property.getParent();
+                if (JcrConstants.JCR_PRIMARYTYPE.equals(name) || JcrConstants.JCR_MIXINTYPES.equals(name)) {
+                    updateTypes(parent);
+                }
+                PropertyIndex index = parent == null ? null : _propertyIndexes.getWritable(name, PropertyIndex::new, null);
+                if (index != null) {
+                    Value[] values = property.getValues();
+                    index.put(parent, toKeys(values), isNumeric(values));
+                }
+                if (_fullTextIndex != null && parent != null) {
+                    _fullTextIndex.putProperty(parent, name, FullTextIndex.isFullTextProperty(property) ? property.getValues() : null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes an item that is removed from the session from the indexes.
+     *
+     * @param item the removed item
+     */
+    void removeItem(Item item) throws RepositoryException {
+        _modificationCount++;
+        if (_enabled) {
+            if (item.isNode()) {
+                String[] types = _typesByNode.remove(item);
+                for (int i = 0; types != null && i < types.length; i++) {
+                    remove(_nodesByType, types[i], (Node) item);
+                }
+                if (_fullTextIndex != null) {
+                    _fullTextIndex.removeNode((Node) item);
+                }
+            } else {
+                PropertyIndex index = _propertyIndexes.getWritable(item.getName(), PropertyIndex::new, null);
+                if (index != null) {
+                    index.put(item.getParent(), null, false);
+                }
+                if (_fullTextIndex != null && item.getParent() != null) {
+                    _fullTextIndex.putProperty(item.getParent(), item.getName(), null);
+                }
+            }
+        }
+    }
+
+    private void updateTypes(Node node) throws RepositoryException {
+        String[] types = getTypes(node);
+        String[] previous = _typesByNode.put(node, types);
+        if (!Arrays.equals(types, previous)) {
+            for (int i = 0; previous != null && i < previous.length; i++) {
+                remove(_nodesByType, previous[i], node);
+            }
+            for (String type : types) {
+                _nodesByType.getWritable(type, LinkedHashSet::new, LinkedHashSet::new).add(node);
+            }
+        }
+    }
+
+    private static String[] getTypes(Node node) throws RepositoryException {
+        String primaryType = null;
+        String[] mixins = null;
+        if (node instanceof NodeMockUtils.TestNode) {
+            Map<String, Property> properties = ((NodeMockUtils.TestNode) node).getPropertyMap();
+            Property primaryTypeProperty = properties.get(JcrConstants.JCR_PRIMARYTYPE);
+            primaryType = primaryTypeProperty == null ? null : primaryTypeProperty.getString();
+            Property mixinProperty = properties.get(JcrConstants.JCR_MIXINTYPES);
+            mixins = mixinProperty == null ? null : toKeys(mixinProperty.getValues());
+        }
+        if (primaryType == null) {
+            NodeType nodeType = node.getPrimaryNodeType();
+            primaryType = nodeType == null ? NodeType.NT_BASE : nodeType.getName();
+        }
+        String[] result = new String[1 + (mixins == null ? 0 : mixins.length)];
+        result[0] = NodeTypeMockUtils.normalize(primaryType);
+        for (int i = 1; i < result.length; i++) {
+            result[i] = NodeTypeMockUtils.normalize(mixins[i - 1]);
+        }
+        return result;
+    }
+
+    private static String[] toKeys(Value[] values) throws RepositoryException {
+        List<String> result = new ArrayList<>(values == null ? 0 : values.length);
+        for (int i = 0; values != null && i < values.length; i++) {
+            if (values[i] != null) {
+                result.add(toKey(values[i]));
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+
+    private static boolean isNumeric(Value[] values) {
+        boolean result = false;
+        for (int i = 0; values != null && !result && i < values.length; i++) {
+            result = isNumeric(values[i]);
+        }
+        return result;
+    }
+
+    private static boolean isNumeric(Value value) {
+        int type = value == null ? PropertyType.UNDEFINED : value.getType();
+        return type == PropertyType.LONG || type == PropertyType.DOUBLE || type == PropertyType.DECIMAL;
+    }
+
+    /**
+     * Returns the index key of a value: the plain decimal form without trailing zeros for numbers and numeric {@link Value}s,
+     * so that 1, 1L and 1.0 share a key, the ISO8601 format for dates and the string form otherwise.
+     */
+    static String toKey(Object value) {
+        String result;
+        if (value instanceof Calendar) {
+            result = ISO8601.format((Calendar) value);
+        } else if (value instanceof Value) {
+            try {
+                result = isNumeric((Value) value) ? toDecimalKey(((Value) value).getString()) : ((Value) value).getString();
+            } catch (RepositoryException e) {
+                throw new IllegalArgumentException("value can not be converted to a string", e);
+            }
+        } else if (value instanceof Number) {
+            result = toDecimalKey(String.valueOf(value));
+        } else {
+            result = String.valueOf(value);
+        }
+        return result;
+    }
+
+    private static String toDecimalKey(String number) {
+        String result;
+        try {
+            result = new BigDecimal(number.trim()).stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException e) {
+            result = number;
+        }
+        return result;
+    }
+
+    private static void remove(OverlayMap<String, Set<Node>> index, String key, Node node) {
+        Set<Node> nodes = index.getWritable(key, LinkedHashSet::new, null);
+        if (nodes != null) {
+            nodes.remove(node);
+            if (nodes.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * The index of the values of one property.
+     */
+    private static final class PropertyIndex {
+        private final OverlayMap<String, Set<Node>> _nodesByValue;
+        private final OverlayMap<Node, String[]> _keysByNode;
+        private final OverlayMap<Node, Boolean> _numericNodes;
+
+        /**
+         * Creates an empty index or an index layered over the given one.
+         */
+        PropertyIndex(PropertyIndex base) {
+            _nodesByValue = new OverlayMap<>(base == null ? null : base._nodesByValue);
+            _keysByNode = new OverlayMap<>(base == null ? null : base._keysByNode);
+            _numericNodes = new OverlayMap<>(base == null ? null : base._numericNodes);
+        }
+
+        void put(Node node, String[] keys, boolean numeric) {
+            if (numeric && keys != null && keys.length > 0) {
+                _numericNodes.put(node, Boolean.TRUE);
+            } else {
+                _numericNodes.remove(node);
+            }
+            if (keys == null || !Arrays.equals(keys, _keysByNode.get(node))) {
+                String[] previous = keys == null || keys.length == 0 ? _keysByNode.remove(node) : _keysByNode.put(node, keys);
+                for (int i = 0; previous != null && i < previous.length; i++) {
+                    remove(_nodesByValue, previous[i], node);
+                }
+                for (int i = 0; keys != null && i < keys.length; i++) {
+                    _nodesByValue.getWritable(keys[i], LinkedHashSet::new, LinkedHashSet::new).add(node);
+                }
+            }
+        }
+    }
+
+    /**
+     * A map layered over another map that does not change anymore, e.g. the map of an index shared by a {@link SharedRepository}.
+     * Entries put into the layer hide the entries of the base map, removed keys are masked. Values of the base map are copied
+     * into the layer before they are changed (see {@link #getWritable(Object, UnaryOperator, Supplier)}), so the first change of
+     * a layered index costs time proportional to the changed entries instead of the whole index. Without a base map it is a plain
+     * map in insertion order.
+     *
+     * @param <K> the key type
+     * @param <V> the value type, values must not be null
+     */
+    static final class OverlayMap<K, V> extends AbstractMap<K, V> {
+        private final Map<K, V> _changes = new LinkedHashMap<>();
+        private final Set<K> _removed = new HashSet<>();
+        private Map<K, V> _base;
+        private int _size;
+
+        OverlayMap(Map<K, V> base) {
+            _base = base == null ? Collections.emptyMap() : base;
+            _size = _base.size();
+        }
+
+        @Override
+        public int size() {
+            return _size;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public V get(Object key) {
+            V result = _changes.get(key);
+            if (result == null && !_removed.contains(key)) {
+                result = _base.get(key);
+            }
+            return result;
+        }
+
+        @Override
+        public V put(K key, V value) {
+            V result = get(key);
+            _changes.put(key, value);
+            _removed.remove(key);
+            _size += result == null ? 1 : 0;
+            return result;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V remove(Object key) {
+            V result = get(key);
+            if (result != null) {
+                _changes.remove(key);
+                if (_base.containsKey(key)) {
+                    _removed.add((K) key);
+                }
+                _size--;
+            }
+            return result;
+        }
+
+        @Override
+        public void clear() {
+            _base = Collections.emptyMap();
+            _changes.clear();
+            _removed.clear();
+            _size = 0;
+        }
+
+        /**
+         * Returns the value of a key to change it, copying a value of the base map into the layer first.
+         *
+         * @param key the key
+         * @param copy copies a value of the base map
+         * @param create creates the value of a missing key, null to return null for missing keys
+         * @return the value owned by this map or null
+         */
+        V getWritable(K key, UnaryOperator<V> copy, Supplier<V> create) {
+            V result = _changes.get(key);
+            if (result == null) {
+                V base = get(key);
+                result = base != null ? copy.apply(base) : create == null ? null : create.get();
+                if (result != null) {
+                    put(key, result);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Returns the entries of the base map in their order, followed by the entries added to the layer. The entry set is not
+         * modifiable.
+         */
+        @Override
+        public Set<Map.Entry<K, V>> entrySet() {
+            return new AbstractSet<Map.Entry<K, V>>() {
+                @Override
+                public int size() {
+                    return _size;
+                }
+
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator() {
+                    List<Map.Entry<K, V>> entries = new ArrayList<>(_size);
+                    for (Map.Entry<K, V> entry : _base.entrySet()) {
+                        V value = get(entry.getKey());
+                        if (value != null) {
+                            entries.add(new SimpleImmutableEntry<>(entry.getKey(), value));
+                        }
+                    }
+                    for (Map.Entry<K, V> entry : _changes.entrySet()) {
+                        if (!_base.containsKey(entry.getKey())) {
+                            entries.add(new SimpleImmutableEntry<>(entry));
+                        }
+                    }
+                    return Collections.unmodifiableList(entries).iterator();
+                }
+            };
+        }
+    }
+}
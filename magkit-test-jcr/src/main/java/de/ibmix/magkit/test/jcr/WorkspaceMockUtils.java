@@ -27,6 +27,7 @@ import javax.jcr.RepositoryException;
 import javax.jcr.Workspace;
 
 import static de.ibmix.magkit.test.jcr.WorkspaceStubbingOperation.stubName;
+import static de.ibmix.magkit.test.jcr.WorkspaceStubbingOperation.stubNodeTypeManager;
 import static org.mockito.Mockito.mock;
 
 /**
@@ -86,8 +87,8 @@ public final class WorkspaceMockUtils {
     /**
      * Create a {@link Workspace} Mockito mock with a specific workspace name.
      * <p>
-     * Validates that {@code name} is not blank. The name is applied first, then all additional stubbing
-     * operations are executed in the order provided.
+     * Validates that {@code name} is not blank. The name and the node type manager of the repository are applied first,
+     * then all additional stubbing operations are executed in the order provided.
      * </p>
      *
      * @param name non-blank workspace name to be returned by {@link Workspace#getName()}; must not be blank
@@ -99,8 +100,9 @@ public final class WorkspaceMockUtils {
     public static Workspace mockWorkspace(String name, WorkspaceStubbingOperation... stubbings) throws RepositoryException {
         Require.Argument.notBlank(name, "name must not be blank");
         Require.Argument.notNull(stubbings, "stubbings must not be null");
-        Workspace result = mock(Workspace.class);
+        Workspace result = mock(Workspace.class, RepositoryMockUtils.itemMockSettings());
         stubName(name).of(result);
+        stubNodeTypeManager(NodeTypeMockUtils.mockNodeTypeManager()).of(result);
         for (WorkspaceStubbingOperation stub : stubbings) {
             stub.of(result);
         }
@@ -27,6 +27,7 @@ import de.ibmix.magkit.test.ExceptionStubbingOperation;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.Workspace;
+import javax.jcr.nodetype.NodeTypeManager;
 import javax.jcr.observation.ObservationManager;
 import javax.jcr.query.QueryManager;
 
@@ -179,6 +180,24 @@ public abstract class WorkspaceStubbingOperation implements ExceptionStubbingOpe
         };
     }
 
+    /**
+     * Create a stubbing operation that assigns a {@link NodeTypeManager} to the {@link Workspace} by configuring
+     * {@link Workspace#getNodeTypeManager()} to return the supplied instance. Workspaces created by
+     * {@link WorkspaceMockUtils} return the node type manager of the repository ({@link NodeTypeMockUtils#mockNodeTypeManager()}) by default.
+     *
+     * @param nodeTypeManager the node type manager to associate (may be a mock or test double)
+     * @return a non-null stubbing operation
+     */
+    public static WorkspaceStubbingOperation stubNodeTypeManager(final NodeTypeManager nodeTypeManager) {
+        return new WorkspaceStubbingOperation() {
+            @Override
+            public void of(final Workspace ws) throws RepositoryException {
+                Require.Argument.notNull(ws, "workspace must not be null");
+                when(ws.getNodeTypeManager()).thenReturn(nodeTypeManager);
+            }
+        };
+    }
+
     /**
      * Create a stubbing operation that assigns an {@link ObservationManager} to the {@link Workspace} by configuring
      * {@link Workspace#getObservationManager()} to return the supplied instance.
@@ -0,0 +1,251 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.commons.lang3.StringUtils;
+
+import javax.jcr.Item;
+import javax.jcr.Node;
+import javax.jcr.PropertyType;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.nodetype.NodeType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubIdentifier;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubMixinNodeTypes;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubType;
+
+/**
+ * Parsed form of a node of a JCR system view XML document: the node name, its properties as raw strings (or decoded bytes
+ * for binary properties) with their property type and its child nodes. Built by {@link JcrXmlHandler} and turned into
+ * node mocks by {@link #mockNodes(String)}, which can be repeated for every test without parsing the XML again
+ * (see {@link XmlFixtureCache}).
+ * <p>
+ * Instances are not modified after parsing and may be shared between threads.
+ * </p>
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+final class XmlFixture {
+    private static final long NODE_WEIGHT = 64;
+    private static final long PROPERTY_WEIGHT = 48;
+    private static final long VALUE_WEIGHT = 40;
+
+    private final String _name;
+    private final List<XmlFixture> _children = new ArrayList<>();
+    private final List<PropertyEntry> _properties = new ArrayList<>();
+
+    XmlFixture(String name) {
+        _name = name;
+    }
+
+    String getName() {
+        return _name;
+    }
+
+    List<XmlFixture> getChildren() {
+        return _children;
+    }
+
+    void addChild(XmlFixture child) {
+        _children.add(child);
+    }
+
+    List<PropertyEntry> getProperties() {
+        return _properties;
+    }
+
+    void addProperty(String name, int type, Object[] values) {
+        _properties.add(new PropertyEntry(name, type, values));
+    }
+
+    /**
+     * Creates (or retrieves if already mocked) the node mocks of this fixture and all descendants in the given workspace.
+     * A fixture with an empty name is mapped to the root node of the workspace.
+     * <p>
+     * In {@link RepositoryMockUtils#setLazyFixtures(boolean) lazy fixture mode} only the node of this fixture is mocked. The
+     * session keeps this fixture and an index of the identifiers of all descendants; child nodes are mocked by
+     * {@link #mockChildren(SessionMockUtils.TestSession, Node)} on first access.
+     * </p>
+     *
+     * @param repository the workspace name, defaults to "website" if blank
+     * @return the node mock of this fixture
+     * @throws RepositoryException never thrown unless a mock is stubbed to throw
+     */
+    Node mockNodes(String repository) throws RepositoryException {
+        Node root = NodeMockUtils.mockNode(StringUtils.isEmpty(repository) ? "website" : repository, StringUtils.isEmpty(_name) ? "/" : _name);
+        Session session = root.getSession();
+        if (RepositoryMockUtils.isLazyFixtures() && session instanceof SessionMockUtils.TestSession) {
+            stubProperties(root);
+            SessionMockUtils.TestSession testSession = (SessionMockUtils.TestSession) session;
+            String path = root.getPath();
+            addLazyNode(testSession, path);
+            for (XmlFixture child : _children) {
+                child.indexIdentifiers(testSession.getLazyIdentifierRegistry(), NodeMockUtils.getPathForParent(root, child._name));
+            }
+        } else {
+            stubNode(root);
+        }
+        return root;
+    }
+
+    /**
+     * Mocks the direct children of this fixture below the given (already mocked) node and registers them with the session.
+     * Children that have children of their own are kept as lazy nodes of the session. No events are recorded for the children.
+     *
+     * @param session the session of the parent node
+     * @param parent the node mock of this fixture
+     * @throws RepositoryException never thrown unless a mock is stubbed to throw
+     */
+    void mockChildren(SessionMockUtils.TestSession session, Node parent) throws RepositoryException {
+        boolean muted = session.getEventDispatcher().setMuted(true);
+        try {
+            for (XmlFixture child : _children) {
+                String path = NodeMockUtils.getPathForParent(parent, child._name);
+                Item existing = session.getItemRegistry().get(path);
+                Node node = existing != null && existing.isNode() ? (Node) existing : NodeMockUtils.mockChildNode(parent, child._name);
+                child.stubProperties(node);
+                NodeMockUtils.registerItems(session, Collections.singletonList(node));
+                child.addLazyNode(session, path);
+            }
+        } finally {
+            session.getEventDispatcher().setMuted(muted);
+        }
+    }
+
+    /**
+     * Estimates the heap size of this fixture in bytes, used to limit the size of the {@link XmlFixtureCache}.
+     *
+     * @return the estimated size in bytes
+     */
+    long getWeight() {
+        long result = NODE_WEIGHT + 2L * StringUtils.length(_name);
+        for (PropertyEntry property : _properties) {
+            result += property.getWeight();
+        }
+        for (XmlFixture child : _children) {
+            result += child.getWeight();
+        }
+        return result;
+    }
+
+    private void stubNode(Node node) throws RepositoryException {
+        stubProperties(node);
+        for (XmlFixture child : _children) {
+            child.stubNode(NodeMockUtils.mockNodeTree(node, child._name));
+        }
+    }
+
+    private void stubProperties(Node node) throws RepositoryException {
+        for (PropertyEntry property : _properties) {
+            property.stubOn(node);
+        }
+    }
+
+    private void addLazyNode(SessionMockUtils.TestSession session, String path) {
+        if (!_children.isEmpty()) {
+            session.getLazyNodeRegistry().put(path, this);
+        }
+    }
+
+    private void indexIdentifiers(Map<String, String> identifiers, String path) {
+        for (PropertyEntry property : _properties) {
+            if ("jcr:uuid".equalsIgnoreCase(property._name) && property._values.length > 0 && property._values[0] != null) {
+                identifiers.put((String) property._values[0], path);
+            }
+        }
+        for (XmlFixture child : _children) {
+            child.indexIdentifiers(identifiers, path + '/' + child._name);
+        }
+    }
+
+    /**
+     * A property of a parsed node. Values are kept as strings or as byte arrays for binary properties.
+     */
+    static final class PropertyEntry {
+        private final String _name;
+        private final int _type;
+        private final Object[] _values;
+
+        PropertyEntry(String name, int type, Object[] values) {
+            _name = name;
+            _type = type;
+            _values = values;
+        }
+
+        String getName() {
+            return _name;
+        }
+
+        int getType() {
+            return _type;
+        }
+
+        Object[] getValues() {
+            return _values;
+        }
+
+        void stubOn(Node node) throws RepositoryException {
+            Value[] values = new Value[_values.length];
+            for (int i = 0; i < _values.length; i++) {
+                Object value = _values[i];
+                if (_type == PropertyType.BINARY) {
+                    values[i] = ValueMockUtils.mockValue(ValueMockUtils.mockBinaryContent((byte[]) value));
+                } else {
+                    values[i] = ValueMockUtils.mockValue((String) value, _type);
+                    if ("jcr:primaryType".equalsIgnoreCase(_name)) {
+                        stubType((String) value).of(node);
+                    } else if ("jcr:uuid".equalsIgnoreCase(_name)) {
+                        stubIdentifier((String) value).of(node);
+                    }
+                }
+            }
+            if ("jcr:mixinTypes".equalsIgnoreCase(_name)) {
+                NodeType[] mixins = new NodeType[_values.length];
+                for (int i = 0; i < _values.length; i++) {
+                    mixins[i] = _values[i] == null ? null : NodeTypeMockUtils.mockNodeType((String) _values[i]);
+                }
+                stubMixinNodeTypes(mixins).of(node);
+            }
+            stubProperty(_name, values).of(node);
+        }
+
+        long getWeight() {
+            long result = PROPERTY_WEIGHT + 2L * StringUtils.length(_name);
+            for (Object value : _values) {
+                result += VALUE_WEIGHT;
+                if (value instanceof String) {
+                    result += 2L * ((String) value).length();
+                } else if (value instanceof byte[]) {
+                    result += ((byte[]) value).length;
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * JVM wide cache for parsed JCR system view XML fixtures used by {@link NodeMockUtils#mockNodeFromXml(String, java.io.InputStream)}.
+ * <p>
+ * Entries are keyed by the resource identity (e.g. the URL of the fixture, if known) and a SHA-256 hash of the XML content.
+ * They hold a compact parsed form of the node tree (names, property types and raw values), so a later test only creates the
+ * node mocks from it and skips the XML parsing and base64 decoding. A changed fixture gets a new hash and replaces the
+ * stale entry of the same resource.
+ * </p>
+ * <p>
+ * The content is hashed while it is read into memory for the lookup. Content larger than the maximum weight could never
+ * be kept, so it is parsed straight from the stream once that size is exceeded, like all content while the cache is disabled.
+ * </p>
+ * <p>
+ * The estimated heap size of all entries is limited to {@link #getMaxWeight()} bytes, the least recently used entries are
+ * evicted first. The default limit of 128 MB can be changed with the system property {@value #MAX_WEIGHT_PROPERTY};
+ * a limit of 0 disables the cache. Hit and miss counts are reported for tuning.
+ * </p>
+ * <pre>
+ *     &#64;AfterAll
+ *     static void report() {
+ *         System.out.println("fixture cache hit rate: " + XmlFixtureCache.getHitRate());
+ *     }
+ * </pre>
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public final class XmlFixtureCache {
+
+    /**
+     * Name of the system property that sets the default maximum weight of the cache in bytes.
+     */
+    public static final String MAX_WEIGHT_PROPERTY = "magkit.test.jcr.fixtureCache.maxWeight";
+
+    private static final long DEFAULT_MAX_WEIGHT = 128L * 1024 * 1024;
+    private static final long MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+    private static final int CHUNK_SIZE = 8192;
+    private static final ThreadLocal<SAXParserFactory> SAX_PARSER_FACTORY = ThreadLocal.withInitial(SAXParserFactory::newInstance);
+    private static final Map<String, Entry> ENTRIES = new LinkedHashMap<>(16, 0.75f, true);
+    private static final Map<String, String> KEYS_BY_IDENTITY = new LinkedHashMap<>();
+
+    private static long _maxWeight = Long.getLong(MAX_WEIGHT_PROPERTY, DEFAULT_MAX_WEIGHT);
+    private static long _weight;
+    private static long _hitCount;
+    private static long _missCount;
+
+    private XmlFixtureCache() {
+    }
+
+    /**
+     * Returns the parsed fixture for the given XML content, parsing it on a cache miss. Content that can not be cached is
+     * parsed from the stream without buffering it completely.
+     *
+     * @param identity the identity of the resource, e.g. its URL; may be {@code null} if unknown
+     * @param xmlUtf8 the UTF-8 encoded XML content, not closed
+     * @return the parsed fixture
+     * @throws IOException if the XML could not be read
+     * @throws SAXException if the XML is invalid
+     * @throws ParserConfigurationException if no SAX parser could be created
+     */
+    static XmlFixture getFixture(String identity, InputStream xmlUtf8) throws IOException, SAXException, ParserConfigurationException {
+        long maxSize = Math.min(getMaxWeight(), MAX_BUFFER_SIZE);
+        ByteArrayOutputStream head = new ByteArrayOutputStream();
+        MessageDigest digest = newDigest();
+        boolean complete = maxSize > 0 && read(xmlUtf8, head, digest, maxSize);
+        String key = complete ? String.valueOf(identity) + '#' + Base64.getEncoder().encodeToString(digest.digest()) : null;
+        synchronized (XmlFixtureCache.class) {
+            Entry entry = key == null ? null : ENTRIES.get(key);
+            if (entry != null) {
+                _hitCount++;
+                return entry._fixture;
+            }
+            _missCount++;
+        }
+        XmlFixture fixture;
+        if (complete) {
+            fixture = parse(new ByteArrayInputStream(head.toByteArray()));
+            put(identity, key, fixture);
+        } else {
+            fixture = parse(head.size() == 0 ? xmlUtf8 : new SequenceInputStream(new ByteArrayInputStream(head.toByteArray()), xmlUtf8));
+        }
+        return fixture;
+    }
+
+    /**
+     * Returns the number of fixtures that have been taken from the cache.
+     *
+     * @return the hit count since the last {@link #clear()}
+     */
+    public static synchronized long getHitCount() {
+        return _hitCount;
+    }
+
+    /**
+     * Returns the number of fixtures that had to be parsed.
+     *
+     * @return the miss count since the last {@link #clear()}
+     */
+    public static synchronized long getMissCount() {
+        return _missCount;
+    }
+
+    /**
+     * Returns the ratio of cache hits to all fixture requests.
+     *
+     * @return the hit rate between 0 and 1, 0 if no fixture has been requested
+     */
+    public static synchronized double getHitRate() {
+        long total = _hitCount + _missCount;
+        return total == 0 ? 0 : (double) _hitCount / total;
+    }
+
+    /**
+     * Returns the number of cached fixtures.
+     *
+     * @return the number of entries
+     */
+    public static synchronized int getEntryCount() {
+        return ENTRIES.size();
+    }
+
+    /**
+     * Returns the estimated heap size of all cached fixtures.
+     *
+     * @return the weight in bytes
+     */
+    public static synchronized long getWeight() {
+        return _weight;
+    }
+
+    /**
+     * Returns the maximum estimated heap size of all cached fixtures.
+     *
+     * @return the maximum weight in bytes
+     */
+    public static synchronized long getMaxWeight() {
+        return _maxWeight;
+    }
+
+    /**
+     * Sets the maximum estimated heap size of all cached fixtures and evicts the least recently used entries exceeding it.
+     *
+     * @param maxWeight the maximum weight in bytes, 0 disables the cache
+     */
+    public static synchronized void setMaxWeight(long maxWeight) {
+        _maxWeight = Math.max(0, maxWeight);
+        evict();
+    }
+
+    /**
+     * Removes all cached fixtures and resets the hit and miss counts.
+     */
+    public static synchronized void clear() {
+        ENTRIES.clear();
+        KEYS_BY_IDENTITY.clear();
+        _weight = 0;
+        _hitCount = 0;
+        _missCount = 0;
+    }
+
+    private static synchronized void put(String identity, String key, XmlFixture fixture) {
+        if (identity != null) {
+            String staleKey = KEYS_BY_IDENTITY.put(identity, key);
+            if (staleKey != null && !staleKey.equals(key)) {
+                remove(staleKey);
+            }
+        }
+        Entry entry = new Entry(identity, fixture);
+        Entry previous = ENTRIES.put(key, entry);
+        if (previous != null) {
+            _weight -= previous._weight;
+        }
+        _weight += entry._weight;
+        evict();
+    }
+
+    private static void evict() {
+        Iterator<Map.Entry<String, Entry>> entries = ENTRIES.entrySet().iterator();
+        while (_weight > _maxWeight && entries.hasNext()) {
+            Map.Entry<String, Entry> eldest = entries.next();
+            entries.remove();
+            _weight -= eldest.getValue()._weight;
+            String identity = eldest.getValue()._identity;
+            if (identity != null) {
+                KEYS_BY_IDENTITY.remove(identity, eldest.getKey());
+            }
+        }
+    }
+
+    private static void remove(String key) {
+        Entry entry = ENTRIES.remove(key);
+        if (entry != null) {
+            _weight -= entry._weight;
+        }
+    }
+
+    static XmlFixture parse(InputStream xmlUtf8) throws IOException, SAXException, ParserConfigurationException {
+        JcrXmlHandler handler = JcrXmlHandler.forFixture();
+        SAX_PARSER_FACTORY.get().newSAXParser().parse(CloseShieldInputStream.wrap(xmlUtf8), handler);
+        return handler.getFixture();
+    }
+
+    /**
+     * Reads the content into the buffer and the digest until its end or until more than maxSize bytes have been read.
+     *
+     * @return true if the whole content has been read
+     */
+    private static boolean read(InputStream in, ByteArrayOutputStream buffer, MessageDigest digest, long maxSize) throws IOException {
+        byte[] chunk = new byte[CHUNK_SIZE];
+        int count = 0;
+        while (count >= 0 && buffer.size() <= maxSize) {
+            count = in.read(chunk);
+            if (count > 0) {
+                buffer.write(chunk, 0, count);
+                digest.update(chunk, 0, count);
+            }
+        }
+        return count < 0;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * A cached fixture with its resource identity and estimated heap size.
+     */
+    private static final class Entry {
+        private final String _identity;
+        private final XmlFixture _fixture;
+        private final long _weight;
+
+        Entry(String identity, XmlFixture fixture) {
+            _identity = identity;
+            _fixture = fixture;
+            _weight = fixture == null ? 0 : fixture.getWeight();
+        }
+    }
+}
@@ -22,6 +22,8 @@ package de.ibmix.magkit.test.jcr.observation;
 
 import de.ibmix.magkit.assertions.Require;
 import de.ibmix.magkit.test.ExceptionStubbingOperation;
+import de.ibmix.magkit.test.jcr.EventDispatcher;
+import de.ibmix.magkit.test.jcr.EventJournalBuffer;
 import org.apache.commons.collections4.IteratorUtils;
 import org.apache.jackrabbit.commons.iterator.EventListenerIteratorAdapter;
 
@@ -34,6 +36,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 
 /**
@@ -160,6 +166,65 @@ public abstract class ObservationManagerStubbingOperation implements ExceptionSt
         };
     }
 
+    /**
+     * Creates a stubbing operation that lets an ObservationManager mock register its listeners with the given
+     * {@link EventDispatcher}, which delivers the events of the changes of the mocked workspace on {@link javax.jcr.Session#save()}.
+     * <p>
+     * {@link ObservationManager#addEventListener(EventListener, int, String, boolean, String[], String[], boolean)},
+     * {@link ObservationManager#removeEventListener(EventListener)}, {@link ObservationManager#getRegisteredEventListeners()}
+     * and {@link ObservationManager#setUserData(String)} are answered by the dispatcher.
+     * </p>
+     *
+     * @param dispatcher the event dispatcher of the session of the workspace, must not be null
+     * @return a new ObservationManagerStubbingOperation that connects the mock to the dispatcher
+     * @see ObservationMockUtils#mockDispatchingObservationManager(String, ObservationManagerStubbingOperation...)
+     */
+    public static ObservationManagerStubbingOperation stubEventDispatch(final EventDispatcher dispatcher) {
+        Require.Argument.notNull(dispatcher, "dispatcher must not be null");
+        return new ObservationManagerStubbingOperation() {
+            @Override
+            public void of(ObservationManager mock) throws RepositoryException {
+                Require.Argument.notNull(mock, "observationManager must not be null");
+                doAnswer(invocation -> {
+                    dispatcher.addEventListener(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2),
+                        invocation.getArgument(3), invocation.getArgument(4), invocation.getArgument(5));
+                    return null;
+                }).when(mock).addEventListener(any(), anyInt(), any(), anyBoolean(), any(), any(), anyBoolean());
+                doAnswer(invocation -> {
+                    dispatcher.removeEventListener(invocation.getArgument(0));
+                    return null;
+                }).when(mock).removeEventListener(any());
+                doAnswer(invocation -> {
+                    dispatcher.setUserData(invocation.getArgument(0));
+                    return null;
+                }).when(mock).setUserData(any());
+                doAnswer(invocation -> new EventListenerIteratorAdapter(dispatcher.getEventListeners())).when(mock).getRegisteredEventListeners();
+            }
+        };
+    }
+
+    /**
+     * Creates a stubbing operation that lets an ObservationManager mock answer new journals of the given
+     * {@link EventJournalBuffer} for {@link ObservationManager#getEventJournal()} and for any filter passed to
+     * {@link ObservationManager#getEventJournal(int, String, boolean, String[], String[])}.
+     *
+     * @param buffer the event journal buffer of the workspace, must not be null
+     * @return a new ObservationManagerStubbingOperation answering the journals of the buffer
+     * @see ObservationMockUtils#mockEventJournal(String, int)
+     */
+    public static ObservationManagerStubbingOperation stubEventJournalBuffer(final EventJournalBuffer buffer) {
+        Require.Argument.notNull(buffer, "buffer must not be null");
+        return new ObservationManagerStubbingOperation() {
+            @Override
+            public void of(ObservationManager mock) throws RepositoryException {
+                Require.Argument.notNull(mock, "observationManager must not be null");
+                doAnswer(invocation -> buffer.getEventJournal()).when(mock).getEventJournal();
+                doAnswer(invocation -> buffer.getEventJournal(invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2),
+                    invocation.getArgument(3), invocation.getArgument(4))).when(mock).getEventJournal(anyInt(), any(), anyBoolean(), any(), any());
+            }
+        };
+    }
+
     /**
      * Creates a stubbing operation that configures the default event journal for an ObservationManager mock.
      * <p>
@@ -21,11 +21,22 @@ package de.ibmix.magkit.test.jcr.observation;
  */
 
 import de.ibmix.magkit.assertions.Require;
+import de.ibmix.magkit.test.jcr.EventDispatcher;
+import de.ibmix.magkit.test.jcr.EventJournalBuffer;
+import de.ibmix.magkit.test.jcr.SessionMockUtils;
+import de.ibmix.magkit.test.jcr.WorkspaceStubbingOperation;
 
 import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Workspace;
+import javax.jcr.observation.EventListener;
 import javax.jcr.observation.ObservationManager;
+import java.util.concurrent.Executor;
 
+import static de.ibmix.magkit.test.jcr.observation.ObservationManagerStubbingOperation.stubEventDispatch;
+import static de.ibmix.magkit.test.jcr.observation.ObservationManagerStubbingOperation.stubEventJournalBuffer;
 import static de.ibmix.magkit.test.jcr.observation.ObservationManagerStubbingOperation.stubRegisteredEventListeners;
+import static org.apache.commons.lang3.StringUtils.defaultIfBlank;
 import static org.mockito.Mockito.mock;
 
 /**
@@ -155,6 +166,85 @@ public abstract class ObservationMockUtils {
         return observationManager;
     }
 
+    /**
+     * Returns the ObservationManager mock of the workspace, creating and registering it if needed, that delivers JCR events
+     * for the changes of the mocked nodes of the workspace to the registered listeners (see {@link EventDispatcher}).
+     * <p>
+     * Listeners registered with {@link ObservationManager#addEventListener(EventListener, int, String, boolean, String[], String[], boolean)}
+     * receive the events of all nodes and properties added, changed or removed afterwards, e.g. by {@code addNode},
+     * {@code setProperty}, {@code remove} or the stubbing operations of the node mocks, when {@link javax.jcr.Session#save()}
+     * is called. The events are delivered synchronously.
+     * </p>
+     * <pre>{@code
+     * ObservationManager manager = ObservationMockUtils.mockDispatchingObservationManager("website");
+     * manager.addEventListener(cacheFlush, Event.NODE_ADDED | Event.PROPERTY_CHANGED, "/home", true, null, null, false);
+     * mockNode("/home/news").setProperty("title", "News");
+     * SessionMockUtils.mockSession("website").save();
+     * }</pre>
+     *
+     * @param workspace the workspace name, "website" if blank
+     * @param stubbings the stubbing operations applied to the ObservationManager mock
+     * @return the ObservationManager mock of the workspace
+     * @throws RepositoryException never thrown unless a mock is stubbed to throw
+     */
+    public static ObservationManager mockDispatchingObservationManager(String workspace, ObservationManagerStubbingOperation... stubbings) throws RepositoryException {
+        return mockDispatchingObservationManager(workspace, null, stubbings);
+    }
+
+    /**
+     * Returns the ObservationManager mock of the workspace like {@link #mockDispatchingObservationManager(String, ObservationManagerStubbingOperation...)}
+     * that delivers the events on the given executor. Each listener receives the events of one save as one task, so listeners
+     * run concurrently to the test code and to each other with a multithreaded executor.
+     *
+     * @param workspace the workspace name, "website" if blank
+     * @param executor the executor delivering the events or null to deliver them synchronously within the save
+     * @param stubbings the stubbing operations applied to the ObservationManager mock
+     * @return the ObservationManager mock of the workspace
+     * @throws RepositoryException never thrown unless a mock is stubbed to throw
+     */
+    public static ObservationManager mockDispatchingObservationManager(String workspace, Executor executor, ObservationManagerStubbingOperation... stubbings) throws RepositoryException {
+        Require.Argument.notNull(stubbings, "stubbings must not be null");
+        Session session = SessionMockUtils.mockSession(defaultIfBlank(workspace, "website"));
+        EventDispatcher dispatcher = SessionMockUtils.getEventDispatcher(session);
+        Require.State.notNull(dispatcher, "session of workspace " + workspace + " must be created by mockPlainSession()");
+        Workspace ws = session.getWorkspace();
+        ObservationManager result = ws.getObservationManager();
+        if (result == null) {
+            result = mockObservationManager();
+            WorkspaceStubbingOperation.stubObservationManager(result).of(ws);
+        }
+        stubEventDispatch(dispatcher).of(result);
+        dispatcher.setExecutor(executor);
+        for (ObservationManagerStubbingOperation stubbing : stubbings) {
+            stubbing.of(result);
+        }
+        return result;
+    }
+
+    /**
+     * Enables the bounded event journal of the workspace and lets its dispatching ObservationManager mock (see
+     * {@link #mockDispatchingObservationManager(String, ObservationManagerStubbingOperation...)}) answer the journals of it.
+     * All changes saved afterwards are recorded, the latest {@code capacity} events are kept.
+     * <pre>{@code
+     * EventJournalBuffer buffer = ObservationMockUtils.mockEventJournal("website", 100_000);
+     * importer.importPages(50_000);
+     * EventJournal journal = SessionMockUtils.mockSession("website").getWorkspace().getObservationManager().getEventJournal();
+     * journal.skipTo(lastSync);
+     * }</pre>
+     *
+     * @param workspace the workspace name, "website" if blank
+     * @param capacity the maximum number of events kept, must be positive
+     * @return the event journal buffer of the workspace
+     * @throws RepositoryException never thrown unless a mock is stubbed to throw
+     */
+    public static EventJournalBuffer mockEventJournal(String workspace, int capacity) throws RepositoryException {
+        EventDispatcher dispatcher = SessionMockUtils.getEventDispatcher(SessionMockUtils.mockSession(defaultIfBlank(workspace, "website")));
+        Require.State.notNull(dispatcher, "session of workspace " + workspace + " must be created by mockPlainSession()");
+        EventJournalBuffer result = dispatcher.enableJournal(capacity);
+        mockDispatchingObservationManager(workspace, dispatcher.getExecutor(), stubEventJournalBuffer(result));
+        return result;
+    }
+
     /**
      * Private constructor to prevent instantiation of this utility class.
      * <p>
@@ -0,0 +1,196 @@
+package de.ibmix.magkit.test.jcr.query;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.test.jcr.FullTextIndex;
+
+import javax.jcr.Node;
+import javax.jcr.query.InvalidQueryException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A parsed full-text search expression of a {@code CONTAINS()} or {@code jcr:contains()} constraint.
+ * <p>
+ * The grammar follows JCR 2.0: terms separated by whitespace must all occur, {@code OR} separates alternatives, a leading
+ * {@code -} excludes a term and double quotes enclose a phrase of consecutive words. A trailing {@code *} matches all words
+ * starting with the term. Words are compared case-insensitively as split by {@link FullTextIndex#tokenize(String)}.
+ * </p>
+ * <p>
+ * The score of a matching text is the number of occurrences of the searched terms divided by the number of words of the
+ * text, the best matching alternative counts. It is greater than 0 for all matches and at most 1.
+ * </p>
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+final class FullTextExpression {
+
+    private final List<List<Term>> _alternatives;
+
+    private FullTextExpression(List<List<Term>> alternatives) {
+        _alternatives = alternatives;
+    }
+
+    /**
+     * Parses a full-text search expression.
+     *
+     * @param expression the expression
+     * @return the parsed expression
+     * @throws InvalidQueryException if the expression has an unterminated phrase or an alternative without a searched term
+     */
+    static FullTextExpression parse(String expression) throws InvalidQueryException {
+        String text = expression == null ? "" : expression;
+        List<List<Term>> alternatives = new ArrayList<>();
+        List<Term> terms = new ArrayList<>();
+        int i = 0;
+        while (i <= text.length()) {
+            if (i == text.length() || Character.isWhitespace(text.charAt(i))) {
+                i++;
+                continue;
+            }
+            boolean excluded = text.charAt(i) == '-';
+            StringBuilder raw = new StringBuilder();
+            boolean quoted = false;
+            boolean prefix = false;
+            int start = excluded ? i + 1 : i;
+            for (i = start; i < text.length() && (quoted || !Character.isWhitespace(text.charAt(i))); i++) {
+                char c = text.charAt(i);
+                if (c == '\\' && i + 1 < text.length()) {
+                    raw.append(text.charAt(++i));
+                } else if (c == '"') {
+                    quoted = !quoted;
+                    raw.append(' ');
+                } else {
+                    prefix = c == '*';
+                    raw.append(c);
+                }
+            }
+            if (quoted) {
+                throw new InvalidQueryException("Unterminated phrase in full-text expression: " + text);
+            }
+            if (!excluded && "OR".contentEquals(raw)) {
+                addAlternative(alternatives, terms, text);
+                terms = new ArrayList<>();
+            } else {
+                List<String> words = FullTextIndex.tokenize(raw.toString());
+                if (!words.isEmpty()) {
+                    terms.add(new Term(words.toArray(new String[0]), excluded, prefix));
+                }
+            }
+        }
+        addAlternative(alternatives, terms, text);
+        return new FullTextExpression(alternatives);
+    }
+
+    private static void addAlternative(List<List<Term>> alternatives, List<Term> terms, String text) throws InvalidQueryException {
+        boolean searched = false;
+        for (Term term : terms) {
+            searched = searched || !term._excluded;
+        }
+        if (!searched) {
+            throw new InvalidQueryException("No search term in full-text expression: " + text);
+        }
+        alternatives.add(terms);
+    }
+
+    /**
+     * Returns the score of a text.
+     *
+     * @param words the words of the text as split by {@link FullTextIndex#tokenize(String)}
+     * @return the score of the best matching alternative, 0 if the text does not match
+     */
+    double getScore(List<String> words) {
+        double result = 0;
+        for (List<Term> terms : _alternatives) {
+            int occurrences = 0;
+            boolean matches = true;
+            for (int i = 0; matches && i < terms.size(); i++) {
+                Term term = terms.get(i);
+                int count = term.count(words);
+                matches = term._excluded ? count == 0 : count > 0;
+                occurrences += term._excluded ? 0 : count;
+            }
+            if (matches) {
+                result = Math.max(result, (double) occurrences / words.size());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Looks up the nodes that may match in the full-text index. For each alternative the nodes of its rarest searched word
+     * are taken, words searched by prefix are not looked up.
+     *
+     * @param index the full-text index
+     * @return the candidates in index order or null if an alternative only searches by prefix
+     */
+    List<Node> getCandidates(FullTextIndex index) {
+        Set<Node> result = new LinkedHashSet<>();
+        for (int a = 0; result != null && a < _alternatives.size(); a++) {
+            String rarest = null;
+            for (Term term : _alternatives.get(a)) {
+                for (int w = 0; !term._excluded && w < term._words.length; w++) {
+                    boolean exact = !term._prefix || w < term._words.length - 1;
+                    if (exact && (rarest == null || index.getNodeCount(term._words[w]) < index.getNodeCount(rarest))) {
+                        rarest = term._words[w];
+                    }
+                }
+            }
+            if (rarest == null) {
+                result = null;
+            } else {
+                result.addAll(index.getNodes(rarest));
+            }
+        }
+        return result == null ? null : new ArrayList<>(result);
+    }
+
+    /**
+     * A searched or excluded word or phrase.
+     */
+    private static final class Term {
+        private final String[] _words;
+        private final boolean _excluded;
+        private final boolean _prefix;
+
+        Term(String[] words, boolean excluded, boolean prefix) {
+            _words = words;
+            _excluded = excluded;
+            _prefix = prefix;
+        }
+
+        int count(List<String> words) {
+            int result = 0;
+            for (int i = 0; i + _words.length <= words.size(); i++) {
+                boolean matches = true;
+                for (int w = 0; matches && w < _words.length; w++) {
+                    String word = words.get(i + w);
+                    matches = _prefix && w == _words.length - 1 ? word.startsWith(_words[w]) : word.equals(_words[w]);
+                }
+                result += matches ? 1 : 0;
+            }
+            return result;
+        }
+    }
+}
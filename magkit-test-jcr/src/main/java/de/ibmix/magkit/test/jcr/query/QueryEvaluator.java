@@ -0,0 +1,1458 @@
+package de.ibmix.magkit.test.jcr.query;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.test.jcr.FullTextIndex;
+import de.ibmix.magkit.test.jcr.SessionMockUtils;
+import de.ibmix.magkit.test.jcr.WorkspaceIndex;
+import org.apache.jackrabbit.util.ISO8601;
+import org.apache.jackrabbit.util.ISO9075;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.Property;
+import javax.jcr.PropertyIterator;
+import javax.jcr.PropertyType;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.nodetype.NodeType;
+import javax.jcr.query.InvalidQueryException;
+import javax.jcr.query.Query;
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory evaluator of common JCR-SQL2 and XPath queries against the node mocks of a session.
+ * <p>
+ * Supported are single selector queries with
+ * <ul>
+ *     <li>the node type of the selector ({@code FROM [mgnl:page]}, {@code element(*, mgnl:page)}), including supertypes and mixins,</li>
+ *     <li>path constraints ({@code ISDESCENDANTNODE}, {@code ISCHILDNODE}, {@code ISSAMENODE}, XPath path steps with {@code /} and {@code //}),</li>
+ *     <li>property comparisons ({@code =, <>, <, <=, >, >=}), {@code LIKE}/{@code jcr:like}, {@code IS [NOT] NULL} and property existence,</li>
+ *     <li>{@code NAME()}, {@code LOCALNAME()}, {@code LOWER()} and {@code UPPER()} operands, {@code CAST} literals and bind variables,</li>
+ *     <li>full-text constraints {@code CONTAINS(*, 'text')}, {@code CONTAINS(title, 'text')} and {@code jcr:contains(., 'text')}
+ *     on the string properties of the node (see {@link FullTextExpression}),</li>
+ *     <li>{@code AND}, {@code OR}, {@code NOT} and parentheses,</li>
+ *     <li>{@code ORDER BY} with ascending and descending orderings including {@code SCORE()}/{@code jcr:score()} and
+ *     {@code LIMIT}/{@code OFFSET} clauses.</li>
+ * </ul>
+ * Other constructs like joins are rejected with an {@link InvalidQueryException}. The score of a result node is the sum of
+ * the scores of its full-text constraints.
+ * Path constraints of the top level conjunction restrict the nodes that are visited to the subtree of the given path, all
+ * other nodes of the workspace are never touched. If the {@link WorkspaceIndex} of the workspace is enabled, the node type,
+ * equality conditions on indexed properties and full-text constraints are looked up in the index instead. Results are in document order (or index
+ * order if looked up in the index) unless ordered explicitly.
+ * </p>
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+final class QueryEvaluator {
+
+    private static final Constraint ANY = (node, bindings) -> true;
+
+    private final String _nodeType;
+    private final Constraint _constraint;
+    private final List<Ordering> _orderings;
+    private final List<FullText> _fullTexts;
+    private final String _selectorName;
+    private final Set<String> _bindVariableNames;
+    private final long _limit;
+    private final long _offset;
+    private final String _normalizedStatement;
+
+    private QueryEvaluator(Parser parser) {
+        _nodeType = parser._nodeType;
+        _constraint = parser._constraint == null ? ANY : parser._constraint;
+        _orderings = parser._orderings;
+        _fullTexts = parser._fullTexts;
+        _selectorName = parser._selector;
+        _bindVariableNames = Collections.unmodifiableSet(parser._bindVariableNames);
+        _limit = parser._limit;
+        _offset = parser._offset;
+        _normalizedStatement = String.join(" ", parser._tokens._tokens);
+    }
+
+    /**
+     * Parses the statement of the given language.
+     *
+     * @param statement the query statement
+     * @param language the query language, {@link Query#JCR_SQL2} or {@link Query#XPATH}
+     * @return the evaluator for the statement
+     * @throws InvalidQueryException if the language is not supported or the statement is invalid or uses unsupported constructs
+     */
+    static QueryEvaluator parse(String statement, String language) throws InvalidQueryException {
+        Parser parser;
+        if (Query.JCR_SQL2.equalsIgnoreCase(language)) {
+            parser = new Sql2Parser(statement);
+        } else if (Query.XPATH.equalsIgnoreCase(language)) {
+            parser = new XPathParser(statement);
+        } else {
+            throw new InvalidQueryException("Unsupported query language: " + language);
+        }
+        parser.parse();
+        return new QueryEvaluator(parser);
+    }
+
+    /**
+     * Returns the names of the bind variables used in the statement.
+     *
+     * @return the bind variable names
+     */
+    Set<String> getBindVariableNames() {
+        return _bindVariableNames;
+    }
+
+    /**
+     * Returns the statement with its tokens separated by single spaces, so statements differing in whitespace only are equal.
+     *
+     * @return the normalized statement
+     */
+    String getNormalizedStatement() {
+        return _normalizedStatement;
+    }
+
+    /**
+     * Returns the limit of the statement.
+     *
+     * @return the maximum number of results or -1 if the statement has no limit
+     */
+    long getLimit() {
+        return _limit;
+    }
+
+    /**
+     * Returns the offset of the statement.
+     *
+     * @return the number of results to skip or -1 if the statement has no offset
+     */
+    long getOffset() {
+        return _offset;
+    }
+
+    /**
+     * Evaluates the query against the nodes of the given session. Limit and offset are not applied, so the result
+     * holds all matches and its size is the total size of the query result.
+     *
+     * @param session the session to query
+     * @param bindings the values of the bind variables
+     * @return all matching nodes with their full-text scores
+     * @throws RepositoryException if a bind variable has no value or the nodes can't be accessed
+     */
+    ResultRange evaluate(Session session, Map<String, Value> bindings) throws RepositoryException {
+        for (String name : _bindVariableNames) {
+            if (!bindings.containsKey(name)) {
+                throw new InvalidQueryException("No value bound for variable $" + name);
+            }
+        }
+        for (FullText fullText : _fullTexts) {
+            fullText.reset();
+        }
+        List<Node> result = new ArrayList<>();
+        Map<Node, Double> scores = _fullTexts.isEmpty() ? null : new IdentityHashMap<>();
+        for (Node node : getCandidates(session, bindings)) {
+            if (matchesType(node) && _constraint.matches(node, bindings)) {
+                result.add(node);
+                if (scores != null) {
+                    scores.put(node, getScore(node, bindings));
+                }
+            }
+        }
+        if (!_orderings.isEmpty()) {
+            result.sort(new OrderingComparator(_orderings, scores));
+        }
+        return new ResultRange(result.size(), result::get, scores, _selectorName);
+    }
+
+    private double getScore(Node node, Map<String, Value> bindings) throws RepositoryException {
+        double result = 0;
+        for (FullText fullText : _fullTexts) {
+            result += fullText.getScore(node, bindings);
+        }
+        return result;
+    }
+
+    private boolean matchesType(Node node) throws RepositoryException {
+        return _nodeType == null || node.isNodeType(_nodeType);
+    }
+
+    /**
+     * Collects the nodes to test. These are the nodes of the smallest matching entry of the enabled workspace index, if the
+     * node type or an equality condition of the top level conjunction on an indexed property can be looked up there.
+     * Otherwise, the nodes are collected in document order, restricted to the subtree of a path constraint of the top level conjunction.
+     */
+    private List<Node> getCandidates(Session session, Map<String, Value> bindings) throws RepositoryException {
+        PathConstraint scope = PathConstraint.getScope(_constraint);
+        WorkspaceIndex index = SessionMockUtils.getWorkspaceIndex(session);
+        List<Node> result = index != null && (scope == null || scope._axis == Axis.DESCENDANT) ? getIndexedCandidates(index, bindings) : null;
+        if (result == null) {
+            result = collectCandidates(session, scope);
+        }
+        return result;
+    }
+
+    private List<Node> getIndexedCandidates(WorkspaceIndex index, Map<String, Value> bindings) throws RepositoryException {
+        List<Node> result = _nodeType == null ? null : index.getNodesByType(_nodeType);
+        List<Constraint> constraints = _constraint instanceof Junction && ((Junction) _constraint)._and
+            ? ((Junction) _constraint)._constraints : Collections.singletonList(_constraint);
+        for (Constraint constraint : constraints) {
+            if (constraint instanceof Comparison && "=".equals(((Comparison) constraint)._operator)
+                && ((Comparison) constraint)._operand instanceof PropertyOperand) {
+                String name = ((PropertyOperand) ((Comparison) constraint)._operand)._name;
+                Object value = index.isIndexed(name) ? toIndexValue(index, name, ((Comparison) constraint)._value.getValue(bindings)) : null;
+                if (value != null) {
+                    List<Node> nodes = index.getNodesByProperty(name, value);
+                    result = result == null || nodes.size() < result.size() ? nodes : result;
+                }
+            } else if (constraint instanceof FullText && ((FullText) constraint).isIndexed() && index.getFullTextIndex() != null) {
+                List<Node> nodes = ((FullText) constraint).getExpression(bindings).getCandidates(index.getFullTextIndex());
+                result = nodes != null && (result == null || nodes.size() < result.size()) ? nodes : result;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the value to look up in the index of a property for an equality comparison, or null if the lookup could miss
+     * nodes {@link #compare(Object, Object)} finds equal: numbers are compared by value with numeric values only, strings
+     * with string values by their string form or with numeric values by value.
+     */
+    private static Object toIndexValue(WorkspaceIndex index, String name, Object value) {
+        Object result = null;
+        if (value instanceof Number) {
+            result = index.hasOnlyNumericValues(name) ? value : null;
+        } else if ((value instanceof String || value instanceof Boolean) && !index.hasNumericValues(name)) {
+            result = value;
+        } else if (value instanceof String && index.hasOnlyNumericValues(name)) {
+            result = toDouble(value);
+        }
+        return result;
+    }
+
+    private List<Node> collectCandidates(Session session, PathConstraint scope) throws RepositoryException {
+        List<Node> result = new ArrayList<>();
+        Node start = scope == null ? session.getRootNode() : getNode(session, scope._path);
+        if (start != null) {
+            if (scope != null && scope._axis == Axis.SELF) {
+                result.add(start);
+            } else if (scope != null && scope._axis == Axis.CHILD) {
+                addAll(result, start.getNodes());
+            } else {
+                if (scope == null) {
+                    result.add(start);
+                }
+                Deque<NodeIterator> stack = new ArrayDeque<>();
+                stack.push(start.getNodes());
+                while (!stack.isEmpty()) {
+                    NodeIterator children = stack.peek();
+                    if (children.hasNext()) {
+                        Node child = children.nextNode();
+                        result.add(child);
+                        stack.push(child.getNodes());
+                    } else {
+                        stack.pop();
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Node getNode(Session session, String path) throws RepositoryException {
+        return session.nodeExists(path) ? session.getNode(path) : null;
+    }
+
+    private static void addAll(List<Node> nodes, NodeIterator iterator) {
+        while (iterator.hasNext()) {
+            nodes.add(iterator.nextNode());
+        }
+    }
+
+    /**
+     * Converts a JCR value to the java object used for comparisons.
+     */
+    static Object toObject(Value value) throws RepositoryException {
+        Object result = null;
+        if (value != null) {
+            switch (value.getType()) {
+                case PropertyType.LONG:
+                    result = value.getLong();
+                    break;
+                case PropertyType.DOUBLE:
+                    result = value.getDouble();
+                    break;
+                case PropertyType.DECIMAL:
+                    result = value.getDecimal();
+                    break;
+                case PropertyType.BOOLEAN:
+                    result = value.getBoolean();
+                    break;
+                case PropertyType.DATE:
+                    result = value.getDate();
+                    break;
+                default:
+                    result = value.getString();
+                    break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compares two values. Numbers, dates and booleans are compared by value; a string is converted to the type of the other
+     * value. All other values are compared by their string form.
+     */
+    static int compare(Object first, Object second) {
+        int result;
+        if (first instanceof Number || second instanceof Number) {
+            Double a = toDouble(first);
+            Double b = toDouble(second);
+            result = a != null && b != null ? Double.compare(a, b) : String.valueOf(first).compareTo(String.valueOf(second));
+        } else if (first instanceof Calendar || second instanceof Calendar) {
+            Calendar a = toCalendar(first);
+            Calendar b = toCalendar(second);
+            result = a != null && b != null ? a.compareTo(b) : String.valueOf(first).compareTo(String.valueOf(second));
+        } else if (first instanceof Boolean || second instanceof Boolean) {
+            result = Boolean.compare(Boolean.parseBoolean(String.valueOf(first)), Boolean.parseBoolean(String.valueOf(second)));
+        } else {
+            result = String.valueOf(first).compareTo(String.valueOf(second));
+        }
+        return result;
+    }
+
+    /**
+     * Converts a literal to the string a string value is compared with, as a repository converts literals to the type of the
+     * property: {@code '01' = 1} is false.
+     */
+    private static String asString(Object value) {
+        return value instanceof Calendar ? ISO8601.format((Calendar) value) : value == null ? null : value.toString();
+    }
+
+    private static Double toDouble(Object value) {
+        Double result = null;
+        if (value instanceof Number) {
+            result = ((Number) value).doubleValue();
+        } else if (value != null) {
+            try {
+                result = new BigDecimal(value.toString().trim()).doubleValue();
+            } catch (NumberFormatException e) {
+                result = null;
+            }
+        }
+        return result;
+    }
+
+    private static Calendar toCalendar(Object value) {
+        return value instanceof Calendar ? (Calendar) value : value == null ? null : ISO8601.parse(value.toString().trim());
+    }
+
+    private static Pattern toLikePattern(String like) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < like.length(); i++) {
+            char c = like.charAt(i);
+            if (c == '%' || c == '_') {
+                regex.append(Pattern.quote(literal.toString())).append(c == '%' ? ".*" : ".");
+                literal.setLength(0);
+            } else if (c == '\\' && i + 1 < like.length()) {
+                literal.append(like.charAt(++i));
+            } else {
+                literal.append(c);
+            }
+        }
+        regex.append(Pattern.quote(literal.toString()));
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+
+    /**
+     * The axis of a path constraint.
+     */
+    private enum Axis {
+        SELF, CHILD, DESCENDANT
+    }
+
+    /**
+     * A boolean condition on a node.
+     */
+    private interface Constraint {
+        boolean matches(Node node, Map<String, Value> bindings) throws RepositoryException;
+    }
+
+    /**
+     * A value of a node used in conditions and orderings, e.g. a property or the node name.
+     */
+    private interface Operand {
+        /**
+         * Returns the values of the node, an empty list if the node has no such value.
+         */
+        List<Object> getValues(Node node) throws RepositoryException;
+    }
+
+    /**
+     * A literal or bind variable.
+     */
+    private interface StaticOperand {
+        Object getValue(Map<String, Value> bindings) throws RepositoryException;
+    }
+
+    private static final class PropertyOperand implements Operand {
+        private final String _name;
+
+        PropertyOperand(String name) {
+            _name = name;
+        }
+
+        @Override
+        public List<Object> getValues(Node node) throws RepositoryException {
+            List<Object> result = Collections.emptyList();
+            if (node.hasProperty(_name)) {
+                Property property = node.getProperty(_name);
+                Value[] values = property.getValues();
+                result = new ArrayList<>(values == null ? 0 : values.length);
+                for (int i = 0; values != null && i < values.length; i++) {
+                    Object value = toObject(values[i]);
+                    if (value != null) {
+                        result.add(value);
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class NameOperand implements Operand {
+        private final boolean _local;
+
+        NameOperand(boolean local) {
+            _local = local;
+        }
+
+        @Override
+        public List<Object> getValues(Node node) throws RepositoryException {
+            String name = node.getName();
+            return Collections.singletonList(_local ? name.substring(name.indexOf(':') + 1) : name);
+        }
+    }
+
+    private static final class CaseOperand implements Operand {
+        private final Operand _operand;
+        private final boolean _upper;
+
+        CaseOperand(Operand operand, boolean upper) {
+            _operand = operand;
+            _upper = upper;
+        }
+
+        @Override
+        public List<Object> getValues(Node node) throws RepositoryException {
+            List<Object> values = _operand.getValues(node);
+            List<Object> result = new ArrayList<>(values.size());
+            for (Object value : values) {
+                String string = String.valueOf(value);
+                result.add(_upper ? string.toUpperCase(Locale.ROOT) : string.toLowerCase(Locale.ROOT));
+            }
+            return result;
+        }
+    }
+
+    private static final class Comparison implements Constraint {
+        private final Operand _operand;
+        private final String _operator;
+        private final StaticOperand _value;
+
+        Comparison(Operand operand, String operator, StaticOperand value) {
+            _operand = operand;
+            _operator = operator;
+            _value = value;
+        }
+
+        @Override
+        public boolean matches(Node node, Map<String, Value> bindings) throws RepositoryException {
+            Object expected = _value.getValue(bindings);
+            boolean result = false;
+            for (Object value : _operand.getValues(node)) {
+                int compared = compare(value, value instanceof String ? asString(expected) : expected);
+                switch (_operator) {
+                    case "=":
+                        result = compared == 0;
+                        break;
+                    case "<>":
+                        result = compared != 0;
+                        break;
+                    case "<":
+                        result = compared < 0;
+                        break;
+                    case "<=":
+                        result = compared <= 0;
+                        break;
+                    case ">":
+                        result = compared > 0;
+                        break;
+                    default:
+                        result = compared >= 0;
+                        break;
+                }
+                if (result) {
+                    break;
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class Like implements Constraint {
+        private final Operand _operand;
+        private final StaticOperand _pattern;
+        private String _lastPattern;
+        private Pattern _compiled;
+
+        Like(Operand operand, StaticOperand pattern) {
+            _operand = operand;
+            _pattern = pattern;
+        }
+
+        @Override
+        public boolean matches(Node node, Map<String, Value> bindings) throws RepositoryException {
+            String pattern = String.valueOf(_pattern.getValue(bindings));
+            if (!pattern.equals(_lastPattern)) {
+                _compiled = toLikePattern(pattern);
+                _lastPattern = pattern;
+            }
+            boolean result = false;
+            for (Object value : _operand.getValues(node)) {
+                result = result || _compiled.matcher(String.valueOf(value)).matches();
+            }
+            return result;
+        }
+    }
+
+    private static final class Exists implements Constraint {
+        private final Operand _operand;
+
+        Exists(Operand operand) {
+            _operand = operand;
+        }
+
+        @Override
+        public boolean matches(Node node, Map<String, Value> bindings) throws RepositoryException {
+            return !_operand.getValues(node).isEmpty();
+        }
+    }
+
+    private static final class Not implements Constraint {
+        private final Constraint _constraint;
+
+        Not(Constraint constraint) {
+            _constraint = constraint;
+        }
+
+        @Override
+        public boolean matches(Node node, Map<String, Value> bindings) throws RepositoryException {
+            return !_constraint.matches(node, bindings);
+        }
+    }
+
+    private static final class Junction implements Constraint {
+        private final List<Constraint> _constraints = new ArrayList<>();
+        private final boolean _and;
+
+        Junction(boolean and, Constraint first) {
+            _and = and;
+            _constraints.add(first);
+        }
+
+        @Override
+        public boolean matches(Node node, Map<String, Value> bindings) throws RepositoryException {
+            boolean result = _and;
+            for (int i = 0; result == _and && i < _constraints.size(); i++) {
+                result = _constraints.get(i).matches(node, bindings);
+            }
+            return result;
+        }
+    }
+
+    private static final class NameConstraint implements Constraint {
+        private final String _name;
+
+        NameConstraint(String name) {
+            _name = name;
+        }
+
+        @Override
+        public boolean matches(Node node, Map<String, Value> bindings) throws RepositoryException {
+            return _name.equals(node.getName());
+        }
+    }
+
+    /**
+     * A full-text constraint on all string properties of the node (null operand) or on one property.
+     */
+    private static final class FullText implements Constraint {
+        private final Operand _operand;
+        private final StaticOperand _expression;
+        private final boolean _literal;
+        private String _lastExpression;
+        private FullTextExpression _parsed;
+        private Node _lastNode;
+        private double _lastScore;
+
+        /**
+         * Creates the constraint, literal expressions are parsed already, bound expressions on evaluation.
+         */
+        FullText(Operand operand, StaticOperand expression, FullTextExpression literal) {
+            _operand = operand;
+            _expression = expression;
+            _literal = literal != null;
+            _parsed = literal;
+        }
+
+        /**
+         * Returns true if the full-text index of the workspace can look up the candidates, i.e. for constraints on the node itself.
+         */
+        boolean isIndexed() {
+            return _operand == null || _operand instanceof PropertyOperand && ((PropertyOperand) _operand)._name.indexOf('/') < 0;
+        }
+
+        FullTextExpression getExpression(Map<String, Value> bindings) throws RepositoryException {
+            if (!_literal) {
+                String expression = String.valueOf(_expression.getValue(bindings));
+                if (!expression.equals(_lastExpression)) {
+                    _parsed = FullTextExpression.parse(expression);
+                    _lastExpression = expression;
+                    _lastNode = null;
+                }
+            }
+            return _parsed;
+        }
+
+        /**
+         * Forgets the score of the last node, which is kept to score a matching node only once per evaluation.
+         */
+        void reset() {
+            _lastNode = null;
+        }
+
+        @Override
+        public boolean matches(Node node, Map<String, Value> bindings) throws RepositoryException {
+            return getScore(node, bindings) > 0;
+        }
+
+        double getScore(Node node, Map<String, Value> bindings) throws RepositoryException {
+            FullTextExpression expression = getExpression(bindings);
+            if (node != _lastNode) {
+                _lastScore = expression.getScore(getWords(node));
+                _lastNode = node;
+            }
+            return _lastScore;
+        }
+
+        private List<String> getWords(Node node) throws RepositoryException {
+            List<String> result = new ArrayList<>();
+            if (_operand == null) {
+                PropertyIterator properties = node.getProperties();
+                while (properties.hasNext()) {
+                    Property property = properties.nextProperty();
+                    Value[] values = FullTextIndex.isFullTextProperty(property) ? property.getValues() : null;
+                    for (int i = 0; values != null && i < values.length; i++) {
+                        result.addAll(FullTextIndex.tokenize(values[i] == null ? null : values[i].getString()));
+                    }
+                }
+            } else {
+                for (Object value : _operand.getValues(node)) {
+                    result.addAll(FullTextIndex.tokenize(String.valueOf(value)));
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class PathConstraint implements Constraint {
+        private final String _path;
+        private final Axis _axis;
+
+        PathConstraint(String path, Axis axis) {
+            _path = path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+            _axis = axis;
+        }
+
+        @Override
+        public boolean matches(Node node, Map<String, Value> bindings) throws RepositoryException {
+            String path = node.getPath();
+            boolean result;
+            if (_axis == Axis.SELF) {
+                result = path.equals(_path);
+            } else {
+                String prefix = "/".equals(_path) ? "/" : _path + '/';
+                result = path.length() > prefix.length() && path.startsWith(prefix) && (_axis == Axis.DESCENDANT || path.indexOf('/', prefix.length()) < 0);
+            }
+            return result;
+        }
+
+        /**
+         * Returns the path constraint that restricts all results, either the constraint itself or a part of the top level conjunction.
+         */
+        static PathConstraint getScope(Constraint constraint) {
+            PathConstraint result = null;
+            if (constraint instanceof PathConstraint) {
+                result = (PathConstraint) constraint;
+            } else if (constraint instanceof Junction && ((Junction) constraint)._and) {
+                for (Constraint part : ((Junction) constraint)._constraints) {
+                    if (part instanceof PathConstraint) {
+                        result = (PathConstraint) part;
+                        break;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * An ordering by an operand; a null operand orders by score.
+     */
+    private static final class Ordering {
+        private final Operand _operand;
+        private final boolean _descending;
+
+        Ordering(Operand operand, boolean descending) {
+            _operand = operand;
+            _descending = descending;
+        }
+    }
+
+    private static final class OrderingComparator implements Comparator<Node> {
+        private final List<Ordering> _orderings;
+        private final Map<Node, Double> _scores;
+        private final Map<Node, Object[]> _keys = new IdentityHashMap<>();
+
+        /**
+         * Creates the comparator; without scores all nodes score equal and keep their order.
+         */
+        OrderingComparator(List<Ordering> orderings, Map<Node, Double> scores) {
+            _orderings = orderings;
+            _scores = scores;
+        }
+
+        @Override
+        public int compare(Node first, Node second) {
+            Object[] a = getKeys(first);
+            Object[] b = getKeys(second);
+            int result = 0;
+            for (int i = 0; result == 0 && i < _orderings.size(); i++) {
+                if (a[i] == null || b[i] == null) {
+                    result = a[i] == null ? (b[i] == null ? 0 : -1) : 1;
+                } else {
+                    result = QueryEvaluator.compare(a[i], b[i]);
+                }
+                result = _orderings.get(i)._descending ? -result : result;
+            }
+            return result;
+        }
+
+        private Object[] getKeys(Node node) {
+            return _keys.computeIfAbsent(node, n -> {
+                Object[] keys = new Object[_orderings.size()];
+                for (int i = 0; i < keys.length; i++) {
+                    Operand operand = _orderings.get(i)._operand;
+                    try {
+                        if (operand == null) {
+                            keys[i] = _scores == null ? null : _scores.get(n);
+                        } else {
+                            List<Object> values = operand.getValues(n);
+                            keys[i] = values.isEmpty() ? null : values.get(0);
+                        }
+                    } catch (RepositoryException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return keys;
+            });
+        }
+    }
+
+    /**
+     * Splits a statement into tokens: quoted strings, numbers, names, bracketed SQL2 names and operators.
+     */
+    private static final class Tokenizer {
+        private final String _statement;
+        private final boolean _xpath;
+        private final List<String> _tokens = new ArrayList<>();
+        private int _position;
+
+        Tokenizer(String statement, boolean xpath) throws InvalidQueryException {
+            _statement = statement == null ? "" : statement;
+            _xpath = xpath;
+            tokenize();
+        }
+
+        private void tokenize() throws InvalidQueryException {
+            int i = 0;
+            int length = _statement.length();
+            while (i < length) {
+                char c = _statement.charAt(i);
+                int start = i;
+                if (Character.isWhitespace(c)) {
+                    i++;
+                    continue;
+                } else if (c == '\'' || c == '"') {
+                    i = skipString(i, c);
+                } else if (c == '[' && !_xpath) {
+                    i = _statement.indexOf(']', i);
+                    if (i < 0) {
+                        throw new InvalidQueryException("Missing ] in " + _statement);
+                    }
+                    i++;
+                } else if (Character.isDigit(c)) {
+                    while (i < length && (Character.isDigit(_statement.charAt(i)) || _statement.charAt(i) == '.')) {
+                        i++;
+                    }
+                } else if (isNameChar(c)) {
+                    while (i < length && (isNameChar(_statement.charAt(i)) || Character.isDigit(_statement.charAt(i))
+                        || _xpath && (_statement.charAt(i) == '-' || _statement.charAt(i) == '.'))) {
+                        i++;
+                    }
+                } else if (_statement.startsWith("<>", i) || _statement.startsWith("!=", i) || _statement.startsWith("<=", i)
+                    || _statement.startsWith(">=", i) || _statement.startsWith("//", i)) {
+                    i += 2;
+                } else {
+                    i++;
+                }
+                _tokens.add(_statement.substring(start, i));
+            }
+        }
+
+        private int skipString(int start, char quote) throws InvalidQueryException {
+            int i = start + 1;
+            while (true) {
+                i = _statement.indexOf(quote, i);
+                if (i < 0) {
+                    throw new InvalidQueryException("Unterminated string literal in " + _statement);
+                }
+                if (i + 1 < _statement.length() && _statement.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            }
+        }
+
+        private static boolean isNameChar(char c) {
+            return Character.isLetter(c) || c == '_' || c == ':' || c == '$' || c == '{' || c == '}';
+        }
+
+        String peek() {
+            return _position < _tokens.size() ? _tokens.get(_position) : null;
+        }
+
+        String peek(int ahead) {
+            return _position + ahead < _tokens.size() ? _tokens.get(_position + ahead) : null;
+        }
+
+        String next() throws InvalidQueryException {
+            if (_position >= _tokens.size()) {
+                throw new InvalidQueryException("Unexpected end of statement: " + _statement);
+            }
+            return _tokens.get(_position++);
+        }
+
+        boolean accept(String token) {
+            boolean result = token.equalsIgnoreCase(peek());
+            if (result) {
+                _position++;
+            }
+            return result;
+        }
+
+        void expect(String token) throws InvalidQueryException {
+            if (!accept(token)) {
+                throw new InvalidQueryException("Expected '" + token + "' but found '" + peek() + "' in " + _statement);
+            }
+        }
+
+        boolean isEnd() {
+            return _position >= _tokens.size();
+        }
+
+        InvalidQueryException unsupported(String what) {
+            return new InvalidQueryException("Unsupported " + what + " in " + _statement);
+        }
+    }
+
+    /**
+     * Base of the language specific parsers, collecting the parsed parts of the query.
+     */
+    private abstract static class Parser {
+        final Tokenizer _tokens;
+        final List<Ordering> _orderings = new ArrayList<>();
+        final Set<String> _bindVariableNames = new LinkedHashSet<>();
+        final List<FullText> _fullTexts = new ArrayList<>();
+        String _selector;
+        String _nodeType;
+        Constraint _constraint;
+        long _limit = -1;
+        long _offset = -1;
+
+        Parser(Tokenizer tokens) {
+            _tokens = tokens;
+        }
+
+        abstract void parse() throws InvalidQueryException;
+
+        void setNodeType(String nodeType) {
+            String name = nodeType == null ? null : nodeType.trim();
+            _nodeType = "*".equals(name) || "nt:base".equals(name) || NodeType.NT_BASE.equals(name) ? null : name;
+        }
+
+        void addConstraint(Constraint constraint) {
+            if (_constraint == null) {
+                _constraint = constraint;
+            } else if (_constraint instanceof Junction && ((Junction) _constraint)._and) {
+                ((Junction) _constraint)._constraints.add(constraint);
+            } else {
+                Junction and = new Junction(true, constraint);
+                and._constraints.add(_constraint);
+                _constraint = and;
+            }
+        }
+
+        Constraint parseOr() throws InvalidQueryException {
+            Constraint first = parseAnd();
+            Junction result = null;
+            while (_tokens.accept("or")) {
+                if (result == null) {
+                    result = new Junction(false, first);
+                }
+                result._constraints.add(parseAnd());
+            }
+            return result == null ? first : result;
+        }
+
+        Constraint parseAnd() throws InvalidQueryException {
+            Constraint first = parseUnary();
+            Junction result = null;
+            while (_tokens.accept("and")) {
+                if (result == null) {
+                    result = new Junction(true, first);
+                }
+                result._constraints.add(parseUnary());
+            }
+            return result == null ? first : result;
+        }
+
+        abstract Constraint parseUnary() throws InvalidQueryException;
+
+        StaticOperand parseLiteral() throws InvalidQueryException {
+            String token = _tokens.next();
+            StaticOperand result;
+            if (isString(token)) {
+                String value = unquoteString(token);
+                result = bindings -> value;
+            } else if (token.startsWith("$")) {
+                String name = token.substring(1);
+                _bindVariableNames.add(name);
+                result = bindings -> toObject(bindings.get(name));
+            } else if ("-".equals(token) || Character.isDigit(token.charAt(0))) {
+                String number = "-".equals(token) ? '-' + _tokens.next() : token;
+                try {
+                    Object value = number.contains(".") ? (Object) Double.valueOf(number) : (Object) Long.valueOf(number);
+                    result = bindings -> value;
+                } catch (NumberFormatException e) {
+                    throw new InvalidQueryException("Invalid number: " + number);
+                }
+            } else if ("true".equalsIgnoreCase(token) || "false".equalsIgnoreCase(token)) {
+                Boolean value = Boolean.valueOf(token);
+                if (_tokens.accept("(")) {
+                    _tokens.expect(")");
+                }
+                result = bindings -> value;
+            } else {
+                result = parseFunctionLiteral(token);
+            }
+            return result;
+        }
+
+        abstract StaticOperand parseFunctionLiteral(String token) throws InvalidQueryException;
+
+        /**
+         * Parses the full-text search expression of a full-text constraint on the given scope. Literal expressions are validated.
+         */
+        Constraint parseFullText(Operand scope) throws InvalidQueryException {
+            String token = _tokens.peek();
+            FullTextExpression expression = token != null && isString(token) ? FullTextExpression.parse(unquoteString(token)) : null;
+            FullText result = new FullText(scope, parseLiteral(), expression);
+            _fullTexts.add(result);
+            return result;
+        }
+
+        static boolean isString(String token) {
+            return token.startsWith("'") || token.startsWith("\"");
+        }
+
+        static String unquoteString(String token) {
+            char quote = token.charAt(0);
+            return token.substring(1, token.length() - 1).replace("" + quote + quote, "" + quote);
+        }
+
+        StaticOperand cast(StaticOperand operand, String type) throws InvalidQueryException {
+            StaticOperand result;
+            switch (type.toLowerCase(Locale.ROOT)) {
+                case "date":
+                case "xs:datetime":
+                    result = bindings -> toCalendar(operand.getValue(bindings));
+                    break;
+                case "long":
+                case "double":
+                case "decimal":
+                    result = bindings -> toDouble(operand.getValue(bindings));
+                    break;
+                case "boolean":
+                    result = bindings -> Boolean.valueOf(String.valueOf(operand.getValue(bindings)));
+                    break;
+                case "string":
+                case "name":
+                case "path":
+                case "reference":
+                case "weakreference":
+                case "uri":
+                    result = bindings -> String.valueOf(operand.getValue(bindings));
+                    break;
+                default:
+                    throw _tokens.unsupported("cast type " + type);
+            }
+            return result;
+        }
+
+        static String unquote(String token) {
+            return token.startsWith("'") || token.startsWith("\"") ? token.substring(1, token.length() - 1) : token;
+        }
+    }
+
+    /**
+     * Parser for single selector JCR-SQL2 statements.
+     */
+    private static final class Sql2Parser extends Parser {
+        private String _selectorName;
+
+        Sql2Parser(String statement) throws InvalidQueryException {
+            super(new Tokenizer(statement, false));
+        }
+
+        @Override
+        void parse() throws InvalidQueryException {
+            _tokens.expect("select");
+            while (!_tokens.isEnd() && !"from".equalsIgnoreCase(_tokens.peek())) {
+                _tokens.next();
+            }
+            _tokens.expect("from");
+            _selectorName = name(_tokens.next());
+            setNodeType(_selectorName);
+            if (_tokens.accept("as") || isSelectorName(_tokens.peek())) {
+                _selector = name(_tokens.next());
+                _selectorName = _selector;
+            }
+            if (_tokens.peek() != null && _tokens.peek().toLowerCase(Locale.ROOT).matches("inner|left|right|join")) {
+                throw _tokens.unsupported("join");
+            }
+            if (_tokens.accept("where")) {
+                addConstraint(parseOr());
+            }
+            if (_tokens.accept("order")) {
+                _tokens.expect("by");
+                do {
+                    Operand operand = parseOrderingOperand();
+                    boolean descending = _tokens.accept("desc");
+                    if (!descending) {
+                        _tokens.accept("asc");
+                    }
+                    _orderings.add(new Ordering(operand, descending));
+                } while (_tokens.accept(","));
+            }
+            if (_tokens.accept("limit")) {
+                _limit = parseCount();
+            }
+            if (_tokens.accept("offset")) {
+                _offset = parseCount();
+            }
+            if (!_tokens.isEnd()) {
+                throw _tokens.unsupported("token '" + _tokens.peek() + "'");
+            }
+        }
+
+        private boolean isSelectorName(String token) {
+            return token != null && !token.toLowerCase(Locale.ROOT).matches("where|order|limit|offset|inner|left|right|join");
+        }
+
+        private long parseCount() throws InvalidQueryException {
+            String token = _tokens.next();
+            try {
+                return Long.parseLong(token);
+            } catch (NumberFormatException e) {
+                throw new InvalidQueryException("Invalid number: " + token);
+            }
+        }
+
+        private Operand parseOrderingOperand() throws InvalidQueryException {
+            Operand result;
+            if (_tokens.accept("score")) {
+                _tokens.expect("(");
+                skipSelector();
+                _tokens.expect(")");
+                result = null;
+            } else {
+                result = parseOperand();
+            }
+            return result;
+        }
+
+        @Override
+        Constraint parseUnary() throws InvalidQueryException {
+            Constraint result;
+            String token = _tokens.peek();
+            if (_tokens.accept("not")) {
+                result = new Not(parseUnary());
+            } else if (_tokens.accept("(")) {
+                result = parseOr();
+                _tokens.expect(")");
+            } else if ("isdescendantnode".equalsIgnoreCase(token) || "ischildnode".equalsIgnoreCase(token) || "issamenode".equalsIgnoreCase(token)) {
+                _tokens.next();
+                _tokens.expect("(");
+                String path = name(_tokens.next());
+                if (_tokens.accept(",")) {
+                    checkSelector(path);
+                    path = name(_tokens.next());
+                }
+                _tokens.expect(")");
+                Axis axis = "issamenode".equalsIgnoreCase(token) ? Axis.SELF : "ischildnode".equalsIgnoreCase(token) ? Axis.CHILD : Axis.DESCENDANT;
+                result = new PathConstraint(path, axis);
+            } else if ("contains".equalsIgnoreCase(token)) {
+                _tokens.next();
+                _tokens.expect("(");
+                Operand scope = parseFullTextScope();
+                _tokens.expect(",");
+                result = parseFullText(scope);
+                _tokens.expect(")");
+            } else {
+                Operand operand = parseOperand();
+                if (_tokens.accept("like")) {
+                    result = new Like(operand, parseLiteral());
+                } else if (_tokens.accept("is")) {
+                    boolean not = _tokens.accept("not");
+                    _tokens.expect("null");
+                    result = not ? new Exists(operand) : new Not(new Exists(operand));
+                } else {
+                    String operator = _tokens.next();
+                    if (!operator.matches("=|<>|!=|<|<=|>|>=")) {
+                        throw _tokens.unsupported("operator '" + operator + "'");
+                    }
+                    result = new Comparison(operand, "!=".equals(operator) ? "<>" : operator, parseLiteral());
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Parses the property of a full-text constraint, returns null for all properties ({@code *} or {@code selector.*}).
+         */
+        private Operand parseFullTextScope() throws InvalidQueryException {
+            String name = _tokens.next();
+            if (_tokens.accept(".")) {
+                checkSelector(name);
+                name = _tokens.next();
+            }
+            return "*".equals(name) ? null : new PropertyOperand(name(name));
+        }
+
+        private Operand parseOperand() throws InvalidQueryException {
+            String token = _tokens.next();
+            Operand result;
+            if (("name".equalsIgnoreCase(token) || "localname".equalsIgnoreCase(token)) && "(".equals(_tokens.peek())) {
+                _tokens.expect("(");
+                skipSelector();
+                _tokens.expect(")");
+                result = new NameOperand("localname".equalsIgnoreCase(token));
+            } else if (("lower".equalsIgnoreCase(token) || "upper".equalsIgnoreCase(token)) && "(".equals(_tokens.peek())) {
+                _tokens.expect("(");
+                result = new CaseOperand(parseOperand(), "upper".equalsIgnoreCase(token));
+                _tokens.expect(")");
+            } else if ("(".equals(_tokens.peek())) {
+                throw _tokens.unsupported("function " + token);
+            } else {
+                String name = token;
+                if (_tokens.accept(".")) {
+                    checkSelector(name);
+                    name = _tokens.next();
+                }
+                result = new PropertyOperand(name(name));
+            }
+            return result;
+        }
+
+        private void skipSelector() throws InvalidQueryException {
+            if (!")".equals(_tokens.peek())) {
+                checkSelector(_tokens.next());
+            }
+        }
+
+        /**
+         * Rejects selector names other than the one declared by the FROM clause, i.e. the alias or the node type name.
+         */
+        private void checkSelector(String token) throws InvalidQueryException {
+            String name = name(token);
+            if (!name.equals(_selectorName)) {
+                throw new InvalidQueryException("Unknown selector '" + name + "' in " + _tokens._statement);
+            }
+        }
+
+        @Override
+        StaticOperand parseFunctionLiteral(String token) throws InvalidQueryException {
+            if (!"cast".equalsIgnoreCase(token)) {
+                throw _tokens.unsupported("literal " + token);
+            }
+            _tokens.expect("(");
+            StaticOperand operand = parseLiteral();
+            _tokens.expect("as");
+            StaticOperand result = cast(operand, _tokens.next());
+            _tokens.expect(")");
+            return result;
+        }
+
+        private static String name(String token) {
+            String result = unquote(token);
+            if (result.startsWith("[") && result.endsWith("]")) {
+                result = result.substring(1, result.length() - 1);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Parser for XPath statements of the form {@code /jcr:root/path//element(name, type)[predicate] order by @property}.
+     */
+    private static final class XPathParser extends Parser {
+
+        XPathParser(String statement) throws InvalidQueryException {
+            super(new Tokenizer(statement, true));
+        }
+
+        @Override
+        void parse() throws InvalidQueryException {
+            StringBuilder path = new StringBuilder();
+            Axis axis = null;
+            if (_tokens.accept("/")) {
+                if (!_tokens.accept("jcr:root")) {
+                    throw _tokens.unsupported("path start");
+                }
+            }
+            while (_tokens.peek() != null && ("/".equals(_tokens.peek()) || "//".equals(_tokens.peek()))) {
+                axis = "//".equals(_tokens.next()) ? Axis.DESCENDANT : Axis.CHILD;
+                String step = _tokens.next();
+                boolean last = !"/".equals(_tokens.peek()) && !"//".equals(_tokens.peek());
+                if (last) {
+                    parseNodeTest(step);
+                    if ("/".equals(_tokens.peek()) || "//".equals(_tokens.peek())) {
+                        throw _tokens.unsupported("path step after " + step);
+                    }
+                } else if (axis == Axis.CHILD && !"*".equals(step) && !step.startsWith("element")) {
+                    path.append('/').append(ISO9075.decode(step));
+                } else {
+                    throw _tokens.unsupported("path step " + step);
+                }
+            }
+            if (axis == null) {
+                throw _tokens.unsupported("path");
+            }
+            addConstraint(new PathConstraint(path.length() == 0 ? "/" : path.toString(), axis));
+            if (_tokens.accept("[")) {
+                addConstraint(parseOr());
+                _tokens.expect("]");
+            }
+            if (_tokens.accept("order")) {
+                _tokens.expect("by");
+                do {
+                    Operand operand = parseOrderingOperand();
+                    boolean descending = _tokens.accept("descending");
+                    if (!descending) {
+                        _tokens.accept("ascending");
+                    }
+                    _orderings.add(new Ordering(operand, descending));
+                } while (_tokens.accept(","));
+            }
+            if (!_tokens.isEnd()) {
+                throw _tokens.unsupported("token '" + _tokens.peek() + "'");
+            }
+        }
+
+        private void parseNodeTest(String step) throws InvalidQueryException {
+            if ("element".equals(step)) {
+                _tokens.expect("(");
+                String name = _tokens.next();
+                if (_tokens.accept(",")) {
+                    setNodeType(ISO9075.decode(_tokens.next()));
+                }
+                _tokens.expect(")");
+                addName(name);
+            } else {
+                addName(step);
+            }
+        }
+
+        private void addName(String name) {
+            if (!"*".equals(name)) {
+                addConstraint(new NameConstraint(ISO9075.decode(name)));
+            }
+        }
+
+        private Operand parseOrderingOperand() throws InvalidQueryException {
+            Operand result;
+            if (_tokens.accept("jcr:score")) {
+                _tokens.expect("(");
+                _tokens.expect(")");
+                result = null;
+            } else {
+                result = parseOperand();
+            }
+            return result;
+        }
+
+        @Override
+        Constraint parseUnary() throws InvalidQueryException {
+            Constraint result;
+            String token = _tokens.peek();
+            if ("not".equalsIgnoreCase(token) && "(".equals(_tokens.peek(1))) {
+                _tokens.next();
+                _tokens.expect("(");
+                result = new Not(parseOr());
+                _tokens.expect(")");
+            } else if (_tokens.accept("(")) {
+                result = parseOr();
+                _tokens.expect(")");
+            } else if ("jcr:like".equals(token)) {
+                _tokens.next();
+                _tokens.expect("(");
+                Operand operand = parseOperand();
+                _tokens.expect(",");
+                result = new Like(operand, parseLiteral());
+                _tokens.expect(")");
+            } else if ("jcr:contains".equals(token)) {
+                _tokens.next();
+                _tokens.expect("(");
+                Operand scope = _tokens.accept(".") ? null : parseOperand();
+                _tokens.expect(",");
+                result = parseFullText(scope);
+                _tokens.expect(")");
+            } else {
+                Operand operand = parseOperand();
+                String operator = toOperator(_tokens.peek());
+                if (operator == null) {
+                    result = new Exists(operand);
+                } else {
+                    _tokens.next();
+                    result = new Comparison(operand, operator, parseLiteral());
+                }
+            }
+            return result;
+        }
+
+        private static String toOperator(String token) {
+            String result = null;
+            if (token != null) {
+                switch (token) {
+                    case "=":
+                    case "eq":
+                        result = "=";
+                        break;
+                    case "!=":
+                    case "ne":
+                        result = "<>";
+                        break;
+                    case "<":
+                    case "lt":
+                        result = "<";
+                        break;
+                    case "<=":
+                    case "le":
+                        result = "<=";
+                        break;
+                    case ">":
+                    case "gt":
+                        result = ">";
+                        break;
+                    case ">=":
+                    case "ge":
+                        result = ">=";
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return result;
+        }
+
+        private Operand parseOperand() throws InvalidQueryException {
+            String token = _tokens.next();
+            Operand result;
+            if ("fn:name".equals(token) || "fn:local-name".equals(token)) {
+                _tokens.expect("(");
+                _tokens.expect(")");
+                result = new NameOperand("fn:local-name".equals(token));
+            } else if ("fn:lower-case".equals(token) || "fn:upper-case".equals(token)) {
+                _tokens.expect("(");
+                result = new CaseOperand(parseOperand(), "fn:upper-case".equals(token));
+                _tokens.expect(")");
+            } else {
+                StringBuilder path = new StringBuilder();
+                while (!"@".equals(token)) {
+                    if ("(".equals(_tokens.peek()) || !"/".equals(_tokens.peek())) {
+                        throw _tokens.unsupported("operand " + token);
+                    }
+                    path.append(ISO9075.decode(token)).append(_tokens.next());
+                    token = _tokens.next();
+                }
+                result = new PropertyOperand(path + ISO9075.decode(_tokens.next()));
+            }
+            return result;
+        }
+
+        @Override
+        StaticOperand parseFunctionLiteral(String token) throws InvalidQueryException {
+            if (!"xs:dateTime".equals(token)) {
+                throw _tokens.unsupported("literal " + token);
+            }
+            _tokens.expect("(");
+            StaticOperand result = cast(parseLiteral(), "date");
+            _tokens.expect(")");
+            return result;
+        }
+    }
+}
@@ -25,11 +25,14 @@ import de.ibmix.magkit.test.ExceptionStubbingOperation;
 
 import javax.jcr.Node;
 import javax.jcr.RepositoryException;
+import javax.jcr.Session;
 import javax.jcr.query.Query;
 import javax.jcr.query.QueryManager;
 
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.when;
 
 /**
@@ -57,6 +60,7 @@ public abstract class QueryManagerStubbingOperation implements ExceptionStubbing
      * If the provided query has a null or empty statement, the QueryManager will be stubbed
      * to return the query for any statement and language combination. Otherwise, it will only
      * return the query for the exact statement and language from the provided query.
+     * The stubbing does not invoke createQuery(), so statements an evaluating QueryManager would reject can be stubbed as well.
      *
      * @param query the javax.jcr.query.Query mock to be returned by createQuery()
      * @return a QueryManagerStubbingOperation that configures the QueryManager mock
@@ -66,10 +70,12 @@ public abstract class QueryManagerStubbingOperation implements ExceptionStubbing
 
             public void of(QueryManager manager) throws RepositoryException {
                 Require.Argument.notNull(manager, "manager must not be null");
-                if (isEmpty(query.getStatement())) {
-                    when(manager.createQuery(anyString(), anyString())).thenReturn(query);
+                String statement = query.getStatement();
+                String language = query.getLanguage();
+                if (isEmpty(statement)) {
+                    doReturn(query).when(manager).createQuery(anyString(), anyString());
                 } else {
-                    when(manager.createQuery(query.getStatement(), query.getLanguage())).thenReturn(query);
+                    doReturn(query).when(manager).createQuery(statement, language);
                 }
             }
         };
@@ -96,6 +102,38 @@ public abstract class QueryManagerStubbingOperation implements ExceptionStubbing
         };
     }
 
+    /**
+     * Creates a stubbing operation that lets QueryManager.createQuery() return queries that are evaluated against the
+     * node mocks of the given session (see {@link QueryMockUtils#mockEvaluatingQueryManager(String, QueryManagerStubbingOperation...)}).
+     * Queries stubbed afterwards for an exact statement and language take precedence.
+     *
+     * @param session the session whose nodes are queried
+     * @return a QueryManagerStubbingOperation that configures the QueryManager mock
+     */
+    public static QueryManagerStubbingOperation stubQueryEvaluation(final Session session) {
+        return stubQueryEvaluation(session, null);
+    }
+
+    /**
+     * Creates a stubbing operation that lets QueryManager.createQuery() return evaluated queries like
+     * {@link #stubQueryEvaluation(Session)}, whose results are cached in the given cache until the workspace changes.
+     *
+     * @param session the session whose nodes are queried
+     * @param cache the cache for the query results, null for no caching
+     * @return a QueryManagerStubbingOperation that configures the QueryManager mock
+     */
+    public static QueryManagerStubbingOperation stubQueryEvaluation(final Session session, final QueryResultCache cache) {
+        return new QueryManagerStubbingOperation() {
+
+            public void of(QueryManager manager) throws RepositoryException {
+                Require.Argument.notNull(manager, "manager must not be null");
+                Require.Argument.notNull(session, "session must not be null");
+                doAnswer(invocation -> QueryMockUtils.mockEvaluatingQuery(session, invocation.getArgument(0), invocation.getArgument(1), cache))
+                    .when(manager).createQuery(anyString(), anyString());
+            }
+        };
+    }
+
     /**
      * Creates a stubbing operation for QueryManager.getQuery() method.
      * <p>
@@ -25,7 +25,9 @@ import de.ibmix.magkit.test.jcr.RowStubbingOperation;
 import org.apache.jackrabbit.api.query.JackrabbitQueryResult;
 import org.apache.jackrabbit.commons.iterator.NodeIteratorAdapter;
 import org.apache.jackrabbit.commons.iterator.RowIteratorAdapter;
+import org.mockito.Answers;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import javax.jcr.Node;
@@ -34,11 +36,15 @@ import javax.jcr.Session;
 import javax.jcr.Value;
 import javax.jcr.query.Query;
 import javax.jcr.query.QueryManager;
+import javax.jcr.query.QueryResult;
 import javax.jcr.query.Row;
 import javax.jcr.query.RowIterator;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.RandomAccess;
 
 import static de.ibmix.magkit.test.jcr.SessionMockUtils.mockSession;
 import static de.ibmix.magkit.test.jcr.WorkspaceStubbingOperation.stubQueryManager;
@@ -52,6 +58,7 @@ import static org.apache.commons.lang3.StringUtils.defaultIfBlank;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
 
 /**
  * Utility class for mocking JCR query components including QueryResult, Query, QueryManager and Row objects.
@@ -135,6 +142,70 @@ public final class QueryMockUtils {
         return qm;
     }
 
+    /**
+     * Mocks the QueryManager of the given workspace like {@link #mockQueryManager(String, QueryManagerStubbingOperation...)} and lets it
+     * evaluate all JCR-SQL2 and XPath queries against the node mocks of the workspace instead of returning empty results.
+     * Queries that are stubbed explicitly afterwards (e.g. by {@link #mockQueryResult(String, String, String, Node...)}) still return
+     * their stubbed results. Unsupported statements are rejected by {@link QueryManager#createQuery(String, String)} with an
+     * {@link javax.jcr.query.InvalidQueryException}.
+     * <pre>
+     * mockNode("/content/news", stubType("mgnl:page"), stubProperty("hideInNav", false));
+     * QueryManager qm = QueryMockUtils.mockEvaluatingQueryManager("website");
+     * Query query = qm.createQuery("SELECT * FROM [mgnl:page] WHERE ISDESCENDANTNODE('/content') AND hideInNav = false", Query.JCR_SQL2);
+     * NodeIterator pages = query.execute().getNodes();
+     * </pre>
+     *
+     * @param workspace the workspace name, "website" if blank
+     * @param stubbings the QueryManagerStubbingOperations to be executed
+     * @return a QueryManager Mockito mock
+     * @throws RepositoryException declared exception from node api but never thrown
+     */
+    public static QueryManager mockEvaluatingQueryManager(final String workspace, QueryManagerStubbingOperation... stubbings) throws RepositoryException {
+        return mockEvaluatingQueryManager(workspace, null, stubbings);
+    }
+
+    /**
+     * Mocks an evaluating QueryManager like {@link #mockEvaluatingQueryManager(String, QueryManagerStubbingOperation...)} that
+     * caches the results of its queries in the given cache until the workspace changes. Repeated executions of a query with
+     * the same normalized statement, bound values, limit and offset return the same result and are counted as hits.
+     * A cache may be shared by the query managers of several workspaces.
+     * <pre>
+     * QueryResultCache cache = new QueryResultCache();
+     * QueryManager qm = QueryMockUtils.mockEvaluatingQueryManager("website", cache);
+     * </pre>
+     *
+     * @param workspace the workspace name, "website" if blank
+     * @param cache the cache for the query results, null for no caching
+     * @param stubbings the QueryManagerStubbingOperations to be executed
+     * @return a QueryManager Mockito mock
+     * @throws RepositoryException declared exception from node api but never thrown
+     */
+    public static QueryManager mockEvaluatingQueryManager(final String workspace, final QueryResultCache cache, QueryManagerStubbingOperation... stubbings) throws RepositoryException {
+        Require.Argument.notNull(stubbings, "stubbings should not be null.");
+        Session session = mockSession(defaultIfBlank(workspace, "website"));
+        QueryManager qm = mockQueryManager(session.getWorkspace().getName(), QueryManagerStubbingOperation.stubQueryEvaluation(session, cache));
+        for (QueryManagerStubbingOperation stubbing : stubbings) {
+            stubbing.of(qm);
+        }
+        return qm;
+    }
+
+    /**
+     * Creates a Query mock that evaluates the statement against the node mocks of the given session on each {@link Query#execute()}.
+     * The mock honors {@link Query#setLimit(long)}, {@link Query#setOffset(long)} and {@link Query#bindValue(String, Value)}.
+     *
+     * @param session the session to query
+     * @param statement the JCR-SQL2 or XPath statement
+     * @param language the query language, {@link Query#JCR_SQL2} or {@link Query#XPATH}
+     * @param cache the cache for the query results, may be null
+     * @return a Mockito mock of the javax.jcr.query.Query interface
+     * @throws javax.jcr.query.InvalidQueryException if the statement is invalid or not supported
+     */
+    static Query mockEvaluatingQuery(final Session session, final String statement, final String language, final QueryResultCache cache) throws RepositoryException {
+        QueryEvaluator evaluator = QueryEvaluator.parse(statement, language);
+        return mock(Query.class, withSettings().defaultAnswer(new EvaluatingQueryAnswer(session, evaluator, statement, language, cache)));
+    }
+
     /**
      * Create a Query mock that is not connected to any QueryManager of any Session.
      *
@@ -204,15 +275,38 @@ public final class QueryMockUtils {
         Require.Argument.notNull(results, "results must not be null");
         JackrabbitQueryResult result = mockEmptyQueryResult();
         doReturn(new RowIteratorAdapter(asList(results))).when(result).getRows();
+        doReturn(results.length).when(result).getTotalSize();
         return result;
     }
 
+    /**
+     * Creates a JackrabbitQueryResult mock with nodes that are supplied on demand, e.g. for large results that are paged through.
+     * <p>
+     * The node of a position and its Row are created on first access and cached, so only the visited pages are created.
+     * {@link javax.jcr.RangeIterator#getSize()} of the node and row iterators returns the given size and
+     * {@link javax.jcr.RangeIterator#skip(long)} moves to the position without creating the skipped nodes.
+     * </p>
+     * <pre>
+     * JackrabbitQueryResult result = QueryMockUtils.mockQueryResult(100_000, i -&gt; mockNode("/content/page-" + i));
+     * </pre>
+     *
+     * @param size the number of nodes in the result
+     * @param nodes the function supplying the node for a position from 0 to size - 1
+     * @return a Mockito mock of the org.apache.jackrabbit.api.query.JackrabbitQueryResult interface
+     * @throws RepositoryException never, declared only to match interfaces
+     */
+    public static JackrabbitQueryResult mockQueryResult(final int size, final NodeSupplier nodes) throws RepositoryException {
+        Require.Argument.notNull(nodes, "nodes must not be null");
+        Require.Argument.reject(s -> (int) s < 0, size, "size must not be negative");
+        return mockQueryResult(new ResultRange(size, nodes));
+    }
+
     /**
      * Creates a JackrabbitQueryResult mock from a list of Nodes using the TestQueryResult interface.
      * <p>
      * This package-private method serves as the core implementation for creating query result mocks.
-     * It creates a TestQueryResult mock that stores the provided nodes and uses Answer implementations
-     * to provide both NodeIterator and RowIterator access to the same underlying data.
+     * The nodes are wrapped in a {@link ResultRange} that provides both NodeIterator and RowIterator access
+     * and creates the Row mocks on demand.
      * </p>
      *
      * @param nodes the list of Nodes to be returned as query result
@@ -220,13 +314,40 @@ public final class QueryMockUtils {
      * @throws RepositoryException never thrown, declared only to match JCR API signatures
      */
     static JackrabbitQueryResult mockQueryResult(List<Node> nodes) throws RepositoryException {
+        List<Node> source = nodes instanceof RandomAccess ? nodes : new ArrayList<>(nodes);
+        return mockQueryResult(new ResultRange(source.size(), source::get));
+    }
+
+    static JackrabbitQueryResult mockQueryResult(ResultRange range) throws RepositoryException {
         TestQueryResult result = mock(TestQueryResult.class);
-        when(result.getNodeCollection()).thenReturn(nodes);
+        when(result.getResultRange()).thenReturn(range);
+        when(result.getNodeCollection()).thenReturn(range.asList());
+        when(result.getTotalSize()).thenReturn(range.getTotalSize());
         when(result.getNodes()).then(NODES_ANSWER);
         when(result.getRows()).then(ROWS_ANSWER);
         return result;
     }
 
+    /**
+     * Applies the offset and limit of a query to its result. Results created by this class are narrowed to a new result
+     * sharing the nodes and rows of the given result; other results are returned unchanged.
+     *
+     * @param result the complete query result
+     * @param offset the number of results to skip, none if negative
+     * @param limit the maximum number of results, all if negative
+     * @return the given result if no limit and offset apply, otherwise a result with the selected nodes
+     * @throws RepositoryException never thrown, declared only to match JCR API signatures
+     */
+    static QueryResult window(QueryResult result, long offset, long limit) throws RepositoryException {
+        QueryResult window = result;
+        if (result instanceof TestQueryResult) {
+            ResultRange range = ((TestQueryResult) result).getResultRange();
+            ResultRange selected = range.window(offset, limit);
+            window = selected == range ? result : mockQueryResult(selected);
+        }
+        return window;
+    }
+
     /**
      * Creates a JackrabbitQueryResult mock for Nodes that is connected to a Query instance of a QueryManager for the defined workspace.
      *
@@ -293,8 +414,22 @@ public final class QueryMockUtils {
      * @throws RuntimeException if RepositoryException occurs during Row creation
      */
     static Row toRow(final Node node) {
+        return toRow(node, 0.0, null);
+    }
+
+    /**
+     * Converts a Node to a Row mock with the given score, e.g. the full-text score of an evaluated query.
+     *
+     * @param node the Node to wrap in a Row mock
+     * @param score the score answered by {@link Row#getScore()}
+     * @param selectorName the selector name that {@link Row#getScore(String)} answers the score for, may be null
+     * @return a Row mock containing the specified Node with the given score
+     * @throws RuntimeException if RepositoryException occurs during Row creation
+     */
+    static Row toRow(final Node node, final double score, final String selectorName) {
         try {
-            return mockRow(0.0, RowStubbingOperation.stubNode(node));
+            return selectorName == null ? mockRow(score, RowStubbingOperation.stubNode(node))
+                : mockRow(score, RowStubbingOperation.stubNode(node), RowStubbingOperation.stubScore(selectorName, score));
         } catch (RepositoryException e) {
             throw new RuntimeException(e);
         }
@@ -303,29 +438,115 @@ public final class QueryMockUtils {
     /**
      * Mockito Answer implementation for providing NodeIterator results from TestQueryResult mocks.
      * <p>
-     * This Answer extracts the node collection from a TestQueryResult mock and wraps it
-     * in a NodeIteratorAdapter for use in JCR query result iteration.
+     * This Answer returns a new NodeIterator over the result range of a TestQueryResult mock.
+     * The iterator knows its size and skips without creating the skipped nodes.
      * </p>
      */
     public static final Answer<NodeIteratorAdapter> NODES_ANSWER = invocation -> {
         TestQueryResult result = (TestQueryResult) invocation.getMock();
-        return new NodeIteratorAdapter(result.getNodeCollection());
+        return result.getResultRange().getNodes();
     };
 
     /**
      * Mockito Answer implementation for providing RowIterator results from TestQueryResult mocks.
      * <p>
-     * This Answer extracts the node collection from a TestQueryResult mock, converts each
-     * Node to a Row using {@link #toRow(Node)}, and wraps the collection in a RowIteratorAdapter
-     * for use in JCR query result iteration.
+     * This Answer returns a new RowIterator over the result range of a TestQueryResult mock.
+     * The Row of each node is created by {@link #toRow(Node)} on first access and reused by later iterations.
      * </p>
      */
     public static final Answer<RowIterator> ROWS_ANSWER = invocation -> {
         TestQueryResult result = (TestQueryResult) invocation.getMock();
-        Collection<Row> rows = result.getNodeCollection().stream().map(QueryMockUtils::toRow).collect(Collectors.toList());
-        return new RowIteratorAdapter(rows);
+        return result.getResultRange().getRows();
     };
 
+    /**
+     * Default answer of the query mocks created by {@link #mockEvaluatingQuery(Session, String, String, QueryResultCache)}. Holds
+     * the limit, offset and bound values of the query and evaluates it on execute, unless the result is cached.
+     */
+    private static final class EvaluatingQueryAnswer implements Answer<Object> {
+        private final Session _session;
+        private final QueryEvaluator _evaluator;
+        private final String _statement;
+        private final String _language;
+        private final QueryResultCache _cache;
+        private final Map<String, Value> _bindings = new HashMap<>();
+        private long _limit = -1;
+        private long _offset = -1;
+
+        EvaluatingQueryAnswer(Session session, QueryEvaluator evaluator, String statement, String language, QueryResultCache cache) {
+            _session = session;
+            _evaluator = evaluator;
+            _statement = statement;
+            _language = language;
+            _cache = cache;
+        }
+
+        @Override
+        public Object answer(InvocationOnMock invocation) throws Throwable {
+            Object result = null;
+            switch (invocation.getMethod().getName()) {
+                case "getStatement":
+                    result = _statement;
+                    break;
+                case "getLanguage":
+                    result = _language;
+                    break;
+                case "setLimit":
+                    _limit = invocation.getArgument(0);
+                    break;
+                case "setOffset":
+                    _offset = invocation.getArgument(0);
+                    break;
+                case "bindValue":
+                    String name = invocation.getArgument(0);
+                    if (!_evaluator.getBindVariableNames().contains(name)) {
+                        throw new IllegalArgumentException("Unknown bind variable: " + name);
+                    }
+                    _bindings.put(name, invocation.getArgument(1));
+                    break;
+                case "getBindVariableNames":
+                    result = _evaluator.getBindVariableNames().toArray(new String[0]);
+                    break;
+                case "execute":
+                    result = execute();
+                    break;
+                default:
+                    result = Answers.RETURNS_DEFAULTS.answer(invocation);
+                    break;
+            }
+            return result;
+        }
+
+        private QueryResult execute() throws RepositoryException {
+            long offset = _offset >= 0 ? _offset : _evaluator.getOffset();
+            long limit = _limit >= 0 ? _limit : _evaluator.getLimit();
+            List<Object> key = _cache == null ? null : QueryResultCache.toKey(_session, _language, _evaluator, _bindings, limit, offset);
+            QueryResult result = key == null ? null : _cache.get(_session, key);
+            if (result == null) {
+                result = mockQueryResult(_evaluator.evaluate(_session, _bindings).window(offset, limit));
+                if (key != null) {
+                    _cache.put(key, result);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Supplies the node at a position of a query result created by {@link #mockQueryResult(int, NodeSupplier)}.
+     */
+    @FunctionalInterface
+    public interface NodeSupplier {
+        /**
+         * Returns the node at the given position.
+         *
+         * @param position the position in the query result, starting at 0
+         * @return the node
+         * @throws RepositoryException if the node can't be created
+         */
+        Node getNode(int position) throws RepositoryException;
+    }
+
     /**
      * Extended interface for JackrabbitQueryResult that provides access to the underlying Node collection.
      * <p>
@@ -351,6 +572,13 @@ public final class QueryMockUtils {
          * @return the collection of Nodes in this query result
          */
         Collection<Node> getNodeCollection();
+
+        /**
+         * Returns the range of nodes that backs the node collection and the iterators of this result.
+         *
+         * @return the result range
+         */
+        ResultRange getResultRange();
     }
 
 }
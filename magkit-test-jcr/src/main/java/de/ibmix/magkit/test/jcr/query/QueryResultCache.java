@@ -0,0 +1,178 @@
+package de.ibmix.magkit.test.jcr.query;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.test.jcr.SessionMockUtils;
+
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.Value;
+import javax.jcr.query.QueryResult;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Cache for the results of evaluated queries (see {@link QueryMockUtils#mockEvaluatingQueryManager(String, QueryResultCache, QueryManagerStubbingOperation...)}).
+ * <p>
+ * Results are keyed by the workspace, the query language, the statement normalized by its tokens, the bound values, the limit
+ * and the offset. Executing the same query again returns the cached result instead of evaluating the statement again. The entries
+ * of a workspace are dropped as soon as it changes, i.e. when items are mocked, re-stubbed or removed (see
+ * {@link SessionMockUtils#getModificationCount(Session)}).
+ * The hit and miss counts show how often the code under test repeats its queries:
+ * </p>
+ * <pre>
+ * QueryResultCache cache = new QueryResultCache();
+ * QueryMockUtils.mockEvaluatingQueryManager("website", cache);
+ * navigation.render(page);
+ * assertEquals(1, cache.getMissCount(), "navigation should query once per request");
+ * </pre>
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public final class QueryResultCache {
+
+    private final Map<List<Object>, QueryResult> _entries = new HashMap<>();
+    private final Map<String, Long> _modificationCounts = new HashMap<>();
+    private long _hitCount;
+    private long _missCount;
+    private long _invalidationCount;
+
+    /**
+     * Creates an empty cache.
+     */
+    public QueryResultCache() {
+    }
+
+    /**
+     * Returns the number of query executions answered from the cache.
+     *
+     * @return the hit count since the last {@link #clear()}
+     */
+    public long getHitCount() {
+        return _hitCount;
+    }
+
+    /**
+     * Returns the number of query executions that had to be evaluated.
+     *
+     * @return the miss count since the last {@link #clear()}
+     */
+    public long getMissCount() {
+        return _missCount;
+    }
+
+    /**
+     * Returns the ratio of cache hits to all query executions.
+     *
+     * @return the hit rate between 0 and 1, 0 if no query has been executed
+     */
+    public double getHitRate() {
+        long total = _hitCount + _missCount;
+        return total == 0 ? 0 : (double) _hitCount / total;
+    }
+
+    /**
+     * Returns how often the entries have been dropped because the workspace changed.
+     *
+     * @return the invalidation count since the last {@link #clear()}
+     */
+    public long getInvalidationCount() {
+        return _invalidationCount;
+    }
+
+    /**
+     * Returns the number of cached results.
+     *
+     * @return the number of entries
+     */
+    public int getEntryCount() {
+        return _entries.size();
+    }
+
+    /**
+     * Removes all cached results and resets the counts.
+     */
+    public void clear() {
+        _entries.clear();
+        _modificationCounts.clear();
+        _hitCount = 0;
+        _missCount = 0;
+        _invalidationCount = 0;
+    }
+
+    /**
+     * Creates the cache key of a query execution.
+     *
+     * @param session the session of the query
+     * @param language the query language
+     * @param evaluator the parsed statement
+     * @param bindings the bound values
+     * @param limit the limit applied to the result
+     * @param offset the offset applied to the result
+     * @return the key
+     * @throws RepositoryException if a bound value can't be read
+     */
+    static List<Object> toKey(Session session, String language, QueryEvaluator evaluator, Map<String, Value> bindings, long limit, long offset) throws RepositoryException {
+        Map<String, Object> values = new TreeMap<>();
+        for (Map.Entry<String, Value> binding : bindings.entrySet()) {
+            values.put(binding.getKey(), QueryEvaluator.toObject(binding.getValue()));
+        }
+        return Arrays.asList(session.getWorkspace().getName(), language, evaluator.getNormalizedStatement(), values, limit, offset);
+    }
+
+    /**
+     * Returns the cached result for the key, dropping the entries of the workspace first if it has changed.
+     * Counts a hit or a miss.
+     *
+     * @param session the session of the query
+     * @param key the key of the query execution
+     * @return the cached result or null
+     */
+    QueryResult get(Session session, List<Object> key) {
+        String workspace = (String) key.get(0);
+        Long modificationCount = SessionMockUtils.getModificationCount(session);
+        Long previous = _modificationCounts.put(workspace, modificationCount);
+        if (previous != null && !previous.equals(modificationCount) && _entries.keySet().removeIf(entry -> workspace.equals(entry.get(0)))) {
+            _invalidationCount++;
+        }
+        QueryResult result = _entries.get(key);
+        if (result != null) {
+            _hitCount++;
+        } else {
+            _missCount++;
+        }
+        return result;
+    }
+
+    /**
+     * Caches the result of a query execution.
+     *
+     * @param key the key of the query execution
+     * @param result the evaluated result
+     */
+    void put(List<Object> key, QueryResult result) {
+        _entries.put(key, result);
+    }
+}
@@ -28,6 +28,8 @@ import javax.jcr.RepositoryException;
 import javax.jcr.query.Query;
 import javax.jcr.query.QueryResult;
 
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
 /**
@@ -114,6 +116,8 @@ public abstract class QueryStubbingOperation implements ExceptionStubbingOperati
      * Configures the Query mock to return the specified QueryResult when execute()
      * is called. This allows for complete control over the query execution result,
      * including nodes, rows, and column information.
+     * Results created by {@link QueryMockUtils} are narrowed to the offset and limit set on the Query by
+     * {@link Query#setOffset(long)} and {@link Query#setLimit(long)}, other results are returned as they are.
      *
      * @param result the QueryResult mock to be returned by execute()
      * @return a QueryStubbingOperation that configures the Query mock
@@ -123,7 +127,10 @@ public abstract class QueryStubbingOperation implements ExceptionStubbingOperati
 
             public void of(Query query) throws RepositoryException {
                 Require.Argument.notNull(query, "query must not be null");
-                when(query.execute()).thenReturn(result);
+                long[] window = {-1, -1};
+                doAnswer(invocation -> window[0] = invocation.getArgument(0)).when(query).setOffset(anyLong());
+                doAnswer(invocation -> window[1] = invocation.getArgument(0)).when(query).setLimit(anyLong());
+                when(query.execute()).then(invocation -> QueryMockUtils.window(result, window[0], window[1]));
             }
         };
     }
@@ -0,0 +1,252 @@
+package de.ibmix.magkit.test.jcr.query;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.jackrabbit.commons.iterator.NodeIteratorAdapter;
+import org.apache.jackrabbit.commons.iterator.RowIteratorAdapter;
+
+import javax.jcr.Node;
+import javax.jcr.RangeIterator;
+import javax.jcr.RepositoryException;
+import javax.jcr.query.Row;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The nodes of a mocked query result, backed by a function that supplies the node at a position.
+ * <p>
+ * Nodes and their {@link Row} mocks are created on first access and cached per position, so paging through a large result
+ * only creates the nodes and rows of the visited pages. The iterators know their size and {@link RangeIterator#skip(long)}
+ * moves the position without touching the skipped nodes. A {@link #window(long, long) window} for a limit and offset shares
+ * the cached nodes and rows with the complete range. The rows of evaluated full-text queries answer the score of their node.
+ * </p>
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+final class ResultRange {
+
+    private final QueryMockUtils.NodeSupplier _source;
+    private final Map<Node, Double> _scores;
+    private final String _selectorName;
+    private final Node[] _nodes;
+    private final Row[] _rows;
+    private final int _start;
+    private final int _size;
+
+    /**
+     * Creates the range of all nodes of a result.
+     *
+     * @param size the number of nodes
+     * @param source the function supplying the node at a position from 0 to size - 1
+     */
+    ResultRange(int size, QueryMockUtils.NodeSupplier source) {
+        this(size, source, null, null);
+    }
+
+    /**
+     * Creates the range of all nodes of a result with their scores.
+     *
+     * @param size the number of nodes
+     * @param source the function supplying the node at a position from 0 to size - 1
+     * @param scores the scores of the nodes, null if all nodes score 0
+     * @param selectorName the selector name of the query answered by {@link Row#getScore(String)}, may be null
+     */
+    ResultRange(int size, QueryMockUtils.NodeSupplier source, Map<Node, Double> scores, String selectorName) {
+        this(source, scores, selectorName, new Node[size], new Row[size], 0, size);
+    }
+
+    private ResultRange(QueryMockUtils.NodeSupplier source, Map<Node, Double> scores, String selectorName, Node[] nodes, Row[] rows, int start, int size) {
+        _source = source;
+        _scores = scores;
+        _selectorName = selectorName;
+        _nodes = nodes;
+        _rows = rows;
+        _start = start;
+        _size = size;
+    }
+
+    /**
+     * Returns the number of nodes in this range.
+     *
+     * @return the size of the range
+     */
+    int getSize() {
+        return _size;
+    }
+
+    /**
+     * Returns the number of nodes of the complete result, ignoring the limit and offset of a window.
+     *
+     * @return the total size
+     */
+    int getTotalSize() {
+        return _nodes.length;
+    }
+
+    /**
+     * Returns the node at the given position, creating it on first access.
+     *
+     * @param index the position in this range
+     * @return the node
+     * @throws RuntimeException if the node supplier throws a RepositoryException
+     */
+    Node getNode(int index) {
+        checkIndex(index);
+        int position = _start + index;
+        if (_nodes[position] == null) {
+            try {
+                _nodes[position] = _source.getNode(position);
+            } catch (RepositoryException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return _nodes[position];
+    }
+
+    /**
+     * Returns the row of the node at the given position, creating it on first access.
+     *
+     * @param index the position in this range
+     * @return the Row mock of the node
+     */
+    Row getRow(int index) {
+        checkIndex(index);
+        int position = _start + index;
+        if (_rows[position] == null) {
+            Node node = getNode(index);
+            Double score = _scores == null ? null : _scores.get(node);
+            _rows[position] = QueryMockUtils.toRow(node, score == null ? 0.0 : score, _selectorName);
+        }
+        return _rows[position];
+    }
+
+    /**
+     * Returns the part of this range selected by an offset and a limit.
+     *
+     * @param offset the number of nodes to skip, no nodes are skipped if negative
+     * @param limit the maximum number of nodes, all remaining nodes if negative
+     * @return this range if the window covers all nodes, otherwise a range sharing the cached nodes and rows of this range
+     */
+    ResultRange window(long offset, long limit) {
+        int from = (int) Math.min(Math.max(0, offset), _size);
+        int to = limit >= 0 ? (int) Math.min(from + limit, _size) : _size;
+        return from == 0 && to == _size ? this : new ResultRange(_source, _scores, _selectorName, _nodes, _rows, _start + from, to - from);
+    }
+
+    /**
+     * Returns a list view on the nodes of this range that creates the nodes on access.
+     *
+     * @return an unmodifiable list of the nodes
+     */
+    List<Node> asList() {
+        return new AbstractList<Node>() {
+            @Override
+            public Node get(int index) {
+                return getNode(index);
+            }
+
+            @Override
+            public int size() {
+                return _size;
+            }
+        };
+    }
+
+    /**
+     * Returns a new iterator over the nodes of this range.
+     *
+     * @return the node iterator
+     */
+    NodeIteratorAdapter getNodes() {
+        return new NodeIteratorAdapter(new Cursor(false));
+    }
+
+    /**
+     * Returns a new iterator over the rows of this range.
+     *
+     * @return the row iterator
+     */
+    RowIteratorAdapter getRows() {
+        return new RowIteratorAdapter(new Cursor(true));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= _size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of range of size " + _size);
+        }
+    }
+
+    /**
+     * Position based iterator over the nodes or rows of the range.
+     */
+    private final class Cursor implements RangeIterator {
+        private final boolean _rowCursor;
+        private int _position;
+
+        Cursor(boolean rowCursor) {
+            _rowCursor = rowCursor;
+        }
+
+        @Override
+        public void skip(long skipNum) {
+            if (skipNum < 0) {
+                throw new IllegalArgumentException("skipNum must not be negative");
+            }
+            if (skipNum > _size - _position) {
+                throw new NoSuchElementException("Can't skip " + skipNum + " elements at position " + _position + " of " + _size);
+            }
+            _position += (int) skipNum;
+        }
+
+        @Override
+        public long getSize() {
+            return _size;
+        }
+
+        @Override
+        public long getPosition() {
+            return _position;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _position < _size;
+        }
+
+        @Override
+        public Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements at position " + _position);
+            }
+            Object result = _rowCursor ? getRow(_position) : getNode(_position);
+            _position++;
+            return result;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Query results can't be modified");
+        }
+    }
+}
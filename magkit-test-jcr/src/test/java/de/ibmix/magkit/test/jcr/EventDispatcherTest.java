@@ -0,0 +1,177 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.ibmix.magkit.test.jcr.observation.ObservationMockUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventIterator;
+import javax.jcr.observation.EventListener;
+import javax.jcr.observation.ObservationManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubType;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test the EventDispatcher and the dispatching ObservationManager mocks.
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public class EventDispatcherTest {
+
+    private static final int ALL_TYPES = Event.NODE_ADDED | Event.NODE_REMOVED | Event.PROPERTY_ADDED | Event.PROPERTY_REMOVED | Event.PROPERTY_CHANGED;
+
+    private Session _session;
+    private ObservationManager _manager;
+    private Node _home;
+
+    @BeforeEach
+    public void setUp() throws RepositoryException {
+        SessionMockUtils.cleanSession();
+        _home = mockNode("/home", stubType("mgnl:page"));
+        _session = SessionMockUtils.mockSession("website");
+        _manager = ObservationMockUtils.mockDispatchingObservationManager("website");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SessionMockUtils.cleanSession();
+    }
+
+    @Test
+    public void eventsAreDeliveredOnSave() throws RepositoryException {
+        List<String> events = new ArrayList<>();
+        _manager.addEventListener(record(events), ALL_TYPES, "/home", true, null, null, false);
+        assertEquals(_manager, _session.getWorkspace().getObservationManager());
+
+        Node news = mockNode("/home/news", stubType("mgnl:page"), stubProperty("title", "News"));
+        assertTrue(events.isEmpty());
+        assertEquals(3, SessionMockUtils.getEventDispatcher(_session).getPendingEventCount());
+        _session.save();
+        assertEquals(Arrays.asList("1 /home/news", "4 /home/news/jcr:primaryType", "4 /home/news/title"), events);
+
+        events.clear();
+        news.setProperty("title", "Latest");
+        news.setProperty("title", "Breaking");
+        news.addNode("teaser").remove();
+        _session.save();
+        assertEquals(Collections.singletonList("16 /home/news/title"), events);
+
+        events.clear();
+        news.remove();
+        _session.save();
+        assertEquals(Arrays.asList("2 /home/news", "8 /home/news/jcr:primaryType", "8 /home/news/title"), events);
+
+        events.clear();
+        _session.save();
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void listenerFilters() throws RepositoryException {
+        List<String> byType = new ArrayList<>();
+        List<String> shallow = new ArrayList<>();
+        List<String> byIdentifier = new ArrayList<>();
+        List<String> byNodeType = new ArrayList<>();
+        _manager.addEventListener(record(byType), Event.NODE_ADDED, "/", true, null, null, false);
+        _manager.addEventListener(record(shallow), ALL_TYPES, "/home", false, null, null, false);
+        _manager.addEventListener(record(byIdentifier), ALL_TYPES, "/", true, new String[]{_home.getIdentifier()}, null, true);
+        _manager.addEventListener(record(byNodeType), Event.PROPERTY_ADDED, "/", true, null, new String[]{"mgnl:contentNode"}, false);
+
+        mockNode("/home/news/teaser", stubType("mgnl:component"));
+        mockNode("/other", stubType("mgnl:folder"));
+        _session.save();
+        assertEquals(Arrays.asList("1 /home/news", "1 /home/news/teaser", "1 /other"), byType);
+        assertEquals(Collections.singletonList("1 /home/news"), shallow);
+        assertEquals(Collections.singletonList("1 /home/news"), byIdentifier);
+        assertEquals(Collections.singletonList("4 /home/news/teaser/jcr:primaryType"), byNodeType);
+    }
+
+    @Test
+    public void registrationAndUserData() throws RepositoryException {
+        List<Event> events = new ArrayList<>();
+        EventListener listener = iterator -> iterator.forEachRemaining(event -> events.add((Event) event));
+        _manager.addEventListener(listener, Event.PROPERTY_CHANGED, "/", true, null, null, false);
+        assertEquals(listener, _manager.getRegisteredEventListeners().nextEventListener());
+        _manager.setUserData("import");
+
+        _home.setProperty("title", "Home");
+        stubProperty("title", "Start").of(_home);
+        _session.save();
+        assertEquals(0, events.size());
+        _home.setProperty("title", "Home");
+        _session.save();
+        assertEquals(1, events.size());
+        assertEquals("import", events.get(0).getUserData());
+        assertEquals(_home.getIdentifier(), events.get(0).getIdentifier());
+        assertTrue(events.get(0).getDate() > 0);
+
+        _manager.removeEventListener(listener);
+        assertFalse(_manager.getRegisteredEventListeners().hasNext());
+        _home.setProperty("title", "Start");
+        assertEquals(0, SessionMockUtils.getEventDispatcher(_session).getPendingEventCount());
+        _session.save();
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    public void eventsAreDeliveredOnExecutor() throws RepositoryException {
+        List<Runnable> tasks = new ArrayList<>();
+        _manager = ObservationMockUtils.mockDispatchingObservationManager("website", tasks::add);
+        List<String> events = new ArrayList<>();
+        _manager.addEventListener(record(events), ALL_TYPES, "/", true, null, null, false);
+        for (int i = 0; i < 1000; i++) {
+            _home.addNode("page" + i);
+        }
+        _session.save();
+        assertTrue(events.isEmpty());
+        assertEquals(1, tasks.size());
+        tasks.get(0).run();
+        assertEquals(2000, events.size());
+    }
+
+    private static EventListener record(List<String> events) {
+        return (EventIterator iterator) -> {
+            while (iterator.hasNext()) {
+                Event event = iterator.nextEvent();
+                try {
+                    events.add(event.getType() + " " + event.getPath());
+                } catch (RepositoryException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+}
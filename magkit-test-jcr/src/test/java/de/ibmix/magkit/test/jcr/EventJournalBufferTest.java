@@ -0,0 +1,138 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.ibmix.magkit.test.jcr.observation.ObservationMockUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventJournal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubType;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Test the EventJournalBuffer and its journals.
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public class EventJournalBufferTest {
+
+    private Session _session;
+    private Node _home;
+
+    @BeforeEach
+    public void setUp() throws RepositoryException {
+        SessionMockUtils.cleanSession();
+        _home = mockNode("/home", stubType("mgnl:page"));
+        _session = SessionMockUtils.mockSession("website");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SessionMockUtils.cleanSession();
+    }
+
+    @Test
+    public void journalRecordsSavedEvents() throws RepositoryException, InterruptedException {
+        EventJournalBuffer buffer = ObservationMockUtils.mockEventJournal("website", 5);
+        assertSame(buffer, ObservationMockUtils.mockEventJournal("website", 5));
+        EventJournal oldest = _session.getWorkspace().getObservationManager().getEventJournal();
+        assertEquals(0, oldest.getSize());
+
+        mockNode("/home/news");
+        _session.save();
+        long firstSave = buffer.getEventJournal().nextEvent().getDate();
+        waitForNextMillisecond(firstSave);
+        _home.setProperty("title", "Home");
+        _home.setProperty("text", "Welcome");
+        _session.save();
+
+        EventJournal journal = _session.getWorkspace().getObservationManager().getEventJournal();
+        assertEquals(4, journal.getSize());
+        assertEquals(Arrays.asList("1 /home/news", "4 /home/news/jcr:primaryType", "4 /home/title", "4 /home/text"), toList(journal));
+        assertEquals(4, journal.getPosition());
+
+        journal = buffer.getEventJournal();
+        journal.skipTo(firstSave + 1);
+        assertEquals(2, journal.getPosition());
+        assertEquals("/home/title", journal.nextEvent().getPath());
+        journal.skip(1);
+        assertFalse(journal.hasNext());
+        assertThrows(NoSuchElementException.class, () -> buffer.getEventJournal().skip(5));
+
+        _home.getProperty("title").remove();
+        _home.getProperty("text").remove();
+        _session.save();
+        assertEquals(5, buffer.getEventCount());
+        assertEquals(1, buffer.getDroppedCount());
+        assertEquals("/home/news/jcr:primaryType", oldest.nextEvent().getPath());
+        assertEquals(Arrays.asList("4 /home/title", "4 /home/text", "8 /home/title", "8 /home/text"), toList(oldest));
+
+        assertNotSame(buffer, ObservationMockUtils.mockEventJournal("website", 10));
+    }
+
+    @Test
+    public void filteredJournal() throws RepositoryException {
+        EventJournalBuffer buffer = ObservationMockUtils.mockEventJournal("website", 100);
+        EventJournal journal = _session.getWorkspace().getObservationManager().getEventJournal(Event.NODE_ADDED, "/home", true, null, new String[]{"mgnl:page"});
+        for (int i = 0; i < 10; i++) {
+            mockNode("/home/page" + i + "/section", stubType("mgnl:page"));
+        }
+        mockNode("/other/page", stubType("mgnl:page"));
+        _session.save();
+        assertEquals(44, buffer.getEventCount());
+        assertEquals(-1, journal.getSize());
+        journal.skip(2);
+        assertEquals(Arrays.asList("1 /home/page2", "1 /home/page3"), toList(journal).subList(0, 2));
+        assertEquals(10, journal.getPosition());
+        assertThrows(UnsupportedOperationException.class, journal::remove);
+    }
+
+    private static void waitForNextMillisecond(long date) throws InterruptedException {
+        while (System.currentTimeMillis() <= date) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static List<String> toList(EventJournal journal) throws RepositoryException {
+        List<String> result = new ArrayList<>();
+        while (journal.hasNext()) {
+            Event event = journal.nextEvent();
+            result.add(event.getType() + " " + event.getPath());
+        }
+        return result;
+    }
+}
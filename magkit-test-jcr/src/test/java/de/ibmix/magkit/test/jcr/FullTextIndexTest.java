@@ -0,0 +1,85 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubType;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Test the FullTextIndex.
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public class FullTextIndexTest {
+
+    @BeforeEach
+    public void setUp() {
+        SessionMockUtils.cleanSession();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SessionMockUtils.cleanSession();
+    }
+
+    @Test
+    public void tokenize() {
+        assertEquals(Arrays.asList("käse", "kuchen", "mit", "2", "eiern"), FullTextIndex.tokenize(" Käse-Kuchen, mit 2 Eiern!"));
+        assertEquals(Collections.emptyList(), FullTextIndex.tokenize(null));
+        assertEquals(Collections.emptyList(), FullTextIndex.tokenize(" -- "));
+    }
+
+    @Test
+    public void indexIsKeptUpToDate() throws RepositoryException {
+        Node news = mockNode("/home/news", stubType("mgnl:page"), stubProperty("title", "Breaking News"), stubProperty("rank", 1L));
+        assertNull(SessionMockUtils.enableIndex("website").getFullTextIndex());
+
+        FullTextIndex index = SessionMockUtils.enableFullTextIndex("website").getFullTextIndex();
+        assertEquals(Collections.singletonList(news), index.getNodes("NEWS"));
+        assertEquals(2, index.getTermCount());
+        assertEquals(0, index.getNodeCount("mgnl"));
+
+        Node about = mockNode("/home/about", stubProperty("title", "About"), stubProperty("text", "News about us"));
+        assertEquals(Arrays.asList(news, about), index.getNodes("news"));
+        stubProperty("title", "Latest").of(news);
+        assertEquals(Collections.singletonList(about), index.getNodes("news"));
+        assertEquals(Collections.singletonList(news), index.getNodes("latest"));
+
+        about.getProperty("text").remove();
+        assertEquals(Collections.emptyList(), index.getNodes("news"));
+        assertEquals(Collections.singletonList(about), index.getNodes("about"));
+        about.remove();
+        assertEquals(0, index.getNodeCount("about"));
+        assertEquals(1, index.getTermCount());
+    }
+}
@@ -0,0 +1,73 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test the NamePattern.
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public class NamePatternTest {
+
+    @Test
+    public void matches() {
+        NamePattern pattern = NamePattern.compile("jcr:* | *Title | a*b*c");
+        assertTrue(pattern.matches("jcr:primaryType"));
+        assertTrue(pattern.matches("jcr:"));
+        assertTrue(pattern.matches("Title"));
+        assertTrue(pattern.matches("teaserTitle"));
+        assertTrue(pattern.matches("abc"));
+        assertTrue(pattern.matches("aXbYbc"));
+        assertFalse(pattern.matches("abcX"));
+        assertFalse(pattern.matches("ab"));
+        assertFalse(pattern.matches("mgnl:created"));
+        assertFalse(pattern.matches(null));
+        assertNull(pattern.getLiteral());
+
+        assertFalse(NamePattern.compile("a*a").matches("a"));
+        assertTrue(NamePattern.compile("a*a").matches("aa"));
+        assertTrue(NamePattern.compile("**").matches(""));
+        assertEquals("title", NamePattern.compile(" title ").getLiteral());
+    }
+
+    @Test
+    public void globsAreNotSplit() {
+        NamePattern pattern = NamePattern.compile(new String[]{"a|b", "c*"});
+        assertTrue(pattern.matches("a|b"));
+        assertTrue(pattern.matches("content"));
+        assertFalse(pattern.matches("a"));
+    }
+
+    @Test
+    public void compiledPatternsAreCached() {
+        assertSame(NamePattern.compile("jcr:*"), NamePattern.compile("jcr:*"));
+        assertSame(NamePattern.compile(new String[]{"jcr:*"}), NamePattern.compile(new String[]{"jcr:*"}));
+    }
+}
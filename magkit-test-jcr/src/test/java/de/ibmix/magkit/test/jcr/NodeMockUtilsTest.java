@@ -20,6 +20,7 @@ package de.ibmix.magkit.test.jcr;
  * #L%
  */
 
+import org.apache.commons.io.IOUtils;
 import org.apache.jackrabbit.util.ISO8601;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -36,8 +37,13 @@ import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.Value;
 import javax.jcr.nodetype.NodeType;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.Calendar;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -213,7 +219,6 @@ public class NodeMockUtilsTest {
         assertNull(root.getNode("page"));
     }
 
-
     @Test
     public void mockNodeTestSession() throws RepositoryException {
         Session session = SessionMockUtils.mockSession("website");
@@ -605,6 +610,158 @@ public class NodeMockUtilsTest {
         assertThrows(RuntimeException.class, () -> NodeMockUtils.mockNodeFromXml("badRepo", is));
     }
 
+    @Test
+    public void mockNodeStubOnly() throws RepositoryException {
+        RepositoryMockUtils.setStubOnly(true);
+        try {
+            Node page = NodeMockUtils.mockNode("/root/section/page", NodeStubbingOperation.stubProperty("title", "Page"));
+            assertTrue(Mockito.mockingDetails(page).getMockCreationSettings().isStubOnly());
+            assertEquals("/root/section/page", page.getPath());
+            assertEquals("Page", page.getProperty("title").getString());
+            assertEquals(page, page.getSession().getNode("/root/section/page"));
+
+            Node spy = NodeMockUtils.spyNode(page);
+            assertEquals("/root/section/page", spy.getPath());
+            verify(spy, times(1)).getPath();
+        } finally {
+            RepositoryMockUtils.setStubOnly(false);
+        }
+        assertFalse(Mockito.mockingDetails(NodeMockUtils.mockNode("other")).getMockCreationSettings().isStubOnly());
+    }
+
+    /**
+     * Direct Mockito stubbings of a node mock take precedence over the default answer, null values remove properties.
+     */
+    @Test
+    public void mockPlainNodeDefaultAnswerCanBeOverridden() throws RepositoryException {
+        Node node = NodeMockUtils.mockNode("/root/page");
+        assertNull(node.setProperty("nullValue", (String) null));
+        assertFalse(node.hasProperty("nullValue"));
+        assertEquals("value", node.setProperty("prop", "value").getString());
+
+        Mockito.when(node.getPath()).thenReturn("/overridden");
+        Mockito.when(node.hasNode("child")).thenReturn(true);
+        assertEquals("/overridden", node.getPath());
+        assertTrue(node.hasNode("child"));
+        assertFalse(node.hasNode("other"));
+    }
+
+    @Test
+    public void mockPlainNodeFromBlueprint() throws RepositoryException {
+        Node first = NodeMockUtils.mockPlainNode("first");
+        Node second = NodeMockUtils.mockPlainNode(" ");
+        assertEquals("first", first.getName());
+        assertEquals(NodeStubbingOperation.UNTITLED, second.getName());
+        assertNotNull(first.getIdentifier());
+        assertEquals(first.getIdentifier(), first.getUUID());
+        assertFalse(first.getIdentifier().equals(second.getIdentifier()));
+        assertTrue(first.isNodeType(NodeType.NT_BASE));
+        assertEquals(first.getPrimaryNodeType(), second.getPrimaryNodeType());
+        assertEquals(0, first.getMixinNodeTypes().length);
+
+        Property primaryType = first.getProperty("jcr:primaryType");
+        assertNull(primaryType);
+        primaryType = first.getProperties().nextProperty();
+        assertEquals("jcr:primaryType", primaryType.getName());
+        assertEquals(first, primaryType.getParent());
+        assertEquals(NodeType.NT_BASE, primaryType.getString());
+        assertEquals(PropertyType.STRING, primaryType.getType());
+        assertFalse(primaryType.isMultiple());
+
+        NodeStubbingOperation.stubType("mgnl:page").of(first);
+        NodeStubbingOperation.stubName("renamed").of(first);
+        assertEquals("renamed", first.getName());
+        assertTrue(first.isNodeType("mgnl:page"));
+        assertEquals("mgnl:page", first.getProperties().nextProperty().getString());
+        assertEquals(1, first.getProperties().getSize());
+        assertTrue(second.isNodeType(NodeType.NT_BASE));
+
+        NodeType sharedType = second.getPrimaryNodeType();
+        SessionMockUtils.cleanSession();
+        assertFalse(sharedType.equals(NodeMockUtils.mockPlainNode("third").getPrimaryNodeType()));
+    }
+
+    @Test
+    public void mockNodeFromXmlWithBinaryAndEmptyValues() throws RepositoryException, IOException {
+        byte[] content = new byte[20000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        String base64 = Base64.getMimeEncoder().encodeToString(content);
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<sv:node sv:name=\"asset\" xmlns:sv=\"http://www.jcp.org/jcr/sv/1.0\">"
+            + "<sv:property sv:name=\"jcr:primaryType\" sv:type=\"Name\"><sv:value>mgnl:asset</sv:value></sv:property>"
+            + "<sv:property sv:name=\"empty\" sv:type=\"String\"><sv:value></sv:value></sv:property>"
+            + "<sv:property sv:name=\"text\" sv:type=\"String\"><sv:value>a &amp; b</sv:value><sv:value>c</sv:value></sv:property>"
+            + "<sv:node sv:name=\"jcr:content\">"
+            + "<sv:property sv:name=\"jcr:data\" sv:type=\"Binary\"><sv:value>\n" + base64 + "\n</sv:value></sv:property>"
+            + "</sv:node>"
+            + "</sv:node>";
+        Node asset = NodeMockUtils.mockNodeFromXml("dam", new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("/asset", asset.getPath());
+        assertTrue(asset.isNodeType("mgnl:asset"));
+        assertNull(asset.getProperty("empty").getString());
+        assertTrue(asset.getProperty("text").isMultiple());
+        assertEquals("a & b", asset.getProperty("text").getValues()[0].getString());
+        assertEquals("c", asset.getProperty("text").getValues()[1].getString());
+
+        Property data = asset.getNode("jcr:content").getProperty("jcr:data");
+        assertEquals(PropertyType.BINARY, data.getType());
+        assertEquals(content.length, data.getBinary().getSize());
+        assertArrayEquals(content, IOUtils.toByteArray(data.getBinary().getStream()));
+        assertArrayEquals(content, IOUtils.toByteArray(data.getStream()));
+        assertEquals(asset.getNode("jcr:content"), SessionMockUtils.mockSession("dam").getNode("/asset/jcr:content"));
+    }
+
+    @Test
+    public void mockNodeFromXmlLazy() throws RepositoryException {
+        RepositoryMockUtils.setLazyFixtures(true);
+        try {
+            Node page = NodeMockUtils.mockNodeFromXml("website", getClass().getResourceAsStream("website.aha.de.rezeptseiten.streusselkuchen.xml"));
+            Session session = page.getSession();
+            assertEquals("mgnl:page", page.getProperty("jcr:primaryType").getString());
+            assertTrue(((NodeMockUtils.TestNode) page).getNodeCollection().isEmpty());
+
+            Node slide = session.getNode("/aprikosen-streuselkuchen/content/01/layouts/0/slides/0");
+            assertEquals("f344504f-2636-4894-974c-9f44f44fcfe0", slide.getIdentifier());
+            assertTrue(slide.isNodeType("mgnl:component"));
+            assertTrue(session.itemExists("/aprikosen-streuselkuchen/content/01/layouts/0/slides/0/jcr:primaryType"));
+            assertFalse(session.itemExists("/aprikosen-streuselkuchen/content/unknown/child"));
+            assertEquals(3, page.getNodes().getSize());
+            assertEquals("header", page.getNodes().nextNode().getName());
+
+            Node contents = session.getNodeByIdentifier("05deb39d-4c72-4117-a8d7-2b1bc5d3cb3f");
+            assertEquals("contents", contents.getName());
+            assertEquals(contents, page.getNode("content/01/layouts/00/contents"));
+            assertNull(session.getNodeByIdentifier("unknown"));
+        } finally {
+            RepositoryMockUtils.setLazyFixtures(false);
+        }
+    }
+
+    @Test
+    public void getNodesAndPropertiesByNamePattern() throws RepositoryException {
+        Node page = NodeMockUtils.mockNode("root/page", NodeStubbingOperation.stubProperty("title", "Title"),
+            NodeStubbingOperation.stubProperty("teaserTitle", "Teaser"), NodeStubbingOperation.stubProperty("text", "Text"));
+        NodeMockUtils.mockNode("root/page/main");
+        NodeMockUtils.mockNode("root/page/mainNavigation");
+        NodeMockUtils.mockNode("root/page/footer");
+
+        assertEquals(3, page.getNodes().getSize());
+        assertEquals(2, page.getNodes("main*").getSize());
+        assertEquals("footer", page.getNodes(" footer | none ").nextNode().getName());
+        assertEquals(3, page.getNodes("*").getSize());
+        assertEquals(0, page.getNodes("").getSize());
+        assertEquals(1, page.getNodes(new String[]{"*Navigation"}).getSize());
+        assertEquals(0, page.getNodes(new String[]{"main|footer"}).getSize());
+
+        assertEquals(2, page.getProperties("*itle").getSize());
+        assertEquals("text", page.getProperties("text").nextProperty().getName());
+        assertEquals(0, page.getProperties("unknown").getSize());
+        assertEquals(3, page.getProperties(new String[]{"t*t*", "title"}).getSize());
+    }
+
     /**
      * Direct test of getPathForParent(null, relPath) returning root path.
      */
@@ -0,0 +1,146 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.Property;
+import javax.jcr.PropertyIterator;
+import javax.jcr.RepositoryException;
+import javax.jcr.Value;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubType;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test the NodeSnapshot.
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public class NodeSnapshotTest {
+
+    @BeforeEach
+    public void setUp() {
+        SessionMockUtils.cleanSession();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SessionMockUtils.cleanSession();
+    }
+
+    @Test
+    public void saveAndLoadFile(@TempDir Path dir) throws RepositoryException, IOException {
+        Node page = NodeMockUtils.mockNodeFromXml("website", getClass().getResourceAsStream("website.aha.de.rezeptseiten.streusselkuchen.xml"));
+        Path snapshot = dir.resolve("page.snapshot");
+        NodeSnapshot.save(page, snapshot);
+
+        Node loaded = NodeSnapshot.load("other", snapshot);
+        assertEquals("other", loaded.getSession().getWorkspace().getName());
+        assertEquals(page.getPath(), loaded.getPath());
+        assertEquals(page.getIdentifier(), loaded.getIdentifier());
+        assertEquals(loaded, SessionMockUtils.mockSession("other").getNodeByIdentifier(page.getIdentifier()));
+        assertTrue(loaded.isNodeType("mgnl:page"));
+        assertSameTree(page, loaded);
+    }
+
+    @Test
+    public void convertXml() throws RepositoryException, IOException {
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        try (InputStream xml = getClass().getResourceAsStream("website.aha.de.rezeptseiten.streusselkuchen.xml")) {
+            NodeSnapshot.convertXml(xml, snapshot);
+        }
+        Node loaded = NodeSnapshot.load("other", new ByteArrayInputStream(snapshot.toByteArray()));
+        Node page = NodeMockUtils.mockNodeFromXml("website", getClass().getResourceAsStream("website.aha.de.rezeptseiten.streusselkuchen.xml"));
+        assertSameTree(page, loaded);
+    }
+
+    @Test
+    public void saveAndLoadRootWithBinaries() throws RepositoryException, IOException {
+        byte[] content = {0, 1, 2, -1};
+        Node root = SessionMockUtils.mockSession("dam").getRootNode();
+        NodeMockUtils.mockNode("dam", "/asset", stubType("mgnl:asset"), stubProperty("flags", true, false));
+        stubProperty("data", ValueMockUtils.mockValue(ValueMockUtils.mockBinaryContent(content))).of(NodeMockUtils.mockNode("dam", "/asset/jcr:content"));
+        stubProperty("empty", (String) null).of(NodeMockUtils.mockNode("dam", "/asset"));
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        NodeSnapshot.save(root, snapshot);
+
+        SessionMockUtils.cleanSession();
+        Node loaded = NodeSnapshot.load("dam", new ByteArrayInputStream(snapshot.toByteArray()));
+        assertEquals("/", loaded.getPath());
+        Node asset = loaded.getNode("asset");
+        assertTrue(asset.isNodeType("mgnl:asset"));
+        assertTrue(asset.getProperty("flags").isMultiple());
+        assertFalse(asset.getProperty("flags").getValues()[1].getBoolean());
+        assertNull(asset.getProperty("empty").getString());
+        assertArrayEquals(content, IOUtils.toByteArray(asset.getProperty("jcr:content/data").getBinary().getStream()));
+    }
+
+    @Test
+    public void loadInvalidSnapshot() {
+        assertThrows(IOException.class, () -> NodeSnapshot.load("website", new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5})));
+        assertThrows(IllegalArgumentException.class, () -> NodeSnapshot.load("website", (InputStream) null));
+    }
+
+    private static void assertSameTree(Node expected, Node actual) throws RepositoryException {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getPrimaryNodeType().getName(), actual.getPrimaryNodeType().getName());
+        PropertyIterator expectedProperties = expected.getProperties();
+        PropertyIterator actualProperties = actual.getProperties();
+        assertEquals(expectedProperties.getSize(), actualProperties.getSize());
+        while (expectedProperties.hasNext()) {
+            Property expectedProperty = expectedProperties.nextProperty();
+            Property actualProperty = actualProperties.nextProperty();
+            assertEquals(expectedProperty.getName(), actualProperty.getName());
+            assertEquals(expectedProperty.getType(), actualProperty.getType());
+            Value[] expectedValues = expectedProperty.getValues();
+            Value[] actualValues = actualProperty.getValues();
+            assertEquals(expectedValues.length, actualValues.length);
+            for (int i = 0; i < expectedValues.length; i++) {
+                assertEquals(expectedValues[i].getString(), actualValues[i].getString());
+            }
+        }
+        NodeIterator expectedChildren = expected.getNodes();
+        NodeIterator actualChildren = actual.getNodes();
+        assertEquals(expectedChildren.getSize(), actualChildren.getSize());
+        while (expectedChildren.hasNext()) {
+            assertSameTree(expectedChildren.nextNode(), actualChildren.nextNode());
+        }
+    }
+}
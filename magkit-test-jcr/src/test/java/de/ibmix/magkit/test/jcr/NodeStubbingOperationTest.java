@@ -32,6 +32,7 @@ import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.nodetype.NodeType;
 import java.util.Calendar;
+import java.util.List;
 
 import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubMixinNodeTypes;
 import static org.apache.commons.collections4.IteratorUtils.toList;
@@ -44,6 +45,7 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Testing NodeStubbingOperation.
@@ -126,6 +128,26 @@ public class NodeStubbingOperationTest {
         assertEquals("{http://www.jcp.org/jcr/nt/1.0}base", _node.getProperties().nextProperty().getString());
     }
 
+    @Test
+    public void setManyPropertiesKeepsOrder() throws RepositoryException {
+        for (int i = 0; i < 500; i++) {
+            _node.setProperty("p" + (i % 100), "value" + i);
+        }
+        List<?> properties = toList(_node.getProperties());
+        assertEquals(101, properties.size());
+        assertEquals(JcrConstants.JCR_PRIMARYTYPE, ((Property) properties.get(0)).getName());
+        // replaced properties are moved to the end:
+        assertEquals("p0", ((Property) properties.get(1)).getName());
+        assertEquals("value400", ((Property) properties.get(1)).getString());
+        assertEquals("p99", ((Property) properties.get(100)).getName());
+        assertEquals("value499", _node.getProperty("p99").getString());
+
+        _node.getProperty("p50").remove();
+        assertFalse(_node.hasProperty("p50"));
+        assertEquals(100, _node.getProperties().getSize());
+        assertEquals("p51", ((Property) toList(_node.getProperties()).get(51)).getName());
+    }
+
     @Test
     public void testStubLong() throws Exception {
         NodeStubbingOperation.stubProperty("long", 1L).of(_node);
@@ -195,6 +217,29 @@ public class NodeStubbingOperationTest {
         assertEquals(_node, session.getNodeByUUID("uuid-3"));
     }
 
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testStubIdentifierWithIdentifierRegistry() throws Exception {
+        Node node = NodeMockUtils.mockNode("website", "/Hans/Wurst");
+        Session session = node.getSession();
+        String initialId = node.getIdentifier();
+        assertEquals(node, session.getNodeByIdentifier(initialId));
+
+        NodeStubbingOperation.stubIdentifier("uuid-1").of(node);
+        assertNull(session.getNodeByIdentifier(initialId));
+        assertEquals(node, session.getNodeByIdentifier("uuid-1"));
+        assertEquals(node, session.getNodeByUUID("uuid-1"));
+
+        Node other = NodeMockUtils.mockNode("website", "/Other");
+        NodeStubbingOperation.stubNode(node).of(other);
+        assertEquals("/Other/Wurst", node.getPath());
+        assertEquals(node, session.getNodeByIdentifier("uuid-1"));
+
+        node.remove();
+        assertNull(session.getNodeByIdentifier("uuid-1"));
+        assertNull(session.getNodeByUUID("uuid-1"));
+    }
+
     @Test
     public void testStubParent() throws Exception {
         Node parent = NodeMockUtils.mockNode("Hans");
@@ -204,6 +249,51 @@ public class NodeStubbingOperationTest {
         assertEquals(2, _node.getDepth());
     }
 
+    @Test
+    public void testStubParentAndNameUpdateCachedPaths() throws Exception {
+        Node page = NodeMockUtils.mockNode("/root/section/page", NodeStubbingOperation.stubProperty("title", "Page"));
+        Property title = page.getProperty("title");
+        assertEquals("/root/section/page", page.getPath());
+        assertEquals(3, page.getDepth());
+        assertEquals("/root/section/page/title", title.getPath());
+        assertEquals(4, title.getDepth());
+
+        Node section = page.getParent();
+        Node other = NodeMockUtils.mockNode("/other/parent");
+        NodeStubbingOperation.stubParent(other).of(section);
+        assertEquals("/other/parent/section/page", page.getPath());
+        assertEquals(4, page.getDepth());
+        assertEquals("/other/parent/section/page/title", title.getPath());
+        assertEquals(5, title.getDepth());
+        assertEquals(page, page.getSession().getNode("/other/parent/section/page"));
+
+        NodeStubbingOperation.stubName("renamed").of(section);
+        assertEquals("/other/parent/renamed/page", page.getPath());
+        assertEquals("/other/parent/renamed/page/title", title.getPath());
+    }
+
+    @Test
+    public void directlyStubbedNameAndParentUpdateCachedPaths() throws Exception {
+        Node node = NodeMockUtils.mockNode("/d", NodeStubbingOperation.stubProperty("title", "D"));
+        Node child = NodeMockUtils.mockNode("/d/child");
+        Property title = node.getProperty("title");
+        assertEquals("/d", node.getPath());
+        assertEquals("/d/child", child.getPath());
+        assertEquals("/d/title", title.getPath());
+
+        when(node.getName()).thenReturn("dd");
+        assertEquals("/dd", node.getPath());
+        assertEquals("/dd/child", child.getPath());
+        assertEquals("/dd/title", title.getPath());
+
+        Node other = NodeMockUtils.mockNode("/other");
+        doReturn(other).when(node).getParent();
+        assertEquals("/other/dd", node.getPath());
+        assertEquals(2, node.getDepth());
+        assertEquals("/other/dd/child", child.getPath());
+        assertEquals(3, child.getDepth());
+    }
+
     @Test
     public void testStubNode() throws RepositoryException {
         assertNull(_node.getNode("child"));
@@ -277,6 +367,20 @@ public class NodeStubbingOperationTest {
         assertEquals(0, node.getMixinNodeTypes().length);
     }
 
+    @Test
+    public void stubMixins() throws RepositoryException {
+        Node node = NodeMockUtils.mockNode("/page", NodeStubbingOperation.stubType("mgnl:page"));
+        assertTrue(node.isNodeType("mgnl:content"));
+        assertFalse(node.isNodeType("mix:lockable"));
+
+        NodeStubbingOperation.stubMixins("mix:lockable", "mix:versionable").of(node);
+        assertEquals(2, node.getMixinNodeTypes().length);
+        assertEquals("mix:lockable", node.getProperty("jcr:mixinTypes").getValues()[0].getString());
+        assertTrue(node.isNodeType("mix:lockable"));
+        assertTrue(node.isNodeType("mix:simpleVersionable"));
+        assertFalse(node.isNodeType("mgnl:folder"));
+    }
+
     @Test
     public void testPropertyStubbingOfPlainNode() throws RepositoryException {
         Node node  = mock(Node.class);
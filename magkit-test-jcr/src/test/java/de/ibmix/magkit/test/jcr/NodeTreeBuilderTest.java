@@ -0,0 +1,126 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.nodetype.NodeType;
+
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubTitle;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubType;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test the NodeTreeBuilder.
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public class NodeTreeBuilderTest {
+
+    @BeforeEach
+    public void setUp() {
+        SessionMockUtils.cleanSession();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SessionMockUtils.cleanSession();
+    }
+
+    @Test
+    public void build() throws RepositoryException {
+        Node root = NodeTreeBuilder.forWorkspace("website")
+            .node("/site", stubType("mgnl:page"), stubTitle("Home"))
+            .node("site/news/2024/article", stubProperty("author", "me"))
+            .node("/site/news", stubType("mgnl:page"))
+            .node("/site", stubProperty("lang", "en"))
+            .node("/", stubProperty("rootProperty", "root"))
+            .build();
+
+        Session session = SessionMockUtils.mockSession("website");
+        assertEquals(session.getRootNode(), root);
+        Node site = session.getNode("/site");
+        assertEquals(root, site.getParent());
+        assertEquals(1, site.getDepth());
+        assertTrue(site.isNodeType("mgnl:page"));
+        assertEquals("Home", site.getProperty("title").getString());
+        assertEquals("en", site.getProperty("lang").getString());
+        assertEquals("mgnl:page", session.getProperty("/site/jcr:primaryType").getString());
+        assertEquals("root", root.getProperty("rootProperty").getString());
+
+        Node year = site.getNode("news/2024");
+        assertTrue(year.isNodeType(NodeType.NT_BASE));
+        assertEquals("/site/news/2024", year.getPath());
+        assertEquals(year, session.getNodeByIdentifier(year.getIdentifier()));
+        Node article = session.getNode("/site/news/2024/article");
+        assertEquals(year, article.getParent());
+        assertEquals("me", article.getProperty("author").getString());
+        assertEquals(article, NodeMockUtils.mockNode("/site/news/2024/article"));
+
+        NodeIterator children = site.getNodes();
+        assertEquals(1, children.getSize());
+        assertEquals("news", children.nextNode().getName());
+    }
+
+    @Test
+    public void buildReusesExistingNodes() throws RepositoryException {
+        Node section = NodeMockUtils.mockNode("website", "/site/section", stubTitle("Section"));
+        NodeTreeBuilder.forWorkspace("website")
+            .node("/site/section/page")
+            .node("/site/other")
+            .build();
+
+        assertEquals(section, NodeMockUtils.mockNode("/site/section/page").getParent());
+        assertEquals("Section", section.getProperty("title").getString());
+        assertEquals(2, section.getParent().getNodes().getSize());
+        assertFalse(section.getSession().nodeExists("/site/section/other"));
+    }
+
+    @Test
+    public void buildLargeTree() throws RepositoryException {
+        NodeTreeBuilder builder = NodeTreeBuilder.forWorkspace("website");
+        for (int i = 0; i < 2000; i++) {
+            builder.node("/site/section" + (i % 20) + "/page" + i, stubTitle("Page " + i));
+        }
+        Node root = builder.build();
+
+        Session session = root.getSession();
+        assertEquals(20, session.getNode("/site").getNodes().getSize());
+        assertEquals(100, session.getNode("/site/section7").getNodes().getSize());
+        assertEquals("Page 1234", session.getProperty("/site/section14/page1234/title").getString());
+    }
+
+    @Test
+    public void forWorkspaceRequiresName() {
+        assertThrows(IllegalArgumentException.class, () -> NodeTreeBuilder.forWorkspace(""));
+    }
+}
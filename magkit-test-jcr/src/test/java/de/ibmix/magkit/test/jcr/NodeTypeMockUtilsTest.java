@@ -0,0 +1,139 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.nodetype.NodeType;
+import javax.jcr.nodetype.NodeTypeManager;
+
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubType;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test the NodeTypeMockUtils.
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public class NodeTypeMockUtilsTest {
+
+    @BeforeEach
+    public void setUp() {
+        SessionMockUtils.cleanSession();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SessionMockUtils.cleanSession();
+    }
+
+    @Test
+    public void mockNodeTypeIsInterned() throws RepositoryException {
+        NodeType page = NodeTypeMockUtils.mockNodeType("mgnl:page");
+        assertSame(page, NodeTypeMockUtils.mockNodeType("mgnl:page"));
+        Node first = NodeMockUtils.mockNode("/first", stubType("mgnl:page"));
+        Node second = NodeMockUtils.mockNode("/second", stubType("mgnl:page"));
+        assertSame(page, first.getPrimaryNodeType());
+        assertSame(page, second.getPrimaryNodeType());
+        assertSame(NodeMockUtils.mockNode("/third").getPrimaryNodeType(), NodeMockUtils.mockNode("/fourth").getPrimaryNodeType());
+
+        SessionMockUtils.cleanSession();
+        assertNotSame(page, NodeTypeMockUtils.mockNodeType("mgnl:page"));
+        assertThrows(IllegalArgumentException.class, () -> NodeTypeMockUtils.mockNodeType(" "));
+    }
+
+    @Test
+    public void knownSupertypes() {
+        NodeType page = NodeTypeMockUtils.mockNodeType("mgnl:page");
+        assertEquals("mgnl:page", page.getName());
+        assertFalse(page.isMixin());
+        assertTrue(page.isNodeType("mgnl:page"));
+        assertTrue(page.isNodeType("mgnl:content"));
+        assertTrue(page.isNodeType("nt:hierarchyNode"));
+        assertTrue(page.isNodeType("mix:referenceable"));
+        assertTrue(page.isNodeType("mix:created"));
+        assertTrue(page.isNodeType(NodeType.NT_BASE));
+        assertTrue(page.isNodeType(NodeType.NT_HIERARCHY_NODE));
+        assertFalse(page.isNodeType("mgnl:contentNode"));
+        assertFalse(page.isNodeType(null));
+        assertArrayEquals(new String[]{"mgnl:content"}, page.getDeclaredSupertypeNames());
+        assertSame(NodeTypeMockUtils.mockNodeType("mgnl:content"), page.getDeclaredSupertypes()[0]);
+        assertEquals(11, page.getSupertypes().length);
+
+        NodeType component = NodeTypeMockUtils.mockNodeType("mgnl:component");
+        assertTrue(component.isNodeType("mgnl:contentNode"));
+        assertFalse(component.isNodeType("mgnl:content"));
+
+        NodeType base = NodeTypeMockUtils.mockNodeType(NodeType.NT_BASE);
+        assertEquals(NodeType.NT_BASE, base.getName());
+        assertTrue(base.isNodeType("nt:base"));
+        assertEquals(0, base.getSupertypes().length);
+
+        NodeType versionable = NodeTypeMockUtils.mockNodeType("mix:versionable");
+        assertTrue(versionable.isMixin());
+        assertTrue(versionable.isNodeType("mix:referenceable"));
+        assertFalse(versionable.isNodeType("nt:base"));
+    }
+
+    @Test
+    public void declareNodeTypes() throws RepositoryException {
+        NodeType article = NodeTypeMockUtils.mockNodeType("app:article");
+        assertTrue(article.isNodeType("nt:base"));
+        assertFalse(article.isNodeType("mgnl:page"));
+        assertArrayEquals(new String[]{"nt:base"}, article.getDeclaredSupertypeNames());
+
+        assertSame(article, NodeTypeMockUtils.mockNodeType("app:article", "mgnl:page"));
+        assertTrue(article.isNodeType("mgnl:content"));
+        NodeTypeMockUtils.mockMixinNodeType("app:taggable", "mix:title");
+        NodeTypeMockUtils.mockNodeType("mgnl:page", "mgnl:content", "app:taggable");
+        assertTrue(article.isNodeType("mix:title"));
+
+        Node node = NodeMockUtils.mockNode("/news/article", stubType("app:article"), NodeStubbingOperation.stubMixins("mix:lockable"));
+        assertTrue(node.isNodeType("app:taggable"));
+        assertTrue(node.isNodeType("mix:lockable"));
+        assertFalse(node.isNodeType("app:other"));
+    }
+
+    @Test
+    public void mockNodeTypeManager() throws RepositoryException {
+        NodeTypeManager manager = SessionMockUtils.mockSession("website").getWorkspace().getNodeTypeManager();
+        assertSame(NodeTypeMockUtils.mockNodeTypeManager(), manager);
+        assertSame(NodeTypeMockUtils.mockNodeType("mgnl:area"), manager.getNodeType("mgnl:area"));
+        assertTrue(manager.hasNodeType("mgnl:page"));
+        assertFalse(manager.hasNodeType("app:unknown"));
+        NodeTypeMockUtils.mockMixinNodeType("app:taggable");
+        assertTrue(manager.hasNodeType("app:taggable"));
+        assertTrue(manager.getMixinNodeTypes().hasNext());
+        assertEquals("app:taggable", manager.getMixinNodeTypes().nextNodeType().getName());
+        assertTrue(manager.getAllNodeTypes().getSize() >= 3);
+    }
+}
@@ -0,0 +1,138 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.Repository;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubType;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test the RepositoryMockContext.
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public class RepositoryMockContextTest {
+
+    private Session _session;
+    private Node _page;
+
+    @BeforeEach
+    public void setUp() throws RepositoryException {
+        RepositoryMockUtils.cleanRepository();
+        _page = mockNode("website", "/home/page", stubType("mgnl:page"));
+        _session = SessionMockUtils.mockSession("website");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RepositoryMockUtils.cleanRepository();
+        RepositoryMockUtils.setStubOnly(false);
+        RepositoryMockUtils.setLazyFixtures(false);
+    }
+
+    @Test
+    public void captureMocksLazyFixtureNodes() throws RepositoryException {
+        RepositoryMockUtils.setLazyFixtures(true);
+        Node page = NodeMockUtils.mockNodeFromXml("website", getClass().getResourceAsStream("website.aha.de.rezeptseiten.streusselkuchen.xml"));
+        SessionMockUtils.TestSession session = (SessionMockUtils.TestSession) page.getSession();
+        assertFalse(session.getLazyNodeRegistry().isEmpty());
+
+        RepositoryMockContext.capture();
+        assertTrue(session.getLazyNodeRegistry().isEmpty());
+        assertTrue(session.getLazyIdentifierRegistry().isEmpty());
+        assertEquals(3, page.getNodes().getSize());
+        assertEquals("contents", session.getNodeByIdentifier("05deb39d-4c72-4117-a8d7-2b1bc5d3cb3f").getName());
+    }
+
+    @Test
+    public void propagatingExecutorBindsSubmittingThread() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        ExecutorService executor = RepositoryMockContext.propagating(pool);
+        try {
+            assertSame(_session, executor.submit(() -> SessionMockUtils.mockSession("website")).get(10, TimeUnit.SECONDS));
+            assertTrue(executor.submit(() -> _session.nodeExists("/home/page")).get(10, TimeUnit.SECONDS));
+            assertTrue(executor.submit(() -> _page.isNodeType("mgnl:page")).get(10, TimeUnit.SECONDS));
+            assertNull(pool.submit(RepositoryMockUtils::getRepository).get(10, TimeUnit.SECONDS));
+            assertNull(pool.submit(NodeTypeMockUtils::getCurrentRegistry).get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void inheritingThreadFactoryBindsCreatingThread() throws Exception {
+        RepositoryMockUtils.setStubOnly(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor(RepositoryMockContext.inheriting(Executors.defaultThreadFactory()));
+        try {
+            assertSame(RepositoryMockUtils.mockRepository(), executor.submit(() -> RepositoryMockUtils.mockRepository()).get(10, TimeUnit.SECONDS));
+            assertTrue(executor.submit(RepositoryMockUtils::isStubOnly).get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void wrappedFunctionsShareRepository() throws RepositoryException {
+        RepositoryMockContext context = RepositoryMockContext.capture();
+        Set<Repository> repositories = IntStream.range(0, 100).boxed().parallel()
+            .map(context.wrap(i -> RepositoryMockUtils.getRepository()))
+            .collect(Collectors.toSet());
+        assertEquals(1, repositories.size());
+        assertSame(RepositoryMockUtils.mockRepository(), repositories.iterator().next());
+    }
+
+    @Test
+    public void callRestoresPreviousContext() throws Exception {
+        Repository repository = RepositoryMockUtils.mockRepository();
+        RepositoryMockContext context = RepositoryMockContext.capture();
+        RepositoryMockUtils.cleanRepository();
+        Repository other = RepositoryMockUtils.mockRepository();
+
+        assertSame(repository, context.call(RepositoryMockUtils::mockRepository));
+        assertSame(other, RepositoryMockUtils.mockRepository());
+        assertThrows(IllegalStateException.class, () -> context.run(() -> {
+            throw new IllegalStateException("failed");
+        }));
+        assertSame(other, RepositoryMockUtils.mockRepository());
+        assertFalse(SessionMockUtils.mockSession("website").nodeExists("/home/page"));
+    }
+}
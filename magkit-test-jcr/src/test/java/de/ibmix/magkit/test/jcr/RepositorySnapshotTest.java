@@ -0,0 +1,187 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import de.ibmix.magkit.test.jcr.observation.ObservationMockUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.observation.Event;
+import javax.jcr.observation.EventListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubName;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubType;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Test the RepositorySnapshot.
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public class RepositorySnapshotTest {
+
+    private Session _session;
+    private Node _home;
+    private Node _news;
+    private Node _about;
+
+    @BeforeEach
+    public void setUp() throws RepositoryException {
+        RepositoryMockUtils.cleanRepository();
+        _home = mockNode("/home", stubType("mgnl:page"), stubProperty("title", "Home"));
+        _news = mockNode("/home/news", stubType("mgnl:page"), stubProperty("title", "News"));
+        _about = mockNode("/home/about", stubType("mgnl:page"), stubProperty("title", "About"));
+        _session = SessionMockUtils.mockSession("website");
+        SessionMockUtils.enableIndex("website", "title");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RepositoryMockUtils.cleanRepository();
+    }
+
+    @Test
+    public void restoreRevertsChangedItems() throws RepositoryException {
+        RepositorySnapshot snapshot = RepositoryMockUtils.snapshot();
+        assertEquals(0, snapshot.getChangeCount());
+
+        _home.setProperty("title", "Changed");
+        _home.addNode("events").setProperty("title", "Events");
+        _news.remove();
+        stubName("contact").of(_about);
+        Node archive = mockNode("/archive");
+        stubNode(_about).of(archive);
+        Session dam = SessionMockUtils.mockSession("dam");
+        assertEquals("/archive/contact", _about.getPath());
+        assertEquals(Collections.singletonList(_about), toList(archive.getNodes()));
+
+        snapshot.restore();
+        assertEquals(0, snapshot.getChangeCount());
+        assertEquals("Home", _home.getProperty("title").getString());
+        assertEquals(Arrays.asList(_news, _about), toList(_home.getNodes()));
+        assertFalse(_session.itemExists("/home/events"));
+        assertFalse(_session.itemExists("/archive"));
+        assertSame(_news, _session.getNode("/home/news"));
+        assertEquals("News", _session.getProperty("/home/news/title").getString());
+        assertSame(_about, _session.getNodeByIdentifier(_about.getIdentifier()));
+        assertEquals("/home/about", _about.getPath());
+        assertSame(_home, _about.getParent());
+        assertEquals(new HashSet<>(Arrays.asList(_home, _news, _about)), new HashSet<>(SessionMockUtils.findNodes("website", "mgnl:page")));
+        assertEquals(Collections.singletonList(_home), SessionMockUtils.findNodes("website", "mgnl:page", "title", "Home"));
+        assertTrue(SessionMockUtils.findNodes("website", "mgnl:page", "title", "Changed").isEmpty());
+        assertNotSame(dam, SessionMockUtils.mockSession("dam"));
+        assertSame(_session, RepositoryMockUtils.mockRepository().login("website"));
+    }
+
+    @Test
+    public void snapshotStaysActive() throws RepositoryException {
+        RepositorySnapshot snapshot = RepositoryMockUtils.snapshot();
+        for (int i = 0; i < 3; i++) {
+            mockNode("/home/page" + i);
+            assertEquals(3, _home.getNodes().getSize());
+            snapshot.restore();
+            assertEquals(2, _home.getNodes().getSize());
+            assertNull(_session.getItem("/home/page" + i));
+        }
+    }
+
+    @Test
+    public void restoreRevertsObservation() throws RepositoryException {
+        EventJournalBuffer journal = ObservationMockUtils.mockEventJournal("website", 10);
+        EventListener listener = mock(EventListener.class);
+        _session.getWorkspace().getObservationManager().addEventListener(listener, 31, "/", true, null, null, false);
+        _home.setProperty("text", "Welcome");
+        _session.save();
+        verify(listener).onEvent(any());
+        RepositorySnapshot snapshot = RepositoryMockUtils.snapshot();
+
+        EventListener other = mock(EventListener.class);
+        _session.getWorkspace().getObservationManager().addEventListener(other, 31, "/", true, null, null, false);
+        _session.getWorkspace().getObservationManager().removeEventListener(listener);
+        _home.setProperty("title", "Changed");
+        _session.save();
+        _news.setProperty("title", "Pending");
+        assertEquals(2, journal.getEventCount());
+
+        snapshot.restore();
+        assertEquals(Collections.singletonList(listener), SessionMockUtils.getEventDispatcher(_session).getEventListeners());
+        assertEquals(0, SessionMockUtils.getEventDispatcher(_session).getPendingEventCount());
+        assertEquals(1, journal.getEventCount());
+        assertEquals("/home/text", journal.getEventJournal().nextEvent().getPath());
+    }
+
+    @Test
+    public void restoredEventsDoNotChangeDeliveredEvents() throws RepositoryException {
+        List<Event> delivered = new ArrayList<>();
+        ObservationMockUtils.mockDispatchingObservationManager("website").addEventListener(events -> events.forEachRemaining(event -> delivered.add((Event) event)), 31, "/", true, null, null, false);
+        _home.setProperty("text", "Welcome");
+        RepositorySnapshot snapshot = RepositoryMockUtils.snapshot();
+        SessionMockUtils.getEventDispatcher(_session).setUserData("first");
+        _session.save();
+
+        snapshot.restore();
+        SessionMockUtils.getEventDispatcher(_session).setUserData("second");
+        _session.save();
+        assertEquals(2, delivered.size());
+        assertEquals("first", delivered.get(0).getUserData());
+        assertEquals("second", delivered.get(1).getUserData());
+        assertEquals(delivered.get(0).getPath(), delivered.get(1).getPath());
+    }
+
+    @Test
+    public void cleanRepositoryDiscardsSnapshot() throws RepositoryException {
+        RepositorySnapshot snapshot = RepositoryMockUtils.snapshot();
+        RepositoryMockUtils.cleanRepository();
+        assertThrows(IllegalStateException.class, snapshot::restore);
+        mockNode("/home");
+        assertThrows(IllegalStateException.class, snapshot::restore);
+    }
+
+    private static List<Node> toList(NodeIterator nodes) {
+        List<Node> result = new ArrayList<>();
+        while (nodes.hasNext()) {
+            result.add(nodes.nextNode());
+        }
+        return result;
+    }
+}
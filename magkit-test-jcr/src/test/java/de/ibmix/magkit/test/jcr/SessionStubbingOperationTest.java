@@ -20,20 +20,26 @@ package de.ibmix.magkit.test.jcr;
  * #L%
  */
 
+import org.apache.jackrabbit.commons.iterator.NodeIteratorAdapter;
+import org.apache.jackrabbit.commons.iterator.PropertyIteratorAdapter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import javax.jcr.Item;
 import javax.jcr.Node;
+import javax.jcr.Property;
 import javax.jcr.Repository;
 import javax.jcr.RepositoryException;
 import javax.jcr.Session;
 import javax.jcr.ValueFactory;
 import javax.jcr.Workspace;
+import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -102,6 +108,41 @@ public class SessionStubbingOperationTest {
         assertEquals(node, _session.getNodeByIdentifier("uuid-2"));
     }
 
+    /**
+     * Test of stubItem and stubRemoveItem methods on a session with item registry.
+     */
+    @Test
+    public void testStubItemWithItemRegistry() throws RepositoryException {
+        Session session = SessionMockUtils.mockPlainSession();
+        assertNull(session.getItem("/name1"));
+        assertFalse(session.itemExists("/name1"));
+
+        Property property = mock(Property.class);
+        when(property.getPath()).thenReturn("/name1");
+        SessionStubbingOperation.stubItem(property).of(session);
+        assertEquals(property, session.getItem("/name1"));
+        assertTrue(session.itemExists("/name1"));
+        assertNull(session.getNode("/name1"));
+        assertFalse(session.nodeExists("/name1"));
+
+        Node node = mock(Node.class);
+        when(node.isNode()).thenReturn(Boolean.TRUE);
+        when(node.getPath()).thenReturn("/name2");
+        when(node.getNodes()).thenReturn(new NodeIteratorAdapter(Collections.emptyList()));
+        when(node.getProperties()).thenReturn(new PropertyIteratorAdapter(Collections.emptyList()));
+        SessionStubbingOperation.stubItem(node).of(session);
+        assertEquals(node, session.getItem("/name2"));
+        assertEquals(node, session.getNode("/name2"));
+        assertTrue(session.nodeExists("/name2"));
+
+        SessionStubbingOperation.stubRemoveItem(node).of(session);
+        assertNull(session.getItem("/name2"));
+        assertNull(session.getNode("/name2"));
+        assertFalse(session.itemExists("/name2"));
+        assertFalse(session.nodeExists("/name2"));
+        assertEquals(property, session.getItem("/name1"));
+    }
+
     /**
      * Test of stubRootNode method, of class SessionStubbingOperation.
      */
@@ -0,0 +1,189 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.observation.EventListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubName;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubType;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test the SharedRepository.
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public class SharedRepositoryTest {
+
+    private Session _session;
+    private Node _home;
+    private Node _news;
+
+    @BeforeEach
+    public void setUp() throws RepositoryException {
+        RepositoryMockUtils.cleanRepository();
+        RepositoryMockUtils.setStubOnly(true);
+        _home = mockNode("/home", stubType("mgnl:page"), stubProperty("title", "Home"));
+        _news = mockNode("/home/news", stubType("mgnl:page"), stubProperty("title", "News"));
+        mockNode("/home/about", stubType("mgnl:page"), stubProperty("title", "About"));
+        _session = SessionMockUtils.mockSession("website");
+        SessionMockUtils.enableIndex("website", "title");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RepositoryMockUtils.cleanRepository();
+        RepositoryMockUtils.setStubOnly(false);
+    }
+
+    @Test
+    public void changesAreLocalToThread() throws Exception {
+        SharedRepository shared = RepositoryMockUtils.freeze();
+        assertEquals(Collections.singleton("website"), shared.getWorkspaceNames());
+        assertSame(_session, RepositoryMockUtils.mockRepository().login("website"));
+
+        _home.setProperty("title", "Changed");
+        _home.addNode("events", "mgnl:page");
+        _news.remove();
+        assertEquals(2, _home.getNodes().getSize());
+        assertEquals(1, SessionMockUtils.findNodes("website", "mgnl:page", "title", "Changed").size());
+        assertFalse(_session.itemExists("/home/news"));
+
+        runInThread(() -> {
+            shared.attach();
+            assertSharedState();
+            return null;
+        });
+
+        shared.attach();
+        assertSharedState();
+    }
+
+    @Test
+    public void threadsReadInParallel() throws Exception {
+        SharedRepository shared = RepositoryMockUtils.freeze();
+        int threads = 4;
+        CountDownLatch latch = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String name = "page" + i;
+                results.add(executor.submit(() -> {
+                    shared.attach();
+                    mockNode("website", "/home/" + name, stubProperty("title", name));
+                    latch.countDown();
+                    latch.await(10, TimeUnit.SECONDS);
+                    assertEquals(3, _home.getNodes().getSize());
+                    assertTrue(_home.hasNode(name));
+                    assertEquals(1, SessionMockUtils.findNodes("website", "mgnl:page", "title", "News").size());
+                    assertEquals(name, _session.getProperty("/home/" + name + "/title").getString());
+                    assertEquals(4, SessionMockUtils.getWorkspaceIndex(_session).getNodesWithProperty("title").size());
+                    RepositoryMockUtils.cleanRepository();
+                    return null;
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(2, _home.getNodes().getSize());
+    }
+
+    @Test
+    public void sharedNodesAreNotRestubbed() throws RepositoryException {
+        RepositoryMockUtils.freeze();
+        assertThrows(IllegalStateException.class, () -> stubName("start").of(_home));
+        assertThrows(IllegalStateException.class, () -> SessionMockUtils.getEventDispatcher(_session).addEventListener(mock(EventListener.class), 31, "/", true, null, null));
+        assertThrows(IllegalStateException.class, RepositoryMockUtils::snapshot);
+        assertThrows(IllegalStateException.class, RepositoryMockUtils::freeze);
+        _home.setProperty("title", "Changed");
+        _session.save();
+        assertEquals("Changed", _home.getProperty("title").getString());
+    }
+
+    @Test
+    public void recordingMocksAreRejected() throws RepositoryException {
+        RepositoryMockUtils.setStubOnly(false);
+        mockNode("/home/contact");
+        assertThrows(IllegalStateException.class, RepositoryMockUtils::freeze);
+    }
+
+    @Test
+    public void detachedThreadReadsOnly() throws Exception {
+        RepositoryMockUtils.freeze();
+        runInThread(() -> {
+            assertEquals(2, _home.getNodes().getSize());
+            assertEquals("Home", _home.getProperty("title").getString());
+            assertThrows(IllegalStateException.class, () -> _home.setProperty("title", "Changed"));
+            return null;
+        });
+    }
+
+    private void assertSharedState() throws RepositoryException {
+        assertEquals("Home", _home.getProperty("title").getString());
+        assertEquals(2, _home.getNodes().getSize());
+        assertSame(_news, _session.getNode("/home/news"));
+        assertFalse(_session.itemExists("/home/events"));
+        assertTrue(SessionMockUtils.findNodes("website", "mgnl:page", "title", "Changed").isEmpty());
+        assertEquals(3, SessionMockUtils.findNodes("website", "mgnl:page").size());
+    }
+
+    private static void runInThread(Callable<Void> task) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(task).get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw (Exception) e.getCause();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
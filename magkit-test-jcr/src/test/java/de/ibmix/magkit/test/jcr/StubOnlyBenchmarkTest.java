@@ -0,0 +1,99 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * magkit-test-jcr Magnolia Module
+ * %%
+ * Copyright (C) 2023 - 2026 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares recording and {@link RepositoryMockUtils#setStubOnly(boolean) stub-only} node mocks for a large mock tree.
+ * <p>
+ * The benchmark mocks {@value #SECTIONS} sections with {@value #PAGES} pages each, every page with three properties,
+ * and then reads path and property values of all pages {@value #READS} times. It reports the time spent for mocking
+ * and reading and the heap still used afterwards. It is skipped unless the system property
+ * {@code magkit.test.jcr.benchmark=true} is set.
+ *
+ * @author agent@local
+ * @since 2026-10-17
+ */
+@EnabledIfSystemProperty(named = "magkit.test.jcr.benchmark", matches = "true")
+public class StubOnlyBenchmarkTest {
+
+    private static final int SECTIONS = 20;
+    private static final int PAGES = 100;
+    private static final int READS = 20;
+
+    @AfterEach
+    public void tearDown() {
+        RepositoryMockUtils.setStubOnly(false);
+        SessionMockUtils.cleanSession();
+    }
+
+    @Test
+    public void compareRecordingAndStubOnlyMocks() throws RepositoryException {
+        // warm up both modes before measuring
+        run(false);
+        run(true);
+        long recording = run(false);
+        long stubOnly = run(true);
+        assertEquals(recording, stubOnly);
+    }
+
+    private long run(final boolean stubOnly) throws RepositoryException {
+        SessionMockUtils.cleanSession();
+        RepositoryMockUtils.setStubOnly(stubOnly);
+        System.gc();
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        for (int s = 0; s < SECTIONS; s++) {
+            for (int p = 0; p < PAGES; p++) {
+                NodeMockUtils.mockNode("/root/section" + s + "/page" + p, stubProperty("title", "Page " + p), stubProperty("rank", String.valueOf(p)), stubProperty("hidden", "false"));
+            }
+        }
+        long mocked = System.nanoTime();
+        long checksum = 0;
+        for (int r = 0; r < READS; r++) {
+            for (int s = 0; s < SECTIONS; s++) {
+                for (int p = 0; p < PAGES; p++) {
+                    Node page = NodeMockUtils.mockNode("/root/section" + s + "/page" + p);
+                    checksum += page.getPath().length() + page.getDepth() + page.getProperty("title").getString().length() + page.getProperty("rank").getLong();
+                }
+            }
+        }
+        long read = System.nanoTime();
+        System.gc();
+        long heap = usedHeap() - heapBefore;
+        System.out.printf("%s: mock %d ms, read %d ms, heap %d MB%n", stubOnly ? "stub-only" : "recording", (mocked - start) / 1000000, (read - mocked) / 1000000, heap / (1024 * 1024));
+        return checksum;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -37,6 +37,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -290,6 +291,43 @@ public class ValueMockUtilsTest {
         expectValueFormatException("ref#getDate()", v::getDate);
     }
 
+    @Test
+    public void testPlainValuesConvertLazily() throws RepositoryException {
+        Value text = ValueMockUtils.mockValue("0x1G", PropertyType.STRING);
+        assertFalse(Mockito.mockingDetails(text).isMock());
+        assertEquals("0x1G", text.getString());
+        assertFalse(text.getBoolean());
+        expectValueFormatException("getLong()", text::getLong);
+        expectValueFormatException("getDecimal()", text::getDecimal);
+        expectValueFormatException("getDate()", text::getDate);
+
+        Value numeric = ValueMockUtils.mockValue("2.5", PropertyType.DOUBLE);
+        assertSame(numeric.getDecimal(), numeric.getDecimal());
+        assertSame(numeric.getDate(), numeric.getDate());
+        assertEquals(3L, numeric.getDate().getTimeInMillis());
+        assertFalse(Mockito.mockingDetails(ValueMockUtils.mockValue(Calendar.getInstance())).isMock());
+        assertFalse(Mockito.mockingDetails(ValueMockUtils.mockValue((Binary) null)).isMock());
+    }
+
+    @Test
+    public void testMockBackedValues() throws RepositoryException {
+        RepositoryMockUtils.setMockValues(true);
+        try {
+            Value v = ValueMockUtils.mockValue("5.9");
+            assertTrue(Mockito.mockingDetails(v).isMock());
+            assertEquals(6L, v.getLong());
+            expectValueFormatException("getBoolean()", () -> ValueMockUtils.mockValue(Calendar.getInstance()).getBoolean());
+            Mockito.verify(v).getLong();
+
+            Mockito.when(v.getString()).thenReturn("other");
+            assertEquals("other", v.toString());
+            Value binary = ValueMockUtils.mockValue(ValueMockUtils.mockBinary("data"));
+            assertNotNull(binary.getStream());
+        } finally {
+            RepositoryMockUtils.setMockValues(false);
+        }
+    }
+
     // Helper methods ---------------------------------------------------------
     private static void expectValueFormatException(String label, ThrowingAction invocation) {
         try {
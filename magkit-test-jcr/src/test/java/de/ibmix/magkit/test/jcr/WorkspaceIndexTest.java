@@ -0,0 +1,186 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubMixins;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubParent;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubType;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test the WorkspaceIndex and the index based lookups of SessionMockUtils.
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public class WorkspaceIndexTest {
+
+    private Node _home;
+    private Node _news;
+    private Node _about;
+
+    @BeforeEach
+    public void setUp() throws RepositoryException {
+        SessionMockUtils.cleanSession();
+        _home = mockNode("/home", stubType("mgnl:page"), stubProperty("hideInNav", false));
+        _news = mockNode("/home/news", stubType("mgnl:page"), stubProperty("hideInNav", true), stubProperty("tags", "a", "b"));
+        _about = mockNode("/home/about", stubType("mgnl:page"), stubProperty("hideInNav", false));
+        mockNode("/home/news/main", stubType("mgnl:area"));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SessionMockUtils.cleanSession();
+    }
+
+    @Test
+    public void findNodesWithoutIndex() throws RepositoryException {
+        assertNull(SessionMockUtils.getWorkspaceIndex(SessionMockUtils.mockSession("website")));
+        assertEquals(Arrays.asList(_home, _news, _about), SessionMockUtils.findNodes("website", "mgnl:page"));
+        assertEquals(Arrays.asList(_home, _about), SessionMockUtils.findNodes("website", "mgnl:page", "hideInNav", false));
+        assertEquals(Collections.singletonList(_news), SessionMockUtils.findNodes("website", null, "tags", "b"));
+        assertThrows(IllegalArgumentException.class, () -> SessionMockUtils.findNodes("website", null));
+    }
+
+    @Test
+    public void enableIndexBuildsFromRegisteredItems() throws RepositoryException {
+        WorkspaceIndex index = SessionMockUtils.enableIndex("website", "hideInNav", "tags");
+        assertSame(index, SessionMockUtils.getWorkspaceIndex(SessionMockUtils.mockSession("website")));
+        assertTrue(index.isIndexed("tags"));
+        assertFalse(index.isIndexed("title"));
+        assertEquals(Arrays.asList(_home, _news, _about), index.getNodesByType("mgnl:page"));
+        assertEquals(4, index.getNodesByType("mgnl:content").size() + index.getNodesByType("mgnl:contentNode").size());
+        assertEquals(5, index.getNodesByType("nt:base").size());
+        assertEquals(Arrays.asList(_home, _about), index.getNodesByProperty("hideInNav", false));
+        assertEquals(Collections.singletonList(_news), index.getNodesByProperty("tags", "a"));
+        assertEquals(Arrays.asList(_home, _news, _about), index.getNodesWithProperty("hideInNav"));
+        assertEquals(Collections.emptyList(), index.getNodesByProperty("title", "x"));
+
+        assertEquals(Arrays.asList(_home, _about), SessionMockUtils.findNodes("website", "mgnl:page", "hideInNav", "false"));
+        assertEquals("/home/news/main", SessionMockUtils.findNodes("website", "mgnl:area").get(0).getPath());
+    }
+
+    @Test
+    public void numbersAreComparedByValue() throws RepositoryException {
+        stubProperty("rank", 1.0d).of(_home);
+        stubProperty("rank", 2L).of(_news);
+        assertEquals(Collections.singletonList(_home), SessionMockUtils.findNodes("website", null, "rank", 1));
+        assertEquals(Collections.singletonList(_news), SessionMockUtils.findNodes("website", null, "rank", 2.0d));
+
+        WorkspaceIndex index = SessionMockUtils.enableIndex("website", "rank", "hideInNav");
+        assertTrue(index.hasOnlyNumericValues("rank"));
+        assertFalse(index.hasNumericValues("hideInNav"));
+        assertEquals(Collections.singletonList(_home), index.getNodesByProperty("rank", 1L));
+        assertEquals(Collections.singletonList(_home), SessionMockUtils.findNodes("website", null, "rank", 1));
+        assertEquals(Collections.singletonList(_news), SessionMockUtils.findNodes("website", null, "rank", new BigDecimal("2.00")));
+
+        stubProperty("rank", "3").of(_about);
+        assertTrue(index.hasNumericValues("rank"));
+        assertFalse(index.hasOnlyNumericValues("rank"));
+    }
+
+    @Test
+    public void indexIsUpdatedByStubbings() throws RepositoryException {
+        WorkspaceIndex index = SessionMockUtils.enableIndex("website", "hideInNav");
+        stubProperty("hideInNav", true).of(_home);
+        assertEquals(Collections.singletonList(_about), index.getNodesByProperty("hideInNav", false));
+        assertEquals(Arrays.asList(_news, _home), index.getNodesByProperty("hideInNav", true));
+
+        stubType("mgnl:folder").of(_about);
+        assertEquals(Arrays.asList(_home, _news), index.getNodesByType("mgnl:page"));
+        assertEquals(Collections.singletonList(_about), index.getNodesByType("nt:folder"));
+        stubMixins("mix:versionable").of(_about);
+        assertTrue(index.getNodesByType("mix:referenceable").contains(_about));
+        assertEquals(Collections.singletonList(_about), index.getNodesByType("mix:simpleVersionable"));
+
+        Node contact = mockNode("/contact", stubType("mgnl:page"), stubProperty("hideInNav", false));
+        assertEquals(Arrays.asList(_about, contact), index.getNodesByProperty("hideInNav", false));
+        stubNode(mockNode("/other", stubType("mgnl:page"))).of(contact);
+        assertEquals("/contact/other", index.getNodesByType("mgnl:page").get(3).getPath());
+
+        stubParent(_about).of(contact);
+        assertEquals("/home/about/contact/other", index.getNodesByType("mgnl:page").get(3).getPath());
+
+        _news.remove();
+        assertEquals(Arrays.asList(_home, contact, contact.getNode("other")), index.getNodesByType("mgnl:page"));
+        assertEquals(Collections.singletonList(_home), index.getNodesByProperty("hideInNav", true));
+        assertEquals(Collections.emptyList(), index.getNodesByType("mgnl:area"));
+
+        _about.getProperty("hideInNav").remove();
+        assertEquals(Collections.singletonList(contact), index.getNodesByProperty("hideInNav", false));
+    }
+
+    @Test
+    public void layerDoesNotChangeBaseMap() {
+        Map<String, List<String>> base = new LinkedHashMap<>();
+        base.put("a", new ArrayList<>(Collections.singletonList("1")));
+        base.put("b", new ArrayList<>(Collections.singletonList("2")));
+        WorkspaceIndex.OverlayMap<String, List<String>> layer = new WorkspaceIndex.OverlayMap<>(base);
+
+        layer.getWritable("a", ArrayList::new, ArrayList::new).add("3");
+        layer.getWritable("c", ArrayList::new, ArrayList::new).add("4");
+        layer.remove("b");
+        assertNull(layer.getWritable("d", ArrayList::new, null));
+        assertEquals(Arrays.asList("1", "3"), layer.get("a"));
+        assertFalse(layer.containsKey("b"));
+        assertEquals(Arrays.asList("a", "c"), new ArrayList<>(layer.keySet()));
+        assertEquals(2, layer.size());
+        assertEquals(Collections.singletonList("1"), base.get("a"));
+        assertEquals(2, base.size());
+
+        layer.put("b", Collections.singletonList("5"));
+        assertEquals(Arrays.asList("a", "b", "c"), new ArrayList<>(layer.keySet()));
+        layer.clear();
+        assertTrue(layer.isEmpty());
+        assertEquals(2, base.size());
+    }
+
+    @Test
+    public void findNodesWithIndex() throws RepositoryException {
+        SessionMockUtils.enableIndex("website", "hideInNav");
+        List<Node> visible = SessionMockUtils.findNodes("website", "mgnl:page", "hideInNav", false);
+        assertEquals(Arrays.asList(_home, _about), visible);
+        assertEquals(Collections.singletonList(_news), SessionMockUtils.findNodes("website", null, "tags", "a"));
+        assertEquals(Collections.emptyList(), SessionMockUtils.findNodes("website", "mgnl:area", "hideInNav", true));
+    }
+}
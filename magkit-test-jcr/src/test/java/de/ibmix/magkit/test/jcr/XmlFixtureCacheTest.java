@@ -0,0 +1,142 @@
+package de.ibmix.magkit.test.jcr;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Test the XmlFixtureCache.
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public class XmlFixtureCacheTest {
+
+    private long _maxWeight;
+
+    @BeforeEach
+    public void setUp() {
+        _maxWeight = XmlFixtureCache.getMaxWeight();
+        XmlFixtureCache.clear();
+        SessionMockUtils.cleanSession();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        XmlFixtureCache.setMaxWeight(_maxWeight);
+        XmlFixtureCache.clear();
+        SessionMockUtils.cleanSession();
+    }
+
+    @Test
+    public void mockNodeFromXmlUsesCache() throws RepositoryException {
+        URL fixture = getClass().getResource("website.aha.de.rezeptseiten.streusselkuchen.xml");
+        Node first = NodeMockUtils.mockNodeFromXml("website", fixture);
+        assertEquals(0, XmlFixtureCache.getHitCount());
+        assertEquals(1, XmlFixtureCache.getMissCount());
+        assertEquals(1, XmlFixtureCache.getEntryCount());
+        assertTrue(XmlFixtureCache.getWeight() > 0);
+
+        SessionMockUtils.cleanSession();
+        Node second = NodeMockUtils.mockNodeFromXml("website", fixture);
+        assertEquals(1, XmlFixtureCache.getHitCount());
+        assertEquals(0.5, XmlFixtureCache.getHitRate());
+        assertNotSame(first, second);
+        assertEquals(first.getPath(), second.getPath());
+        assertEquals(first.getIdentifier(), second.getIdentifier());
+        assertEquals(first.getPrimaryNodeType().getName(), second.getPrimaryNodeType().getName());
+        assertEquals(first.getNodes().getSize(), second.getNodes().getSize());
+        assertEquals(first.getProperty("title").getString(), second.getProperty("title").getString());
+    }
+
+    @Test
+    public void streamsAreCachedByContent() throws RepositoryException {
+        NodeMockUtils.mockNodeFromXml("website", toStream(xml("page", "Title")));
+        NodeMockUtils.mockNodeFromXml("website", toStream(xml("page", "Title")));
+        Node other = NodeMockUtils.mockNodeFromXml("website", toStream(xml("page", "Other")));
+
+        assertEquals(1, XmlFixtureCache.getHitCount());
+        assertEquals(2, XmlFixtureCache.getMissCount());
+        assertEquals(2, XmlFixtureCache.getEntryCount());
+        assertEquals("Other", other.getProperty("title").getString());
+    }
+
+    @Test
+    public void setMaxWeightEvictsLeastRecentlyUsed() {
+        NodeMockUtils.mockNodeFromXml("website", toStream(xml("first", "1")));
+        NodeMockUtils.mockNodeFromXml("website", toStream(xml("second", "2")));
+        NodeMockUtils.mockNodeFromXml("website", toStream(xml("first", "1")));
+        assertEquals(2, XmlFixtureCache.getEntryCount());
+
+        XmlFixtureCache.setMaxWeight(XmlFixtureCache.getWeight() - 1);
+        assertEquals(1, XmlFixtureCache.getEntryCount());
+        NodeMockUtils.mockNodeFromXml("website", toStream(xml("first", "1")));
+        assertEquals(2, XmlFixtureCache.getHitCount());
+
+        XmlFixtureCache.setMaxWeight(0);
+        assertEquals(0, XmlFixtureCache.getEntryCount());
+        assertEquals(0, XmlFixtureCache.getWeight());
+        NodeMockUtils.mockNodeFromXml("website", toStream(xml("first", "1")));
+        assertEquals(0, XmlFixtureCache.getEntryCount());
+        assertEquals(3, XmlFixtureCache.getMissCount());
+    }
+
+    @Test
+    public void contentLargerThanMaxWeightIsStreamed() throws RepositoryException {
+        String xml = xml("large", "Large");
+        XmlFixtureCache.setMaxWeight(xml.length() / 2);
+        ByteArrayInputStream in = toStream(xml);
+        Node large = NodeMockUtils.mockNodeFromXml("website", in);
+
+        assertEquals("Large", large.getProperty("title").getString());
+        assertEquals(0, in.available());
+        assertEquals(0, XmlFixtureCache.getEntryCount());
+        assertEquals(1, XmlFixtureCache.getMissCount());
+
+        XmlFixtureCache.setMaxWeight(_maxWeight);
+        NodeMockUtils.mockNodeFromXml("website", toStream(xml));
+        assertEquals(1, XmlFixtureCache.getEntryCount());
+    }
+
+    private static String xml(String name, String title) {
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+            + "<sv:node sv:name=\"" + name + "\" xmlns:sv=\"http://www.jcp.org/jcr/sv/1.0\">"
+            + "<sv:property sv:name=\"jcr:primaryType\" sv:type=\"Name\"><sv:value>mgnl:page</sv:value></sv:property>"
+            + "<sv:property sv:name=\"title\" sv:type=\"String\"><sv:value>" + title + "</sv:value></sv:property>"
+            + "</sv:node>";
+    }
+
+    private static ByteArrayInputStream toStream(String xml) {
+        return new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -26,12 +26,16 @@ package de.ibmix.magkit.test.jcr.observation;
  * @author wolf.bubenik@ibmix.de
  * @since 2013-12-06
  */
+import de.ibmix.magkit.test.jcr.EventDispatcher;
+import de.ibmix.magkit.test.jcr.SessionMockUtils;
 import org.junit.jupiter.api.Test;
 
 import javax.jcr.RepositoryException;
+import javax.jcr.observation.Event;
 import javax.jcr.observation.EventJournal;
 import javax.jcr.observation.EventListener;
 import javax.jcr.observation.ObservationManager;
+import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -59,6 +63,21 @@ public class ObservationManagerStubbingOperationTest {
         assertTrue(manager.getRegisteredEventListeners().hasNext());
     }
 
+    @Test
+    public void stubEventDispatch() throws RepositoryException {
+        SessionMockUtils.cleanSession();
+        EventDispatcher dispatcher = SessionMockUtils.getEventDispatcher(SessionMockUtils.mockSession("website"));
+        ObservationManager manager = mock(ObservationManager.class);
+        ObservationManagerStubbingOperation.stubEventDispatch(dispatcher).of(manager);
+        EventListener listener = mock(EventListener.class);
+        manager.addEventListener(listener, Event.NODE_ADDED, "/", true, null, null, false);
+        assertEquals(Collections.singletonList(listener), dispatcher.getEventListeners());
+        assertEquals(listener, manager.getRegisteredEventListeners().nextEventListener());
+        manager.removeEventListener(listener);
+        assertFalse(manager.getRegisteredEventListeners().hasNext());
+        SessionMockUtils.cleanSession();
+    }
+
     @Test
     public void stubEventJournal() throws RepositoryException {
         ObservationManager manager = mock(ObservationManager.class);
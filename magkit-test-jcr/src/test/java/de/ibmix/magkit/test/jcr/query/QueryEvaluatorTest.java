@@ -0,0 +1,272 @@
+package de.ibmix.magkit.test.jcr.query;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.test.jcr.SessionMockUtils;
+import org.apache.jackrabbit.api.query.JackrabbitQueryResult;
+import org.apache.jackrabbit.util.ISO8601;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.NodeIterator;
+import javax.jcr.RepositoryException;
+import javax.jcr.Session;
+import javax.jcr.query.InvalidQueryException;
+import javax.jcr.query.Query;
+import javax.jcr.query.QueryManager;
+import javax.jcr.query.Row;
+import javax.jcr.query.RowIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubType;
+import static de.ibmix.magkit.test.jcr.SessionMockUtils.mockSession;
+import static de.ibmix.magkit.test.jcr.ValueMockUtils.mockValue;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Testing the in-memory query evaluation of QueryMockUtils.
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public class QueryEvaluatorTest {
+
+    private QueryManager _queryManager;
+
+    @BeforeEach
+    public void setUp() throws RepositoryException {
+        SessionMockUtils.cleanSession();
+        mockNode("/home", stubType("mgnl:page"), stubProperty("title", "Home"), stubProperty("hideInNav", false), stubProperty("rank", 3L));
+        mockNode("/home/news", stubType("mgnl:page"), stubProperty("title", "News"), stubProperty("hideInNav", true), stubProperty("rank", 1L),
+            stubProperty("date", ISO8601.parse("2024-05-01T10:00:00.000Z")));
+        mockNode("/home/news/main", stubType("mgnl:area"));
+        mockNode("/home/news/main/0", stubType("mgnl:component"), stubProperty("text", "Breaking news"), stubProperty("tags", "a", "b"));
+        mockNode("/home/about", stubType("mgnl:page"), stubProperty("title", "About us"), stubProperty("hideInNav", false), stubProperty("rank", 2L),
+            stubProperty("date", ISO8601.parse("2023-01-01T10:00:00.000Z")));
+        mockNode("/other", stubType("mgnl:page"), stubProperty("title", "Other"), stubProperty("rank", 4L));
+        mockNode("/folder", stubType("mgnl:folder"));
+        _queryManager = QueryMockUtils.mockEvaluatingQueryManager("website");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SessionMockUtils.cleanSession();
+    }
+
+    @Test
+    public void sql2NodeTypeAndPath() throws RepositoryException {
+        assertEquals(Arrays.asList("/home", "/home/news", "/home/about", "/other"), sql2("SELECT * FROM [mgnl:page]"));
+        assertEquals(Arrays.asList("/home", "/home/news", "/home/about", "/other"), sql2("SELECT * FROM [mgnl:content] AS c"));
+        assertEquals(Collections.singletonList("/folder"), sql2("SELECT * FROM [nt:folder] WHERE ISDESCENDANTNODE([/])"));
+        assertEquals(Arrays.asList("/home/news", "/home/news/main/0", "/home/about"), sql2("SELECT * FROM [mix:referenceable] WHERE ISDESCENDANTNODE('/home') AND NOT ISSAMENODE([/home/news/main])"));
+        assertEquals(Arrays.asList("/home/news", "/home/about"), sql2("SELECT p.* FROM [nt:base] AS p WHERE ISCHILDNODE(p, [/home])"));
+        assertEquals(Arrays.asList("/home/news", "/home/about"), sql2("SELECT * FROM [mgnl:page] WHERE ISCHILDNODE([mgnl:page], [/home])"));
+        assertEquals(Collections.singletonList("/home/news/main"), sql2("SELECT * FROM [nt:base] WHERE ISSAMENODE('/home/news/main')"));
+        assertEquals(Collections.emptyList(), sql2("SELECT * FROM [nt:base] WHERE ISDESCENDANTNODE('/unknown')"));
+    }
+
+    @Test
+    public void sql2Conditions() throws RepositoryException {
+        assertEquals(Arrays.asList("/home", "/home/about"), sql2("SELECT * FROM [mgnl:page] WHERE hideInNav = false"));
+        assertEquals(Arrays.asList("/home", "/other"), sql2("SELECT * FROM [mgnl:page] AS p WHERE p.[rank] > 2"));
+        assertEquals(Arrays.asList("/home/news", "/home/about"), sql2("SELECT * FROM [mgnl:page] WHERE [rank] <= 2 OR title = 'Other' AND rank < 4"));
+        assertEquals(Collections.singletonList("/home/about"), sql2("SELECT * FROM [mgnl:page] WHERE title LIKE 'About%' AND (rank = 2 OR rank = 5)"));
+        assertEquals(Arrays.asList("/home/news", "/home/about"), sql2("SELECT * FROM [mgnl:page] WHERE date IS NOT NULL"));
+        assertEquals(Arrays.asList("/home", "/other"), sql2("SELECT * FROM [mgnl:page] WHERE date IS NULL"));
+        assertEquals(Collections.singletonList("/home/news"), sql2("SELECT * FROM [mgnl:page] WHERE date > CAST('2024-01-01T00:00:00.000Z' AS DATE)"));
+        assertEquals(Collections.singletonList("/home/news"), sql2("SELECT * FROM [mgnl:page] WHERE LOWER(title) = 'news' AND NAME() = 'news'"));
+        assertEquals(Collections.singletonList("/home/news/main/0"), sql2("SELECT * FROM [mgnl:component] WHERE tags = 'b' AND text <> 'x'"));
+        assertEquals(Collections.singletonList("/home/news/main/0"), sql2("SELECT * FROM [nt:base] WHERE [text] LIKE '%news'"));
+    }
+
+    @Test
+    public void sql2OrderingLimitAndOffset() throws RepositoryException {
+        assertEquals(Arrays.asList("/other", "/home", "/home/about", "/home/news"), sql2("SELECT * FROM [mgnl:page] ORDER BY rank DESC"));
+        assertEquals(Arrays.asList("/home/about", "/home", "/home/news", "/other"), sql2("SELECT * FROM [mgnl:page] ORDER BY [title]"));
+        assertEquals(Arrays.asList("/other", "/home", "/home/about", "/home/news"), sql2("SELECT * FROM [mgnl:page] ORDER BY date ASC, rank DESC"));
+        assertEquals(Arrays.asList("/home/about", "/home"), sql2("SELECT * FROM [mgnl:page] ORDER BY rank LIMIT 2 OFFSET 1"));
+        assertEquals(Arrays.asList("/home/news", "/home/about"), sql2("SELECT * FROM [mgnl:page] LIMIT 2 OFFSET 1"));
+
+        Query query = _queryManager.createQuery("SELECT * FROM [mgnl:page] ORDER BY rank", Query.JCR_SQL2);
+        query.setLimit(1);
+        query.setOffset(3);
+        assertEquals(Collections.singletonList("/other"), toPaths(query.execute().getNodes()));
+        assertEquals(4, ((JackrabbitQueryResult) query.execute()).getTotalSize());
+        query.setLimit(0);
+        assertEquals(Collections.emptyList(), toPaths(query.execute().getNodes()));
+    }
+
+    @Test
+    public void bindVariables() throws RepositoryException {
+        Query query = _queryManager.createQuery("SELECT * FROM [mgnl:page] WHERE title LIKE $pattern AND rank >= $rank", Query.JCR_SQL2);
+        assertArrayEquals(new String[]{"pattern", "rank"}, query.getBindVariableNames());
+        assertThrows(InvalidQueryException.class, query::execute);
+        assertThrows(IllegalArgumentException.class, () -> query.bindValue("unknown", mockValue("x")));
+
+        query.bindValue("pattern", mockValue("%e%"));
+        query.bindValue("rank", mockValue(3L));
+        assertEquals(Arrays.asList("/home", "/other"), toPaths(query.execute().getNodes()));
+        query.bindValue("rank", mockValue(4L));
+        assertEquals(Collections.singletonList("/other"), toPaths(query.execute().getNodes()));
+    }
+
+    @Test
+    public void xpath() throws RepositoryException {
+        assertEquals(Arrays.asList("/home", "/home/news", "/home/about", "/other"), xpath("//element(*, mgnl:page)"));
+        assertEquals(Arrays.asList("/home/news", "/home/about"), xpath("/jcr:root/home//element(*, mgnl:page)"));
+        assertEquals(Arrays.asList("/home/news", "/home/about"), xpath("/jcr:root/home/*"));
+        assertEquals(Collections.singletonList("/home/news"), xpath("/jcr:root/home/news"));
+        assertEquals(Collections.singletonList("/home/news/main/0"), xpath("/jcr:root/home//element(*, mgnl:component)[@tags = 'a']"));
+        assertEquals(Arrays.asList("/home", "/home/about"), xpath("//element(*, mgnl:page)[@hideInNav = false()]"));
+        assertEquals(Arrays.asList("/home/news", "/home/about"), xpath("//element(*, mgnl:page)[@date and not(@rank gt 2)]"));
+        assertEquals(Collections.singletonList("/home/about"), xpath("//element(*, mgnl:page)[jcr:like(fn:lower-case(@title), 'about%') or @rank = -1]"));
+        assertEquals(Collections.singletonList("/home/news"), xpath("//*[@date >= xs:dateTime('2024-01-01T00:00:00.000Z')]"));
+        assertEquals(Arrays.asList("/other", "/home", "/home/about", "/home/news"), xpath("//element(*, mgnl:page) order by @rank descending"));
+        assertEquals(Collections.singletonList("/home/news"), xpath("//element(news, mgnl:page)"));
+    }
+
+    @Test
+    public void queriesUseWorkspaceIndex() throws RepositoryException {
+        SessionMockUtils.enableIndex("website", "hideInNav", "title");
+        assertEquals(Arrays.asList("/home", "/home/about"), sql2("SELECT * FROM [mgnl:page] WHERE hideInNav = false"));
+        assertEquals(Collections.singletonList("/home/about"), sql2("SELECT * FROM [mgnl:page] WHERE ISDESCENDANTNODE('/home') AND hideInNav = false"));
+        assertEquals(Collections.singletonList("/other"), xpath("//element(*, mgnl:page)[@title = 'Other' or @rank = 4]"));
+        assertEquals(Collections.singletonList("/home/news/main/0"), sql2("SELECT * FROM [mgnl:component]"));
+
+        mockNode("/home/contact", stubType("mgnl:page"), stubProperty("title", "Contact"), stubProperty("hideInNav", false));
+        assertEquals(Arrays.asList("/home", "/home/about", "/home/contact"), sql2("SELECT * FROM [mgnl:page] WHERE hideInNav = false"));
+        assertEquals(Collections.singletonList("/home/contact"), sql2("SELECT * FROM [mgnl:page] WHERE title = 'Contact' AND ISCHILDNODE('/home')"));
+    }
+
+    @Test
+    public void indexedNumbersAreComparedByValue() throws RepositoryException {
+        mockNode("/home/news", stubProperty("rank", 1.0d));
+        assertEquals(Collections.singletonList("/home/news"), sql2("SELECT * FROM [mgnl:page] WHERE rank = 1"));
+        SessionMockUtils.enableIndex("website", "rank");
+        assertEquals(Collections.singletonList("/home/news"), sql2("SELECT * FROM [mgnl:page] WHERE rank = 1"));
+        assertEquals(Collections.singletonList("/home/news"), sql2("SELECT * FROM [mgnl:page] WHERE rank = '1.0'"));
+        assertEquals(Collections.singletonList("/home/about"), xpath("//element(*, mgnl:page)[@rank = 2.0]"));
+
+        mockNode("/home/contact", stubType("mgnl:page"), stubProperty("rank", "01"));
+        assertEquals(Collections.singletonList("/home/news"), sql2("SELECT * FROM [mgnl:page] WHERE rank = 1"));
+        assertEquals(Arrays.asList("/home/news", "/home/contact"), sql2("SELECT * FROM [mgnl:page] WHERE rank = '01'"));
+    }
+
+    @Test
+    public void fullTextConstraints() throws RepositoryException {
+        assertEquals(Arrays.asList("/home/news", "/home/news/main/0"), sql2("SELECT * FROM [nt:base] WHERE CONTAINS(*, 'NEWS')"));
+        assertEquals(Collections.singletonList("/home/about"), sql2("SELECT * FROM [mgnl:page] AS p WHERE CONTAINS(p.title, 'about')"));
+        assertEquals(Collections.singletonList("/home/news/main/0"), sql2("SELECT * FROM [nt:base] AS s WHERE CONTAINS(s.*, '\"breaking news\"')"));
+        assertEquals(Collections.emptyList(), sql2("SELECT * FROM [nt:base] WHERE CONTAINS(*, '\"news breaking\"')"));
+        assertEquals(Collections.singletonList("/home/news"), sql2("SELECT * FROM [nt:base] WHERE CONTAINS(*, 'news -breaking')"));
+        assertEquals(Arrays.asList("/home/about", "/other"), sql2("SELECT * FROM [nt:base] WHERE CONTAINS([title], 'us OR other')"));
+        assertEquals(Collections.singletonList("/home/news/main/0"), sql2("SELECT * FROM [nt:base] WHERE CONTAINS(*, 'brea*') AND text IS NOT NULL"));
+        assertEquals(Arrays.asList("/home/news", "/home/news/main/0"), xpath("//*[jcr:contains(., 'news')]"));
+        assertEquals(Collections.singletonList("/home/about"), xpath("//element(*, mgnl:page)[jcr:contains(@title, 'us')]"));
+
+        Query query = _queryManager.createQuery("SELECT * FROM [nt:base] AS s WHERE CONTAINS(*, $q) ORDER BY SCORE() DESC", Query.JCR_SQL2);
+        query.bindValue("q", mockValue("news"));
+        RowIterator rows = query.execute().getRows();
+        Row first = rows.nextRow();
+        Row second = rows.nextRow();
+        assertEquals("/home/news", first.getPath());
+        assertEquals(1.0, first.getScore());
+        assertEquals(1.0, first.getScore("s"));
+        assertEquals("/home/news/main/0", second.getPath());
+        assertEquals(0.25, second.getScore());
+        query.bindValue("q", mockValue("breaking"));
+        assertEquals(Collections.singletonList("/home/news/main/0"), toPaths(query.execute().getNodes()));
+    }
+
+    @Test
+    public void fullTextQueriesUseFullTextIndex() throws RepositoryException {
+        SessionMockUtils.enableFullTextIndex("website");
+        assertEquals(Arrays.asList("/home/news", "/home/news/main/0"), sql2("SELECT * FROM [nt:base] WHERE CONTAINS(*, 'news')"));
+        assertEquals(Collections.singletonList("/home/news/main/0"), sql2("SELECT * FROM [nt:base] WHERE CONTAINS(*, 'brea*')"));
+        mockNode("/home/news", stubProperty("title", "Old"));
+        mockNode("/home/events", stubType("mgnl:page"), stubProperty("title", "News and events"));
+        assertEquals(Arrays.asList("/home/news/main/0", "/home/events"), sql2("SELECT * FROM [nt:base] WHERE CONTAINS(*, 'news')"));
+        assertEquals(Collections.singletonList("/home/events"), xpath("//element(*, mgnl:page)[jcr:contains(., 'news')]"));
+    }
+
+    @Test
+    public void invalidStatements() {
+        assertThrows(InvalidQueryException.class, () -> _queryManager.createQuery("SELECT * FROM [nt:base] AS a INNER JOIN [nt:base] AS b ON ISCHILDNODE(a, b)", Query.JCR_SQL2));
+        assertThrows(InvalidQueryException.class, () -> _queryManager.createQuery("SELECT * FROM [nt:base] WHERE title = 'unterminated", Query.JCR_SQL2));
+        assertThrows(InvalidQueryException.class, () -> _queryManager.createQuery("SELECT * FROM [nt:base] WHERE", Query.JCR_SQL2));
+        assertThrows(InvalidQueryException.class, () -> _queryManager.createQuery("SELECT * FROM [nt:base] WHERE title ~ 'x'", Query.JCR_SQL2));
+        assertThrows(InvalidQueryException.class, () -> _queryManager.createQuery("SELECT * FROM [nt:base] WHERE CONTAINS(*, '-x')", Query.JCR_SQL2));
+        assertThrows(InvalidQueryException.class, () -> _queryManager.createQuery("select * from nt:base", "sql"));
+        assertThrows(InvalidQueryException.class, () -> _queryManager.createQuery("SELECT * FROM [mgnl:page] AS p WHERE ISDESCENDANTNODE(x, [/home])", Query.JCR_SQL2));
+        assertThrows(InvalidQueryException.class, () -> _queryManager.createQuery("SELECT * FROM [nt:base] WHERE CONTAINS(s.*, 'news')", Query.JCR_SQL2));
+        assertThrows(InvalidQueryException.class, () -> _queryManager.createQuery("SELECT * FROM [mgnl:page] AS p WHERE q.title = 'x'", Query.JCR_SQL2));
+        assertThrows(InvalidQueryException.class, () -> _queryManager.createQuery("SELECT * FROM [mgnl:page] AS p ORDER BY NAME(q)", Query.JCR_SQL2));
+        assertThrows(InvalidQueryException.class, () -> _queryManager.createQuery("//*[jcr:contains(., '\"x')]", Query.XPATH));
+        assertThrows(InvalidQueryException.class, () -> _queryManager.createQuery("//element(*, mgnl:area)/*", Query.XPATH));
+        assertThrows(InvalidQueryException.class, () -> _queryManager.createQuery("/content", Query.XPATH));
+    }
+
+    @Test
+    public void stubbedQueriesTakePrecedence() throws RepositoryException {
+        Node other = mockNode("/other");
+        QueryMockUtils.mockQueryResult("website", Query.JCR_SQL2, "SELECT * FROM [mgnl:page]", other);
+        assertEquals(Collections.singletonList("/other"), sql2("SELECT * FROM [mgnl:page]"));
+        assertEquals(Arrays.asList("/home/news", "/home/about"), sql2("SELECT * FROM [mgnl:page] WHERE ISCHILDNODE('/home')"));
+
+        String join = "SELECT * FROM [nt:base] AS a INNER JOIN [nt:base] AS b ON ISCHILDNODE(a, b)";
+        QueryMockUtils.mockQueryResult("website", Query.JCR_SQL2, join, other);
+        assertEquals(Collections.singletonList("/other"), sql2(join));
+        QueryMockUtils.mockQueryResult("website", "sql", "select * from nt:base", other);
+        assertEquals(Collections.singletonList("/other"), toPaths(_queryManager.createQuery("select * from nt:base", "sql").execute().getNodes()));
+        assertThrows(InvalidQueryException.class, () -> _queryManager.createQuery("select * from mgnl:page", "sql"));
+
+        Session dam = mockSession("dam");
+        mockNode("dam", "/asset", stubType("mgnl:asset"));
+        QueryManager damQueryManager = QueryMockUtils.mockEvaluatingQueryManager("dam");
+        assertEquals(damQueryManager, dam.getWorkspace().getQueryManager());
+        assertEquals(Collections.singletonList("/asset"), toPaths(damQueryManager.createQuery("SELECT * FROM [mgnl:content]", Query.JCR_SQL2).execute().getNodes()));
+    }
+
+    private List<String> sql2(String statement) throws RepositoryException {
+        return toPaths(_queryManager.createQuery(statement, Query.JCR_SQL2).execute().getNodes());
+    }
+
+    private List<String> xpath(String statement) throws RepositoryException {
+        return toPaths(_queryManager.createQuery(statement, Query.XPATH).execute().getNodes());
+    }
+
+    private static List<String> toPaths(NodeIterator nodes) throws RepositoryException {
+        List<String> result = new ArrayList<>();
+        while (nodes.hasNext()) {
+            result.add(nodes.nextNode().getPath());
+        }
+        return result;
+    }
+}
@@ -22,6 +22,7 @@ package de.ibmix.magkit.test.jcr.query;
 
 import de.ibmix.magkit.test.jcr.RowStubbingOperation;
 import de.ibmix.magkit.test.jcr.SessionMockUtils;
+import org.apache.jackrabbit.api.query.JackrabbitQueryResult;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -33,6 +34,10 @@ import javax.jcr.query.QueryManager;
 import javax.jcr.query.QueryResult;
 import javax.jcr.query.Row;
 import javax.jcr.query.RowIterator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
 import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
@@ -410,4 +415,55 @@ public class QueryMockUtilsTest {
 
         assertFalse(qr.getNodes().hasNext());
     }
+
+    @Test
+    public void lazyQueryResult() throws RepositoryException {
+        List<Integer> created = new ArrayList<>();
+        JackrabbitQueryResult qr = QueryMockUtils.mockQueryResult(100_000, i -> {
+            created.add(i);
+            return mockNode("/page-" + i);
+        });
+        assertEquals(100_000, qr.getTotalSize());
+
+        NodeIterator nodes = qr.getNodes();
+        assertEquals(100_000, nodes.getSize());
+        nodes.skip(99_990);
+        assertEquals(99_990, nodes.getPosition());
+        assertEquals("/page-99990", nodes.nextNode().getPath());
+        assertThrows(NoSuchElementException.class, () -> nodes.skip(10));
+        assertEquals(Collections.singletonList(99_990), created);
+
+        RowIterator rows = qr.getRows();
+        assertEquals(100_000, rows.getSize());
+        rows.skip(99_990);
+        Row row = rows.nextRow();
+        assertEquals("/page-99990", row.getPath());
+        assertEquals(Collections.singletonList(99_990), created);
+        RowIterator again = qr.getRows();
+        again.skip(99_990);
+        assertSame(row, again.nextRow());
+    }
+
+    @Test
+    public void stubbedQueryAppliesLimitAndOffset() throws RepositoryException {
+        Node node1 = mockNode("node1");
+        Node node2 = mockNode("node2");
+        Node node3 = mockNode("node3");
+        JackrabbitQueryResult qr = QueryMockUtils.mockQueryResult("test", Query.JCR_SQL2, "SELECT * FROM [nt:base]", node1, node2, node3);
+        Query query = mockSession("test").getWorkspace().getQueryManager().createQuery("SELECT * FROM [nt:base]", Query.JCR_SQL2);
+        assertSame(qr, query.execute());
+
+        query.setOffset(1);
+        query.setLimit(1);
+        JackrabbitQueryResult page = (JackrabbitQueryResult) query.execute();
+        assertEquals(3, page.getTotalSize());
+        NodeIterator nodes = page.getNodes();
+        assertEquals(1, nodes.getSize());
+        assertEquals(node2, nodes.nextNode());
+        assertFalse(nodes.hasNext());
+        assertSame(qr.getRows().nextRow(), qr.getRows().nextRow());
+
+        query.setOffset(5);
+        assertFalse(query.execute().getRows().hasNext());
+    }
 }
@@ -0,0 +1,129 @@
+package de.ibmix.magkit.test.jcr.query;
+
+/*-
+ * #%L
+ * Aperto Mockito Test-Utils - JCR
+ * %%
+ * Copyright (C) 2023 IBM iX
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import de.ibmix.magkit.test.jcr.SessionMockUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+import javax.jcr.query.Query;
+import javax.jcr.query.QueryManager;
+import javax.jcr.query.QueryResult;
+
+import static de.ibmix.magkit.test.jcr.NodeMockUtils.mockNode;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubProperty;
+import static de.ibmix.magkit.test.jcr.NodeStubbingOperation.stubType;
+import static de.ibmix.magkit.test.jcr.ValueMockUtils.mockValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Testing the QueryResultCache.
+ *
+ * @author agent@local
+ * @since 2026-10-16
+ */
+public class QueryResultCacheTest {
+
+    private QueryResultCache _cache;
+    private QueryManager _queryManager;
+
+    @BeforeEach
+    public void setUp() throws RepositoryException {
+        SessionMockUtils.cleanSession();
+        mockNode("/home", stubType("mgnl:page"), stubProperty("rank", 1L));
+        mockNode("/home/news", stubType("mgnl:page"), stubProperty("rank", 2L));
+        _cache = new QueryResultCache();
+        _queryManager = QueryMockUtils.mockEvaluatingQueryManager("website", _cache);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SessionMockUtils.cleanSession();
+    }
+
+    @Test
+    public void repeatedQueriesAreAnsweredFromCache() throws RepositoryException {
+        QueryResult first = execute("SELECT * FROM [mgnl:page] WHERE rank > $rank", 1L, -1);
+        assertSame(first, execute("SELECT *\n  FROM [mgnl:page]   WHERE rank>$rank", 1L, -1));
+        assertNotSame(first, execute("SELECT * FROM [mgnl:page] WHERE rank > $rank", 0L, -1));
+        assertNotSame(first, execute("SELECT * FROM [mgnl:page] WHERE rank > $rank", 1L, 1));
+        assertEquals(1, _cache.getHitCount());
+        assertEquals(3, _cache.getMissCount());
+        assertEquals(0.25, _cache.getHitRate());
+        assertEquals(3, _cache.getEntryCount());
+
+        _cache.clear();
+        assertEquals(0, _cache.getEntryCount());
+        assertEquals(0, _cache.getMissCount());
+        assertEquals(0.0, _cache.getHitRate());
+    }
+
+    @Test
+    public void workspaceChangesInvalidateCache() throws RepositoryException {
+        assertEquals(2, execute("SELECT * FROM [mgnl:page]", null, -1).getNodes().getSize());
+        assertEquals(2, execute("SELECT * FROM [mgnl:page]", null, -1).getNodes().getSize());
+        assertEquals(1, _cache.getHitCount());
+
+        Node about = mockNode("/home/about", stubType("mgnl:page"));
+        assertEquals(3, execute("SELECT * FROM [mgnl:page]", null, -1).getNodes().getSize());
+        assertEquals(1, _cache.getInvalidationCount());
+
+        about.remove();
+        assertEquals(2, execute("SELECT * FROM [mgnl:page]", null, -1).getNodes().getSize());
+        assertEquals(2, _cache.getInvalidationCount());
+        assertEquals(1, _cache.getHitCount());
+        assertEquals(3, _cache.getMissCount());
+    }
+
+    @Test
+    public void resultsAreCachedPerWorkspace() throws RepositoryException {
+        mockNode("dam", "/asset", stubType("mgnl:page"));
+        QueryManager damQueryManager = QueryMockUtils.mockEvaluatingQueryManager("dam", _cache);
+        QueryResult website = execute("SELECT * FROM [mgnl:page]", null, -1);
+        QueryResult dam = damQueryManager.createQuery("SELECT * FROM [mgnl:page]", Query.JCR_SQL2).execute();
+        assertNotSame(website, dam);
+        assertEquals(2, website.getNodes().getSize());
+        assertEquals(1, dam.getNodes().getSize());
+        assertEquals(2, _cache.getMissCount());
+
+        mockNode("dam", "/other", stubType("mgnl:page"));
+        assertSame(website, execute("SELECT * FROM [mgnl:page]", null, -1));
+        assertEquals(2, damQueryManager.createQuery("SELECT * FROM [mgnl:page]", Query.JCR_SQL2).execute().getNodes().getSize());
+        assertEquals(1, _cache.getHitCount());
+        assertEquals(1, _cache.getInvalidationCount());
+    }
+
+    private QueryResult execute(String statement, Long rank, long limit) throws RepositoryException {
+        Query query = _queryManager.createQuery(statement, Query.JCR_SQL2);
+        if (rank != null) {
+            query.bindValue("rank", mockValue(rank));
+        }
+        if (limit >= 0) {
+            query.setLimit(limit);
+        }
+        return query.execute();
+    }
+}